@@ -26,4 +26,6 @@ const val druidVersion = "1.2.10" // druid Version
 const val mysqlVersion = "8.0.29" // mysql Version
 const val asmVersion = "7.1"  // asm Version
 const val commonCompressVersion = "1.22"  // common Compress for JarCopy
-const val shadowJarVersion = "6.1.0"  // shadowJar Version
\ No newline at end of file
+const val shadowJarVersion = "6.1.0"  // shadowJar Version
+const val jmhCoreVersion = "1.36"  // jmh Version
+const val jmhPluginVersion = "0.6.8"  // jmh Gradle Plugin Version
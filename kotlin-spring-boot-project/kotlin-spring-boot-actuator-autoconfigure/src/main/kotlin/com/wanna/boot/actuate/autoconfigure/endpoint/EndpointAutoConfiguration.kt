@@ -0,0 +1,32 @@
+package com.wanna.boot.actuate.autoconfigure.endpoint
+
+import com.wanna.boot.actuate.endpoint.invoke.cache.CachingOperationInvokerAdvisor
+import com.wanna.boot.autoconfigure.condition.ConditionalOnMissingBean
+import com.wanna.framework.context.annotation.Bean
+import com.wanna.framework.context.annotation.Configuration
+import com.wanna.framework.core.environment.Environment
+
+/**
+ * Endpoint的通用的自动配置类
+ *
+ * * 1.自动装配[CachingOperationInvokerAdvisor], 支持通过"management.endpoint.{id}.cache.time-to-live"去为某个Endpoint的READ操作开启结果缓存
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/7
+ */
+@Configuration(proxyBeanMethods = false)
+open class EndpointAutoConfiguration {
+
+    /**
+     * 给SpringBeanFactory当中去装配一个[CachingOperationInvokerAdvisor], 为配置了缓存存活时间的Endpoint的READ操作添加结果缓存
+     *
+     * @param environment Environment
+     * @return CachingOperationInvokerAdvisor
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    open fun endpointCachingOperationInvokerAdvisor(environment: Environment): CachingOperationInvokerAdvisor {
+        return CachingOperationInvokerAdvisor(EndpointIdTimeToLivePropertyFunction(environment))
+    }
+}
@@ -0,0 +1,55 @@
+package com.wanna.boot.actuate.autoconfigure.endpoint
+
+import com.wanna.boot.actuate.endpoint.EndpointId
+import com.wanna.framework.core.environment.Environment
+import com.wanna.framework.lang.Nullable
+import java.util.concurrent.TimeUnit
+import java.util.function.Function
+
+/**
+ * 从[Environment]当中去获取某个Endpoint的结果缓存的存活时间的函数, 对应的配置项为"management.endpoint.{id}.cache.time-to-live";
+ * 配置的值可以是毫秒数(例如"5000"), 也可以带上时间单位(支持"ms"/"s"/"m"/"h", 例如"10s")
+ *
+ * @param environment Environment
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/7
+ */
+class EndpointIdTimeToLivePropertyFunction(private val environment: Environment) : Function<EndpointId, Long?> {
+
+    companion object {
+
+        /**
+         * 缓存的存活时间的配置项的格式
+         */
+        private const val PROPERTY_FORMAT = "management.endpoint.%s.cache.time-to-live"
+    }
+
+    @Nullable
+    override fun apply(endpointId: EndpointId): Long? {
+        val value = environment.getProperty(String.format(PROPERTY_FORMAT, endpointId.value)) ?: return null
+        return parseMillis(value.trim())
+    }
+
+    /**
+     * 将配置的时间转换为毫秒数
+     *
+     * @param value 配置的时间
+     * @return 毫秒数
+     */
+    private fun parseMillis(value: String): Long {
+        val lowerCase = value.lowercase()
+        try {
+            return when {
+                lowerCase.endsWith("ms") -> lowerCase.dropLast(2).trim().toLong()
+                lowerCase.endsWith("s") -> TimeUnit.SECONDS.toMillis(lowerCase.dropLast(1).trim().toLong())
+                lowerCase.endsWith("m") -> TimeUnit.MINUTES.toMillis(lowerCase.dropLast(1).trim().toLong())
+                lowerCase.endsWith("h") -> TimeUnit.HOURS.toMillis(lowerCase.dropLast(1).trim().toLong())
+                else -> lowerCase.toLong()
+            }
+        } catch (ex: NumberFormatException) {
+            throw IllegalStateException("不合法的缓存存活时间[$value]", ex)
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.wanna.boot.actuate.autoconfigure.endpoint.web
 
 import com.wanna.boot.actuate.endpoint.annotation.WebEndpointDiscoverer
+import com.wanna.boot.actuate.endpoint.invoke.OperationInvokerAdvisor
 import com.wanna.boot.actuate.endpoint.web.annotation.ControllerEndpointDiscoverer
 import com.wanna.boot.context.properties.EnableConfigurationProperties
 import com.wanna.framework.context.ApplicationContext
+import com.wanna.framework.context.annotation.Autowired
 import com.wanna.framework.context.annotation.Bean
 import com.wanna.framework.context.annotation.Configuration
 
@@ -20,11 +22,15 @@ open class WebEndpointAutoConfiguration {
      * 提供Web的Endpoint的Supplier, 负责扫描所有的`@Endpoint`注解当中的Operation方法作为Handler方法
      *
      * @param applicationContext 要去暴露Endpoint的ApplicationContext
+     * @param invokerAdvisors 对Operation的Invoker去进行增强的Advisor列表
      * @return WebEndpointDiscoverer
      */
     @Bean
-    open fun webEndpointDiscoverer(applicationContext: ApplicationContext): WebEndpointDiscoverer {
-        return WebEndpointDiscoverer(applicationContext)
+    open fun webEndpointDiscoverer(
+        applicationContext: ApplicationContext,
+        @Autowired(required = false) invokerAdvisors: List<OperationInvokerAdvisor>
+    ): WebEndpointDiscoverer {
+        return WebEndpointDiscoverer(applicationContext, invokerAdvisors)
     }
 
     /**
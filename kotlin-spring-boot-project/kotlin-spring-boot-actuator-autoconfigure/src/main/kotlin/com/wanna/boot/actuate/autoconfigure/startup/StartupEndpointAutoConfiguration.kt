@@ -0,0 +1,44 @@
+package com.wanna.boot.actuate.autoconfigure.startup
+
+import com.wanna.boot.actuate.startup.StartupEndpoint
+import com.wanna.boot.autoconfigure.condition.ConditionOutcome
+import com.wanna.boot.autoconfigure.condition.ConditionalOnMissingBean
+import com.wanna.boot.autoconfigure.condition.SpringBootCondition
+import com.wanna.boot.context.metrics.buffering.BufferingApplicationStartup
+import com.wanna.framework.context.annotation.Bean
+import com.wanna.framework.context.annotation.ConditionContext
+import com.wanna.framework.context.annotation.Conditional
+import com.wanna.framework.context.annotation.Configuration
+import com.wanna.framework.core.type.AnnotatedTypeMetadata
+
+/**
+ * 启动过程的时间线的Endpoint的自动配置类, 只有在SpringApplication使用的是[BufferingApplicationStartup]时才会生效
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ *
+ * @see StartupEndpoint
+ */
+@Conditional(StartupEndpointAutoConfiguration.ApplicationStartupCondition::class)
+@Configuration(proxyBeanMethods = false)
+open class StartupEndpointAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    open fun startupEndpoint(applicationStartup: BufferingApplicationStartup): StartupEndpoint =
+        StartupEndpoint(applicationStartup)
+
+    /**
+     * 检查BeanFactory当中的ApplicationStartup是否是[BufferingApplicationStartup]的Condition
+     */
+    class ApplicationStartupCondition : SpringBootCondition() {
+        override fun getConditionOutcome(context: ConditionContext, metadata: AnnotatedTypeMetadata): ConditionOutcome {
+            val applicationStartup = context.getBeanFactory()?.getApplicationStartup()
+            if (applicationStartup is BufferingApplicationStartup) {
+                return ConditionOutcome.match("ApplicationStartup为BufferingApplicationStartup")
+            }
+            return ConditionOutcome.noMatch("ApplicationStartup不是BufferingApplicationStartup")
+        }
+    }
+}
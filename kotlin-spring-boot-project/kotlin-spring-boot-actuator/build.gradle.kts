@@ -1,3 +1,7 @@
+plugins {
+    id("me.champeau.jmh") version (jmhPluginVersion)
+}
+
 
 dependencies {
     implementation(project(":kotlin-spring-framework-project:kotlin-spring-core"))
@@ -22,4 +26,9 @@ dependencies {
     testImplementation(project(":kotlin-spring-framework-project:kotlin-spring-web"))
     testImplementation("io.netty:netty-codec-http:$nettyVersion")
     testImplementation("org.aspectj:aspectjweaver:$aspectJVersion")
-}
\ No newline at end of file
+}
+
+// jmh benchmark, 使用"gradle jmh"去运行"src/jmh"下的Benchmark
+jmh {
+    jmhVersion.set(jmhCoreVersion)
+}
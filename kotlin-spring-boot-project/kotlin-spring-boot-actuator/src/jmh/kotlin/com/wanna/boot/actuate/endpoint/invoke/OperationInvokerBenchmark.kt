@@ -0,0 +1,66 @@
+package com.wanna.boot.actuate.endpoint.invoke
+
+import com.wanna.boot.actuate.endpoint.InvocationContext
+import com.wanna.boot.actuate.endpoint.OperationType
+import com.wanna.boot.actuate.endpoint.annotation.ReadOperation
+import com.wanna.boot.actuate.endpoint.annotation.Selector
+import com.wanna.boot.actuate.endpoint.invoke.cache.CachingOperationInvoker
+import com.wanna.boot.actuate.endpoint.invoke.reflect.MethodHandleOperationInvoker
+import com.wanna.boot.actuate.endpoint.invoke.reflect.OperationMethod
+import com.wanna.boot.actuate.endpoint.invoke.reflect.ReflectiveOperationInvoker
+import com.wanna.framework.lang.Nullable
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Endpoint的Operation方法的执行的Benchmark, 对比[ReflectiveOperationInvoker], 基于MethodHandle的[MethodHandleOperationInvoker],
+ * 以及带有结果缓存的[CachingOperationInvoker]的吞吐量
+ *
+ * 使用"gradle :kotlin-spring-boot-project:kotlin-spring-boot-actuator:jmh"去运行
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/7
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class OperationInvokerBenchmark {
+
+    private lateinit var reflectiveInvoker: OperationInvoker
+
+    private lateinit var methodHandleInvoker: OperationInvoker
+
+    private lateinit var cachingInvoker: OperationInvoker
+
+    private val context = InvocationContext(mapOf("name" to "jvm.memory.used", "limit" to "10"))
+
+    @Setup
+    fun setup() {
+        val endpoint = SampleEndpoint()
+        val operationMethod = OperationMethod(
+            OperationType.READ, SampleEndpoint::class.java.getMethod("metric", String::class.java, Int::class.javaObjectType)
+        )
+        reflectiveInvoker = ReflectiveOperationInvoker(endpoint, operationMethod)
+        methodHandleInvoker = MethodHandleOperationInvoker(endpoint, operationMethod)
+        cachingInvoker = CachingOperationInvoker(methodHandleInvoker, 1000L)
+    }
+
+    @Benchmark
+    fun reflective(): Any? = reflectiveInvoker.invoke(context)
+
+    @Benchmark
+    fun methodHandle(): Any? = methodHandleInvoker.invoke(context)
+
+    @Benchmark
+    fun caching(): Any? = cachingInvoker.invoke(context)
+
+    class SampleEndpoint {
+        @ReadOperation
+        fun metric(@Selector name: String, @Nullable limit: Int?): Map<String, Any> =
+            mapOf("name" to name, "limit" to (limit ?: -1))
+    }
+}
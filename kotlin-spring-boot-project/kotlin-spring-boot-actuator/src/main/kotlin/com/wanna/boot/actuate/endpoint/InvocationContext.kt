@@ -8,4 +8,5 @@ package com.wanna.boot.actuate.endpoint
 open class InvocationContext(private val arguments: Map<String, Any>) {
     open fun getArgument(name: String): Any? = arguments[name]
     open fun containsArgument(name: String): Boolean = arguments.containsKey(name)
+    open fun getArguments(): Map<String, Any> = arguments
 }
\ No newline at end of file
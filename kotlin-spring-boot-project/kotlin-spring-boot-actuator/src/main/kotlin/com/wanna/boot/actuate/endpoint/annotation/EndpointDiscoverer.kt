@@ -3,7 +3,8 @@ package com.wanna.boot.actuate.endpoint.annotation
 import com.wanna.boot.actuate.endpoint.*
 import com.wanna.boot.actuate.endpoint.invoke.OperationInvoker
 import com.wanna.boot.actuate.endpoint.invoke.reflect.OperationMethod
-import com.wanna.boot.actuate.endpoint.invoke.reflect.ReflectiveOperationInvoker
+import com.wanna.boot.actuate.endpoint.invoke.OperationInvokerAdvisor
+import com.wanna.boot.actuate.endpoint.invoke.reflect.MethodHandleOperationInvoker
 import com.wanna.framework.beans.factory.support.definition.RootBeanDefinition
 import com.wanna.framework.context.ApplicationContext
 import com.wanna.framework.context.ConfigurableApplicationContext
@@ -16,9 +17,12 @@ import java.util.function.Supplier
  * Endpoint的Discovery, 负责提供SpringBeanFactory当中的标注了@Endpoint注解的Bean的匹配, 并暴露给使用则
  *
  * @param applicationContext ApplicationContext, 要去寻找EndpointBean的ApplicationContext
+ * @param invokerAdvisors 对Operation的Invoker去进行增强的Advisor列表(例如添加结果缓存)
  */
-abstract class EndpointDiscoverer<E : ExposableEndpoint<O>, O : Operation>(private val applicationContext: ApplicationContext) :
-    EndpointsSupplier<E> {
+abstract class EndpointDiscoverer<E : ExposableEndpoint<O>, O : Operation>(
+    private val applicationContext: ApplicationContext,
+    private val invokerAdvisors: Collection<OperationInvokerAdvisor> = emptyList()
+) : EndpointsSupplier<E> {
 
     companion object {
         private val OPERATION_TYPES: Map<OperationType, Class<out Annotation>> = mapOf(
@@ -74,11 +78,8 @@ abstract class EndpointDiscoverer<E : ExposableEndpoint<O>, O : Operation>(priva
                         .map {
                             val operationMethod =
                                 OperationMethod(OPERATION_TYPES_REVERSE[it.annotationClass.java]!!, method)
-                            createOperation(
-                                endpointBean.getId(),
-                                operationMethod,
-                                ReflectiveOperationInvoker(endpointBean.getBean(), operationMethod)
-                            )
+                            val invoker = createOperationInvoker(endpointBean.getId(), endpointBean.getBean(), operationMethod)
+                            createOperation(endpointBean.getId(), operationMethod, invoker)
                         }.forEach(operations::add)
                 }
                 // 根据EndpointBean和Operation列表, 去转换成为Endpoint
@@ -87,6 +88,26 @@ abstract class EndpointDiscoverer<E : ExposableEndpoint<O>, O : Operation>(priva
         }.toList()
     }
 
+    /**
+     * 为Operation方法去创建Invoker, 默认使用基于MethodHandle的Invoker, 并应用所有的[OperationInvokerAdvisor]去进行增强
+     *
+     * @param endpointId endpointId
+     * @param target EndpointBean
+     * @param operationMethod OperationType and Method
+     * @return 执行该Operation方法的Invoker
+     */
+    protected open fun createOperationInvoker(
+        endpointId: EndpointId,
+        target: Any,
+        operationMethod: OperationMethod
+    ): OperationInvoker {
+        var invoker: OperationInvoker = MethodHandleOperationInvoker(target, operationMethod)
+        for (advisor in invokerAdvisors) {
+            invoker = advisor.apply(endpointId, operationMethod.operationType, operationMethod.parameters, invoker)
+        }
+        return invoker
+    }
+
     /**
      * 创建一个Endpoint的逻辑, 因为泛型的类型是交给子类去进行决定的, 因此创建的逻辑, 也得交给子类去进行实现
      *
@@ -3,6 +3,7 @@ package com.wanna.boot.actuate.endpoint.annotation
 import com.wanna.boot.actuate.endpoint.EndpointId
 import com.wanna.boot.actuate.endpoint.OperationType
 import com.wanna.boot.actuate.endpoint.invoke.OperationInvoker
+import com.wanna.boot.actuate.endpoint.invoke.OperationInvokerAdvisor
 import com.wanna.boot.actuate.endpoint.invoke.reflect.OperationMethod
 import com.wanna.boot.actuate.endpoint.web.*
 import com.wanna.boot.actuate.endpoint.web.annotation.DiscoveredWebEndpoint
@@ -12,10 +13,15 @@ import com.wanna.framework.context.ApplicationContext
 /**
  * Web的Endpoint的发现器, 提供@Endpoint注解的匹配
  *
+ * @param applicationContext ApplicationContext
+ * @param invokerAdvisors 对Operation的Invoker去进行增强的Advisor列表
+ *
  * @see WebEndpointsSupplier
  */
-open class WebEndpointDiscoverer(applicationContext: ApplicationContext) :
-    EndpointDiscoverer<ExposableWebEndpoint, WebOperation>(applicationContext), WebEndpointsSupplier {
+open class WebEndpointDiscoverer @JvmOverloads constructor(
+    applicationContext: ApplicationContext,
+    invokerAdvisors: Collection<OperationInvokerAdvisor> = emptyList()
+) : EndpointDiscoverer<ExposableWebEndpoint, WebOperation>(applicationContext, invokerAdvisors), WebEndpointsSupplier {
 
     /**
      * 告诉父类, 我应该如何去创建一个Endpoint
@@ -0,0 +1,32 @@
+package com.wanna.boot.actuate.endpoint.invoke
+
+import com.wanna.boot.actuate.endpoint.EndpointId
+import com.wanna.boot.actuate.endpoint.OperationType
+
+/**
+ * [OperationInvoker]的增强器, 在Endpoint的Operation被发现时, 允许对执行目标Operation方法的Invoker去进行包装(例如添加结果缓存)
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/7
+ *
+ * @see com.wanna.boot.actuate.endpoint.invoke.cache.CachingOperationInvokerAdvisor
+ */
+fun interface OperationInvokerAdvisor {
+
+    /**
+     * 对给定的Operation的Invoker去进行增强
+     *
+     * @param endpointId endpointId
+     * @param operationType OperationType
+     * @param parameters Operation方法的参数列表
+     * @param invoker 原始的Invoker
+     * @return 增强之后的Invoker(如果不需要增强, 那么直接返回原始的Invoker)
+     */
+    fun apply(
+        endpointId: EndpointId,
+        operationType: OperationType,
+        parameters: OperationParameters,
+        invoker: OperationInvoker
+    ): OperationInvoker
+}
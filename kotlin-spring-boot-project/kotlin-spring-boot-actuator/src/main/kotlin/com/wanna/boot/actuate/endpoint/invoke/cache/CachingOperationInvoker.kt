@@ -0,0 +1,95 @@
+package com.wanna.boot.actuate.endpoint.invoke.cache
+
+import com.wanna.boot.actuate.endpoint.InvocationContext
+import com.wanna.boot.actuate.endpoint.invoke.OperationInvoker
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.ConcurrentLruCache
+
+/**
+ * 带有结果缓存的[OperationInvoker], 对于相同的参数, 在timeToLive之内的调用直接返回之前的执行结果, 不去执行目标Operation方法;
+ * 适用于被监控系统频繁拉取的只读的Endpoint(例如metrics/loggers)
+ *
+ * 不同参数的缓存使用LRU的方式去进行淘汰; 对于同一个参数, 缓存过期时只会有一个线程去执行目标方法, 其余的线程等待它的执行结果
+ *
+ * @param invoker 委托的Invoker
+ * @param timeToLive 缓存的存活时间(毫秒)
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/7
+ */
+open class CachingOperationInvoker(private val invoker: OperationInvoker, private val timeToLive: Long) :
+    OperationInvoker {
+
+    companion object {
+
+        /**
+         * 最多缓存多少种不同的参数的结果, 超过该数量时淘汰最久没有被访问的参数的结果, 避免参数无限增长时出现内存泄漏
+         */
+        private const val MAX_CACHED_ENTRIES = 128
+    }
+
+    /**
+     * 执行结果的缓存, key-本次调用的参数列表, value-该参数对应的缓存项
+     */
+    private val cachedResponses = ConcurrentLruCache<Map<String, Any?>, CacheEntry>(MAX_CACHED_ENTRIES) { CacheEntry() }
+
+    init {
+        require(timeToLive > 0) { "TimeToLive必须大于0" }
+    }
+
+    /**
+     * 获取缓存的存活时间
+     *
+     * @return timeToLive(毫秒)
+     */
+    open fun getTimeToLive(): Long = this.timeToLive
+
+    override fun invoke(context: InvocationContext): Any? {
+        return cachedResponses[context.getArguments()].get(context)
+    }
+
+    override fun toString(): String = "CachingOperationInvoker(invoker=$invoker, timeToLive=$timeToLive)"
+
+    /**
+     * 一种参数的缓存项, 缓存过期时, 只会有一个线程去重新执行目标方法
+     */
+    private inner class CacheEntry {
+
+        /**
+         * 当前缓存的执行结果, 为null代表还没有执行过
+         */
+        @Volatile
+        @Nullable
+        private var cached: CachedResponse? = null
+
+        @Nullable
+        fun get(context: InvocationContext): Any? {
+            val cached = this.cached
+            if (cached != null && !cached.isStale(System.currentTimeMillis(), timeToLive)) {
+                return cached.response
+            }
+            synchronized(this) {
+                // 加锁之后重新检查, 别的线程可能已经完成了重新执行
+                val current = this.cached
+                val accessTime = System.currentTimeMillis()
+                if (current != null && !current.isStale(accessTime, timeToLive)) {
+                    return current.response
+                }
+                val response = invoker.invoke(context)
+                this.cached = CachedResponse(response, accessTime)
+                return response
+            }
+        }
+    }
+
+    /**
+     * 被缓存起来的执行结果
+     *
+     * @param response 执行结果
+     * @param creationTime 缓存的创建时间
+     */
+    private class CachedResponse(@Nullable val response: Any?, private val creationTime: Long) {
+        fun isStale(accessTime: Long, timeToLive: Long): Boolean = (accessTime - creationTime) >= timeToLive
+    }
+}
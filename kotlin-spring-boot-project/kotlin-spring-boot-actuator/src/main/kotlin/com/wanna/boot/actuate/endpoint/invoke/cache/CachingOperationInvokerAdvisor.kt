@@ -0,0 +1,38 @@
+package com.wanna.boot.actuate.endpoint.invoke.cache
+
+import com.wanna.boot.actuate.endpoint.EndpointId
+import com.wanna.boot.actuate.endpoint.OperationType
+import com.wanna.boot.actuate.endpoint.invoke.OperationInvoker
+import com.wanna.boot.actuate.endpoint.invoke.OperationInvokerAdvisor
+import com.wanna.boot.actuate.endpoint.invoke.OperationParameters
+import java.util.function.Function
+
+/**
+ * 为READ类型的Operation去添加结果缓存的[OperationInvokerAdvisor], 每个Endpoint的缓存的存活时间由endpointIdTimeToLive去进行决定
+ *
+ * @param endpointIdTimeToLive 根据EndpointId去获取该Endpoint的缓存的存活时间(毫秒)的函数, 返回null或者<=0代表不使用缓存
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/7
+ */
+open class CachingOperationInvokerAdvisor(private val endpointIdTimeToLive: Function<EndpointId, Long?>) :
+    OperationInvokerAdvisor {
+
+    override fun apply(
+        endpointId: EndpointId,
+        operationType: OperationType,
+        parameters: OperationParameters,
+        invoker: OperationInvoker
+    ): OperationInvoker {
+        // 只有READ类型的Operation才能去进行缓存
+        if (operationType != OperationType.READ) {
+            return invoker
+        }
+        val timeToLive = endpointIdTimeToLive.apply(endpointId)
+        if (timeToLive != null && timeToLive > 0) {
+            return CachingOperationInvoker(invoker, timeToLive)
+        }
+        return invoker
+    }
+}
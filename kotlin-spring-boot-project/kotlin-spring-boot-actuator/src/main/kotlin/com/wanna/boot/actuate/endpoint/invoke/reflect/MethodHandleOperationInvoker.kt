@@ -0,0 +1,150 @@
+package com.wanna.boot.actuate.endpoint.invoke.reflect
+
+import com.wanna.boot.actuate.endpoint.InvocationContext
+import com.wanna.boot.actuate.endpoint.invoke.MissingParametersException
+import com.wanna.boot.actuate.endpoint.invoke.OperationInvoker
+import com.wanna.boot.actuate.endpoint.invoke.OperationParameter
+import com.wanna.framework.core.convert.ConversionService
+import com.wanna.framework.core.convert.TypeDescriptor
+import com.wanna.framework.core.convert.support.DefaultConversionService
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.ClassUtils
+import com.wanna.framework.util.ReflectionUtils
+import java.lang.invoke.MethodHandle
+import java.lang.invoke.MethodHandles
+import java.lang.invoke.MethodType
+
+/**
+ * 基于[MethodHandle]去执行目标Operation方法的Invoker, 相比[ReflectiveOperationInvoker]:
+ *
+ * * 1.在创建Invoker时就预先计算好方法参数的绑定计划([ParameterBinding]), 包括参数名/是否是必须的/目标类型的[TypeDescriptor];
+ * * 2.对于已经是目标类型的参数值, 直接跳过类型转换; 需要转换的参数, 使用预先构建好的[TypeDescriptor]去进行转换;
+ * * 3.使用已经绑定好target的[MethodHandle]去执行目标方法, 而不是每次都去走反射
+ *
+ * @param target 执行目标方法的target对象(EndpointBean)
+ * @param operationMethod OperationType and TargetMethod
+ * @param conversionService 完成参数类型转换的ConversionService
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/7
+ */
+open class MethodHandleOperationInvoker @JvmOverloads constructor(
+    target: Any,
+    private val operationMethod: OperationMethod,
+    private val conversionService: ConversionService = DefaultConversionService.getSharedInstance()
+) : OperationInvoker {
+
+    /**
+     * 方法参数的绑定计划
+     */
+    private val bindings: Array<ParameterBinding> =
+        operationMethod.parameters.map { ParameterBinding(it) }.toTypedArray()
+
+    /**
+     * 已经绑定好target的MethodHandle, 类型为(Object[])Object
+     */
+    private val methodHandle: MethodHandle = createMethodHandle(target, operationMethod)
+
+    /**
+     * 解析目标方法的参数, 并使用MethodHandle去执行目标Operation方法
+     *
+     * @param context 执行目标方法需要用到的Context信息, 维护了执行该方法需要用到的参数列表
+     * @return 执行Operation方法的返回值
+     * @throws MissingParametersException 如果出现了某些必要的参数, 没有给出的话
+     */
+    @Throws(MissingParametersException::class)
+    override fun invoke(context: InvocationContext): Any? {
+        val args = arrayOfNulls<Any>(bindings.size)
+        var missing: MutableList<OperationParameter>? = null
+        for (index in bindings.indices) {
+            val binding = bindings[index]
+            val value = context.getArgument(binding.name)
+            if (value == null) {
+                if (binding.mandatory && !context.containsArgument(binding.name)) {
+                    if (missing == null) {
+                        missing = ArrayList(1)
+                    }
+                    missing.add(binding.parameter)
+                }
+                continue
+            }
+            args[index] = binding.convert(value)
+        }
+        if (missing != null) {
+            throw MissingParametersException(missing)
+        }
+        return doInvoke(args)
+    }
+
+    /**
+     * 使用MethodHandle去执行目标方法, 对于目标方法抛出的异常, 直接原样抛出
+     *
+     * @param args 已经完成解析的方法参数
+     * @return 目标方法的返回值
+     */
+    @Nullable
+    protected open fun doInvoke(args: Array<Any?>): Any? {
+        return methodHandle.invokeExact(args)
+    }
+
+    /**
+     * 为目标方法去创建一个已经绑定好target并且类型被适配为(Object[])Object的MethodHandle
+     *
+     * @param target target
+     * @param operationMethod OperationMethod
+     * @return MethodHandle
+     */
+    private fun createMethodHandle(target: Any, operationMethod: OperationMethod): MethodHandle {
+        val method = operationMethod.method
+        ReflectionUtils.makeAccessible(method)
+        return MethodHandles.lookup().unreflect(method)
+            .bindTo(target)
+            .asSpreader(Array<Any?>::class.java, method.parameterCount)
+            .asType(MethodType.methodType(Any::class.java, Array<Any?>::class.java))
+    }
+
+    override fun toString(): String = "MethodHandleOperationInvoker(method=${operationMethod.method.toGenericString()})"
+
+    /**
+     * 一个方法参数的绑定信息, 在创建Invoker时就已经完成计算
+     *
+     * @param parameter 方法参数
+     */
+    private inner class ParameterBinding(val parameter: OperationParameter) {
+
+        /**
+         * 参数名
+         */
+        val name: String = parameter.getName()
+
+        /**
+         * 该参数是否是必须的?
+         */
+        val mandatory: Boolean = parameter.isMandatory()
+
+        /**
+         * 参数的类型(基础类型使用包装类型, 用于isInstance的检查)
+         */
+        private val type: Class<*> = ClassUtils.resolvePrimitiveIfNecessary(parameter.getType())
+
+        /**
+         * 参数类型的TypeDescriptor, 避免每次转换都去进行构建
+         */
+        private val typeDescriptor: TypeDescriptor = TypeDescriptor.forClass(parameter.getType())
+
+        /**
+         * 将参数值转换为参数的类型, 如果参数值已经是目标类型了, 那么直接跳过类型转换
+         *
+         * @param value 参数值
+         * @return 转换之后的参数值
+         */
+        @Nullable
+        fun convert(value: Any): Any? {
+            if (type.isInstance(value)) {
+                return value
+            }
+            return conversionService.convert(value, typeDescriptor)
+        }
+    }
+}
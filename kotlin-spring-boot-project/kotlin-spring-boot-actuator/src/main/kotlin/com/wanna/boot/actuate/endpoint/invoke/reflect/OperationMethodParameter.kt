@@ -20,6 +20,19 @@ open class OperationMethodParameter(private val name: String, private val parame
         private val jsr305Present = ClassUtils.isPresent("javax.annotation.Nonnull")
     }
 
+    /**
+     * 该参数是否是强制的, 需要去进行注解的检查, 因此只在第一次使用时去进行计算
+     */
+    private val mandatory: Boolean by lazy(LazyThreadSafetyMode.PUBLICATION) {
+        // 如果标注了@Nullable, 那么return false, 不是为强制为空的
+        if (parameter.getAnnotation(Nullable::class.java) != null) {
+            false
+        } else {
+            // 检查Jsr305的@Nonnull注解
+            if (jsr305Present) Jsr305(parameter).isMandatory() else true
+        }
+    }
+
     override fun getName() = this.name
 
     override fun getType() = this.parameter.type
@@ -28,14 +41,7 @@ open class OperationMethodParameter(private val name: String, private val parame
      * 判断该属性是否是强制的? 如果是强制的, 那么return true;
      * 对于一个强制的方法参数, 如果用户很可能没给的话, 那么很可能会丢出异常
      */
-    override fun isMandatory(): Boolean {
-        // 如果标注了@Nullable, 那么return false, 不是为强制为空的
-        if (parameter.getAnnotation(Nullable::class.java) != null) {
-            return false
-        }
-        // 检查Jsr305的@Nonnull注解
-        return if (jsr305Present) Jsr305(parameter).isMandatory() else true
-    }
+    override fun isMandatory(): Boolean = this.mandatory
 
     override fun toString() = "name='$name', parameterType=${parameter.type}"
 
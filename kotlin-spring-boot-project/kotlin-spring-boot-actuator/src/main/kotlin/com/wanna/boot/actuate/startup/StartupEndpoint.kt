@@ -0,0 +1,75 @@
+package com.wanna.boot.actuate.startup
+
+import com.wanna.boot.actuate.endpoint.annotation.Endpoint
+import com.wanna.boot.actuate.endpoint.annotation.ReadOperation
+import com.wanna.boot.context.metrics.buffering.BufferingApplicationStartup
+import com.wanna.boot.context.metrics.buffering.StartupTimeline
+import com.wanna.framework.lang.Nullable
+
+/**
+ * 将应用启动过程当中的各个步骤的时间线暴露给用户的Endpoint, 时间线当中的步骤按照耗时从高到低去进行排序,
+ * 方便去定位启动过程当中耗时最多的Bean的创建/配置类的解析/刷新阶段等
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ *
+ * @param applicationStartup 记录启动过程的步骤的BufferingApplicationStartup
+ */
+@Endpoint("startup")
+open class StartupEndpoint(private val applicationStartup: BufferingApplicationStartup) {
+
+    /**
+     * 获取启动过程当中的步骤的时间线(按照耗时从高到低去进行排序)
+     *
+     * @return StartupDescriptor
+     */
+    @ReadOperation
+    open fun startup(): StartupDescriptor {
+        val timeline = applicationStartup.getBufferedTimeline()
+        val events = timeline.events
+            .sortedByDescending { it.duration }
+            .map { TimelineEventDescriptor(it) }
+        return StartupDescriptor(timeline.startTime.toString(), timeline.dropped, events)
+    }
+
+    /**
+     * 启动过程的时间线的描述信息
+     *
+     * @param startTime 开始记录的时间
+     * @param dropped 因为缓冲区已满而被丢弃的步骤数量
+     * @param events 时间线当中的步骤列表(按照耗时从高到低去进行排序)
+     */
+    data class StartupDescriptor(val startTime: String, val dropped: Long, val events: List<TimelineEventDescriptor>)
+
+    /**
+     * 时间线当中的一个步骤的描述信息
+     *
+     * @param name stepName
+     * @param id stepId
+     * @param parentId 父步骤的id
+     * @param tags 步骤当中的Tag
+     * @param startTime 步骤的开始时间
+     * @param endTime 步骤的结束时间
+     * @param durationMillis 步骤的耗时(ms)
+     */
+    data class TimelineEventDescriptor(
+        val name: String,
+        val id: Long,
+        @Nullable val parentId: Long?,
+        val tags: Map<String, String>,
+        val startTime: String,
+        val endTime: String,
+        val durationMillis: Double
+    ) {
+        constructor(event: StartupTimeline.TimelineEvent) : this(
+            event.startupStep.getName(),
+            event.startupStep.getId(),
+            event.startupStep.getParentId(),
+            event.startupStep.getTags().associate { it.getKey() to it.getValue() },
+            event.startTime.toString(),
+            event.endTime.toString(),
+            event.duration.toNanos() / 1_000_000.0
+        )
+    }
+}
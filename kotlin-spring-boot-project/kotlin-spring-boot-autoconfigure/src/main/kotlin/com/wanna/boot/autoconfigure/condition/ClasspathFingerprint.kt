@@ -0,0 +1,119 @@
+package com.wanna.boot.autoconfigure.condition
+
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.ResourceUtils
+import java.io.File
+import java.net.URL
+import java.net.URLClassLoader
+import java.security.MessageDigest
+
+/**
+ * 类路径的指纹, 用于判断两次启动之间, 应用的类路径是否发生了变化
+ *
+ * * 1.[location]只基于类路径当中的各个条目的路径去进行计算, 同一个应用(同样的类路径条目)每次启动得到的值都是相同的;
+ * * 2.[value]在路径的基础上, 还会包含每个条目的大小以及最后修改时间(对于目录, 则是目录下的文件数量以及最大的最后修改时间)和Java版本,
+ * 只要有任何一个Jar包/目录发生了变化, 得到的值都会不同.
+ *
+ * @param entries 类路径的条目(Jar包/目录)
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/9
+ *
+ * @see ConditionOutcomeCache
+ */
+class ClasspathFingerprint private constructor(val entries: List<File>) {
+
+    companion object {
+
+        /**
+         * 根据给定的ClassLoader去计算类路径的指纹, 会沿着ClassLoader的parent链去收集所有的类路径条目
+         *
+         * @param classLoader ClassLoader
+         * @return 类路径指纹(如果ClassLoader链当中存在有无法得知类路径的ClassLoader, 无法保证指纹的正确性, return null)
+         */
+        @Nullable
+        @JvmStatic
+        fun of(classLoader: ClassLoader): ClasspathFingerprint? {
+            val entries = LinkedHashSet<File>()
+            val systemClassLoader = ClassLoader.getSystemClassLoader()
+            var current: ClassLoader? = classLoader
+            while (current != null && current !== systemClassLoader.parent) {
+                if (current is URLClassLoader) {
+                    current.urLs.forEach { url -> toFile(url)?.let { entries += it } }
+                } else if (current === systemClassLoader) {
+                    System.getProperty("java.class.path").split(File.pathSeparator)
+                        .filter { it.isNotEmpty() }.forEach { entries += File(it).absoluteFile }
+                } else {
+                    return null
+                }
+                current = current.parent
+            }
+            return ClasspathFingerprint(entries.toList())
+        }
+
+        /**
+         * 将类路径的URL转换为本地的文件, 对于"jar:file:/app.jar!/BOOT-INF/lib/a.jar!/"这样的嵌套Jar包, 使用最外层的Jar包
+         *
+         * @param url URL
+         * @return 本地文件(如果不是本地文件的话, return null)
+         */
+        @Nullable
+        @JvmStatic
+        private fun toFile(url: URL): File? {
+            var location = url.toString()
+            if (location.startsWith(ResourceUtils.JAR_URL_PREFIX)) {
+                location = location.substring(ResourceUtils.JAR_URL_PREFIX.length)
+                val separatorIndex = location.indexOf(ResourceUtils.JAR_URL_SEPARATOR)
+                if (separatorIndex != -1) {
+                    location = location.substring(0, separatorIndex)
+                }
+            }
+            if (!location.startsWith(ResourceUtils.FILE_URL_PREFIX)) {
+                return null
+            }
+            return File(ResourceUtils.toURI(location)).absoluteFile
+        }
+
+        /**
+         * 将给定的内容使用SHA-256去计算摘要, 并转换为16进制的字符串
+         *
+         * @param content 内容
+         * @return 摘要
+         */
+        @JvmStatic
+        private fun digest(content: String): String {
+            val digest = MessageDigest.getInstance("SHA-256").digest(content.toByteArray())
+            return digest.joinToString("") { String.format("%02x", it) }
+        }
+    }
+
+    /**
+     * 只基于类路径的条目的路径去计算得到的摘要, 可以用来区分不同的应用
+     */
+    val location: String by lazy { digest(entries.joinToString(File.pathSeparator)) }
+
+    /**
+     * 基于类路径的条目的路径/大小/最后修改时间, 以及Java版本去计算得到的摘要
+     */
+    val value: String by lazy {
+        val builder = StringBuilder(System.getProperty("java.version"))
+        for (entry in entries) {
+            builder.append('\n').append(entry.path)
+            if (entry.isDirectory) {
+                var count = 0
+                var lastModified = entry.lastModified()
+                entry.walkTopDown().forEach {
+                    count++
+                    lastModified = maxOf(lastModified, it.lastModified())
+                }
+                builder.append('|').append(count).append('|').append(lastModified)
+            } else {
+                builder.append('|').append(entry.length()).append('|').append(entry.lastModified())
+            }
+        }
+        digest(builder.toString())
+    }
+
+    override fun toString(): String = "ClasspathFingerprint(entries=${entries.size}, value=$value)"
+}
@@ -0,0 +1,183 @@
+package com.wanna.boot.autoconfigure.condition
+
+import com.wanna.framework.lang.Nullable
+import com.wanna.common.logging.LoggerFactory
+import java.io.File
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.util.Properties
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 持久化到本地文件当中的[ConditionOutcome]的缓存, 只适用于匹配结果只取决于类路径的Condition(例如[OnClassCondition]),
+ * 对于同一个应用来说, 只要类路径没有发生变化, 那么每次启动时这些Condition的匹配结果都是相同的, 因此可以直接复用上次启动时的结果.
+ *
+ * 缓存文件当中会记录计算这些结果时的类路径指纹([ClasspathFingerprint.value]), 如果加载时发现指纹不一致(Jar包发生了变化),
+ * 那么之前的全部结果都会被丢弃
+ *
+ * @param file 缓存文件
+ * @param fingerprint 当前的类路径指纹
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/9
+ *
+ * @see ClasspathFingerprint
+ * @see FilteringSpringBootCondition.isClasspathOnly
+ */
+open class ConditionOutcomeCache(val file: File, val fingerprint: String) {
+
+    companion object {
+
+        /**
+         * 缓存文件当中, 存放类路径指纹的Key
+         */
+        const val FINGERPRINT_KEY = "fingerprint"
+
+        /**
+         * 匹配成功的结果的标识
+         */
+        private const val MATCH = "match"
+
+        /**
+         * 匹配失败的结果的标识
+         */
+        private const val NO_MATCH = "noMatch"
+
+        /**
+         * Logger
+         */
+        @JvmStatic
+        private val logger = LoggerFactory.getLogger(ConditionOutcomeCache::class.java)
+
+        /**
+         * 已经加载过的缓存, Key-缓存文件的路径, 保证同一个JVM当中多次启动应用(比如测试)时, 共享同一个缓存
+         */
+        @JvmStatic
+        private val caches = ConcurrentHashMap<String, ConditionOutcomeCache>()
+
+        /**
+         * 获取给定的目录下, 给定的ClassLoader的类路径对应的缓存
+         *
+         * @param directory 存放缓存文件的目录
+         * @param classLoader ClassLoader
+         * @return 缓存(如果无法计算ClassLoader的类路径指纹, return null)
+         */
+        @Nullable
+        @JvmStatic
+        fun get(directory: File, classLoader: ClassLoader): ConditionOutcomeCache? {
+            val fingerprint = ClasspathFingerprint.of(classLoader) ?: return null
+            val file = File(directory, "condition-outcomes-${fingerprint.location}.properties")
+            val cache = caches.compute(file.path) { _, cache ->
+                if (cache != null && cache.fingerprint == fingerprint.value) cache
+                else ConditionOutcomeCache(file, fingerprint.value)
+            }
+            return cache
+        }
+    }
+
+    /**
+     * 缓存的匹配结果, Key-"Condition的类名|配置类的类名", Value-匹配结果
+     */
+    private val outcomes = ConcurrentHashMap<String, ConditionOutcome>()
+
+    /**
+     * 是否存在有还没有写入到文件当中的结果?
+     */
+    @Volatile
+    private var dirty = false
+
+    init {
+        load()
+    }
+
+    /**
+     * 获取给定的Condition对于给定的配置类的缓存的匹配结果
+     *
+     * @param condition Condition的类名
+     * @param configurationClass 配置类的类名
+     * @return 缓存的匹配结果(没有缓存的话, return null)
+     */
+    @Nullable
+    open fun get(condition: String, configurationClass: String): ConditionOutcome? =
+        outcomes[getKey(condition, configurationClass)]
+
+    /**
+     * 将给定的Condition对于给定的配置类的匹配结果放入到缓存当中
+     *
+     * @param condition Condition的类名
+     * @param configurationClass 配置类的类名
+     * @param outcome 匹配结果
+     */
+    open fun put(condition: String, configurationClass: String, outcome: ConditionOutcome) {
+        if (outcomes.put(getKey(condition, configurationClass), outcome) == null) {
+            dirty = true
+        }
+    }
+
+    /**
+     * 获取缓存当中的结果的数量
+     *
+     * @return size
+     */
+    open fun size(): Int = outcomes.size
+
+    /**
+     * 如果存在有新增的结果, 那么将缓存写入到文件当中(先写临时文件, 再去进行原子替换, 避免并发启动的应用读取到不完整的文件)
+     */
+    @Synchronized
+    open fun save() {
+        if (!dirty) {
+            return
+        }
+        dirty = false
+        val properties = Properties()
+        properties[FINGERPRINT_KEY] = fingerprint
+        outcomes.forEach { (key, outcome) ->
+            properties[key] = if (outcome.match) MATCH else NO_MATCH + ":" + outcome.getMessageString()
+        }
+        try {
+            file.parentFile?.mkdirs()
+            val tempFile = File.createTempFile(file.name, ".tmp", file.parentFile)
+            tempFile.outputStream().use { properties.store(it, null) }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+        } catch (ex: IOException) {
+            logger.warn("Unable to write condition outcome cache [$file]", ex)
+        }
+    }
+
+    /**
+     * 从缓存文件当中去加载结果, 如果文件当中的类路径指纹和当前的不一致, 那么丢弃文件当中的全部结果
+     */
+    private fun load() {
+        if (!file.isFile) {
+            return
+        }
+        val properties = Properties()
+        try {
+            file.inputStream().use { properties.load(it) }
+        } catch (ex: IOException) {
+            logger.warn("Unable to read condition outcome cache [$file]", ex)
+            return
+        }
+        if (properties.getProperty(FINGERPRINT_KEY) != fingerprint) {
+            if (logger.isDebugEnabled) {
+                logger.debug("Classpath has changed, discard condition outcome cache [$file]")
+            }
+            return
+        }
+        properties.forEach { (key, value) ->
+            if (key != FINGERPRINT_KEY) {
+                val outcome = value.toString()
+                outcomes[key.toString()] =
+                    if (outcome == MATCH) ConditionOutcome.match()
+                    else ConditionOutcome.noMatch(outcome.substringAfter(':'))
+            }
+        }
+    }
+
+    private fun getKey(condition: String, configurationClass: String): String = "$condition|$configurationClass"
+
+    override fun toString(): String = "ConditionOutcomeCache(file=$file, size=${outcomes.size})"
+}
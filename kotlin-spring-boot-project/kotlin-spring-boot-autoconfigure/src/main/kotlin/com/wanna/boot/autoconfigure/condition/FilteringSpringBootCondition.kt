@@ -5,26 +5,59 @@ import com.wanna.boot.autoconfigure.AutoConfigurationMetadata
 import com.wanna.framework.beans.BeanFactoryAware
 import com.wanna.framework.beans.factory.BeanClassLoaderAware
 import com.wanna.framework.beans.factory.BeanFactory
+import com.wanna.framework.context.aware.EnvironmentAware
+import com.wanna.framework.core.environment.Environment
 import com.wanna.framework.lang.Nullable
 import com.wanna.framework.util.ClassUtils
+import java.io.File
 
 /**
  * 这是一个同时实现AutoConfigurationImportFilter和SpringBootCondition的一个SpringBootCondition;
  * 它新增了使用AutoConfigurationImportFilter的方式去对自动配置的配置类去进行过滤的方式, 它的实现方式包括OnBeanCondition/OnClassCondition等;
- * 它会在AutoConfigurationImportSelector当中被回调到, 去使用AutoConfigurationImportFilter的matches方式去进行回调
+ * 它会在AutoConfigurationImportSelector当中被回调到, 去使用AutoConfigurationImportFilter的matches方式去进行回调.
+ *
+ * 对于匹配结果只取决于类路径的Condition([isClasspathOnly]), 如果开启了"spring.autoconfigure.condition-cache.enabled",
+ * 那么匹配结果将会被持久化到[ConditionOutcomeCache]当中, 在下次启动时(类路径没有发生变化的情况下)直接复用, 只有缓存当中不存在的配置类才需要去进行匹配
  *
  * @see OnBeanCondition
  * @see OnClassCondition
  * @see com.wanna.boot.autoconfigure.AutoConfigurationImportSelector
+ * @see ConditionOutcomeCache
  */
 @Suppress("UNCHECKED_CAST")
 abstract class FilteringSpringBootCondition : SpringBootCondition(), AutoConfigurationImportFilter,
-    BeanClassLoaderAware, BeanFactoryAware {
+    BeanClassLoaderAware, BeanFactoryAware, EnvironmentAware {
+
+    companion object {
+
+        /**
+         * 是否开启Condition匹配结果的持久化缓存的属性名
+         */
+        const val CACHE_ENABLED_PROPERTY = "spring.autoconfigure.condition-cache.enabled"
+
+        /**
+         * 存放Condition匹配结果的缓存文件的目录的属性名(默认为"java.io.tmpdir"下的"kotlin-spring-boot"目录)
+         */
+        const val CACHE_LOCATION_PROPERTY = "spring.autoconfigure.condition-cache.location"
+
+        /**
+         * 对自动配置类去进行匹配时使用的线程数量的属性名
+         */
+        const val PARALLELISM_PROPERTY = "spring.autoconfigure.condition.parallelism"
+
+        /**
+         * 默认的存放缓存文件的目录名
+         */
+        private const val DEFAULT_CACHE_DIRECTORY = "kotlin-spring-boot"
+    }
 
     private lateinit var classLoader: ClassLoader
 
     private lateinit var beanFactory: BeanFactory
 
+    @Nullable
+    private var environment: Environment? = null
+
     /**
      * 这是一个来自于AutoConfigurationImportFilter的匹配方法, 主要是基于配置文件当中的元信息去进行匹配
      *
@@ -37,7 +70,9 @@ abstract class FilteringSpringBootCondition : SpringBootCondition(), AutoConfigu
         autoConfigurationClasses: Array<String?>, autoConfigurationMetadata: AutoConfigurationMetadata
     ): Array<Boolean> {
         // 获取子类当中对于自动配置类的匹配结果(Array<ConditionOutcome?>), 其中的某个元素有可能为null
-        val outcomes = getOutcomes(autoConfigurationClasses, autoConfigurationMetadata)
+        val outcomeCache = if (isClasspathOnly()) getOutcomeCache() else null
+        val outcomes = if (outcomeCache != null) getOutcomes(autoConfigurationClasses, autoConfigurationMetadata, outcomeCache)
+        else getOutcomes(autoConfigurationClasses, autoConfigurationMetadata)
         val matches = arrayOfNulls<Boolean>(outcomes.size)
         for (index in outcomes.indices) {
             /// 对于index位置的匹配结果是, 如果return null/isMatch的话, 才为true
@@ -50,6 +85,81 @@ abstract class FilteringSpringBootCondition : SpringBootCondition(), AutoConfigu
         return matches as Array<Boolean>  // cast to not null array
     }
 
+    /**
+     * 优先从缓存当中去获取自动配置类的匹配结果, 只有缓存当中不存在的配置类, 才交给[getOutcomes]去进行匹配, 并将匹配结果放入到缓存当中
+     *
+     * @param autoConfigurationClasses 自动配置类的候选className列表(某个元素可能为null)
+     * @param autoConfigurationMetadata Metadata配置文件当中要进行匹配的元信息
+     * @param outcomeCache 匹配结果的缓存
+     * @return 和autoConfigurationClasses等长的匹配结果
+     */
+    private fun getOutcomes(
+        autoConfigurationClasses: Array<String?>,
+        autoConfigurationMetadata: AutoConfigurationMetadata,
+        outcomeCache: ConditionOutcomeCache
+    ): Array<ConditionOutcome?> {
+        val condition = this::class.java.name
+        val outcomes = arrayOfNulls<ConditionOutcome?>(autoConfigurationClasses.size)
+        val uncachedIndexes = ArrayList<Int>()
+        for (index in autoConfigurationClasses.indices) {
+            val autoConfigurationClass = autoConfigurationClasses[index] ?: continue
+            val cached = outcomeCache.get(condition, autoConfigurationClass)
+            if (cached == null) {
+                uncachedIndexes += index
+            } else if (!cached.match) {
+                outcomes[index] = cached
+            }
+        }
+        if (uncachedIndexes.isEmpty()) {
+            return outcomes
+        }
+
+        // 只对缓存当中不存在的配置类去进行匹配
+        val uncached = Array<String?>(uncachedIndexes.size) { autoConfigurationClasses[uncachedIndexes[it]] }
+        val resolved = getOutcomes(uncached, autoConfigurationMetadata)
+        for (index in uncachedIndexes.indices) {
+            val outcome = if (index < resolved.size) resolved[index] else null
+            outcomes[uncachedIndexes[index]] = outcome
+            outcomeCache.put(condition, uncached[index]!!, outcome ?: ConditionOutcome.match())
+        }
+        outcomeCache.save()
+        return outcomes
+    }
+
+    /**
+     * 该Condition的匹配结果, 是否只取决于类路径? 如果是的话, 那么在类路径不变的情况下, 匹配结果可以被持久化缓存起来
+     *
+     * @return 如果只取决于类路径, return true; 否则return false(默认为false)
+     */
+    protected open fun isClasspathOnly(): Boolean = false
+
+    /**
+     * 获取Condition的匹配结果的持久化缓存
+     *
+     * @return 缓存(如果没有开启缓存, 或者是无法计算类路径的指纹, return null)
+     */
+    @Nullable
+    protected open fun getOutcomeCache(): ConditionOutcomeCache? {
+        val environment = this.environment ?: return null
+        if (!environment.getProperty(CACHE_ENABLED_PROPERTY, Boolean::class.java, false)) {
+            return null
+        }
+        val location = environment.getProperty(CACHE_LOCATION_PROPERTY)
+            ?: File(System.getProperty("java.io.tmpdir"), DEFAULT_CACHE_DIRECTORY).path
+        return ConditionOutcomeCache.get(File(location), getClassLoader())
+    }
+
+    /**
+     * 获取对自动配置类去进行匹配时使用的线程数量, 默认情况下, 如果存在有多个处理器的话, 那么使用两个线程
+     *
+     * @return parallelism
+     */
+    protected open fun getParallelism(): Int {
+        val defaultParallelism = if (Runtime.getRuntime().availableProcessors() > 1) 2 else 1
+        val environment = this.environment ?: return defaultParallelism
+        return maxOf(environment.getProperty(PARALLELISM_PROPERTY, Int::class.javaObjectType, defaultParallelism), 1)
+    }
+
     /**
      * 这是一个模板方法, 交给子类去实现, 对autoConfigurationClasses当中去进行配置的类去进行匹配(某个元素可能为null, 代表之前的Filter已经将其过滤掉了);
      * 返回的Array<ConditionOutcome?>和autoConfigurationClasses数组等长, index对应的结果为null或者outcome.isMatch的话, 该自动配置类应该导入;
@@ -78,6 +188,10 @@ abstract class FilteringSpringBootCondition : SpringBootCondition(), AutoConfigu
         this.beanFactory = beanFactory
     }
 
+    override fun setEnvironment(environment: Environment) {
+        this.environment = environment
+    }
+
     open fun getClassLoader(): ClassLoader = this.classLoader
     open fun getBeanFactory(): BeanFactory = this.beanFactory
 
@@ -21,8 +21,9 @@ import com.wanna.framework.core.type.AnnotatedTypeMetadata
 open class OnClassCondition : FilteringSpringBootCondition() {
 
     /**
-     * 匹配metadata当中配置的configurationClassName.OnClassCondition配置的className列表是否存在
-     * 需要newThread去执行一半的任务, 最终再将两个线程执行的任务merge到outcomes当中进行return 即可
+     * 匹配metadata当中配置的configurationClassName.OnClassCondition配置的className列表是否存在,
+     * 将任务拆分成为[getParallelism]段, 除了第一段由当前线程去执行之外, 其余的每一段都交给一个新的线程去执行,
+     * 最终再将各个线程执行的结果merge到outcomes当中进行return 即可
      */
     override fun getOutcomes(
         autoConfigurationClasses: Array<String?>, autoConfigurationMetadata: AutoConfigurationMetadata
@@ -30,32 +31,44 @@ open class OnClassCondition : FilteringSpringBootCondition() {
         val size = autoConfigurationClasses.size
 
         // Spring官方在这里将OnClassCondition的匹配设计成为了两个线程并发执行的逻辑, 因为可能对OnClassCondition去进行匹配需要花费大量的时间
-        // 在最后执行一下Merge的操作, 去将两个线程的匹配结果去进行合并, 并进行return
-        // Spring官方测试：采用两个线程将会拥有最好的效果, 采用更多的线程去进行匹配可能会得到更差的结果
-        if (size > 1 && Runtime.getRuntime().availableProcessors() > 1) {
-            val split = size ushr 1  // get split point, split=size>>>1
-
-            // 将任务从split位置拆分成为两段, 并且第二段交给另外一个线程去进行执行
-            val firstResolver = StandardOutcomeResolver(autoConfigurationClasses, 0, split, autoConfigurationMetadata)
-            val secondResolver =
-                StandardOutcomeResolver(autoConfigurationClasses, split, size, autoConfigurationMetadata)
-            val threadedResolver = ThreadedOutcomeResolver(secondResolver)
-
-            // 当前线程执行前一部分Outcomes的匹配
-            val firstOutcomes = firstResolver.resolveOutcomes()  // execute 0..split
-            // 等待另外一个线程执行完另一部分的Outcomes的匹配
-            val secondOutcomes = threadedResolver.resolveOutcomes()  // execute split..size
-
-            // merge, 使用System.arraycopy将两个线程的执行结果merge到outcomes列表当中
-            val outcomes = arrayOfNulls<ConditionOutcome?>(size)
-            System.arraycopy(firstOutcomes, 0, outcomes, 0, firstOutcomes.size)
-            System.arraycopy(secondOutcomes, 0, outcomes, split, secondOutcomes.size)
-            return outcomes
+        // Spring官方测试：采用两个线程将会拥有最好的效果, 采用更多的线程去进行匹配可能会得到更差的结果, 因此默认使用两个线程, 但是允许去进行配置
+        val parallelism = minOf(getParallelism(), size)
+
+        // 如果只有一个元素或者只使用一个线程, 那么不用新创建线程去解析, 那样性能会变得更低
+        if (parallelism <= 1) {
+            return StandardOutcomeResolver(autoConfigurationClasses, 0, size, autoConfigurationMetadata).resolveOutcomes()
+        }
+
+        // 将任务拆分成为parallelism段, 第一段交给当前线程去执行, 其余的每一段都交给另外一个线程去进行执行
+        val chunkSize = (size + parallelism - 1) / parallelism
+        val resolvers = ArrayList<OutcomesResolver>(parallelism)
+        for (start in chunkSize until size step chunkSize) {
+            val end = minOf(start + chunkSize, size)
+            resolvers += ThreadedOutcomeResolver(
+                StandardOutcomeResolver(autoConfigurationClasses, start, end, autoConfigurationMetadata)
+            )
+        }
+
+        // merge, 使用System.arraycopy将各个线程的执行结果merge到outcomes列表当中
+        val outcomes = arrayOfNulls<ConditionOutcome?>(size)
+        val firstOutcomes =
+            StandardOutcomeResolver(autoConfigurationClasses, 0, chunkSize, autoConfigurationMetadata).resolveOutcomes()
+        System.arraycopy(firstOutcomes, 0, outcomes, 0, firstOutcomes.size)
+        for (index in resolvers.indices) {
+            // 等待另外的线程执行完另一部分的Outcomes的匹配
+            val resolved = resolvers[index].resolveOutcomes()
+            System.arraycopy(resolved, 0, outcomes, (index + 1) * chunkSize, resolved.size)
         }
-        // 如果只有一个元素或者处理器数量只有1个, 那么不用新创建一个线程去解析, 那样性能会变得更低
-        return StandardOutcomeResolver(autoConfigurationClasses, 0, 1, autoConfigurationMetadata).resolveOutcomes()
+        return outcomes
     }
 
+    /**
+     * OnClassCondition的匹配结果只取决于类路径当中是否存在有给定的类, 因此它的匹配结果可以被持久化缓存
+     *
+     * @return true
+     */
+    override fun isClasspathOnly(): Boolean = true
+
     /**
      * 这是一个OutcomeResolver, 完成对ConditionOutcome的解析
      */
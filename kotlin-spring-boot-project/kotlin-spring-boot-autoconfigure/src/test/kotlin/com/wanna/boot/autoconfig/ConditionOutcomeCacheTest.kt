@@ -0,0 +1,162 @@
+package com.wanna.boot.autoconfig
+
+import com.wanna.boot.autoconfigure.AutoConfigurationMetadataLoader
+import com.wanna.boot.autoconfigure.condition.ClasspathFingerprint
+import com.wanna.boot.autoconfigure.condition.ConditionOutcome
+import com.wanna.boot.autoconfigure.condition.ConditionOutcomeCache
+import com.wanna.boot.autoconfigure.condition.FilteringSpringBootCondition
+import com.wanna.boot.autoconfigure.condition.OnClassCondition
+import com.wanna.framework.asm.ClassWriter
+import com.wanna.framework.asm.Opcodes
+import com.wanna.framework.core.environment.MapPropertySource
+import com.wanna.framework.core.environment.StandardEnvironment
+import java.io.File
+import java.net.URLClassLoader
+import java.net.URLConnection
+import java.nio.file.Files
+import java.util.jar.JarEntry
+import java.util.jar.JarOutputStream
+
+private const val CONDITION = "com.wanna.boot.autoconfigure.condition.OnClassCondition"
+
+/**
+ * 对于[ConditionOutcomeCache]的正确性的测试, 在Jar包发生变化时, 缓存当中的结果必须失效
+ */
+fun main() {
+    // 测试过程当中会去重写Jar包, 不能使用被缓存的JarFile
+    URLConnection.setDefaultUseCaches("jar", false)
+    val workDir = Files.createTempDirectory("condition-cache").toFile()
+    try {
+        testOutcomesArePersisted(workDir)
+        testCacheIsInvalidatedWhenJarChanges(workDir)
+        testOnClassConditionReusesAndInvalidatesOutcomes(workDir)
+        println("ConditionOutcomeCacheTest passed")
+    } finally {
+        workDir.deleteRecursively()
+    }
+}
+
+/**
+ * 写入到缓存文件当中的结果, 在下次启动(重新加载缓存文件)时可以被复用
+ */
+private fun testOutcomesArePersisted(workDir: File) {
+    val cacheDir = File(workDir, "persisted")
+    val jar = writeJar(File(workDir, "persisted.jar"), listOf("demo.Present"))
+    URLClassLoader(arrayOf(jar.toURI().toURL()), null).use { classLoader ->
+        val cache = ConditionOutcomeCache.get(cacheDir, classLoader)!!
+        cache.put(CONDITION, "demo.AutoA", ConditionOutcome.match())
+        cache.put(CONDITION, "demo.AutoB", ConditionOutcome.noMatch("missing demo.Missing"))
+        cache.save()
+        check(cache.file.isFile) { "cache file should be written" }
+
+        val reloaded = ConditionOutcomeCache(cache.file, cache.fingerprint)
+        check(reloaded.get(CONDITION, "demo.AutoA")!!.match)
+        check(!reloaded.get(CONDITION, "demo.AutoB")!!.match)
+        check(reloaded.get(CONDITION, "demo.AutoB")!!.getMessageString() == "missing demo.Missing")
+    }
+}
+
+/**
+ * Jar包发生变化时, 类路径指纹发生变化, 缓存文件当中的结果将会被丢弃
+ */
+private fun testCacheIsInvalidatedWhenJarChanges(workDir: File) {
+    val cacheDir = File(workDir, "invalidated")
+    val jarFile = File(workDir, "invalidated.jar")
+    writeJar(jarFile, listOf("demo.Present"))
+    val before = URLClassLoader(arrayOf(jarFile.toURI().toURL()), null).use { classLoader ->
+        val cache = ConditionOutcomeCache.get(cacheDir, classLoader)!!
+        cache.put(CONDITION, "demo.AutoA", ConditionOutcome.match())
+        cache.save()
+        val fingerprint = ClasspathFingerprint.of(classLoader)!!
+        fingerprint.location to fingerprint.value
+    }
+
+    writeJar(jarFile, listOf("demo.Present", "demo.Other"))
+    jarFile.setLastModified(jarFile.lastModified() + 2000)
+    URLClassLoader(arrayOf(jarFile.toURI().toURL()), null).use { classLoader ->
+        val after = ClasspathFingerprint.of(classLoader)!!
+        check(before.first == after.location) { "location should only depend on classpath entries" }
+        check(before.second != after.value) { "fingerprint should change when the jar changes" }
+
+        val cache = ConditionOutcomeCache.get(cacheDir, classLoader)!!
+        check(cache.size() == 0) { "outcomes of the old classpath should be discarded" }
+        check(ConditionOutcomeCache(cache.file, after.value).size() == 0)
+    }
+}
+
+/**
+ * [OnClassCondition]在开启缓存时, 复用缓存当中的结果; 当类从Jar包当中被移除时, 得到新的结果
+ */
+private fun testOnClassConditionReusesAndInvalidatesOutcomes(workDir: File) {
+    val cacheDir = File(workDir, "condition")
+    val jarFile = File(workDir, "condition.jar")
+    val autoConfigurations = arrayOf<String?>("demo.AutoA", "demo.AutoB", null, "demo.AutoC")
+
+    writeJar(jarFile, listOf("demo.Present", "demo.Another"))
+    URLClassLoader(arrayOf(jarFile.toURI().toURL()), null).use { classLoader ->
+        val expected = listOf(true, false, true, true)
+        check(createCondition(classLoader, cacheDir).matches(autoConfigurations, loadMetadata(classLoader)).toList() == expected)
+
+        // 第二次匹配, 全部的结果都来自于缓存
+        check(ConditionOutcomeCache.get(cacheDir, classLoader)!!.size() == 3)
+        check(createCondition(classLoader, cacheDir).matches(autoConfigurations, loadMetadata(classLoader)).toList() == expected)
+    }
+
+    // 从Jar包当中移除掉"demo.Present", 原来匹配的"demo.AutoA"必须不再匹配
+    writeJar(jarFile, listOf("demo.Another"))
+    jarFile.setLastModified(jarFile.lastModified() + 2000)
+    URLClassLoader(arrayOf(jarFile.toURI().toURL()), null).use { classLoader ->
+        val matches = createCondition(classLoader, cacheDir, parallelism = 3)
+            .matches(autoConfigurations, loadMetadata(classLoader)).toList()
+        check(matches == listOf(false, false, true, true)) { "stale outcomes were reused: $matches" }
+    }
+}
+
+private fun createCondition(classLoader: ClassLoader, cacheDir: File, parallelism: Int = 2): OnClassCondition {
+    val environment = StandardEnvironment()
+    environment.getPropertySources().addFirst(
+        MapPropertySource(
+            "test", mapOf(
+                FilteringSpringBootCondition.CACHE_ENABLED_PROPERTY to "true",
+                FilteringSpringBootCondition.CACHE_LOCATION_PROPERTY to cacheDir.path,
+                FilteringSpringBootCondition.PARALLELISM_PROPERTY to parallelism.toString()
+            )
+        )
+    )
+    val condition = OnClassCondition()
+    condition.setBeanClassLoader(classLoader)
+    condition.setEnvironment(environment)
+    return condition
+}
+
+private fun loadMetadata(classLoader: ClassLoader) = AutoConfigurationMetadataLoader.loadMetadata(classLoader)
+
+/**
+ * 写入一个Jar包, 包含给定的类以及自动配置的元信息
+ *
+ * @param jarFile Jar包
+ * @param classNames 要包含的类
+ */
+private fun writeJar(jarFile: File, classNames: List<String>): File {
+    JarOutputStream(jarFile.outputStream()).use { jar ->
+        for (className in classNames) {
+            val internalName = className.replace('.', '/')
+            val writer = ClassWriter(0)
+            writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, internalName, null, "java/lang/Object", null)
+            writer.visitEnd()
+            jar.putNextEntry(JarEntry("$internalName.class"))
+            jar.write(writer.toByteArray())
+            jar.closeEntry()
+        }
+        jar.putNextEntry(JarEntry("META-INF/spring-autoconfigure-metadata.properties"))
+        jar.write(
+            """
+            demo.AutoA.OnClassCondition=demo.Present
+            demo.AutoB.OnClassCondition=demo.Missing
+            demo.AutoC.OnClassCondition=demo.Another
+            """.trimIndent().toByteArray()
+        )
+        jar.closeEntry()
+    }
+    return jarFile
+}
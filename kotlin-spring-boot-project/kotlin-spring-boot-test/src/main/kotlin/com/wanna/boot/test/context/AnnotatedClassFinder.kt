@@ -73,7 +73,7 @@ class AnnotatedClassFinder(private val annotationType: Class<out Annotation>) {
     private fun scanPackage(source: String): Class<*>? {
         var candidate = source
         while (candidate.isNotEmpty()) {
-            val components = this.scanner.scanCandidateComponents(candidate)
+            val components = this.scanner.findCandidateComponents(candidate)
             if (components.isNotEmpty()) {
                 if (components.size > 1) {
                     throw IllegalStateException("在给定的[$source]包下去扫描到了多个标注了@[${annotationType.name}]的类")
@@ -2,13 +2,16 @@ package com.wanna.boot.gradle.plugin
 
 import com.wanna.boot.gradle.dsl.SpringBootExtension
 import com.wanna.boot.gradle.tasks.bundling.BootJar
+import com.wanna.boot.gradle.tasks.cds.BootCdsArchive
 import org.gradle.api.Plugin
 import org.gradle.api.Project
 import org.gradle.api.file.FileCollection
 import org.gradle.api.plugins.*
+import org.gradle.api.tasks.JavaExec
 import org.gradle.api.tasks.SourceSet
 import org.gradle.api.tasks.SourceSetContainer
 import org.gradle.api.tasks.TaskProvider
+import org.gradle.process.CommandLineArgumentProvider
 import java.util.concurrent.Callable
 
 /**
@@ -20,6 +23,29 @@ import java.util.concurrent.Callable
  */
 open class JavaPluginAction : PluginApplicationAction {
 
+    companion object {
+
+        /**
+         * 候选组件索引的生成器的类名
+         */
+        private const val COMPONENTS_INDEXER_CLASS_NAME = "com.wanna.framework.context.index.CandidateComponentsIndexer"
+
+        /**
+         * 索引生成器所在的模块名
+         */
+        private const val CONTEXT_ARTIFACT_NAME = "kotlin-spring-context"
+
+        /**
+         * SpringBoot应用的AOT处理器的类名
+         */
+        private const val AOT_PROCESSOR_CLASS_NAME = "com.wanna.boot.aot.SpringApplicationAotProcessor"
+
+        /**
+         * AOT处理器所在的模块名
+         */
+        private const val BOOT_ARTIFACT_NAME = "kotlin-spring-boot"
+    }
+
     override fun getPluginClass(): Class<out Plugin<out Project>> = JavaPlugin::class.java
 
     override fun execute(project: Project) {
@@ -27,7 +53,16 @@ open class JavaPluginAction : PluginApplicationAction {
         val resolveMainClassNameTask = configureResolveMainClassNameTask(project)
 
         // 配置BootJar任务
-        configureBootJarTask(project, resolveMainClassNameTask)
+        val bootJarTask = configureBootJarTask(project, resolveMainClassNameTask)
+
+        // 配置BootCdsArchive任务
+        configureBootCdsArchiveTask(project, bootJarTask)
+
+        // 配置GenerateComponentsIndex任务
+        configureGenerateComponentsIndexTask(project)
+
+        // 配置ProcessAot任务
+        configureProcessAotTask(project, resolveMainClassNameTask)
     }
 
     /**
@@ -77,8 +112,12 @@ open class JavaPluginAction : PluginApplicationAction {
      *
      * @param project Project
      * @param resolveMainClassName ResolveMainClassName Task
+     * @return TaskProvider of BootJar
      */
-    private fun configureBootJarTask(project: Project, resolveMainClassName: TaskProvider<ResolveMainClassName>) {
+    private fun configureBootJarTask(
+        project: Project,
+        resolveMainClassName: TaskProvider<ResolveMainClassName>
+    ): TaskProvider<BootJar> {
         // 获取main的SourceSet("src/main")
         val mainSourceSet =
             project.convention.getPlugin(JavaPluginConvention::class.java).sourceSets.getByName(SourceSet.MAIN_SOURCE_SET_NAME)
@@ -101,7 +140,7 @@ open class JavaPluginAction : PluginApplicationAction {
 
 
         // 给Project的Tasks当中去注册一个BootJar任务
-        project.tasks.register(SpringBootPlugin.BOOT_JAR_TASK_NAME, BootJar::class.java) { bootJar ->
+        return project.tasks.register(SpringBootPlugin.BOOT_JAR_TASK_NAME, BootJar::class.java) { bootJar ->
             // 设置BootJar任务的group(build/setup/verification/...), 对应的就是Intellij的Gradle插件的Tasks的一级目录...
             bootJar.group = BasePlugin.BUILD_GROUP
 
@@ -116,6 +155,91 @@ open class JavaPluginAction : PluginApplicationAction {
                 if (manifestStartClass.isPresent) manifestStartClass else resolveMainClassName.get().readMainClassName()
             })
         }
+    }
+
+    /**
+     * 给Project去配置一个[BootCdsArchive]任务, 基于BootJar的产物去对应用去进行训练运行, 并生成AppCDS归档文件
+     *
+     * @param project Project
+     * @param bootJar BootJar Task
+     */
+    private fun configureBootCdsArchiveTask(project: Project, bootJar: TaskProvider<BootJar>) {
+        project.tasks.register(SpringBootPlugin.BOOT_CDS_ARCHIVE_TASK_NAME, BootCdsArchive::class.java) {
+            it.group = BasePlugin.BUILD_GROUP
+            it.description = "Extracts the boot jar and creates an AppCDS archive from a training run"
+
+            it.getArchiveFile().set(bootJar.flatMap { jar -> jar.archiveFile })
+            it.getDestinationDirectory().set(project.layout.buildDirectory.dir("cds"))
+        }
+    }
+
+    /**
+     * 给Project去配置一个生成候选组件索引的任务, 使用项目自身的运行时类路径去执行kotlin-spring-context当中的索引生成器,
+     * 对main的SourceSet编译得到的类去生成"META-INF/spring.components", 并将生成的目录添加到main的SourceSet的输出当中,
+     * 从而让运行时的类路径以及打包得到的Jar包当中都能包含该索引;
+     * 生成的目录当中还会包含"META-INF/spring.components.roots", 记录该索引覆盖的classes目录(例如"build/classes/kotlin/main"),
+     * 运行时(bootRun/test)对于这些classes目录当中的包, 会使用该索引去进行过期检查
+     *
+     * @param project Project
+     */
+    private fun configureGenerateComponentsIndexTask(project: Project) {
+        val mainSourceSet = project.extensions.getByType(SourceSetContainer::class.java)
+            .getByName(SourceSet.MAIN_SOURCE_SET_NAME)
+        val classesDirs = mainSourceSet.output.classesDirs
+        val runtimeClasspath = project.configurations.getByName(mainSourceSet.runtimeClasspathConfigurationName)
+        val outputDir = project.layout.buildDirectory.dir("generated/componentsIndex")
+
+        val generateComponentsIndex =
+            project.tasks.register(SpringBootPlugin.GENERATE_COMPONENTS_INDEX_TASK_NAME, JavaExec::class.java) {
+                it.group = BasePlugin.BUILD_GROUP
+                it.description = "Generates the candidate components index for the main source set"
+
+                it.mainClass.set(COMPONENTS_INDEXER_CLASS_NAME)
+                it.classpath = classesDirs.plus(runtimeClasspath)
+                it.inputs.files(classesDirs).withPropertyName("classesDirs")
+                it.outputs.dir(outputDir).withPropertyName("outputDir")
+                it.argumentProviders.add(CommandLineArgumentProvider {
+                    listOf(outputDir.get().asFile.absolutePath) + classesDirs.files.map { dir -> dir.absolutePath }
+                })
+
+                // 如果项目没有依赖kotlin-spring-context, 那么不存在有索引生成器, 跳过该任务
+                it.onlyIf { runtimeClasspath.files.any { file -> file.name.startsWith(CONTEXT_ARTIFACT_NAME) } }
+            }
+        mainSourceSet.output.dir(mapOf("builtBy" to generateComponentsIndex), outputDir)
+    }
+
+    /**
+     * 给Project去配置一个AOT处理的任务, 使用项目自身的运行时类路径去执行kotlin-spring-boot当中的AOT处理器,
+     * 对主类去执行配置类的解析并生成"META-INF/spring-aot/{主类}.beandefinitions"快照.
+     *
+     * 该任务需要手动去进行执行(构建时不会自动执行), 生成的目录会被添加到main的SourceSet的输出当中,
+     * 运行时需要设置"spring.aot.enabled=true"才会去使用快照
+     *
+     * @param project Project
+     * @param resolveMainClassName ResolveMainClassName Task
+     */
+    private fun configureProcessAotTask(project: Project, resolveMainClassName: TaskProvider<ResolveMainClassName>) {
+        val mainSourceSet = project.extensions.getByType(SourceSetContainer::class.java)
+            .getByName(SourceSet.MAIN_SOURCE_SET_NAME)
+        val runtimeClasspath = project.configurations.getByName(mainSourceSet.runtimeClasspathConfigurationName)
+        val outputDir = project.layout.buildDirectory.dir("generated/aotResources")
+        val mainClassName = resolveMainClassName.flatMap { it.readMainClassName() }
+
+        project.tasks.register(SpringBootPlugin.PROCESS_AOT_TASK_NAME, JavaExec::class.java) {
+            it.group = BasePlugin.BUILD_GROUP
+            it.description = "Generates the bean definition snapshot of the application's main class"
+
+            it.dependsOn(resolveMainClassName)
+            it.mainClass.set(AOT_PROCESSOR_CLASS_NAME)
+            it.classpath = mainSourceSet.runtimeClasspath
+            it.outputs.dir(outputDir).withPropertyName("outputDir")
+            it.argumentProviders.add(CommandLineArgumentProvider {
+                listOf(outputDir.get().asFile.absolutePath, mainClassName.get())
+            })
 
+            // 如果项目没有依赖kotlin-spring-boot, 那么不存在有AOT处理器, 跳过该任务
+            it.onlyIf { runtimeClasspath.files.any { file -> file.name.startsWith(BOOT_ARTIFACT_NAME) } }
+        }
+        mainSourceSet.output.dir(outputDir)
     }
-}
\ No newline at end of file
+}
@@ -27,6 +27,21 @@ open class SpringBootPlugin : Plugin<Project> {
          */
         const val BOOT_JAR_TASK_NAME = "bootJar"
 
+        /**
+         * 生成AppCDS归档文件的Gradle任务名
+         */
+        const val BOOT_CDS_ARCHIVE_TASK_NAME = "bootCdsArchive"
+
+        /**
+         * 生成候选组件索引("META-INF/spring.components")的Gradle任务名
+         */
+        const val GENERATE_COMPONENTS_INDEX_TASK_NAME = "generateComponentsIndex"
+
+        /**
+         * 生成BeanDefinition快照("META-INF/spring-aot/{主类}.beandefinitions")的Gradle任务名
+         */
+        const val PROCESS_AOT_TASK_NAME = "processAot"
+
         /**
          * 解析SpringBoot的主类的Gradle任务名
          */
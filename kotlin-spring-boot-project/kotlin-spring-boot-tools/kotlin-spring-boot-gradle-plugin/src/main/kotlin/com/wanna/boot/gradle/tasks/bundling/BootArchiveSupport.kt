@@ -61,9 +61,32 @@ class BootArchiveSupport(
         }
     }
 
-    fun createCopyAction(jar: Jar, resolvedDependencies: ResolvedDependencies): CopyAction {
+    fun createCopyAction(jar: Jar, resolvedDependencies: ResolvedDependencies): CopyAction =
+        createCopyAction(jar, resolvedDependencies, null, null, null, null)
+
+    /**
+     * 创建用于去生成SpringBoot的归档文件的[CopyAction]
+     *
+     * @param jar Jar任务
+     * @param resolvedDependencies 已经解析的依赖
+     * @param libraryDirectory 存放依赖的Jar包的目录(例如"BOOT-INF/lib/")
+     * @param classpathIndex ClassPath的索引文件的路径, 为null时不生成
+     * @param layersIndex 分层Jar包的索引, 为null代表不需要分层
+     * @param layersIndexPath 分层Jar包的索引文件的路径
+     * @return CopyAction
+     */
+    fun createCopyAction(
+        jar: Jar,
+        resolvedDependencies: ResolvedDependencies,
+        @Nullable libraryDirectory: String?,
+        @Nullable classpathIndex: String?,
+        @Nullable layersIndex: LayersIndex?,
+        @Nullable layersIndexPath: String?
+    ): CopyAction {
         val file = jar.archiveFile.get().asFile
-        return BootZipCopyAction(file, this.compressionResolver)
+        return BootZipCopyAction(
+            file, this.compressionResolver, libraryDirectory, classpathIndex, layersIndex, layersIndexPath
+        )
     }
 
     /**
@@ -7,6 +7,7 @@ import org.gradle.api.file.FileCopyDetails
 import org.gradle.api.internal.file.copy.CopyAction
 import org.gradle.api.provider.Property
 import org.gradle.api.specs.Spec
+import org.gradle.api.tasks.Nested
 import org.gradle.jvm.tasks.Jar
 import java.io.File
 import java.util.concurrent.Callable
@@ -32,6 +33,8 @@ open class BootJar : Jar(), BootArchive {
         private const val LIB_DIRECTORY = "BOOT-INF/lib"
 
         private const val CLASSPATH_INDEX = "BOOT-INF/classpath.idx"
+
+        private const val LAYERS_INDEX = "BOOT-INF/layers.idx"
     }
 
     /**
@@ -49,6 +52,11 @@ open class BootJar : Jar(), BootArchive {
      */
     private val mainClass = project.objects.property(String::class.java)
 
+    /**
+     * 分层Jar包的配置
+     */
+    private val layered = LayeredSpec(project.objects)
+
     /**
      * BootInfo Spec
      */
@@ -135,7 +143,7 @@ open class BootJar : Jar(), BootArchive {
             CLASSES_DIRECTORY,
             LIB_DIRECTORY,
             CLASSPATH_INDEX,
-            null
+            if (layered.isEnabled()) LAYERS_INDEX else null
         )
         super.copy()
     }
@@ -146,7 +154,27 @@ open class BootJar : Jar(), BootArchive {
      * @return CopyAction
      */
     override fun createCopyAction(): CopyAction {
-        return this.support.createCopyAction(this, ResolvedDependencies())
+        val layersIndex = if (layered.isEnabled()) layered.createLayersIndex() else null
+        return this.support.createCopyAction(
+            this, ResolvedDependencies(), "$LIB_DIRECTORY/", CLASSPATH_INDEX, layersIndex, LAYERS_INDEX
+        )
+    }
+
+    /**
+     * 获取分层Jar包的配置
+     *
+     * @return LayeredSpec
+     */
+    @Nested
+    open fun getLayered(): LayeredSpec = this.layered
+
+    /**
+     * 对分层Jar包去进行配置, 例如`bootJar { layered { enabled.set(false) } }`
+     *
+     * @param action 对LayeredSpec去进行配置的Action
+     */
+    open fun layered(action: Action<LayeredSpec>) {
+        action.execute(this.layered)
     }
 
     override fun getMainClass(): Property<String> {
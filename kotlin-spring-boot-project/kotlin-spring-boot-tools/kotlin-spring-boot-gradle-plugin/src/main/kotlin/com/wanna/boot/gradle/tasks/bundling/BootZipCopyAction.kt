@@ -10,6 +10,7 @@ import org.gradle.api.internal.file.copy.CopyActionProcessingStream
 import org.gradle.api.tasks.WorkResult
 import org.gradle.api.tasks.WorkResults
 import java.io.*
+import java.nio.charset.StandardCharsets
 import java.util.function.Function
 import java.util.zip.CRC32
 import java.util.zip.ZipEntry
@@ -18,15 +19,34 @@ import javax.annotation.Nullable
 /**
  * BootZip的拷贝的Action, 将引导Jar包去copy到最终的产物当中
  *
+ * 在所有的文件都写入完成之后, 如果有需要的话, 还会去生成ClassPath的索引文件("classpath.idx", 记录了依赖的Jar包的顺序),
+ * 以及分层Jar包的索引文件("layers.idx", 记录了每个Entry所在的层)
+ *
  * @author jianchao.jia
  * @version v1.0
  * @date 2023/2/5
+ *
+ * @param output 输出的Jar包文件
+ * @param compressionResolver 解析每个文件的压缩方式的Resolver
+ * @param libraryDirectory 存放依赖的Jar包的目录(例如"BOOT-INF/lib/"), 为null时不生成ClassPath的索引文件
+ * @param classpathIndex ClassPath的索引文件的路径(例如"BOOT-INF/classpath.idx"), 为null时不生成
+ * @param layersIndex 分层Jar包的索引, 为null代表不需要分层
+ * @param layersIndexPath 分层Jar包的索引文件的路径(例如"BOOT-INF/layers.idx")
  */
-class BootZipCopyAction(
+class BootZipCopyAction @JvmOverloads constructor(
     private val output: File,
-    private val compressionResolver: Function<FileCopyDetails, ZipCompression>
+    private val compressionResolver: Function<FileCopyDetails, ZipCompression>,
+    @Nullable private val libraryDirectory: String? = null,
+    @Nullable private val classpathIndex: String? = null,
+    @Nullable private val layersIndex: LayersIndex? = null,
+    @Nullable private val layersIndexPath: String? = null
 ) : CopyAction {
 
+    /**
+     * 解析每个Entry所在的层的Resolver
+     */
+    private val layerResolver = LayerResolver(libraryDirectory ?: "")
+
 
     override fun execute(copyActions: CopyActionProcessingStream): WorkResult {
         try {
@@ -95,6 +115,11 @@ class BootZipCopyAction(
 
         private val writtenDirectories = LinkedHashSet<String>()
 
+        /**
+         * 已经写入的依赖的Jar包的列表(按照写入的顺序), 用于生成ClassPath的索引文件
+         */
+        private val writtenLibraries = ArrayList<String>()
+
         fun process(details: FileCopyDetails) {
             // 如果必要的话, 先将loader的相关Entry去写入到ZIP包当中
             writeLoaderEntriesIfNecessary(details)
@@ -113,7 +138,11 @@ class BootZipCopyAction(
             }
 
             val loaderZipEntries = LoaderZipEntries()
-            this.writtenEntries = loaderZipEntries.writeTo(this.out)
+            val writtenEntries = loaderZipEntries.writeTo(this.out)
+            this.writtenEntries = writtenEntries
+
+            // SpringBootLoader的类, 全部放到loader的层当中
+            writtenEntries.getFiles().forEach { layersIndex?.add(layerResolver.getLoaderLayer(), it) }
         }
 
         private fun processDirectory(details: FileCopyDetails) {
@@ -140,6 +169,25 @@ class BootZipCopyAction(
             this.out.putArchiveEntry(entry)
             details.copyTo(this.out)
             this.out.closeArchiveEntry()
+
+            if (libraryDirectory != null && layerResolver.isLibrary(name)) {
+                writtenLibraries += name
+            }
+            layersIndex?.add(layerResolver.getLayer(name), name)
+        }
+
+        /**
+         * 将给定的内容作为一个文件去写入到ZIP包当中
+         *
+         * @param name entryName
+         * @param content 文件内容
+         */
+        private fun writeEntry(name: String, content: ByteArray) {
+            val entry = ZipArchiveEntry(name)
+            prepareEntry(entry, name, null, UnixStat.FILE_FLAG or UnixStat.DEFAULT_FILE_PERM)
+            this.out.putArchiveEntry(entry)
+            this.out.write(content)
+            this.out.closeArchiveEntry()
         }
 
         private fun prepareStoredEntry(details: FileCopyDetails, entry: ZipArchiveEntry) {
@@ -176,8 +224,21 @@ class BootZipCopyAction(
             }
         }
 
+        /**
+         * 在所有的文件都写入完成之后, 去写入ClassPath的索引文件以及分层Jar包的索引文件
+         */
         fun finish() {
-
+            if (classpathIndex != null && writtenLibraries.isNotEmpty()) {
+                val content = writtenLibraries.joinToString("") { "- \"$it\"\n" }
+                writeEntry(classpathIndex, content.toByteArray(StandardCharsets.UTF_8))
+                layersIndex?.add(layerResolver.getLayer(classpathIndex), classpathIndex)
+            }
+            if (layersIndex != null && layersIndexPath != null) {
+                layersIndex.add(layerResolver.getLayer(layersIndexPath), layersIndexPath)
+                val content = ByteArrayOutputStream()
+                layersIndex.writeTo(content)
+                writeEntry(layersIndexPath, content.toByteArray())
+            }
         }
     }
 }
\ No newline at end of file
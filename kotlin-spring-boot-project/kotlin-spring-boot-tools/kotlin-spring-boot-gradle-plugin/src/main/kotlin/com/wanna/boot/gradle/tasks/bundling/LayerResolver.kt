@@ -0,0 +1,81 @@
+package com.wanna.boot.gradle.tasks.bundling
+
+/**
+ * 为分层Jar包当中的每个Entry去解析它所在的层(Layer), 一共有四层(从最稳定到最容易变化):
+ *
+ * * 1.[DEPENDENCIES], 非SNAPSHOT版本的依赖的Jar包;
+ * * 2.[SPRING_BOOT_LOADER], SpringBootLoader的相关类;
+ * * 3.[SNAPSHOT_DEPENDENCIES], SNAPSHOT版本的依赖的Jar包;
+ * * 4.[APPLICATION], 应用自身的类/资源, 以及各类索引文件
+ *
+ * 构建容器镜像时, 每一层作为镜像的一层, 只有发生变化的层才需要去重新构建和推送
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/9
+ *
+ * @param libDirectory 存放依赖的Jar包的目录(例如"BOOT-INF/lib/")
+ */
+class LayerResolver(private val libDirectory: String) {
+
+    companion object {
+        /**
+         * 依赖的层
+         */
+        const val DEPENDENCIES = "dependencies"
+
+        /**
+         * SpringBootLoader的层
+         */
+        const val SPRING_BOOT_LOADER = "spring-boot-loader"
+
+        /**
+         * SNAPSHOT依赖的层
+         */
+        const val SNAPSHOT_DEPENDENCIES = "snapshot-dependencies"
+
+        /**
+         * 应用的层
+         */
+        const val APPLICATION = "application"
+
+        /**
+         * 默认的层的顺序
+         */
+        @JvmField
+        val DEFAULT_LAYER_ORDER = listOf(DEPENDENCIES, SPRING_BOOT_LOADER, SNAPSHOT_DEPENDENCIES, APPLICATION)
+
+        /**
+         * SNAPSHOT版本的标识
+         */
+        private const val SNAPSHOT = "SNAPSHOT"
+    }
+
+    /**
+     * 获取SpringBootLoader的Entry所在的层
+     *
+     * @return layer
+     */
+    fun getLoaderLayer(): String = SPRING_BOOT_LOADER
+
+    /**
+     * 获取给定的Entry所在的层
+     *
+     * @param name entryName
+     * @return layer
+     */
+    fun getLayer(name: String): String {
+        if (isLibrary(name)) {
+            return if (name.substring(name.lastIndexOf('/') + 1).contains(SNAPSHOT)) SNAPSHOT_DEPENDENCIES else DEPENDENCIES
+        }
+        return APPLICATION
+    }
+
+    /**
+     * 检查给定的Entry是否是一个依赖的Jar包?
+     *
+     * @param name entryName
+     * @return 如果是在lib目录下的文件, return true; 否则return false
+     */
+    fun isLibrary(name: String): Boolean = name.startsWith(libDirectory) && name.length > libDirectory.length
+}
@@ -1,11 +1,58 @@
 package com.wanna.boot.gradle.tasks.bundling
 
+import org.gradle.api.model.ObjectFactory
+import org.gradle.api.provider.ListProperty
+import org.gradle.api.provider.Property
+import org.gradle.api.tasks.Input
+
 /**
+ * 分层Jar包的配置, 通过`bootJar { layered { ... } }`去进行配置, 开启分层之后, 将会在Jar包当中去生成"BOOT-INF/layers.idx",
+ * 将Jar包当中的Entry划分为dependencies/spring-boot-loader/snapshot-dependencies/application这几层
  *
  * @author jianchao.jia
  * @version v1.0
  * @date 2023/2/5
+ *
+ * @param objects ObjectFactory
+ * @see LayerResolver
+ * @see LayersIndex
  */
-class LayeredSpec {
+open class LayeredSpec(objects: ObjectFactory) {
+
+    /**
+     * 是否需要开启分层? 默认为true
+     */
+    private val enabled: Property<Boolean> = objects.property(Boolean::class.javaObjectType).convention(true)
+
+    /**
+     * 层的顺序(从最稳定到最容易变化), 默认为[LayerResolver.DEFAULT_LAYER_ORDER]
+     */
+    private val layerOrder: ListProperty<String> =
+        objects.listProperty(String::class.java).convention(LayerResolver.DEFAULT_LAYER_ORDER)
+
+    @Input
+    open fun getEnabled(): Property<Boolean> = this.enabled
+
+    @Input
+    open fun getLayerOrder(): ListProperty<String> = this.layerOrder
+
+    /**
+     * 当前是否开启了分层?
+     *
+     * @return 如果开启了分层, return true; 否则return false
+     */
+    open fun isEnabled(): Boolean = this.enabled.get()
 
-}
\ No newline at end of file
+    /**
+     * 根据当前的配置, 去创建一个[LayersIndex]
+     *
+     * @return LayersIndex
+     */
+    open fun createLayersIndex(): LayersIndex {
+        val layerOrder = this.layerOrder.get()
+        require(layerOrder.containsAll(LayerResolver.DEFAULT_LAYER_ORDER)) {
+            "Layer order $layerOrder must contain all of ${LayerResolver.DEFAULT_LAYER_ORDER}"
+        }
+        return LayersIndex(layerOrder)
+    }
+}
@@ -0,0 +1,95 @@
+package com.wanna.boot.gradle.tasks.bundling
+
+import java.io.OutputStream
+import java.io.OutputStreamWriter
+import java.nio.charset.StandardCharsets
+
+/**
+ * 分层Jar包的索引文件("layers.idx")的生成器, 生成的格式如下:
+ *
+ * ```
+ * - "dependencies":
+ *   - "BOOT-INF/lib/dependency1.jar"
+ * - "spring-boot-loader":
+ *   - "com/"
+ * - "snapshot-dependencies":
+ * - "application":
+ *   - "BOOT-INF/classes/"
+ *   - "BOOT-INF/classpath.idx"
+ * ```
+ *
+ * 如果一个目录下的所有Entry都属于同一层, 那么只会去写入该目录(而不是目录下的每个Entry), 让索引文件尽可能的小
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/9
+ *
+ * @param layerOrder 层的顺序
+ */
+class LayersIndex(private val layerOrder: List<String>) {
+
+    /**
+     * 按照写入的顺序, 记录下每个Entry的层, key-entryName, value-layer
+     */
+    private val entries = LinkedHashMap<String, String>()
+
+    /**
+     * 每个目录下的Entry所在的层的集合, key-目录(以"/"结尾), value-该目录下的全部Entry所在的层
+     */
+    private val directoryLayers = HashMap<String, MutableSet<String>>()
+
+    /**
+     * 添加一个Entry到给定的层当中
+     *
+     * @param layer 层
+     * @param name entryName(不能是目录)
+     */
+    fun add(layer: String, name: String) {
+        require(layerOrder.contains(layer)) { "Unknown layer '$layer', layers must be one of $layerOrder" }
+        entries[name] = layer
+        var index = name.indexOf('/')
+        while (index != -1) {
+            directoryLayers.computeIfAbsent(name.substring(0, index + 1)) { LinkedHashSet() } += layer
+            index = name.indexOf('/', index + 1)
+        }
+    }
+
+    /**
+     * 将索引文件写入到给定的输出流当中
+     *
+     * @param out 输出流
+     */
+    fun writeTo(out: OutputStream) {
+        val layers = LinkedHashMap<String, MutableSet<String>>()
+        layerOrder.forEach { layers[it] = LinkedHashSet() }
+        entries.forEach { (name, layer) -> layers[layer]!! += getIndexedName(name, layer) }
+
+        val writer = OutputStreamWriter(out, StandardCharsets.UTF_8)
+        layers.forEach { (layer, names) ->
+            writer.write("- \"$layer\":\n")
+            names.forEach { writer.write("  - \"$it\"\n") }
+        }
+        writer.flush()
+    }
+
+    /**
+     * 获取一个Entry在索引文件当中使用的名字: 该Entry的所有的祖先目录当中, 最上层的只包含该层的Entry的目录;
+     * 如果不存在这样的目录, 那么使用Entry本身的名字
+     *
+     * @param name entryName
+     * @param layer 该Entry所在的层
+     * @return 在索引文件当中需要去写入的名字
+     */
+    private fun getIndexedName(name: String, layer: String): String {
+        var index = name.indexOf('/')
+        while (index != -1) {
+            val directory = name.substring(0, index + 1)
+            val layersOfDirectory = directoryLayers[directory]!!
+            if (layersOfDirectory.size == 1 && layersOfDirectory.contains(layer)) {
+                return directory
+            }
+            index = name.indexOf('/', index + 1)
+        }
+        return name
+    }
+}
@@ -63,15 +63,32 @@ class LoaderZipEntries @JvmOverloads constructor(@Nullable private val entryTime
         entry.unixMode = unixMode
     }
 
+    /**
+     * 已经写入到归档文件当中的Entry
+     */
     class WrittenEntries {
 
-        fun addFile(entry: ZipEntry) {
+        /**
+         * 已经写入的文件的entryName列表
+         */
+        private val files = ArrayList<String>()
+
+        /**
+         * 已经写入的目录的entryName列表
+         */
+        private val directories = LinkedHashSet<String>()
 
+        fun addFile(entry: ZipEntry) {
+            files += entry.name
         }
 
         fun addDirectory(entry: ZipEntry) {
-
+            directories += entry.name
         }
+
+        fun getFiles(): List<String> = this.files
+
+        fun getDirectories(): Set<String> = this.directories
     }
 
 }
\ No newline at end of file
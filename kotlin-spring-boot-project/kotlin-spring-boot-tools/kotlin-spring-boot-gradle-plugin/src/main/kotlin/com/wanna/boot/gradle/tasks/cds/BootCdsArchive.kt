@@ -0,0 +1,228 @@
+package com.wanna.boot.gradle.tasks.cds
+
+import org.gradle.api.DefaultTask
+import org.gradle.api.GradleException
+import org.gradle.api.file.DirectoryProperty
+import org.gradle.api.file.RegularFileProperty
+import org.gradle.api.provider.ListProperty
+import org.gradle.api.provider.Property
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.InputFile
+import org.gradle.api.tasks.OutputDirectory
+import org.gradle.api.tasks.TaskAction
+import java.io.File
+import java.io.FileOutputStream
+import java.util.concurrent.TimeUnit
+import java.util.jar.Attributes
+import java.util.jar.JarEntry
+import java.util.jar.JarFile
+import java.util.jar.JarOutputStream
+import java.util.jar.Manifest
+
+/**
+ * 为SpringBoot应用去生成AppCDS(Class Data Sharing)归档文件的Gradle任务
+ *
+ * * 1.将BootJar解压成为展开的布局(exploded layout): "application.jar"(只包含应用自身的类, Manifest当中通过Class-Path去引用依赖)+"lib/"(依赖的Jar包);
+ * 因为JVM只能为内置的ClassLoader从普通的Jar包当中加载的类去生成CDS归档, 嵌套Jar包当中的类是无法被归档的;
+ * * 2.使用"-XX:ArchiveClassesAtExit"和"-Dspring.context.exit=onRefresh"去对应用去进行一次训练运行,
+ * 在ApplicationContext刷新完成之后JVM退出, 此时会将已经加载的类去生成"application.jsa";
+ * * 3.之后使用"java -XX:SharedArchiveFile=application.jsa -jar application.jar"去启动应用, 就可以复用已经解析和验证过的类
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/9
+ */
+open class BootCdsArchive : DefaultTask() {
+
+    companion object {
+        /**
+         * 解压之后的应用的Jar包的文件名
+         */
+        const val APPLICATION_JAR_NAME = "application.jar"
+
+        /**
+         * 生成的CDS归档文件的文件名
+         */
+        const val ARCHIVE_FILE_NAME = "application.jsa"
+
+        /**
+         * 解压之后的依赖的Jar包所在的目录
+         */
+        private const val LIB_DIRECTORY = "lib/"
+
+        /**
+         * SpringBootLoader的类所在的包, 展开的布局下直接使用Start-Class去启动, 并不需要SpringBootLoader
+         */
+        private const val LOADER_PACKAGE = "com/wanna/boot/loader/"
+    }
+
+    /**
+     * BootJar任务生成的Jar包
+     */
+    private val archiveFile: RegularFileProperty = project.objects.fileProperty()
+
+    /**
+     * 输出的目录, 存放解压之后的应用以及CDS归档文件
+     */
+    private val destinationDirectory: DirectoryProperty = project.objects.directoryProperty()
+
+    /**
+     * 去进行训练运行的java可执行文件, 默认为运行Gradle的JDK的java
+     */
+    private val javaExecutable: Property<String> = project.objects.property(String::class.java)
+        .convention(File(System.getProperty("java.home"), "bin/java").absolutePath)
+
+    /**
+     * 训练运行时的JVM参数
+     */
+    private val jvmArguments: ListProperty<String> = project.objects.listProperty(String::class.java)
+
+    /**
+     * 训练运行时的应用参数
+     */
+    private val applicationArguments: ListProperty<String> = project.objects.listProperty(String::class.java)
+
+    /**
+     * 训练运行的超时时间(秒)
+     */
+    private val trainingTimeout: Property<Long> = project.objects.property(Long::class.javaObjectType).convention(300L)
+
+    @InputFile
+    open fun getArchiveFile(): RegularFileProperty = this.archiveFile
+
+    @OutputDirectory
+    open fun getDestinationDirectory(): DirectoryProperty = this.destinationDirectory
+
+    @Input
+    open fun getJavaExecutable(): Property<String> = this.javaExecutable
+
+    @Input
+    open fun getJvmArguments(): ListProperty<String> = this.jvmArguments
+
+    @Input
+    open fun getApplicationArguments(): ListProperty<String> = this.applicationArguments
+
+    @Input
+    open fun getTrainingTimeout(): Property<Long> = this.trainingTimeout
+
+    /**
+     * 执行解压和训练运行, 生成CDS归档文件
+     */
+    @TaskAction
+    open fun createArchive() {
+        val destination = this.destinationDirectory.asFile.get()
+        destination.deleteRecursively()
+        destination.mkdirs()
+
+        val applicationJar = extract(this.archiveFile.asFile.get(), destination)
+        val archive = File(destination, ARCHIVE_FILE_NAME)
+        train(applicationJar, archive)
+
+        logger.lifecycle(
+            "Created CDS archive $archive, run the application with " +
+                    "'java -XX:SharedArchiveFile=$ARCHIVE_FILE_NAME -jar $APPLICATION_JAR_NAME' in $destination"
+        )
+    }
+
+    /**
+     * 将BootJar去解压成为展开的布局, 依赖的Jar包解压到"lib/"下, 应用自身的类打包成为"application.jar"
+     *
+     * @param bootJar BootJar
+     * @param destination 输出的目录
+     * @return 解压之后的应用的Jar包
+     */
+    protected open fun extract(bootJar: File, destination: File): File {
+        JarFile(bootJar).use { jarFile ->
+            val attributes = jarFile.manifest?.mainAttributes ?: throw GradleException("$bootJar has no manifest")
+            val startClass = attributes.getValue("Start-Class")
+                ?: throw GradleException("$bootJar has no 'Start-Class' manifest attribute")
+            val classes = (attributes.getValue("Spring-Boot-Classes") ?: "BOOT-INF/classes").trimEnd('/') + "/"
+            val lib = (attributes.getValue("Spring-Boot-Lib") ?: "BOOT-INF/lib").trimEnd('/') + "/"
+
+            // 1.将依赖的Jar包(按照BootJar当中的顺序)解压到"lib/"目录下
+            val libDirectory = File(destination, LIB_DIRECTORY)
+            libDirectory.mkdirs()
+            val libraries = ArrayList<String>()
+            for (entry in jarFile.entries()) {
+                if (!entry.isDirectory && entry.name.startsWith(lib)) {
+                    val name = entry.name.substring(lib.length)
+                    jarFile.getInputStream(entry).use { input ->
+                        FileOutputStream(File(libDirectory, name)).use { input.copyTo(it) }
+                    }
+                    libraries += LIB_DIRECTORY + name
+                }
+            }
+
+            // 2.将应用自身的类以及根目录下的META-INF资源, 打包成为"application.jar", 并通过Class-Path去引用依赖
+            val manifest = Manifest()
+            manifest.mainAttributes[Attributes.Name.MANIFEST_VERSION] = "1.0"
+            manifest.mainAttributes[Attributes.Name.MAIN_CLASS] = startClass
+            manifest.mainAttributes[Attributes.Name.CLASS_PATH] = libraries.joinToString(" ")
+
+            val applicationJar = File(destination, APPLICATION_JAR_NAME)
+            JarOutputStream(FileOutputStream(applicationJar), manifest).use { out ->
+                val writtenNames = HashSet<String>()
+                for (entry in jarFile.entries()) {
+                    val name = getApplicationEntryName(entry, classes, lib) ?: continue
+                    if (!writtenNames.add(name)) {
+                        continue
+                    }
+                    out.putNextEntry(JarEntry(name))
+                    if (!entry.isDirectory) {
+                        jarFile.getInputStream(entry).use { it.copyTo(out) }
+                    }
+                    out.closeEntry()
+                }
+            }
+            return applicationJar
+        }
+    }
+
+    /**
+     * 获取BootJar当中的一个Entry在"application.jar"当中的名字
+     *
+     * @param entry BootJar当中的Entry
+     * @param classes 应用的类所在的目录
+     * @param lib 依赖的Jar包所在的目录
+     * @return 在"application.jar"当中的名字(不需要放入"application.jar"当中的话, return null)
+     */
+    private fun getApplicationEntryName(entry: JarEntry, classes: String, lib: String): String? {
+        val name = entry.name
+        return when {
+            name.startsWith(classes) -> name.substring(classes.length).ifEmpty { null }
+            name.startsWith(lib) || name.startsWith(LOADER_PACKAGE) -> null
+            name.startsWith("BOOT-INF/") -> null
+            name == JarFile.MANIFEST_NAME || name == "META-INF/" -> null
+            name.startsWith("META-INF/") -> name
+            else -> null
+        }
+    }
+
+    /**
+     * 对应用去进行训练运行, 在ApplicationContext刷新完成之后退出, 并在退出时去生成CDS归档文件
+     *
+     * @param applicationJar 应用的Jar包
+     * @param archive 要去生成的CDS归档文件
+     */
+    protected open fun train(applicationJar: File, archive: File) {
+        val command = ArrayList<String>()
+        command += this.javaExecutable.get()
+        command += "-XX:ArchiveClassesAtExit=${archive.name}"
+        command += "-Dspring.context.exit=onRefresh"
+        command += this.jvmArguments.get()
+        command += listOf("-jar", applicationJar.name)
+        command += this.applicationArguments.get()
+
+        val process = ProcessBuilder(command).directory(applicationJar.parentFile).inheritIO().start()
+        if (!process.waitFor(this.trainingTimeout.get(), TimeUnit.SECONDS)) {
+            process.destroyForcibly()
+            throw GradleException("Training run did not finish within ${this.trainingTimeout.get()}s: $command")
+        }
+        if (process.exitValue() != 0) {
+            throw GradleException("Training run failed with exit code ${process.exitValue()}: $command")
+        }
+        if (!archive.isFile) {
+            throw GradleException("Training run finished but CDS archive $archive was not created")
+        }
+    }
+}
@@ -2,6 +2,7 @@ import com.github.jengelman.gradle.plugins.shadow.tasks.ShadowJar
 
 plugins {
     id("com.github.johnrengelman.shadow") version (shadowJarVersion)
+    id("me.champeau.jmh") version (jmhPluginVersion)
 }
 
 // ShadowJar这个任务, 默认会将所有的Jar包都解压, 得到最终的一个大的Jar包(archiveFileName=kotlin-spring-boot-loader-1.0-SNAPSHOT-all.jar)
@@ -52,4 +53,9 @@ tasks.getByName<org.gradle.jvm.tasks.Jar>("jar") {
 //        include("kotlin/reflect/*.class")
 //        include("kotlin/io/**")
     }
-}
\ No newline at end of file
+}
+
+// jmh benchmark, 使用"gradle jmh"去运行"src/jmh"下的Benchmark
+jmh {
+    jmhVersion.set(jmhCoreVersion)
+}
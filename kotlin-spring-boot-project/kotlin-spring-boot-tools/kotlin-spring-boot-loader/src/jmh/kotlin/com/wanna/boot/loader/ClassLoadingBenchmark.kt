@@ -0,0 +1,69 @@
+package com.wanna.boot.loader
+
+import com.wanna.boot.loader.jar.JarFile
+import com.wanna.boot.loader.jar.NestedJarLoadingBenchmark
+import org.openjdk.jmh.annotations.*
+import java.io.File
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.TimeUnit
+
+/**
+ * [LaunchedURLClassLoader]在一个含有[libraries]个嵌套Jar包的FatJar上的类查找的吞吐量的Benchmark,
+ * 每次随机去查找某个嵌套Jar包当中的一个类文件, 对于排在它前面的嵌套Jar包, 都需要去进行一次不存在的查找
+ *
+ * 使用"gradle :kotlin-spring-boot-project:kotlin-spring-boot-tools:kotlin-spring-boot-loader:jmh"去运行
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class ClassLoadingBenchmark {
+
+    /**
+     * FatJar当中的嵌套Jar包的数量
+     */
+    @Param("400")
+    @JvmField
+    var libraries = 400
+
+    private lateinit var fatJar: File
+
+    private lateinit var rootJarFile: JarFile
+
+    private lateinit var classLoader: LaunchedURLClassLoader
+
+    @Setup(Level.Trial)
+    fun setup() {
+        JarFile.registerUrlProtocolHandler()
+        fatJar = NestedJarLoadingBenchmark.createFatJar(libraries)
+        rootJarFile = JarFile(fatJar)
+        val urls = rootJarFile.filter { it.name.endsWith(".jar") }
+            .map { rootJarFile.getNestedJarFile(it).getUrl() }
+            .toTypedArray()
+        classLoader = LaunchedURLClassLoader(urls, javaClass.classLoader)
+    }
+
+    @TearDown(Level.Trial)
+    fun tearDown() {
+        classLoader.close()
+        rootJarFile.close()
+        fatJar.delete()
+    }
+
+    @Benchmark
+    @Threads(4)
+    fun findResource(): Any? {
+        val random = ThreadLocalRandom.current()
+        return classLoader.findResource("com/example/library${random.nextInt(libraries)}/Class${random.nextInt(50)}.class")
+    }
+
+    @Benchmark
+    @Threads(4)
+    fun findMissingResource(): Any? = classLoader.findResource("com/example/Missing.class")
+}
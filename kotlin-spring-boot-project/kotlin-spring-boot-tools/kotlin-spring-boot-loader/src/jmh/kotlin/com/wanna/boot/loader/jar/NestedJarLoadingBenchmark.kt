@@ -0,0 +1,142 @@
+package com.wanna.boot.loader.jar
+
+import org.openjdk.jmh.annotations.*
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.nio.file.Files
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+/**
+ * 模拟应用启动时的类加载的Benchmark: 生成一个"BOOT-INF/lib"下有[libraries]个嵌套Jar包的FatJar,
+ * 使用[threads]个线程, 并行地去打开全部的嵌套Jar包并读取其中的全部(被压缩过的)Entry
+ *
+ * 使用"gradle :kotlin-spring-boot-project:kotlin-spring-boot-tools:kotlin-spring-boot-loader:jmh"去运行
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+open class NestedJarLoadingBenchmark {
+
+    /**
+     * 并行去进行类加载的线程数量
+     */
+    @Param("1", "8")
+    @JvmField
+    var threads = 1
+
+    /**
+     * FatJar当中的嵌套Jar包的数量
+     */
+    @Param("300")
+    @JvmField
+    var libraries = 300
+
+    private lateinit var fatJar: File
+
+    private lateinit var executor: ExecutorService
+
+    @Setup(Level.Trial)
+    fun setup() {
+        fatJar = createFatJar(libraries)
+        executor = Executors.newFixedThreadPool(threads)
+    }
+
+    @TearDown(Level.Trial)
+    fun tearDown() {
+        executor.shutdownNow()
+        fatJar.delete()
+    }
+
+    @Benchmark
+    fun startup(): Long {
+        JarFile(fatJar).use { root ->
+            val tasks = root.filter { it.name.startsWith(LIB_PATH) && it.name.endsWith(".jar") }
+                .map { entry -> Callable { readAll(root.getNestedJarFile(entry)) } }
+            return executor.invokeAll(tasks).sumOf { it.get() }
+        }
+    }
+
+    /**
+     * 读取一个嵌套Jar包当中的全部Entry
+     *
+     * @param jarFile 嵌套Jar包
+     * @return 读取到的字节数量
+     */
+    private fun readAll(jarFile: JarFile): Long {
+        var total = 0L
+        val buffer = ByteArray(4096)
+        for (entry in jarFile) {
+            if (entry.isDirectory) {
+                continue
+            }
+            jarFile.getInputStream(entry).use {
+                while (true) {
+                    val read = it.read(buffer)
+                    if (read == -1) break
+                    total += read
+                }
+            }
+        }
+        return total
+    }
+
+    companion object {
+        private const val LIB_PATH = "BOOT-INF/lib/"
+
+        private const val CLASSES_PER_LIBRARY = 50
+
+        /**
+         * 生成一个FatJar, 嵌套的Jar包使用STORED的方式存放, 嵌套Jar包当中的Entry使用DEFLATED的方式存放
+         *
+         * @param libraries 嵌套的Jar包的数量
+         * @return 生成的FatJar文件
+         */
+        @JvmStatic
+        fun createFatJar(libraries: Int): File {
+            val file = Files.createTempFile("nested-jar-benchmark", ".jar").toFile()
+            ZipOutputStream(FileOutputStream(file)).use { out ->
+                for (index in 0 until libraries) {
+                    val library = createLibrary(index)
+                    val crc = CRC32()
+                    crc.update(library)
+                    val entry = ZipEntry("${LIB_PATH}library-$index.jar")
+                    entry.method = ZipEntry.STORED
+                    entry.size = library.size.toLong()
+                    entry.compressedSize = library.size.toLong()
+                    entry.crc = crc.value
+                    out.putNextEntry(entry)
+                    out.write(library)
+                    out.closeEntry()
+                }
+            }
+            return file
+        }
+
+        @JvmStatic
+        private fun createLibrary(index: Int): ByteArray {
+            val bytes = ByteArrayOutputStream()
+            ZipOutputStream(bytes).use { out ->
+                for (clazz in 0 until CLASSES_PER_LIBRARY) {
+                    out.putNextEntry(ZipEntry("com/example/library$index/Class$clazz.class"))
+                    out.write(ByteArray(2048) { (it * 31 + clazz + index).toByte() })
+                    out.closeEntry()
+                }
+            }
+            return bytes.toByteArray()
+        }
+    }
+}
@@ -24,6 +24,11 @@ class ClassPathIndexFile(private val root: File, lines: List<String>) {
      */
     private val lines: List<String> = lines.map(this::extractName)
 
+    /**
+     * 全部的Jar包的Name的集合, 用于[containsEntry]的快速判断(lines需要保留原始的顺序, 用于生成URL列表)
+     */
+    private val names: Set<String> = HashSet(this.lines)
+
     /**
      * 将ClassPathIndexFile当中的一行去提取成为Jar包的Name
      *
@@ -50,7 +55,7 @@ class ClassPathIndexFile(private val root: File, lines: List<String>) {
      * @param name entryName
      * @return 如果包含的话, 那么return true; 否则return false
      */
-    fun containsEntry(name: String): Boolean = lines.contains(name)
+    fun containsEntry(name: String): Boolean = names.contains(name)
 
     /**
      * 将ClassPathIndexFile当中的每一行去转换成为一个URL
@@ -1,15 +1,21 @@
 package com.wanna.boot.loader.data
 
 import java.io.*
+import java.nio.ByteBuffer
+import java.nio.channels.ClosedByInterruptException
+import java.nio.channels.ClosedChannelException
+import java.nio.channels.FileChannel
+import java.nio.file.NoSuchFileException
+import java.nio.file.StandardOpenOption
 
 /**
  * 基于文件的[RandomAccessData]的实现, 实现对于文件的随机访问(按照index去访问文件)
- * 内部实现时通过组合一个jdk当中提供的[RandomAccessFile]来实现
+ * 内部实现时通过组合一个jdk当中提供的[FileChannel]来实现, 基于positional read, 多线程并发读取时无需加锁
  *
  * @author jianchao.jia
  * @version v1.0
  * @date 2022/10/3
- * @see RandomAccessFile
+ * @see FileChannel
  * @see RandomAccessData
  *
  * @param fileAccess 提供文件的随机访问的FileAccess对象, 像数组一样的方式去进行文件的访问, 基于offset&length用于去切取一部分数据
@@ -184,39 +190,53 @@ class RandomAccessDataFile(private val fileAccess: FileAccess, private val offse
     }
 
     /**
-     * 提供随机文件访问的对象, 通过组合jdk当中提供的[RandomAccessFile]去完成实现对于文件的随机访问
+     * 提供随机文件访问的对象, 通过组合jdk当中提供的[FileChannel]去完成实现对于文件的随机访问
+     *
+     * Note: 使用的是[FileChannel]的positional read(直接指定读取的位置, 而不是先seek再read),
+     * 因此多个线程(例如并行的类加载)去读取同一个文件时, 并不需要去竞争同一把锁, 只有在打开/关闭文件时才需要加锁
      *
      * @param file 要去进行随机访问的文件
      */
     class FileAccess(val file: File) {
 
         /**
-         * 操作文件时需要用到的锁对象, 因为涉及到seek寻址操作, 因此会存在有并发安全问题
+         * 打开/关闭文件时需要用到的锁对象(读取文件时并不需要加锁)
          */
         private val monitor = Any()
 
         /**
-         * JDK当中提供的原生的[RandomAccessFile], 去提供对于文件的随机访问
+         * JDK当中提供的原生的[FileChannel], 去提供对于文件的随机访问
          */
-        private var randomAccessFile: RandomAccessFile? = null
+        @Volatile
+        private var fileChannel: FileChannel? = null
 
         init {
             openIfNecessary()  // 打开文件
         }
 
         /**
-         * 尝试将给定的文件去进行打开
+         * 尝试将给定的文件去进行打开, 如果当前已经打开了的话, 直接返回当前的[FileChannel]
          *
-         * @throws FileNotFoundException 如果读取文件失败
+         * @return 已经打开的FileChannel
+         * @throws IOException 如果读取文件失败
          */
-        @Throws(FileNotFoundException::class)
-        private fun openIfNecessary() {
-            if (randomAccessFile == null) {
-                try {
-                    randomAccessFile = RandomAccessFile(file, "r")
-                } catch (ex: FileNotFoundException) {
-                    throw IllegalArgumentException("file ${file.absolutePath} is not exists")
+        @Throws(IOException::class)
+        private fun openIfNecessary(): FileChannel {
+            val channel = this.fileChannel
+            if (channel != null && channel.isOpen) {
+                return channel
+            }
+            synchronized(monitor) {
+                var current = this.fileChannel
+                if (current == null || !current.isOpen) {
+                    try {
+                        current = FileChannel.open(file.toPath(), StandardOpenOption.READ)
+                    } catch (ex: NoSuchFileException) {
+                        throw IllegalArgumentException("file ${file.absolutePath} is not exists")
+                    }
+                    this.fileChannel = current
                 }
+                return current!!
             }
         }
 
@@ -224,46 +244,79 @@ class RandomAccessDataFile(private val fileAccess: FileAccess, private val offse
          * 读取文件当中一部分数据, 并存放到给定的ByteArray当中
          *
          * @param bytes 存放读取的数据的ByteArray, 最终的数据将会存放到这里
-         * @param position 文件的殉职偏移量
+         * @param position 文件的寻址偏移量
          * @param offset 读取文件的偏移量
          * @param length 要去读取的文件的长度
-         * @return 成功读取到ByteArray当中的字节数量
+         * @return 成功读取到ByteArray当中的字节数量(如果已经到达文件末尾, return -1)
          */
         @Throws(IOException::class)
         fun read(bytes: ByteArray, position: Long, offset: Int, length: Int): Int {
-            synchronized(monitor) {
-                openIfNecessary()
-                randomAccessFile!!.seek(position)
-                return randomAccessFile!!.read(bytes, offset, length)
+            val buffer = ByteBuffer.wrap(bytes, offset, length)
+            var read = 0
+            while (buffer.hasRemaining()) {
+                val count = readFully(buffer, position + read)
+                if (count < 0) {
+                    return if (read == 0) -1 else read
+                }
+                read += count
             }
+            return read
         }
 
         /**
-         * 关闭正在去进行读取的文件
+         * 读取给定的位置的数据
+         *
+         * @param position 要去读取数据的位置
+         * @return 读取到的给定位置的文件内容(如果已经到达文件末尾, return -1)
          */
         @Throws(IOException::class)
-        fun close() {
-            synchronized(monitor) {
-                if (randomAccessFile != null) {
-                    randomAccessFile!!.close()
-                    randomAccessFile = null
+        fun readByte(position: Long): Int {
+            val buffer = ByteBuffer.allocate(1)
+            return if (readFully(buffer, position) <= 0) -1 else buffer.get(0).toInt() and 0xFF
+        }
+
+        /**
+         * 从给定的位置去执行一次positional read
+         *
+         * Note: 如果读取文件的线程被中断了, [FileChannel]将会被JDK自动关闭, 对于这种情况,
+         * 我们需要重新打开文件并重试, 避免某个线程的中断导致别的线程(以及后续的类加载)都无法再去读取文件
+         *
+         * @param buffer 存放读取的数据的ByteBuffer
+         * @param position 要去读取的文件的位置
+         * @return 本次读取到的字节数量
+         */
+        @Throws(IOException::class)
+        private fun readFully(buffer: ByteBuffer, position: Long): Int {
+            while (true) {
+                val channel = openIfNecessary()
+                try {
+                    return channel.read(buffer, position)
+                } catch (ex: ClosedByInterruptException) {
+                    // 清掉中断标识位, 重新去打开文件并重试, 最终还需要去恢复线程的中断标识位
+                    Thread.interrupted()
+                    try {
+                        return readFully(buffer, position)
+                    } finally {
+                        Thread.currentThread().interrupt()
+                    }
+                } catch (ex: ClosedChannelException) {
+                    // 别的线程被中断(或者是文件被关闭)导致Channel被关闭了, 重新打开文件并重试
                 }
             }
         }
 
         /**
-         * 读取给定的位置的数据
-         *
-         * @param position 要去读取数据的位置
-         * @return 读取到的给定位置的文件内容
+         * 关闭正在去进行读取的文件
          */
         @Throws(IOException::class)
-        fun readByte(position: Long): Int {
+        fun close() {
             synchronized(monitor) {
-                openIfNecessary()
-                randomAccessFile!!.seek(position)
-                return randomAccessFile!!.read()
+                val channel = this.fileChannel
+                if (channel != null) {
+                    channel.close()
+                    this.fileChannel = null
+                }
             }
         }
     }
-}
\ No newline at end of file
+}
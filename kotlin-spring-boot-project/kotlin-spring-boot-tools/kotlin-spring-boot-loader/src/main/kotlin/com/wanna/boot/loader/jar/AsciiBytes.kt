@@ -1,6 +1,7 @@
 package com.wanna.boot.loader.jar
 
 import java.nio.charset.StandardCharsets
+import java.util.function.IntConsumer
 import javax.annotation.Nullable
 import kotlin.experimental.and
 
@@ -224,6 +225,36 @@ class AsciiBytes(
         return hash
     }
 
+    /**
+     * 计算当前字节序列当中以给定的分隔符结尾的每个前缀(不包含分隔符本身)的hashCode, 计算方式和[hashCode]完全一致,
+     * 例如对于"com/wanna/App.class", 将会依次回调"com"和"com/wanna"的hashCode
+     *
+     * @param separator 分隔符(必须是一个ASCII字符)
+     * @param action 接收前缀的hashCode的回调函数
+     */
+    fun forEachPrefixHashCode(separator: Char, action: IntConsumer) {
+        var hash = 0
+        var i = offset
+        while (i < offset + length) {
+            var b: Int = this.bytes[i].toInt()
+            if (b == separator.code) {
+                action.accept(hash)
+            }
+            val remainingUtfBytes = getNumberOfUtfBytes(b) - 1
+            b = b and INITIAL_BYTE_BITMASK[remainingUtfBytes]
+            for (j in 0 until remainingUtfBytes) {
+                b = (b shl 6) + (this.bytes[++i] and SUBSEQUENT_BYTE_BITMASK.toByte())
+            }
+            if (b <= 0xFFFF) {
+                hash = 31 * hash + b
+            } else {
+                hash = 31 * hash + ((b shr 0xA) + 0xD7C0)
+                hash = 31 * hash + ((b and 0x3FF) + 0xDC00)
+            }
+            i++
+        }
+    }
+
     override fun toString(): String {
         if (this.string == null) {
             if (length == 0) {
@@ -0,0 +1,46 @@
+package com.wanna.boot.loader.jar
+
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.zip.Inflater
+
+/**
+ * [Inflater]的对象池, 避免每次去读取一个被压缩的JarEntry时, 都需要去创建一个新的[Inflater]
+ * (每个[Inflater]都持有一块native的zlib内存, 创建和销毁的代价都比较高, 在启动时并行加载大量类的情况下尤为明显)
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/8
+ */
+internal object InflaterPool {
+
+    /**
+     * 对象池当中最多缓存的Inflater的数量, 超出的Inflater将会被直接销毁
+     */
+    private const val MAX_POOLED_INFLATERS = 64
+
+    /**
+     * 缓存起来的可以去进行复用的Inflater
+     */
+    private val inflaters = ArrayBlockingQueue<Inflater>(MAX_POOLED_INFLATERS)
+
+    /**
+     * 从对象池当中去获取一个Inflater, 如果对象池当中没有的话, 那么创建一个新的
+     *
+     * @return Inflater(nowrap=true)
+     */
+    @JvmStatic
+    fun acquire(): Inflater = inflaters.poll() ?: Inflater(true)
+
+    /**
+     * 将使用完的Inflater去归还到对象池当中, 如果对象池已经满了, 那么将它直接销毁
+     *
+     * @param inflater 使用完的Inflater
+     */
+    @JvmStatic
+    fun release(inflater: Inflater) {
+        inflater.reset()
+        if (!inflaters.offer(inflater)) {
+            inflater.end()
+        }
+    }
+}
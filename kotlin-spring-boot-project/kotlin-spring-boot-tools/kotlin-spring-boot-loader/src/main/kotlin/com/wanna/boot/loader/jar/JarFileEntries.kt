@@ -8,6 +8,7 @@ import com.wanna.boot.loader.jar.JarEntryCertification.Companion.from
 import java.io.IOException
 import java.io.InputStream
 import java.util.*
+import java.util.concurrent.atomic.AtomicReferenceArray
 import java.util.jar.Attributes
 import java.util.jar.JarInputStream
 import java.util.zip.ZipEntry
@@ -17,6 +18,10 @@ import javax.annotation.Nullable
 /**
  * 维护了[JarFile]内部的[JarEntry]列表, 提供了[JarFile]内部的[JarEntry]的访问
  *
+ * 在解析CentralDirectory时, 会为所有的Entry去构建一个开放寻址的Hash表(entryName的hashCode -> Entry的index),
+ * 同时还会为所有的Entry的包路径去构建一个hashCode的集合, 对于包路径都不存在的Entry, 可以直接判定为不存在(对于类加载时,
+ * 需要去所有的Jar包当中都去进行尝试的情况非常有用); 构建完成之后的索引是只读的, 多个线程可以无锁地去进行访问
+ *
  * @author jianchao.jia
  * @version v1.0
  * @date 2022/10/4
@@ -60,21 +65,29 @@ internal class JarFileEntries(private val jarFile: JarFile, @Nullable private va
          * 没有后缀的标识
          */
         private const val NO_SUFFIX = 0.toChar()
-        const val ENTRY_CACHE_SIZE = 25
 
+        /**
+         * Entry缓存的槽位数量(必须是2的幂)
+         */
+        const val ENTRY_CACHE_SIZE = 32
+
+        /**
+         * 根据元素的数量, 计算开放寻址的Hash表的容量(2的幂, 并且负载因子不超过0.5)
+         *
+         * @param size 元素的数量
+         * @return Hash表的容量
+         */
         @JvmStatic
-        private fun swap(array: IntArray, i: Int, j: Int) {
-            val temp = array[i]
-            array[i] = array[j]
-            array[j] = temp
-        }
+        private fun tableSizeFor(size: Int): Int = Integer.highestOneBit((size * 2).coerceAtLeast(2) - 1) shl 1
 
+        /**
+         * 对hashCode去进行扰动, 让高位也参与到槽位的计算当中
+         *
+         * @param hashCode 原始的hashCode
+         * @return 扰动之后的hash值
+         */
         @JvmStatic
-        private fun swap(array: LongArray, i: Int, j: Int) {
-            val temp = array[i]
-            array[i] = array[j]
-            array[j] = temp
-        }
+        private fun spread(hashCode: Int): Int = hashCode xor (hashCode ushr 16)
     }
 
     /**
@@ -89,38 +102,50 @@ internal class JarFileEntries(private val jarFile: JarFile, @Nullable private va
         private set  // 私有化Setter
 
     /**
-     * 三个数组同步初始化, 并基于hashCodes数组去完成排序, 去提供对于各个JarEntry的索引的建立
+     * 两个数组同步初始化, 按照CentralDirectory当中的顺序去存放各个Entry的name的hashCode以及Entry在CentralDirectory当中的偏移量
      */
     private lateinit var hashCodes: IntArray
-    private lateinit var positions: IntArray
     private lateinit var centralDirectoryOffsets: Offsets
-    private lateinit var certifications: Array<JarEntryCertification>
+    private var certifications: Array<JarEntryCertification?>? = null
+
+    /**
+     * 开放寻址(线性探测)的Hash表, 槽位当中存放的是"Entry的index+1"(0代表空槽位), 在[visitEnd]时完成构建
+     */
+    private lateinit var table: IntArray
+
+    /**
+     * 当前Jar包当中的全部的包路径的hashCode的集合, 在[visitEnd]时完成构建
+     */
+    private val packageHashCodes = PackageHashCodes()
+
+    /**
+     * 当前Jar包是否是一个多发行版的Jar包的缓存(null代表还未去进行计算)
+     */
+    @Volatile
+    private var multiReleaseJar: Boolean? = null
 
     /**
      * 判断当前Jar包是否是一个多发行版的Jar包?
      * 如果Manifest当中存在有"Multi-Release"的话, 就属于是多发行版Jar包
      */
     private val isMultiReleaseJar: Boolean
-        get() =
-            try {
-                val manifest = jarFile.manifest
-                if (manifest == null) {
+        get() {
+            var multiRelease = this.multiReleaseJar
+            if (multiRelease == null) {
+                multiRelease = try {
+                    jarFile.manifest?.mainAttributes?.containsKey(MULTI_RELEASE) ?: false
+                } catch (ex: IOException) {
                     false
-                } else {
-                    val attributes = manifest.mainAttributes
-                    attributes.containsKey(MULTI_RELEASE)
                 }
-            } catch (ex: IOException) {
-                false
+                this.multiReleaseJar = multiRelease
             }
+            return multiRelease!!
+        }
 
     /**
-     * JarEntry的缓存, Key是index, Value-FileHeader
+     * JarEntry的缓存, 直接映射(index & (ENTRY_CACHE_SIZE-1))的方式, 无需加锁
      */
-    private val entriesCache = Collections.synchronizedMap(
-        object : LinkedHashMap<Int, FileHeader>(16, 0.75f, true) {
-            override fun removeEldestEntry(eldest: Map.Entry<Int, FileHeader>) = size >= ENTRY_CACHE_SIZE
-        })
+    private val entriesCache = AtomicReferenceArray<CachedEntry>(ENTRY_CACHE_SIZE)
 
     /**
      * 获取用于迭代[JarEntry]列表的迭代器
@@ -208,7 +233,6 @@ internal class JarFileEntries(private val jarFile: JarFile, @Nullable private va
     override fun visitStart(endRecord: CentralDirectoryEndRecord, centralDirectoryData: RandomAccessData) {
         // 根据EOCD当中的得到的CentralDirectoryFileHeader数量(ZipEntry/JarEntry数量), 去创建出来合适长度的数组
         this.hashCodes = IntArray(endRecord.numberOfRecords)
-        this.positions = IntArray(endRecord.numberOfRecords)
 
         // 保存CentralDirectoryData
         this.centralDirectoryData = centralDirectoryData
@@ -241,74 +265,24 @@ internal class JarFileEntries(private val jarFile: JarFile, @Nullable private va
     private fun add(name: AsciiBytes, dataOffset: Long) {
         hashCodes[size] = name.hashCode()
         centralDirectoryOffsets[size] = dataOffset
-        positions[size] = size
+        name.forEachPrefixHashCode(SLASH, packageHashCodes::add)
         size++
     }
 
     /**
-     * visitEnd
+     * visitEnd, 在所有的FileHeader都访问完成之后, 去构建开放寻址的Hash表
      */
     override fun visitEnd() {
-        // 对hashCodes/centralDirectoryOffsets/positions三个数组去完成排序
-        sort(0, size - 1)
-
-        // 创建一个新的positions数组, 去替换掉原来的positions数组
-        val positions = positions
-        this.positions = IntArray(positions.size)
-
-        // ????
-        for (i in 0 until size) {
-            this.positions[positions[i]] = i
-        }
-    }
-
-    /**
-     * 对hashCode数组的[left, right]这些位置的元素, 去完成排序("Quick Sort");
-     * 从代码上看起来是简单的hashCode的元素的排序,
-     * 实际上会对hashCodes/centralDirectoryOffsets/positions三个数组同时去进行排序;
-     * 对于centralDirectoryOffsets/positions的排序使用的规则都是按照hashCode的顺序,
-     * 在执行完成排序之后, 三者的位置对应关系仍旧完全相同, 根据index可以完全对应好三者
-     *
-     * @param left leftIndex
-     * @param right rightIndex
-     */
-    private fun sort(left: Int, right: Int) {
-        if (left < right) {
-            val pivot = hashCodes[left + (right - left) / 2]
-            var i = left
-            var j = right
-            while (i <= j) {
-                while (hashCodes[i] < pivot) {
-                    i++
-                }
-                while (hashCodes[j] > pivot) {
-                    j--
-                }
-                if (i <= j) {
-                    swap(i, j)
-                    i++
-                    j--
-                }
-            }
-            if (left < j) {
-                sort(left, j)
-            }
-            if (right > i) {
-                sort(i, right)
+        val table = IntArray(tableSizeFor(size))
+        val mask = table.size - 1
+        for (index in 0 until size) {
+            var slot = spread(hashCodes[index]) and mask
+            while (table[slot] != 0) {
+                slot = (slot + 1) and mask
             }
+            table[slot] = index + 1
         }
-    }
-
-    /**
-     * 对于三个数组当中的i和j对应的元素, 全部执行去执行交换
-     *
-     * @param i i
-     * @param j j
-     */
-    private fun swap(i: Int, j: Int) {
-        swap(hashCodes, i, j)
-        centralDirectoryOffsets.swap(i, j)
-        swap(positions, i, j)
+        this.table = table
     }
 
     /**
@@ -392,6 +366,10 @@ internal class JarFileEntries(private val jarFile: JarFile, @Nullable private va
         name: CharSequence, type: Class<T>, cacheEntry: Boolean,
         @Nullable nameAlias: AsciiBytes?
     ): T? {
+        // 如果该name所在的包路径在当前Jar包当中都不存在, 那么该Entry一定不存在, 直接return null
+        if (!isPackagePresent(name)) {
+            return null
+        }
 
         // 生成该name的hashCode
         var hashCode = hashCode(name)
@@ -423,25 +401,41 @@ internal class JarFileEntries(private val jarFile: JarFile, @Nullable private va
         cacheEntry: Boolean, @Nullable nameAlias: AsciiBytes?
     ): T? {
 
-        // 根据hashCode, 从数组当中去获取到第一个hashCode为该值的元素(使用二分查找)
-        var index = getFirstIndex(hashCode)
-
-        // 从该位置开始向后寻找, 遍历所有的hashCode都完全匹配的元素
-        while ((index in (0 until size)) && (hashCodes[index] == hashCode)) {
-            // 根据index去进行获取到FileHeader
-            val entry = getEntry(index, type, cacheEntry, nameAlias)
-
-            // 如果name匹配的话, 那么return
-            if (entry.hasName(name, suffix)) {
-                return entry
+        // 根据hashCode去计算得到槽位, 从该槽位开始线性探测, 直到遇到空槽位为止
+        val table = table
+        val mask = table.size - 1
+        var slot = spread(hashCode) and mask
+        while (table[slot] != 0) {
+            val index = table[slot] - 1
+
+            // 只有hashCode完全匹配时, 才需要去读取FileHeader并比较name
+            if (hashCodes[index] == hashCode) {
+                val entry = getEntry(index, type, cacheEntry, nameAlias)
+                if (entry.hasName(name, suffix)) {
+                    return entry
+                }
             }
-            index++
+            slot = (slot + 1) and mask
         }
 
         // 如果没有找到合适的结果, 那么return null
         return null
     }
 
+    /**
+     * 判断给定的name所在的包路径(最后一个"/"之前的部分), 在当前Jar包当中是否存在?
+     *
+     * @param name entryName
+     * @return 如果包路径存在(或者name不存在包路径), return true; 否则return false
+     */
+    private fun isPackagePresent(name: CharSequence): Boolean {
+        var lastSlash = name.length - 1
+        while (lastSlash >= 0 && name[lastSlash] != SLASH) {
+            lastSlash--
+        }
+        return lastSlash < 0 || packageHashCodes.contains(hashCode(name.subSequence(0, lastSlash)))
+    }
+
 
     /**
      * 根据entryName(fileName), 去获取到该Entry所在的位置
@@ -451,13 +445,18 @@ internal class JarFileEntries(private val jarFile: JarFile, @Nullable private va
      */
     private fun getEntryIndex(name: CharSequence): Int {
         val hashCode = hashCode(name)
-        var index = getFirstIndex(hashCode)
-        while (index in 0 until size && hashCodes[index] == hashCode) {
-            val candidate = getEntry(index, FileHeader::class.java, false, null)
-            if (candidate.hasName(name, NO_SUFFIX)) {
-                return index
+        val table = table
+        val mask = table.size - 1
+        var slot = spread(hashCode) and mask
+        while (table[slot] != 0) {
+            val index = table[slot] - 1
+            if (hashCodes[index] == hashCode) {
+                val candidate = getEntry(index, FileHeader::class.java, false, null)
+                if (candidate.hasName(name, NO_SUFFIX)) {
+                    return index
+                }
             }
-            index++
+            slot = (slot + 1) and mask
         }
         return -1
     }
@@ -475,7 +474,8 @@ internal class JarFileEntries(private val jarFile: JarFile, @Nullable private va
     private fun <T : FileHeader> getEntry(index: Int, type: Class<T>, cacheEntry: Boolean, nameAlias: AsciiBytes?): T {
         return try {
             val offset = centralDirectoryOffsets[index]
-            val cached = entriesCache[index]
+            val cacheSlot = index and (ENTRY_CACHE_SIZE - 1)
+            val cached = entriesCache[cacheSlot]?.takeIf { it.index == index }?.entry
 
             // 如果缓存当中没有的话, 那么我们构建出来一个CentralDirectoryFileHeader对象
             var entry = cached ?: fromRandomAccessData(centralDirectoryData, offset, filter)
@@ -488,7 +488,7 @@ internal class JarFileEntries(private val jarFile: JarFile, @Nullable private va
 
             // 如果需要进行缓存的话, 我们我们在这里添加到缓存当中
             if (cacheEntry && cached !== entry) {
-                entriesCache[index] = entry
+                entriesCache[cacheSlot] = CachedEntry(index, entry)
             }
 
             // 类型转换, 并返回
@@ -499,31 +499,14 @@ internal class JarFileEntries(private val jarFile: JarFile, @Nullable private va
     }
 
     /**
-     * 获取[hashCodes]数组当中, 第一个元素为hashCode的元素的索引值
-     *
-     * @param hashCode 要去进行搜寻的hashCode
-     * @return 从hashCodes数组当中搜索得到的hashCode相等的第一个元素(使用二分查找的方式), 如果找不到hashCode匹配的元素, 那么return -1
+     * 清空JarEntries的Cache缓存
      */
-    private fun getFirstIndex(hashCode: Int): Int {
-        var index = Arrays.binarySearch(hashCodes, 0, size, hashCode)
-
-        // 如果搜索不到结果, 那么return -1
-        if (index < 0) {
-            return -1
-        }
-
-        // 如果该位置并不是第一个hashCode匹配的元素, 那么尝试往前去进行寻找
-        while (index > 0 && hashCodes[index - 1] == hashCode) {
-            index--
+    fun clearCache() {
+        for (slot in 0 until ENTRY_CACHE_SIZE) {
+            entriesCache[slot] = null
         }
-        return index
     }
 
-    /**
-     * 清空JarEntries的Cache缓存
-     */
-    fun clearCache() = entriesCache.clear()
-
     /**
      * 将给定的name去应用Filter完成转换
      *
@@ -533,10 +516,9 @@ internal class JarFileEntries(private val jarFile: JarFile, @Nullable private va
     @Nullable
     private fun applyFilter(name: AsciiBytes): AsciiBytes? = if (filter != null) filter.apply(name) else name
 
-    @Suppress("UNCHECKED_CAST")
     @Throws(IOException::class)
     fun getCertification(entry: JarEntry): JarEntryCertification {
-        var certifications: Array<JarEntryCertification?>? = certifications as Array<JarEntryCertification?>?
+        var certifications = this.certifications
         if (certifications == null) {
             certifications = arrayOfNulls(size)
             JarInputStream(jarFile.data.getInputStream()).use { certifiedJarStream ->
@@ -550,7 +532,7 @@ internal class JarFileEntries(private val jarFile: JarFile, @Nullable private va
                     }
                 }
             }
-            this.certifications = certifications as Array<JarEntryCertification>
+            this.certifications = certifications
         }
         val certification = certifications[entry.index]
         return certification ?: JarEntryCertification.NONE
@@ -585,8 +567,7 @@ internal class JarFileEntries(private val jarFile: JarFile, @Nullable private va
             if (!hasNext()) {
                 throw NoSuchElementException()
             }
-            val entryIndex = positions[index++]
-            return getEntry(entryIndex, JarEntry::class.java, false, null)
+            return getEntry(index++, JarEntry::class.java, false, null)
         }
     }
 
@@ -604,14 +585,6 @@ internal class JarFileEntries(private val jarFile: JarFile, @Nullable private va
         operator fun set(index: Int, value: Long)
         operator fun get(index: Int): Long
 
-        /**
-         * 交换Offsets数组当中的i和j的位置
-         *
-         * @param i i
-         * @param j j
-         */
-        fun swap(i: Int, j: Int)
-
         companion object {
             /**
              * 根据EOCD去决定Zip文件的类型, 从而去创建Offsets, 创建Zip64Offsets/ZipOffsets
@@ -632,7 +605,6 @@ internal class JarFileEntries(private val jarFile: JarFile, @Nullable private va
      */
     private class ZipOffsets(size: Int) : Offsets {
         private val offsets = IntArray(size)
-        override fun swap(i: Int, j: Int) = swap(offsets, i, j)
         override fun get(index: Int): Long = offsets[index].toLong()
         override fun set(index: Int, value: Long) {
             offsets[index] = value.toInt()
@@ -646,10 +618,94 @@ internal class JarFileEntries(private val jarFile: JarFile, @Nullable private va
      */
     private class Zip64Offsets(size: Int) : Offsets {
         private val offsets: LongArray = LongArray(size)
-        override fun swap(i: Int, j: Int) = swap(offsets, i, j)
         override fun get(index: Int): Long = offsets[index]
         override fun set(index: Int, value: Long) {
             offsets[index] = value
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Entry缓存当中的一个元素, 因为缓存采用的是直接映射的方式, 因此需要记录下Entry的index去进行校验
+     *
+     * @param index Entry的index
+     * @param entry FileHeader
+     */
+    private class CachedEntry(val index: Int, val entry: FileHeader)
+
+    /**
+     * 包路径的hashCode的集合(开放寻址的Hash集合), 只会在解析CentralDirectory时去进行写入, 解析完成之后只读
+     */
+    private class PackageHashCodes {
+
+        /**
+         * 存放hashCode的槽位
+         */
+        private var hashCodes = IntArray(16)
+
+        /**
+         * 槽位是否已经被使用的标识
+         */
+        private var used = BooleanArray(16)
+
+        /**
+         * 集合当中的元素数量
+         */
+        private var size = 0
+
+        /**
+         * 添加一个包路径的hashCode
+         *
+         * @param hashCode 包路径的hashCode
+         */
+        fun add(hashCode: Int) {
+            if (contains(hashCode)) {
+                return
+            }
+            if ((size + 1) * 2 > hashCodes.size) {
+                resize()
+            }
+            insert(hashCode)
+            size++
+        }
+
+        /**
+         * 检查集合当中是否存在给定的包路径的hashCode
+         *
+         * @param hashCode 包路径的hashCode
+         * @return 如果存在的话, return true; 否则return false
+         */
+        fun contains(hashCode: Int): Boolean {
+            val mask = hashCodes.size - 1
+            var slot = spread(hashCode) and mask
+            while (used[slot]) {
+                if (hashCodes[slot] == hashCode) {
+                    return true
+                }
+                slot = (slot + 1) and mask
+            }
+            return false
+        }
+
+        private fun insert(hashCode: Int) {
+            val mask = hashCodes.size - 1
+            var slot = spread(hashCode) and mask
+            while (used[slot]) {
+                slot = (slot + 1) and mask
+            }
+            hashCodes[slot] = hashCode
+            used[slot] = true
+        }
+
+        private fun resize() {
+            val oldHashCodes = hashCodes
+            val oldUsed = used
+            hashCodes = IntArray(oldHashCodes.size * 2)
+            used = BooleanArray(oldHashCodes.size * 2)
+            for (slot in oldHashCodes.indices) {
+                if (oldUsed[slot]) {
+                    insert(oldHashCodes[slot])
+                }
+            }
+        }
+    }
+}
@@ -7,16 +7,21 @@ import java.util.zip.Inflater
 import java.util.zip.InflaterInputStream
 
 /**
- * 提供压缩文件的读取的输入流
+ * 提供压缩文件的读取的输入流, 使用的[Inflater]从[InflaterPool]当中去进行获取, 在输入流关闭时归还到[InflaterPool]当中
  *
  * @author jianchao.jia
  * @version v1.0
  * @date 2022/10/4
  */
 internal class ZipInflaterInputStream(inputStream: InputStream, private var available: Int) :
-    InflaterInputStream(inputStream, Inflater(true), getInflaterBufferSize(available.toLong())) {
+    InflaterInputStream(inputStream, InflaterPool.acquire(), getInflaterBufferSize(available.toLong())) {
     private var extraBytesWritten = false
 
+    /**
+     * 当前输入流是否已经关闭了? 避免重复关闭导致同一个Inflater被重复地归还到对象池当中
+     */
+    private var closed = false
+
     @Throws(IOException::class)
     override fun available(): Int {
         return if (available < 0) {
@@ -35,8 +40,15 @@ internal class ZipInflaterInputStream(inputStream: InputStream, private var avai
 
     @Throws(IOException::class)
     override fun close() {
-        super.close()
-        inf.end()
+        if (closed) {
+            return
+        }
+        closed = true
+        try {
+            super.close()
+        } finally {
+            InflaterPool.release(inf)
+        }
     }
 
     @Throws(IOException::class)
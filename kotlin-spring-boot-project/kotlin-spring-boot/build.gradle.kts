@@ -1,3 +1,7 @@
+plugins {
+    id("me.champeau.jmh") version (jmhPluginVersion)
+}
+
 dependencies {
 
     implementation(project(":kotlin-spring-framework-project:kotlin-spring-core"))
@@ -18,3 +22,8 @@ dependencies {
     testImplementation("io.netty:netty-codec-http:$nettyVersion")
     compileOnly("io.netty:netty-codec-http:$nettyVersion")
 }
+
+// jmh benchmark, 使用"gradle jmh"去运行"src/jmh"下的Benchmark
+jmh {
+    jmhVersion.set(jmhCoreVersion)
+}
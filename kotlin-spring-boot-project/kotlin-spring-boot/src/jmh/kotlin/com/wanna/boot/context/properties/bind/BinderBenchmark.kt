@@ -0,0 +1,82 @@
+package com.wanna.boot.context.properties.bind
+
+import com.wanna.boot.env.OriginTrackedMapPropertySource
+import com.wanna.framework.core.environment.MapPropertySource
+import com.wanna.framework.core.environment.StandardEnvironment
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * [Binder]在PropertySource当中存在有大量的属性时的绑定性能的Benchmark, 绑定过程当中的每个JavaBean属性,
+ * 都需要通过containsDescendantOf去检查PropertySource当中是否存在有它的子属性
+ *
+ * * 1.immutable为true时, 使用不可变的[OriginTrackedMapPropertySource];
+ * * 2.immutable为false时, 使用可变的[MapPropertySource]
+ *
+ * 使用"gradle :kotlin-spring-boot-project:kotlin-spring-boot:jmh"去运行
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class BinderBenchmark {
+
+    /**
+     * PropertySource当中的无关属性的数量
+     */
+    @Param("100", "5000", "50000")
+    @JvmField
+    var propertyCount = 0
+
+    @Param("true", "false")
+    @JvmField
+    var immutable = false
+
+    private lateinit var binder: Binder
+
+    @Setup
+    fun setup() {
+        val source = LinkedHashMap<String, Any>()
+        for (index in 0 until propertyCount) {
+            source["unrelated.group${index % 100}.property$index"] = index.toString()
+        }
+        source["server.name"] = "wanna"
+        source["server.port"] = "8080"
+        source["server.ssl.enabled"] = "true"
+        source["server.ssl.key-store"] = "classpath:keystore.jks"
+        val environment = StandardEnvironment()
+        environment.getPropertySources().addFirst(
+            if (immutable) OriginTrackedMapPropertySource("benchmark", source, true)
+            else MapPropertySource("benchmark", source)
+        )
+        binder = Binder.get(environment)
+    }
+
+    @Benchmark
+    fun bind(): ServerProperties = binder.bind("server", Bindable.ofInstance(ServerProperties())).get()
+
+    open class ServerProperties {
+        var name: String? = null
+        var port: Int = 0
+        var address: String? = null
+        var ssl: Ssl = Ssl()
+        var compression: Compression? = null
+    }
+
+    open class Ssl {
+        var enabled: Boolean = false
+        var keyStore: String? = null
+        var keyPassword: String? = null
+    }
+
+    open class Compression {
+        var enabled: Boolean = false
+        var mimeTypes: List<String>? = null
+    }
+}
@@ -0,0 +1,98 @@
+package com.wanna.boot
+
+import com.wanna.framework.beans.SmartInitializingSingleton
+import com.wanna.framework.beans.factory.BeanFactory.Companion.FACTORY_BEAN_PREFIX
+import com.wanna.framework.beans.factory.config.BeanFactoryPostProcessor
+import com.wanna.framework.beans.factory.config.ConfigurableListableBeanFactory
+import com.wanna.framework.beans.factory.support.definition.AbstractBeanDefinition
+import com.wanna.framework.beans.factory.support.definition.BeanDefinition
+import com.wanna.framework.core.Ordered
+import com.wanna.framework.lang.Nullable
+import java.util.*
+
+/**
+ * 开启全局的懒加载(`spring.main.lazy-initialization=true`)时使用的[BeanFactoryPostProcessor],
+ * 负责将所有没有显式指定过lazyInit的单实例Bean都设置为懒加载, 从而加快ApplicationContext的启动速度.
+ *
+ * 下面这些Bean不会被设置为懒加载:
+ * * 1.显式指定过lazyInit的Bean(例如`@Lazy(false)`), 也就是单个Bean的Opt-Out方式;
+ * * 2.基础设施Bean(role=[BeanDefinition.ROLE_INFRASTRUCTURE]), 以及[SmartInitializingSingleton];
+ * * 3.被容器当中的[LazyInitializationExcludeFilter]所排除掉的Bean.
+ *
+ * 被设置为懒加载的Bean的beanName将会被记录下来, [LazyInitializationWarmUpListener]会在应用启动完成之后, 在后台去对这些Bean去进行预热
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ *
+ * @see LazyInitializationExcludeFilter
+ * @see LazyInitializationWarmUpListener
+ */
+open class LazyInitializationBeanFactoryPostProcessor : BeanFactoryPostProcessor, Ordered {
+
+    /**
+     * 被当前PostProcessor设置为懒加载的beanName列表(按照注册的顺序)
+     */
+    private val lazyInitBeanNames = Collections.synchronizedSet(LinkedHashSet<String>())
+
+    override fun postProcessBeanFactory(beanFactory: ConfigurableListableBeanFactory) {
+        val filters = ArrayList<LazyInitializationExcludeFilter>()
+        filters += LazyInitializationExcludeFilter.forBeanTypes(SmartInitializingSingleton::class.java)
+        filters += beanFactory.getBeansForType(LazyInitializationExcludeFilter::class.java).values
+
+        for (beanName in beanFactory.getBeanDefinitionNames()) {
+            val beanDefinition = beanFactory.getBeanDefinition(beanName)
+            if (beanDefinition is AbstractBeanDefinition && isLazyInitCandidate(beanFactory, beanName, beanDefinition)) {
+                val beanType = getBeanType(beanFactory, beanName)
+                if (filters.none { it.isExcluded(beanName, beanDefinition, beanType) }) {
+                    beanDefinition.setLazyInit(true)
+                    lazyInitBeanNames += beanName
+                }
+            }
+        }
+    }
+
+    /**
+     * 检查给定的Bean是否可以被设置为懒加载
+     *
+     * @param beanFactory BeanFactory
+     * @param beanName beanName
+     * @param beanDefinition BeanDefinition
+     * @return 如果是没有显式指定过lazyInit的、非抽象的、还没有完成创建的单实例Bean, 并且不是基础设施Bean, return true; 否则return false
+     */
+    protected open fun isLazyInitCandidate(
+        beanFactory: ConfigurableListableBeanFactory,
+        beanName: String,
+        beanDefinition: AbstractBeanDefinition
+    ): Boolean = beanDefinition.getLazyInit() == null
+            && beanDefinition.isSingleton()
+            && !beanDefinition.isAbstract()
+            && beanDefinition.getRole() != BeanDefinition.ROLE_INFRASTRUCTURE
+            && !beanFactory.containsSingleton(beanName)
+
+    /**
+     * 获取给定的Bean的类型, 对于FactoryBean, 获取的是FactoryBean本身的类型(避免为了推断类型而提前去创建FactoryBean)
+     *
+     * @param beanFactory BeanFactory
+     * @param beanName beanName
+     * @return beanType(无法推断出来的话, return null)
+     */
+    @Nullable
+    private fun getBeanType(beanFactory: ConfigurableListableBeanFactory, beanName: String): Class<*>? {
+        return try {
+            if (beanFactory.isFactoryBean(beanName)) beanFactory.getType(FACTORY_BEAN_PREFIX + beanName)
+            else beanFactory.getType(beanName)
+        } catch (ex: Exception) {
+            null
+        }
+    }
+
+    /**
+     * 获取被当前PostProcessor设置为懒加载的beanName列表
+     *
+     * @return 被设置为懒加载的beanName列表(按照注册的顺序)
+     */
+    open fun getLazyInitBeanNames(): List<String> = synchronized(lazyInitBeanNames) { ArrayList(lazyInitBeanNames) }
+
+    override fun getOrder(): Int = Ordered.ORDER_HIGHEST
+}
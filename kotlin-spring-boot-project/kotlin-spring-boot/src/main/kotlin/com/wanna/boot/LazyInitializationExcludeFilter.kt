@@ -0,0 +1,45 @@
+package com.wanna.boot
+
+import com.wanna.framework.beans.factory.support.definition.BeanDefinition
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.ClassUtils
+
+/**
+ * 在开启了全局的懒加载(`spring.main.lazy-initialization=true`)的情况下, 用于去排除掉不应该被懒加载的Bean的Filter;
+ * 将它注册成为Spring Bean之后, [LazyInitializationBeanFactoryPostProcessor]就会自动去进行使用.
+ *
+ * 对于单个Bean, 也可以直接使用`@Lazy(false)`去显式地指定为非懒加载
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ *
+ * @see LazyInitializationBeanFactoryPostProcessor
+ */
+fun interface LazyInitializationExcludeFilter {
+
+    companion object {
+
+        /**
+         * 创建一个根据beanType去进行排除的Filter, beanType是给定的类型的子类的Bean, 都不会被懒加载
+         *
+         * @param types 要去进行排除的类型
+         * @return 根据beanType去进行排除的Filter
+         */
+        @JvmStatic
+        fun forBeanTypes(vararg types: Class<*>): LazyInitializationExcludeFilter =
+            LazyInitializationExcludeFilter { _, _, beanType ->
+                beanType != null && types.any { ClassUtils.isAssignFrom(it, beanType) }
+            }
+    }
+
+    /**
+     * 判断给定的Bean是否应该被排除掉(不去设置为懒加载)
+     *
+     * @param beanName beanName
+     * @param beanDefinition BeanDefinition
+     * @param beanType beanType(无法推断出来的话, 为null)
+     * @return 如果该Bean不应该被懒加载, return true; 否则return false
+     */
+    fun isExcluded(beanName: String, beanDefinition: BeanDefinition, @Nullable beanType: Class<*>?): Boolean
+}
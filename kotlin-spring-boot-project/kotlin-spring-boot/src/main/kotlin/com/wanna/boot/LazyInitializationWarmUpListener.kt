@@ -0,0 +1,172 @@
+package com.wanna.boot
+
+import com.wanna.boot.context.event.ApplicationReadyEvent
+import com.wanna.common.logging.LoggerFactory
+import com.wanna.framework.beans.factory.BeanFactory.Companion.FACTORY_BEAN_PREFIX
+import com.wanna.framework.beans.factory.support.DefaultListableBeanFactory
+import com.wanna.framework.context.ConfigurableApplicationContext
+import com.wanna.framework.context.event.ApplicationListener
+
+/**
+ * 在开启了全局的懒加载的情况下, 在应用启动完成(WebServer已经开始接收请求)之后, 在后台线程当中去对被设置为懒加载的单实例Bean去进行预热的监听器.
+ *
+ * * 1.按照Bean之间的依赖关系去进行预热(被依赖的Bean先预热), 环上的Bean按照原本的循环依赖的处理方式去进行创建;
+ * * 2.每次只预热一个Bean, 并且在两个Bean之间会间隔一段时间("spring.lazy-initialization.warm-up.interval", 默认10ms), 避免占用过多的资源;
+ * * 3.首个请求保护: 如果有其他线程(例如处理请求的线程)正在创建单实例Bean, 预热线程会先进行让步, 避免和它们去竞争CPU以及Bean的创建锁;
+ * 还没有被预热到的Bean在被请求时, 将会由请求线程直接去进行创建, 如果预热线程正在创建同一个Bean, 请求线程只需要等待这一个Bean的创建完成;
+ * * 4.预热失败的Bean只会记录日志, 在下一次被使用时会重新去进行创建.
+ *
+ * 可以通过"spring.lazy-initialization.warm-up.enabled=false"去关闭预热, 通过"spring.lazy-initialization.warm-up.delay"去指定开始预热之前的延时(ms)
+ *
+ * @param applicationContext ApplicationContext
+ * @param postProcessor 负责将Bean设置为懒加载的PostProcessor, 用于获取需要去进行预热的Bean
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ *
+ * @see LazyInitializationBeanFactoryPostProcessor
+ */
+open class LazyInitializationWarmUpListener(
+    private val applicationContext: ConfigurableApplicationContext,
+    private val postProcessor: LazyInitializationBeanFactoryPostProcessor
+) : ApplicationListener<ApplicationReadyEvent> {
+
+    companion object {
+
+        /**
+         * 是否需要去进行预热的属性名
+         */
+        const val WARM_UP_ENABLED_PROPERTY = "spring.lazy-initialization.warm-up.enabled"
+
+        /**
+         * 开始预热之前的延时(ms)的属性名
+         */
+        const val WARM_UP_DELAY_PROPERTY = "spring.lazy-initialization.warm-up.delay"
+
+        /**
+         * 预热两个Bean之间的间隔(ms)的属性名
+         */
+        const val WARM_UP_INTERVAL_PROPERTY = "spring.lazy-initialization.warm-up.interval"
+
+        /**
+         * 默认的预热两个Bean之间的间隔(ms)
+         */
+        const val DEFAULT_WARM_UP_INTERVAL = 10L
+
+        /**
+         * 预热线程的线程名
+         */
+        const val WARM_UP_THREAD_NAME = "lazy-init-warm-up"
+
+        /**
+         * 存在有其他线程正在创建Bean时, 最多让步的次数, 避免预热线程一直无法执行
+         */
+        private const val MAX_BACKOFF_TIMES = 100
+
+        /**
+         * Logger
+         */
+        @JvmStatic
+        private val logger = LoggerFactory.getLogger(LazyInitializationWarmUpListener::class.java)
+    }
+
+    /**
+     * 执行预热的线程
+     */
+    @Volatile
+    private var warmUpThread: Thread? = null
+
+    override fun onApplicationEvent(event: ApplicationReadyEvent) {
+        if (event.context !== applicationContext || warmUpThread != null) {
+            return
+        }
+        val environment = applicationContext.getEnvironment()
+        if (!environment.getProperty(WARM_UP_ENABLED_PROPERTY, Boolean::class.java, true)) {
+            return
+        }
+        val beanFactory = applicationContext.getBeanFactory() as? DefaultListableBeanFactory ?: return
+        val beanNames = beanFactory.getBeanNamesInCreationOrder(postProcessor.getLazyInitBeanNames())
+        if (beanNames.isEmpty()) {
+            return
+        }
+        val delay = environment.getProperty(WARM_UP_DELAY_PROPERTY, Long::class.javaObjectType, 0L)
+        val interval = environment.getProperty(WARM_UP_INTERVAL_PROPERTY, Long::class.javaObjectType, DEFAULT_WARM_UP_INTERVAL)
+
+        val thread = Thread({ warmUp(beanFactory, beanNames, delay, interval) }, WARM_UP_THREAD_NAME)
+        thread.isDaemon = true
+        thread.priority = Thread.MIN_PRIORITY
+        thread.contextClassLoader = beanFactory.getBeanClassLoader()
+        this.warmUpThread = thread
+        thread.start()
+    }
+
+    /**
+     * 按照给定的顺序, 去对Bean去进行预热
+     *
+     * @param beanFactory BeanFactory
+     * @param beanNames 需要去进行预热的beanName列表(已经按照依赖关系完成排序)
+     * @param delay 开始预热之前的延时(ms)
+     * @param interval 预热两个Bean之间的间隔(ms)
+     */
+    protected open fun warmUp(beanFactory: DefaultListableBeanFactory, beanNames: List<String>, delay: Long, interval: Long) {
+        val startTime = System.currentTimeMillis()
+        var warmedUp = 0
+        var createdOnDemand = 0
+        var failed = 0
+        try {
+            Thread.sleep(delay)
+            for (beanName in beanNames) {
+                if (!applicationContext.isActive()) {
+                    return
+                }
+                // 如果其他线程正在创建Bean, 那么先让步, 优先保证请求线程的响应时间
+                var backoffTimes = 0
+                while (beanFactory.hasSingletonsCurrentlyInCreation() && backoffTimes++ < MAX_BACKOFF_TIMES) {
+                    Thread.sleep(interval.coerceAtLeast(1L))
+                }
+
+                // 已经被请求线程按需创建过了, 不需要再去进行预热
+                if (beanFactory.containsSingleton(beanName)) {
+                    createdOnDemand++
+                    continue
+                }
+                if (warmUpSingleton(beanFactory, beanName)) warmedUp++ else failed++
+                Thread.sleep(interval)
+            }
+        } catch (ex: InterruptedException) {
+            Thread.currentThread().interrupt()
+            return
+        }
+        if (logger.isInfoEnabled) {
+            logger.info(
+                "Warmed up $warmedUp lazy singletons in ${System.currentTimeMillis() - startTime}ms " +
+                        "($createdOnDemand already created on demand, $failed failed)"
+            )
+        }
+    }
+
+    /**
+     * 对单个Bean去进行预热, 并使用ApplicationStartup去记录下来该Bean的预热过程
+     *
+     * @param beanFactory BeanFactory
+     * @param beanName beanName
+     * @return 如果预热成功, return true; 否则return false
+     */
+    protected open fun warmUpSingleton(beanFactory: DefaultListableBeanFactory, beanName: String): Boolean {
+        val step = applicationContext.getApplicationStartup().start("spring.boot.lazy-initialization.warm-up")
+            .tag("beanName", beanName)
+        try {
+            // 对于FactoryBean, 和预实例化时保持一致, 只去创建FactoryBean本身
+            beanFactory.getBean(if (beanFactory.isFactoryBean(beanName)) FACTORY_BEAN_PREFIX + beanName else beanName)
+            return true
+        } catch (ex: Throwable) {
+            step.tag("exception", ex::class.java.toString())
+            step.tag("message", ex.message ?: "")
+            logger.warn("Failed to warm up lazy singleton [$beanName], it will be created on first use", ex)
+            return false
+        } finally {
+            step.end()
+        }
+    }
+}
@@ -226,6 +226,11 @@ open class SpringApplication(@Nullable private var resourceLoader: ResourceLoade
      */
     private var allowBeanDefinitionOverriding: Boolean = true
 
+    /**
+     * 是否需要开启全局的懒加载? 开启之后, 没有显式指定过lazyInit的单实例Bean都会被设置为懒加载, 并在应用启动完成之后在后台去进行预热
+     */
+    private var lazyInitialization = false
+
     /**
      * 是否需要添加ConversionService到容器当中?
      */
@@ -337,6 +342,9 @@ open class SpringApplication(@Nullable private var resourceLoader: ResourceLoade
 
             // 拿出容器当中的所有的ApplicationRunner和CommandLineRunner, 去进行回调, 处理命令行参数
             callRunners(applicationContext, applicationArguments)
+        } catch (ex: AbandonedRunException) {
+            // 主动放弃本次运行(例如只需要执行AOT处理的情况), 不应该被当做启动失败去进行处理
+            throw ex
         } catch (ex: Throwable) {
             handleRunFailure(applicationContext, ex, listeners, exceptionReporters)
             throw IllegalStateException(ex)
@@ -402,6 +410,13 @@ open class SpringApplication(@Nullable private var resourceLoader: ResourceLoade
         if (beanFactory is DefaultListableBeanFactory) {
             beanFactory.setAllowBeanDefinitionOverriding(this.allowBeanDefinitionOverriding)
         }
+
+        // 如果开启了全局的懒加载, 需要添加设置懒加载的BeanFactoryPostProcessor, 以及在应用启动完成之后去进行预热的监听器
+        if (this.lazyInitialization) {
+            val lazyInitializationPostProcessor = LazyInitializationBeanFactoryPostProcessor()
+            context.addBeanFactoryPostProcessor(lazyInitializationPostProcessor)
+            context.addApplicationListener(LazyInitializationWarmUpListener(context, lazyInitializationPostProcessor))
+        }
         // 把ApplicationArguments注册到beanFactory当中
         beanFactory.registerSingleton("applicationArguments", arguments)
 
@@ -1080,6 +1095,23 @@ open class SpringApplication(@Nullable private var resourceLoader: ResourceLoade
      */
     open fun isAllowBeanDefinitionOverriding() = this.allowBeanDefinitionOverriding
 
+    /**
+     * 设置是否需要开启全局的懒加载(也可以通过"spring.main.lazy-initialization"去进行配置)
+     *
+     * @param lazyInitialization 如果为true, 没有显式指定过lazyInit的单实例Bean都会被设置为懒加载
+     * @see LazyInitializationBeanFactoryPostProcessor
+     */
+    open fun setLazyInitialization(lazyInitialization: Boolean) {
+        this.lazyInitialization = lazyInitialization
+    }
+
+    /**
+     * 是否开启了全局的懒加载?
+     *
+     * @return 如果开启了全局的懒加载return true; 否则return false
+     */
+    open fun isLazyInitialization(): Boolean = this.lazyInitialization
+
     /**
      * 设置用于创建ApplicationContext的ApplicationContextClass
      *
@@ -1153,4 +1185,14 @@ open class SpringApplication(@Nullable private var resourceLoader: ResourceLoade
     open fun setBanner(banner: Banner) {
         this.banner = banner
     }
+
+    /**
+     * 用于主动放弃SpringApplication的运行的异常, 在[run]方法当中不会被当做启动失败去进行处理, 而是直接抛出给调用方;
+     * 例如在AOT处理当中, 只需要执行到BeanDefinition的注册完成为止, 就可以放弃本次运行
+     *
+     * @param applicationContext 被放弃运行的ApplicationContext
+     */
+    open class AbandonedRunException @JvmOverloads constructor(
+        @Nullable val applicationContext: ConfigurableApplicationContext? = null
+    ) : RuntimeException()
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.wanna.boot.aot
+
+import com.wanna.boot.SpringApplication
+import com.wanna.framework.context.ConfigurableApplicationContext
+import com.wanna.framework.context.aot.BeanDefinitionSnapshot
+import com.wanna.framework.context.aot.BeanDefinitionSnapshotGenerator
+import com.wanna.framework.context.support.AbstractApplicationContext
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.ClassUtils
+import java.io.File
+
+/**
+ * SpringBoot应用的AOT处理器, 在构建时使用[SpringApplication]去准备好Environment以及ApplicationContext(和正常启动时保持一致),
+ * 但是在刷新ApplicationContext时只会执行到BeanDefinition的注册完成为止, 然后放弃本次运行, 并将配置类的解析结果保存为[BeanDefinitionSnapshot].
+ *
+ * 可以通过[main]方法去进行执行, 参数为"<输出目录> <主类> <应用参数>...", Gradle插件的"processAot"任务就是基于该方式去生成快照的;
+ * 运行时需要设置"spring.aot.enabled=true"才会去使用生成的快照.
+ *
+ * Note: 使用的是默认的[SpringApplication], 在主类的main方法当中对于SpringApplication的自定义(比如额外的Profiles)不会生效,
+ * 如果需要的话, 可以通过应用参数(例如"--spring.profiles.active=dev")去进行传递
+ *
+ * @param mainClass SpringBoot应用的主类
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ *
+ * @see BeanDefinitionSnapshotGenerator
+ * @see SpringApplication.AbandonedRunException
+ */
+open class SpringApplicationAotProcessor(private val mainClass: Class<*>) {
+
+    companion object {
+
+        /**
+         * 为给定的SpringBoot应用去生成快照文件
+         *
+         * @param args "<输出目录> <主类> <应用参数>..."
+         */
+        @JvmStatic
+        fun main(vararg args: String) {
+            if (args.size < 2) {
+                throw IllegalArgumentException("Usage: SpringApplicationAotProcessor <outputDir> <mainClass> <applicationArgs>...")
+            }
+            val mainClass = ClassUtils.forName<Any>(args[1], ClassUtils.getDefaultClassLoader())
+            val processor = SpringApplicationAotProcessor(mainClass)
+            val snapshot = processor.process(*args.drop(2).toTypedArray())
+            processor.generator.write(snapshot, File(args[0]))
+        }
+    }
+
+    /**
+     * 快照的生成器
+     */
+    private val generator = BeanDefinitionSnapshotGenerator()
+
+    /**
+     * 对SpringBoot应用去执行AOT处理, 生成快照
+     *
+     * @param args 应用参数
+     * @return 生成的快照
+     */
+    open fun process(vararg args: String): BeanDefinitionSnapshot {
+        val application = AotProcessingSpringApplication(mainClass)
+        try {
+            application.run(*args)
+        } catch (ex: SpringApplication.AbandonedRunException) {
+            return application.snapshot ?: throw IllegalStateException("No snapshot was generated for [$mainClass]")
+        }
+        throw IllegalStateException("SpringApplication [$mainClass] was not abandoned after AOT processing")
+    }
+
+    /**
+     * 只执行AOT处理的[SpringApplication], 在刷新ApplicationContext时只会执行到BeanDefinition的注册完成为止
+     *
+     * @param mainClass 主类
+     */
+    private inner class AotProcessingSpringApplication(mainClass: Class<*>) : SpringApplication(mainClass) {
+
+        /**
+         * AOT处理生成的快照
+         */
+        @Nullable
+        var snapshot: BeanDefinitionSnapshot? = null
+
+        override fun refresh(context: ConfigurableApplicationContext) {
+            if (context !is AbstractApplicationContext) {
+                throw IllegalStateException("AOT processing requires an AbstractApplicationContext, but got [${context::class.java.name}]")
+            }
+            this.snapshot = generator.generate(context)
+            throw AbandonedRunException(context)
+        }
+    }
+}
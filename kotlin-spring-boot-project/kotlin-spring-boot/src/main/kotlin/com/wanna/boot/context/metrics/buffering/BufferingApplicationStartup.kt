@@ -0,0 +1,215 @@
+package com.wanna.boot.context.metrics.buffering
+
+import com.wanna.framework.core.metrics.ApplicationStartup
+import com.wanna.framework.core.metrics.StartupStep
+import com.wanna.framework.lang.Nullable
+import java.time.Instant
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReferenceArray
+import java.util.function.Predicate
+import java.util.function.Supplier
+
+/**
+ * 将启动过程当中的[StartupStep]去缓存到一个有界的环形缓冲区当中的[ApplicationStartup],
+ * 可以通过[getBufferedTimeline]去获取到启动过程当中的各个步骤的时间线, 从而去分析启动过程当中的耗时.
+ *
+ * * 1.步骤的嵌套关系通过ThreadLocal去进行维护, 在一个线程当中启动的步骤, 会成为该线程当中当前正在执行的步骤的子步骤;
+ * * 2.只有已经结束的步骤才会被记录到环形缓冲区当中, 当缓冲区满了之后, 新的步骤会覆盖掉最早被记录的步骤;
+ * * 3.记录一个步骤只需要两次[System.nanoTime]以及一次CAS, Tag列表也只有在真正打Tag时才会去进行创建,
+ * 因此开销足够小, 可以在生产环境当中去保持开启.
+ *
+ * 使用方式: 通过[com.wanna.boot.SpringApplication.setApplicationStartup]去进行设置
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ *
+ * @param capacity 环形缓冲区的容量, 最多保留最近的capacity个已经结束的步骤
+ *
+ * @see StartupTimeline
+ */
+open class BufferingApplicationStartup(private val capacity: Int) : ApplicationStartup {
+
+    init {
+        require(capacity > 0) { "capacity必须大于0" }
+    }
+
+    /**
+     * 开始记录的时间
+     */
+    private val startTime: Instant = Instant.now()
+
+    /**
+     * 开始记录的时间对应的nanoTime, 用于将步骤的nanoTime去转换成为[Instant]
+     */
+    private val startNanoTime = System.nanoTime()
+
+    /**
+     * 步骤id的生成器
+     */
+    private val idGenerator = AtomicLong()
+
+    /**
+     * 已经结束的步骤的环形缓冲区
+     */
+    private val events = AtomicReferenceArray<BufferedStartupStep>(capacity)
+
+    /**
+     * 下一个需要写入的位置(单调递增, 对capacity取模之后得到环形缓冲区当中的位置)
+     */
+    private val writeIndex = AtomicLong()
+
+    /**
+     * 每个线程当中当前正在执行的步骤, 新启动的步骤将会作为它的子步骤
+     */
+    private val current = ThreadLocal<BufferedStartupStep>()
+
+    /**
+     * 需要去进行记录的步骤的过滤器
+     */
+    @Volatile
+    private var filter: Predicate<StartupStep> = Predicate { true }
+
+    /**
+     * 添加一个步骤的过滤器, 只有所有的过滤器都匹配的步骤才会被记录下来
+     *
+     * @param filter 需要添加的过滤器
+     */
+    open fun addFilter(filter: Predicate<StartupStep>) {
+        this.filter = this.filter.and(filter)
+    }
+
+    /**
+     * 启动一个步骤, 该步骤会成为当前线程当中正在执行的步骤的子步骤
+     *
+     * @param name stepName
+     * @return StartupStep
+     */
+    override fun start(name: String): StartupStep {
+        val parent = current.get()
+        val step = BufferedStartupStep(this, parent, name, idGenerator.incrementAndGet(), System.nanoTime())
+        current.set(step)
+        return step
+    }
+
+    /**
+     * 当一个步骤结束时, 将当前线程的当前步骤恢复为它的父步骤, 并将它记录到环形缓冲区当中
+     *
+     * @param step 已经结束的步骤
+     */
+    internal fun record(step: BufferedStartupStep) {
+        // 只有在启动该步骤的线程当中结束时, 才需要去恢复当前线程的步骤
+        if (step.thread === Thread.currentThread()) {
+            val parent = step.parent
+            if (parent == null) current.remove() else current.set(parent)
+        }
+        if (filter.test(step)) {
+            events.set((writeIndex.getAndIncrement() % capacity).toInt(), step)
+        }
+    }
+
+    /**
+     * 获取当前环形缓冲区当中的步骤的时间线的快照(按照步骤结束的先后顺序)
+     *
+     * @return StartupTimeline
+     */
+    open fun getBufferedTimeline(): StartupTimeline {
+        val written = writeIndex.get()
+        val from = maxOf(0L, written - capacity)
+        val timeline = ArrayList<StartupTimeline.TimelineEvent>((written - from).toInt())
+        for (index in from until written) {
+            val step = events.get((index % capacity).toInt()) ?: continue
+            timeline += StartupTimeline.TimelineEvent(step, toInstant(step.startNanoTime), toInstant(step.endNanoTime))
+        }
+        return StartupTimeline(startTime, timeline, from)
+    }
+
+    /**
+     * 将nanoTime去转换成为[Instant]
+     *
+     * @param nanoTime nanoTime
+     * @return Instant
+     */
+    private fun toInstant(nanoTime: Long): Instant = startTime.plusNanos(nanoTime - startNanoTime)
+
+    /**
+     * 被缓存到环形缓冲区当中的[StartupStep]
+     *
+     * @param startup 记录该步骤的BufferingApplicationStartup
+     * @param parent 父步骤
+     * @param name stepName
+     * @param id stepId
+     * @param startNanoTime 步骤开始的nanoTime
+     */
+    class BufferedStartupStep internal constructor(
+        private val startup: BufferingApplicationStartup,
+        @Nullable internal val parent: BufferedStartupStep?,
+        private val name: String,
+        private val id: Long,
+        internal val startNanoTime: Long
+    ) : StartupStep {
+
+        /**
+         * 启动该步骤的线程
+         */
+        internal val thread: Thread = Thread.currentThread()
+
+        /**
+         * 步骤结束的nanoTime, 为0说明步骤还没结束
+         */
+        @Volatile
+        internal var endNanoTime = 0L
+
+        /**
+         * Tags(懒加载, 大多数的步骤都只有少量的Tag)
+         */
+        @Nullable
+        private var tags: MutableList<StartupStep.Tag>? = null
+
+        override fun getName(): String = this.name
+
+        override fun getId(): Long = this.id
+
+        @Nullable
+        override fun getParentId(): Long? = this.parent?.getId()
+
+        override fun tag(key: String, value: String): StartupStep {
+            check(endNanoTime == 0L) { "当前步骤已经结束了, 不能继续执行tag" }
+            var tags = this.tags
+            if (tags == null) {
+                tags = ArrayList(2)
+                this.tags = tags
+            }
+            tags += DefaultTag(key, value)
+            return this
+        }
+
+        override fun tag(key: String, value: Supplier<String>): StartupStep = tag(key, value.get())
+
+        override fun getTags(): StartupStep.Tags {
+            val tags: List<StartupStep.Tag> = this.tags ?: emptyList()
+            return object : StartupStep.Tags {
+                override fun iterator(): Iterator<StartupStep.Tag> = tags.iterator()
+            }
+        }
+
+        override fun end() {
+            check(endNanoTime == 0L) { "当前步骤已经结束了, 不能重复结束" }
+            endNanoTime = System.nanoTime()
+            startup.record(this)
+        }
+
+        override fun toString(): String = "BufferedStartupStep(name=$name, id=$id)"
+    }
+
+    /**
+     * 简单的Tag的实现
+     *
+     * @param key key
+     * @param value value
+     */
+    private class DefaultTag(private val key: String, private val value: String) : StartupStep.Tag {
+        override fun getKey(): String = key
+        override fun getValue(): String = value
+    }
+}
@@ -0,0 +1,36 @@
+package com.wanna.boot.context.metrics.buffering
+
+import com.wanna.framework.core.metrics.StartupStep
+import java.time.Duration
+import java.time.Instant
+
+/**
+ * 应用启动过程当中的各个步骤的时间线
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ *
+ * @param startTime 开始记录的时间
+ * @param events 已经结束的步骤列表(按照结束的先后顺序)
+ * @param dropped 因为环形缓冲区已满而被覆盖掉的步骤数量
+ *
+ * @see BufferingApplicationStartup
+ */
+class StartupTimeline(val startTime: Instant, val events: List<TimelineEvent>, val dropped: Long) {
+
+    /**
+     * 时间线当中的一个事件, 对应一个已经结束的步骤
+     *
+     * @param startupStep 步骤
+     * @param startTime 步骤开始的时间
+     * @param endTime 步骤结束的时间
+     */
+    class TimelineEvent(val startupStep: StartupStep, val startTime: Instant, val endTime: Instant) {
+
+        /**
+         * 步骤的耗时
+         */
+        val duration: Duration = Duration.between(startTime, endTime)
+    }
+}
@@ -0,0 +1,115 @@
+package com.wanna.boot.context.properties.source
+
+/**
+ * 由[ConfigurationPropertyName]的元素去构建的前缀树, 每个节点对应属性名当中的一段元素,
+ * 用于快速地去检查一个[ConfigurationPropertyName]是否存在有子属性, 时间复杂度只和属性名的段数有关, 和属性的总数量无关.
+ *
+ * 每个节点上都维护了以该节点为前缀的属性名的数量(同一个属性名可以被添加多次, 使用引用计数的方式去进行维护),
+ * 因此支持对属性名去进行增量的添加和移除, 当一个节点的计数为0时, 该节点将会被移除掉.
+ *
+ * Note: 节点的Key使用[ConfigurationPropertyName.getElement]去进行获取, 和[ConfigurationPropertyName.isAncestorOf]的比较方式保持一致
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ *
+ * @see SpringIterableConfigurationPropertySource.containsDescendantOf
+ */
+internal class ConfigurationPropertyNameTree {
+
+    /**
+     * 前缀树的根节点(对应空的属性名)
+     */
+    private val root = Node()
+
+    /**
+     * 往前缀树当中去添加一个属性名
+     *
+     * @param name 需要添加的属性名
+     */
+    @Synchronized
+    fun add(name: ConfigurationPropertyName) {
+        var node = root
+        node.count++
+        for (index in 0 until name.getNumberOfElements()) {
+            node = node.getOrCreateChild(name.getElement(index))
+            node.count++
+        }
+        node.terminals++
+    }
+
+    /**
+     * 从前缀树当中去移除一个属性名, 如果该属性名并不存在的话, 那么直接忽略
+     *
+     * @param name 需要移除的属性名
+     */
+    @Synchronized
+    fun remove(name: ConfigurationPropertyName) {
+        val size = name.getNumberOfElements()
+        val path = arrayOfNulls<Node>(size + 1)
+        path[0] = root
+        for (index in 0 until size) {
+            path[index + 1] = path[index]!!.children?.get(name.getElement(index)) ?: return
+        }
+        if (path[size]!!.terminals == 0) {
+            return
+        }
+        path[size]!!.terminals--
+        for (index in 0..size) {
+            path[index]!!.count--
+        }
+
+        // 计数已经为0的节点, 从它的父节点当中去移除掉
+        for (index in 1..size) {
+            if (path[index]!!.count == 0) {
+                path[index - 1]!!.children!!.remove(name.getElement(index - 1))
+                break
+            }
+        }
+    }
+
+    /**
+     * 检查前缀树当中是否存在有给定的name的子属性(不包括name自身)
+     *
+     * @param name 属性前缀Key
+     * @return 如果存在有以name作为前缀, 并且比name更长的属性名, return true; 否则return false
+     */
+    @Synchronized
+    fun containsDescendantOf(name: ConfigurationPropertyName): Boolean {
+        var node = root
+        for (index in 0 until name.getNumberOfElements()) {
+            node = node.children?.get(name.getElement(index)) ?: return false
+        }
+        return node.count > node.terminals
+    }
+
+    /**
+     * 前缀树的节点
+     */
+    private class Node {
+
+        /**
+         * 以当前节点作为前缀(包括当前节点自身)的属性名的数量
+         */
+        var count = 0
+
+        /**
+         * 恰好在当前节点结束的属性名的数量
+         */
+        var terminals = 0
+
+        /**
+         * 子节点, Key-下一段元素, Value-子节点(懒加载, 叶子节点不需要去创建Map)
+         */
+        var children: MutableMap<String, Node>? = null
+
+        fun getOrCreateChild(element: String): Node {
+            var children = this.children
+            if (children == null) {
+                children = HashMap(4)
+                this.children = children
+            }
+            return children.getOrPut(element) { Node() }
+        }
+    }
+}
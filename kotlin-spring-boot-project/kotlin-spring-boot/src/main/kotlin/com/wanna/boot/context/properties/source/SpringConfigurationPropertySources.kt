@@ -1,11 +1,14 @@
 package com.wanna.boot.context.properties.source
 
 import com.wanna.framework.core.environment.PropertySource
+import com.wanna.framework.util.ConcurrentReferenceHashMap
 import java.util.function.Function
 
 /**
  * 根据Spring的[PropertySource]列表去构建出来[ConfigurationPropertySource]的列表
  *
+ * Note: 转换得到的[ConfigurationPropertySource]会被缓存起来, 避免每次迭代都需要去重新构建属性名的Mappings
+ *
  * @author jianchao.jia
  * @version v1.0
  * @date 2022/12/3
@@ -13,6 +16,11 @@ import java.util.function.Function
 class SpringConfigurationPropertySources(private val sources: Iterable<PropertySource<*>>) :
     Iterable<ConfigurationPropertySource> {
 
+    /**
+     * 已经完成转换的[ConfigurationPropertySource]的缓存, Key-PropertySource, Value-转换得到的ConfigurationPropertySource
+     */
+    private val cache = ConcurrentReferenceHashMap<PropertySource<*>, SpringConfigurationPropertySource>(16)
+
     override fun iterator(): Iterator<ConfigurationPropertySource> = SourcesIterator(sources.iterator(), this::adapt)
 
     /**
@@ -22,7 +30,14 @@ class SpringConfigurationPropertySources(private val sources: Iterable<PropertyS
      * @return ConfigurationPropertySource
      */
     private fun adapt(source: PropertySource<*>): ConfigurationPropertySource {
-        return SpringConfigurationPropertySource.from(source)
+        // PropertySource的equals是基于name去进行比较的, 因此还需要检查缓存的是否是同一个PropertySource对象
+        val cached = this.cache[source]
+        if (cached != null && cached.propertySource === source) {
+            return cached
+        }
+        val result = SpringConfigurationPropertySource.from(source)
+        this.cache[source] = result
+        return result
     }
 
     class SourcesIterator(
@@ -37,6 +37,7 @@ open class SpringIterableConfigurationPropertySource(
      * TODO, 这里应该可以改成Soft Reference的Cache
      */
     @Nullable
+    @Volatile
     private var mappings: Mappings? = null
 
     @Nullable
@@ -99,22 +100,19 @@ open class SpringIterableConfigurationPropertySource(
     open fun getPropertySource(): EnumerablePropertySource<*> = this.propertySource as EnumerablePropertySource<*>
 
     /**
-     * 检查当前的[ConfigurationPropertySource]当中是否存在有给定的属性Key作为前缀的配置信息
+     * 检查当前的[ConfigurationPropertySource]当中是否存在有给定的属性Key作为前缀的配置信息,
+     * 使用Mappings当中维护的[ConfigurationPropertyName]的前缀树去进行检查, 而不是对全部的属性名去进行线性扫描
      *
      * @param name 属性前缀Key
      * @return 如果存在return PRESENT, 如果不存在, return ABSENT; 默认实现为UNKNOWN
      */
     override fun containsDescendantOf(name: ConfigurationPropertyName): ConfigurationPropertyState {
-        getConfigurationPropertyNames().forEach {
-            if (name.isAncestorOf(it)) {
-                return ConfigurationPropertyState.PRESENT
-            }
-        }
-        return ConfigurationPropertyState.ABSENT
+        return if (getMappings().containsDescendantOf(name)) ConfigurationPropertyState.PRESENT
+        else ConfigurationPropertyState.ABSENT
     }
 
     /**
-     * 获取当前[PropertySource]的Mappings
+     * 获取当前[PropertySource]的Mappings, 对于可变的[PropertySource], 每次获取时都会根据当前的属性名列表去增量更新Mappings
      *
      * @return Mappings
      */
@@ -124,6 +122,8 @@ open class SpringIterableConfigurationPropertySource(
             mappings = createMappings()
             updateMappings(mappings)
             this.mappings = mappings
+        } else if (!isImmutablePropertySource()) {
+            updateMappings(mappings)
         }
         return mappings
     }
@@ -135,7 +135,7 @@ open class SpringIterableConfigurationPropertySource(
      * @return Mappings
      */
     private fun createMappings(): Mappings {
-        return Mappings(propertyMappers, isImmutablePropertySource(), false)
+        return Mappings(propertyMappers, isImmutablePropertySource(), true)
     }
 
     /**
@@ -165,6 +165,10 @@ open class SpringIterableConfigurationPropertySource(
 
     /**
      * Mappings, 维护一个PropertySource当中的属性名的映射信息, propertyName <-> ConfigurationPropertyName
+     *
+     * @param mappers PropertyMappers
+     * @param immutable PropertySource是否是不可变的
+     * @param trackDescendants 是否需要维护[ConfigurationPropertyName]的前缀树, 用于快速地去检查是否存在有某个属性的子属性
      */
     private class Mappings(
         private val mappers: Array<PropertyMapper>,
@@ -188,21 +192,20 @@ open class SpringIterableConfigurationPropertySource(
         private var reverseMappings: MutableMap<String, ConfigurationPropertyName>? = null
 
         /**
-         * TODO
+         * 全部的[ConfigurationPropertyName]的前缀树, 只有trackDescendants时才会去进行维护, 不然为null
          */
         @Nullable
-        @Volatile
-        private var descendants: MutableMap<ConfigurationPropertyName, Set<ConfigurationPropertyName>>? = null
+        private val descendants: ConfigurationPropertyNameTree? = if (trackDescendants) ConfigurationPropertyNameTree() else null
 
         /**
-         * 上一次进行更新的属性名快照, 只有immutable时才会记录快照, 不是immutable的话, 为null
+         * 上一次进行更新得到的ConfigurationPropertyName快照, 只有immutable时才会记录快照, 不是immutable的话, 为null
          */
         @Nullable
         @Volatile
         private var configurationPropertyNames: Array<ConfigurationPropertyName?>? = null
 
         /**
-         * 上一次进行更新的属性名快照, 只有immutable时才会记录快照, 不是immutable的话, 为null
+         * 上一次进行更新的属性名快照, 用于检查PropertySource当中的属性名是否发生了变化
          */
         @Nullable
         @Volatile
@@ -218,6 +221,20 @@ open class SpringIterableConfigurationPropertySource(
             return mappings?.get(configurationPropertyName) ?: Collections.emptySet()
         }
 
+        /**
+         * 检查当前PropertySource当中是否存在有给定的name的子属性(不包括name自身)
+         *
+         * @param name 属性前缀Key
+         * @return 如果存在有子属性, return true; 否则return false
+         */
+        fun containsDescendantOf(name: ConfigurationPropertyName): Boolean {
+            val descendants = this.descendants
+            if (descendants != null) {
+                return descendants.containsDescendantOf(name)
+            }
+            return this.reverseMappings?.values?.any { name.isAncestorOf(it) } ?: false
+        }
+
         /**
          * 为给定的这些属性名, 去获取到对应的[ConfigurationPropertyName]列表
          *
@@ -261,44 +278,76 @@ open class SpringIterableConfigurationPropertySource(
         }
 
         /**
-         * 根据当前这一时刻的[PropertySource]当中的propertyName列表, 去进行更新Mappings
+         * 根据当前这一时刻的[PropertySource]当中的propertyName列表, 去增量地更新Mappings:
+         * 只为新增的propertyName去进行映射, 并将已经被移除的propertyName从Mappings(以及前缀树)当中去进行移除
          *
          * @param propertyNames 当前这一时刻的PropertySource当中的PropertyNames列表
          */
+        @Synchronized
         private fun updateMappings(propertyNames: Array<String>) {
             val lastUpdated = this.lastUpdated
             if (lastUpdated != null && Arrays.equals(propertyNames, lastUpdated)) {
                 return
             }
             val size = propertyNames.size
-            val mappings = cloneOrCreate(mappings, size)
+            val mappings = cloneOrCreate(this.mappings, size)
             val reverseMappings = cloneOrCreate(this.reverseMappings, size)
 
+            // 1.移除掉PropertySource当中已经不存在的propertyName
+            if (reverseMappings.isNotEmpty()) {
+                val current = HashSet<String>(propertyNames.size * 2)
+                propertyNames.forEach(current::add)
+                val iterator = reverseMappings.entries.iterator()
+                while (iterator.hasNext()) {
+                    val (propertyName, configurationPropertyName) = iterator.next()
+                    if (!current.contains(propertyName)) {
+                        iterator.remove()
+                        remove(mappings, configurationPropertyName, propertyName)
+                        descendants?.remove(configurationPropertyName)
+                    }
+                }
+            }
+
+            // 2.为新增的propertyName去进行映射
             for (mapper in this.mappers) {
                 for (propertyName in propertyNames) {
                     if (!reverseMappings.containsKey(propertyName)) {
                         val configurationPropertyName = mapper.map(propertyName)
                         add(mappings, configurationPropertyName, propertyName)
                         reverseMappings[propertyName] = configurationPropertyName
+                        descendants?.add(configurationPropertyName)
                     }
                 }
             }
 
             this.mappings = mappings
             this.reverseMappings = reverseMappings
-
-            // 如果是immutable的话, 那么将propertyNames缓存下来
-            this.lastUpdated = if (immutable) propertyNames else null
+            this.lastUpdated = propertyNames
 
             // 如果是immutable的话, 那么将ConfigurationPropertyNames去缓存一份...
             this.configurationPropertyNames = if (immutable) reverseMappings.values.toTypedArray() else null
         }
 
+        /**
+         * 往Map当中去添加一个元素, 对于Value的Set采用CopyOnWrite的方式, 避免影响正在读取旧的Mappings的线程
+         */
         private fun <K, T> add(map: MutableMap<K, Set<T>>, key: K, value: T) {
-            val tSet = map.computeIfAbsent(key) { LinkedHashSet() }
-            if (tSet is MutableSet<*>) {
-                (tSet as MutableSet<T>).add(value)
+            val values = map[key]
+            map[key] = if (values == null) Collections.singleton(value) else LinkedHashSet(values).apply { add(value) }
+        }
+
+        /**
+         * 从Map当中去移除掉一个元素, 对于Value的Set采用CopyOnWrite的方式, 避免影响正在读取旧的Mappings的线程
+         */
+        private fun <K, T> remove(map: MutableMap<K, Set<T>>, key: K, value: T) {
+            val values = map[key] ?: return
+            if (values.size <= 1) {
+                if (values.contains(value)) {
+                    map.remove(key)
+                }
+                return
             }
+            map[key] = LinkedHashSet(values).apply { remove(value) }
         }
 
         private fun <K, V> cloneOrCreate(@Nullable source: MutableMap<K, V>?, size: Int): MutableMap<K, V> {
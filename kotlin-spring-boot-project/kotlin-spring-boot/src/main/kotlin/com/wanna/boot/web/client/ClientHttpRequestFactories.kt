@@ -1,15 +1,10 @@
 package com.wanna.boot.web.client
 
-import com.wanna.framework.lang.Nullable
 import com.wanna.framework.util.ClassUtils
 import com.wanna.framework.util.ReflectionUtils
 import com.wanna.framework.web.http.client.ClientHttpRequestFactory
 import com.wanna.framework.web.http.client.HttpComponentsClientHttpRequestFactory
 import com.wanna.framework.web.http.client.SimpleClientHttpRequestFactory
-import org.apache.http.client.HttpClient
-import org.apache.http.config.SocketConfig
-import org.apache.http.impl.client.HttpClientBuilder
-import org.apache.http.impl.conn.PoolingHttpClientConnectionManager
 import java.lang.reflect.Method
 import java.time.Duration
 import java.util.function.Supplier
@@ -112,7 +107,10 @@ object ClientHttpRequestFactories {
          */
         @JvmStatic
         fun get(settings: ClientHttpRequestFactorySettings): HttpComponentsClientHttpRequestFactory {
-            val requestFactory = createRequestFactory(settings.readTimeout)
+            val requestFactory = HttpComponentsClientHttpRequestFactory()
+            if (settings.readTimeout != null) {
+                requestFactory.readTimeout = settings.readTimeout.toMillis().toInt()
+            }
             if (settings.connectionTimeout != null) {
                 requestFactory.connectTimeout = settings.connectionTimeout.toMillis().toInt()
             }
@@ -121,33 +119,6 @@ object ClientHttpRequestFactories {
             }
             return requestFactory
         }
-
-        /**
-         * 创建一个[HttpComponentsClientHttpRequestFactory]
-         *
-         * @param readTimeout 读超时时间
-         * @return Apache HttpClient
-         */
-        @JvmStatic
-        private fun createRequestFactory(@Nullable readTimeout: Duration?): HttpComponentsClientHttpRequestFactory {
-            return if (readTimeout != null) HttpComponentsClientHttpRequestFactory(createHttpClient(readTimeout))
-            else HttpComponentsClientHttpRequestFactory()
-        }
-
-
-        /**
-         * 创建Apache的[HttpClient]
-         *
-         * @param readTimeout 读超时时间
-         * @return Apache HttpClient
-         */
-        @JvmStatic
-        private fun createHttpClient(readTimeout: Duration): HttpClient {
-            val socketConfig = SocketConfig.custom().setSoTimeout(readTimeout.toMillis().toInt()).build()
-            val connectionManager = PoolingHttpClientConnectionManager()
-            connectionManager.defaultSocketConfig = socketConfig
-            return HttpClientBuilder.create().setConnectionManager(connectionManager).build()
-        }
     }
 
     /**
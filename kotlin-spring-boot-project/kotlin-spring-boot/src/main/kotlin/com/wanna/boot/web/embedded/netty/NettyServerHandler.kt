@@ -10,7 +10,8 @@ import com.wanna.framework.web.server.ActionCode
 import com.wanna.framework.web.server.ActionHook
 import com.wanna.framework.web.server.HttpServerRequestImpl
 import com.wanna.framework.web.server.HttpServerResponseImpl
-import io.netty.buffer.Unpooled
+import io.netty.buffer.ByteBufInputStream
+import io.netty.buffer.ByteBufOutputStream
 import io.netty.channel.ChannelHandler.Sharable
 import io.netty.channel.ChannelHandlerContext
 import io.netty.channel.ChannelInboundHandlerAdapter
@@ -19,7 +20,6 @@ import io.netty.handler.codec.http.FullHttpRequest
 import io.netty.handler.codec.http.HttpResponseStatus
 import io.netty.handler.codec.http.HttpVersion
 import com.wanna.common.logging.LoggerFactory
-import java.io.ByteArrayInputStream
 import java.io.IOException
 import java.net.InetSocketAddress
 
@@ -104,7 +104,10 @@ open class NettyServerHandler(applicationContext: ApplicationContext) : ChannelI
         ctx: ChannelHandlerContext
     ) {
         response.initFlushCallback {
-            val responseByteBuf = Unpooled.copiedBuffer(getOutputStream().toByteArray())
+            // 从Channel的ByteBufAllocator(默认为池化的)当中去申请ByteBuf, 直接将输出流当中的数据写入, 避免toByteArray的额外拷贝
+            val outputStream = getOutputStream()
+            val responseByteBuf = ctx.alloc().buffer(outputStream.size())
+            outputStream.writeTo(ByteBufOutputStream(responseByteBuf))
 
             // 构建响应状态码
             val responseStatus = if (StringUtils.hasText(getMessage())) HttpResponseStatus.valueOf(
@@ -186,11 +189,8 @@ open class NettyServerHandler(applicationContext: ApplicationContext) : ChannelI
             // 解析uri和url
             parseUriUrlAndParams(this, msg.uri())
 
-            // 将RequestBody当中的内容, 包装成为InputStream设置到request当中
-            val content = msg.content()
-            val byteArray = ByteArray(content.readableBytes())
-            content.readBytes(byteArray)
-            setInputStream(ByteArrayInputStream(byteArray))
+            // 将RequestBody当中的内容, 直接包装成为InputStream设置到request当中, 读取时直接从Netty的ByteBuf当中去进行读取, 不必再拷贝一次
+            setInputStream(ByteBufInputStream(msg.content()))
 
             // 设置ActionHook为重新使用DispatcherHandler去进行doDispatch
             setActionHook(object : ActionHook {
@@ -0,0 +1,44 @@
+package com.wanna.boot.test
+
+import com.wanna.boot.ApplicationType
+import com.wanna.boot.SpringApplication
+import com.wanna.boot.context.metrics.buffering.BufferingApplicationStartup
+
+/**
+ * 使用[BufferingApplicationStartup]去记录SpringApplication的启动过程, 并输出耗时最多的步骤
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ */
+class BufferingApplicationStartupTest
+
+fun main(vararg args: String) {
+    // 1.环形缓冲区满了之后, 新的步骤会覆盖掉最早的步骤; 嵌套的步骤会记录父步骤的id
+    val startup = BufferingApplicationStartup(2)
+    val outer = startup.start("outer")
+    val inner = startup.start("inner").tag("key", "value")
+    inner.end()
+    outer.end()
+    startup.start("last").end()
+    val timeline = startup.getBufferedTimeline()
+    check(timeline.dropped == 1L)
+    check(timeline.events.map { it.startupStep.getName() } == listOf("outer", "last"))
+    check(timeline.events[0].startupStep.getParentId() == null)
+    check(inner.getParentId() == outer.getId())
+    check(startup.start("root").getParentId() == null)
+
+    // 2.记录SpringApplication的启动过程
+    val applicationStartup = BufferingApplicationStartup(4096)
+    val springApplication = SpringApplication(BufferingApplicationStartupTest::class.java)
+    springApplication.setApplicationStartup(applicationStartup)
+    springApplication.setApplicationType(ApplicationType.NONE)
+    springApplication.run(*args)
+
+    val events = applicationStartup.getBufferedTimeline().events
+    check(events.any { it.startupStep.getName() == "spring.context.refresh" })
+    check(events.any { it.startupStep.getName() == "spring.beans.initialize" })
+    events.sortedByDescending { it.duration }.take(10).forEach {
+        println("${it.startupStep.getName()} ${it.startupStep.getTags().joinToString { tag -> "${tag.getKey()}=${tag.getValue()}" }} ${it.duration.toNanos() / 1000}us")
+    }
+}
@@ -0,0 +1,117 @@
+package com.wanna.boot.test
+
+import com.wanna.boot.ApplicationType
+import com.wanna.boot.LazyInitializationExcludeFilter
+import com.wanna.boot.LazyInitializationWarmUpListener
+import com.wanna.boot.SpringApplication
+import com.wanna.framework.context.annotation.Autowired
+import com.wanna.framework.context.annotation.Bean
+import com.wanna.framework.context.annotation.Configuration
+import com.wanna.framework.context.annotation.DependsOn
+import com.wanna.framework.context.annotation.Lazy
+import java.util.*
+
+/**
+ * 测试全局的懒加载以及应用启动完成之后的后台预热
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ */
+@Configuration(proxyBeanMethods = false)
+class LazyInitializationTest {
+
+    companion object {
+        /**
+         * 按照创建的顺序记录下来的Bean
+         */
+        val created: MutableList<String> = Collections.synchronizedList(ArrayList())
+    }
+
+    open class Recorded(name: String) {
+        init {
+            created += name
+        }
+    }
+
+    class CircularA : Recorded("circularA") {
+        @Autowired
+        lateinit var b: CircularB
+    }
+
+    class CircularB : Recorded("circularB") {
+        @Autowired
+        lateinit var a: CircularA
+    }
+
+    class Excluded : Recorded("excluded")
+
+    @Bean
+    @DependsOn(["warmB"])
+    fun warmC() = Recorded("warmC")
+
+    @Bean
+    @DependsOn(["warmA"])
+    fun warmB() = Recorded("warmB")
+
+    @Bean
+    fun warmA() = Recorded("warmA")
+
+    @Bean
+    fun circularA() = CircularA()
+
+    @Bean
+    fun circularB() = CircularB()
+
+    @Bean
+    fun onDemand() = Recorded("onDemand")
+
+    @Bean
+    @Lazy(false)
+    fun eager() = Recorded("eager")
+
+    @Bean
+    @Lazy
+    fun explicitLazy() = Recorded("explicitLazy")
+
+    @Bean
+    fun excluded() = Excluded()
+
+    @Bean
+    fun lazyInitializationExcludeFilter(): LazyInitializationExcludeFilter =
+        LazyInitializationExcludeFilter.forBeanTypes(Excluded::class.java)
+}
+
+fun main() {
+    val springApplication = SpringApplication(LazyInitializationTest::class.java)
+    springApplication.setApplicationType(ApplicationType.NONE)
+    val context = springApplication.run(
+        "--spring.main.lazy-initialization=true",
+        "--spring.lazy-initialization.warm-up.delay=500"
+    )
+
+    // 1.启动时只会创建显式指定为非懒加载的Bean, 以及被ExcludeFilter排除掉的Bean
+    check(LazyInitializationTest.created.toSet() == setOf("eager", "excluded")) { LazyInitializationTest.created }
+
+    // 2.还没有被预热的Bean, 在被使用时直接去进行创建
+    val onDemand = context.getBean("onDemand")
+
+    // 3.等待后台预热完成
+    val warmUpThread = Thread.getAllStackTraces().keys.first { it.name == LazyInitializationWarmUpListener.WARM_UP_THREAD_NAME }
+    warmUpThread.join(10000L)
+    check(!warmUpThread.isAlive)
+
+    // 4.预热按照依赖关系的顺序去进行, 每个Bean都只会被创建一次, 显式指定为懒加载的Bean不会被预热
+    val created = LazyInitializationTest.created
+    check(created.indexOf("warmA") < created.indexOf("warmB") && created.indexOf("warmB") < created.indexOf("warmC")) { created }
+    check(created.groupBy { it }.all { it.value.size == 1 }) { created }
+    check(!created.contains("explicitLazy")) { created }
+    check(context.getBean("onDemand") === onDemand)
+
+    // 5.循环依赖的Bean在预热时也可以正常地去完成创建
+    val circularA = context.getBean(LazyInitializationTest.CircularA::class.java)
+    val circularB = context.getBean(LazyInitializationTest.CircularB::class.java)
+    check(circularA.b === circularB && circularB.a === circularA)
+    println(created)
+    context.close()
+}
@@ -0,0 +1,101 @@
+package com.wanna.boot.test.properties
+
+import com.wanna.boot.context.properties.source.ConfigurationPropertyName
+import com.wanna.boot.context.properties.source.ConfigurationPropertyNameTree
+import com.wanna.boot.context.properties.source.ConfigurationPropertyState
+import com.wanna.boot.context.properties.source.SpringConfigurationPropertySource
+import com.wanna.boot.context.properties.source.SpringIterableConfigurationPropertySource
+import com.wanna.framework.core.environment.MapPropertySource
+
+/**
+ * [ConfigurationPropertyNameTree]的添加/移除的测试, 以及可变的[MapPropertySource]在属性发生变化之后,
+ * [SpringIterableConfigurationPropertySource]对于Mappings以及前缀树的增量更新的测试
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ */
+class ConfigurationPropertyNameTreeTest {
+
+    fun testAddTwiceRemoveOnce() {
+        val tree = ConfigurationPropertyNameTree()
+        val name = name("server.port")
+        tree.add(name)
+        tree.add(name)
+        check(tree.containsDescendantOf(name("server")))
+        check(!tree.containsDescendantOf(name))
+
+        // 添加了两次的属性名, 只移除一次之后仍然存在
+        tree.remove(name)
+        check(tree.containsDescendantOf(name("server")))
+        tree.remove(name)
+        check(!tree.containsDescendantOf(name("server")))
+
+        // 移除不存在的属性名, 直接忽略
+        tree.remove(name)
+        tree.remove(name("server.address"))
+        check(!tree.containsDescendantOf(ConfigurationPropertyName.EMPTY))
+    }
+
+    fun testEmptySubtreePruned() {
+        val tree = ConfigurationPropertyNameTree()
+        tree.add(name("spring.datasource.url"))
+        tree.add(name("spring.datasource.username"))
+        tree.add(name("spring.main.lazy-initialization"))
+
+        tree.remove(name("spring.datasource.url"))
+        check(tree.containsDescendantOf(name("spring.datasource")))
+        tree.remove(name("spring.datasource.username"))
+
+        // "spring.datasource"的子树已经被清空, 不能再被视为存在有子属性, 而"spring"仍然存在有别的子属性
+        check(!tree.containsDescendantOf(name("spring.datasource")))
+        check(tree.containsDescendantOf(name("spring")))
+
+        // 被移除的子树可以被重新添加
+        tree.add(name("spring.datasource.url"))
+        check(tree.containsDescendantOf(name("spring.datasource")))
+
+        // 一个属性名既可以是别的属性名的前缀, 自身也可以是一个属性名
+        tree.add(name("spring.datasource"))
+        tree.remove(name("spring.datasource.url"))
+        check(!tree.containsDescendantOf(name("spring.datasource")))
+        check(tree.containsDescendantOf(name("spring")))
+    }
+
+    fun testIncrementalMappings() {
+        val source = LinkedHashMap<String, Any>()
+        source["server.port"] = 8080
+        source["server.ssl.enabled"] = true
+        source["spring.application.name"] = "demo"
+        val propertySource = SpringConfigurationPropertySource.from(MapPropertySource("test", source))
+        check(propertySource is SpringIterableConfigurationPropertySource)
+
+        check(propertySource.containsDescendantOf(name("server.ssl")) == ConfigurationPropertyState.PRESENT)
+        check(propertySource.getConfigurationProperty(name("server.ssl.enabled"))?.value == true)
+
+        // 从可变的PropertySource当中删除属性之后, 前缀树以及Mappings需要同步地去进行更新
+        source.remove("server.ssl.enabled")
+        check(propertySource.containsDescendantOf(name("server.ssl")) == ConfigurationPropertyState.ABSENT)
+        check(propertySource.containsDescendantOf(name("server")) == ConfigurationPropertyState.PRESENT)
+        check(propertySource.getConfigurationProperty(name("server.ssl.enabled")) == null)
+        check(propertySource.toSet() == setOf(name("server.port"), name("spring.application.name")))
+
+        // 新增的属性, 也需要被添加到前缀树以及Mappings当中
+        source["server.ssl.key-store"] = "classpath:keystore.jks"
+        check(propertySource.containsDescendantOf(name("server.ssl")) == ConfigurationPropertyState.PRESENT)
+        check(propertySource.getConfigurationProperty(name("server.ssl.key-store"))?.value == "classpath:keystore.jks")
+
+        source.clear()
+        check(propertySource.containsDescendantOf(ConfigurationPropertyName.EMPTY) == ConfigurationPropertyState.ABSENT)
+        check(propertySource.toList().isEmpty())
+    }
+
+    private fun name(name: String) = ConfigurationPropertyName.of(name)
+}
+
+fun main() {
+    val test = ConfigurationPropertyNameTreeTest()
+    test.testAddTwiceRemoveOnce()
+    test.testEmptySubtreePruned()
+    test.testIncrementalMappings()
+}
@@ -0,0 +1,10 @@
+package com.wanna.cloud.client.circuitbreaker
+
+/**
+ * 并发的调用数量已经达到了舱壁(Bulkhead)的上限时抛出的异常
+ *
+ * @param circuitBreakerId CircuitBreaker的id
+ * @param maxConcurrentCalls 最大的并发调用数量
+ */
+open class BulkheadFullException(val circuitBreakerId: String, val maxConcurrentCalls: Int) :
+    RuntimeException("CircuitBreaker[$circuitBreakerId]的并发调用数量已经达到上限[$maxConcurrentCalls]")
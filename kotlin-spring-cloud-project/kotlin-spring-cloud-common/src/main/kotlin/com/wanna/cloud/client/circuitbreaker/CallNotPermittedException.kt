@@ -0,0 +1,10 @@
+package com.wanna.cloud.client.circuitbreaker
+
+/**
+ * 断路器处于打开(或者半开并且已经没有试探请求的名额)的状态, 不允许执行本次调用时抛出的异常
+ *
+ * @param circuitBreakerId CircuitBreaker的id
+ * @param state 当前的CircuitBreaker的状态
+ */
+open class CallNotPermittedException(val circuitBreakerId: String, val state: DefaultCircuitBreaker.State) :
+    RuntimeException("CircuitBreaker[$circuitBreakerId]处于${state}状态, 不允许进行调用")
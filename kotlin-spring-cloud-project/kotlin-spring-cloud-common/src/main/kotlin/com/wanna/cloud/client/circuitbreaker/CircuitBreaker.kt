@@ -1,5 +1,34 @@
 package com.wanna.cloud.client.circuitbreaker
 
+import java.util.function.Function
+import java.util.function.Supplier
+
+/**
+ * SpringCloud对于断路器(熔断器)的抽象, 使用断路器去包装一次远程调用, 在下游服务故障时快速失败并执行降级逻辑,
+ * 避免调用方的线程全部阻塞在故障的下游服务上
+ *
+ * @see CircuitBreakerFactory
+ * @see DefaultCircuitBreaker
+ */
 interface CircuitBreaker {
 
-}
\ No newline at end of file
+    /**
+     * 使用断路器去执行给定的操作, 如果执行失败(或者断路器不允许执行), 那么直接抛出异常
+     *
+     * @param toRun 要执行的操作
+     * @return 执行结果
+     * @throws NoFallbackAvailableException 如果执行失败
+     */
+    fun <T> run(toRun: Supplier<T>): T {
+        return run(toRun) { throw NoFallbackAvailableException("No fallback available.", it) }
+    }
+
+    /**
+     * 使用断路器去执行给定的操作, 如果执行失败(或者断路器不允许执行), 那么执行fallback
+     *
+     * @param toRun 要执行的操作
+     * @param fallback 执行失败时的降级逻辑, 参数为执行失败的原因
+     * @return 执行结果(或者fallback的执行结果)
+     */
+    fun <T> run(toRun: Supplier<T>, fallback: Function<Throwable, T>): T
+}
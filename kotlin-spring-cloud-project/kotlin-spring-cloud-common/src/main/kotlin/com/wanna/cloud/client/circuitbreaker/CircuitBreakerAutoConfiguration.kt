@@ -0,0 +1,26 @@
+package com.wanna.cloud.client.circuitbreaker
+
+import com.wanna.boot.autoconfigure.condition.ConditionalOnMissingBean
+import com.wanna.framework.context.annotation.Autowired
+import com.wanna.framework.context.annotation.Bean
+import com.wanna.framework.context.annotation.Configuration
+
+/**
+ * CircuitBreaker的自动配置类, 给容器当中导入一个默认的[CircuitBreakerFactory];
+ * 可以通过往容器当中去注册[Customizer], 去对[DefaultCircuitBreakerFactory]去进行自定义
+ *
+ * @see DefaultCircuitBreakerFactory
+ */
+@Configuration(proxyBeanMethods = false)
+open class CircuitBreakerAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    open fun circuitBreakerFactory(
+        @Autowired(required = false) customizers: List<Customizer<DefaultCircuitBreakerFactory>>
+    ): CircuitBreakerFactory {
+        val circuitBreakerFactory = DefaultCircuitBreakerFactory()
+        customizers.forEach { it.customize(circuitBreakerFactory) }
+        return circuitBreakerFactory
+    }
+}
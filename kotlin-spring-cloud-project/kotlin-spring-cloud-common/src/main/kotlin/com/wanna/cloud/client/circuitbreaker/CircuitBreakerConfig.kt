@@ -0,0 +1,95 @@
+package com.wanna.cloud.client.circuitbreaker
+
+/**
+ * [DefaultCircuitBreaker]的配置信息
+ *
+ * @see DefaultCircuitBreaker
+ */
+open class CircuitBreakerConfig {
+
+    /**
+     * 滑动窗口的类型
+     */
+    var slidingWindowType = SlidingWindowType.COUNT_BASED
+
+    /**
+     * 滑动窗口的大小, 对于基于数量的滑动窗口, 代表最近的多少次调用; 对于基于时间的滑动窗口, 代表最近的多少秒
+     */
+    var slidingWindowSize = 100
+
+    /**
+     * 计算失败率/慢调用率之前, 滑动窗口内最少需要的调用次数
+     */
+    var minimumNumberOfCalls = 10
+
+    /**
+     * 失败率的阈值(百分比), 失败率大于等于该阈值时, 断路器打开
+     */
+    var failureRateThreshold = 50f
+
+    /**
+     * 慢调用率的阈值(百分比), 慢调用率大于等于该阈值时, 断路器打开
+     */
+    var slowCallRateThreshold = 100f
+
+    /**
+     * 耗时超过多少毫秒的调用被认为是慢调用
+     */
+    var slowCallDurationThresholdMillis = 60_000L
+
+    /**
+     * 断路器打开之后, 需要等待多少毫秒才转换为半开状态
+     */
+    var waitDurationInOpenStateMillis = 60_000L
+
+    /**
+     * 半开状态下, 允许进行试探的调用次数
+     */
+    var permittedNumberOfCallsInHalfOpenState = 10
+
+    /**
+     * 舱壁(Bulkhead)允许的最大的并发调用数量, 超过时直接拒绝, 默认不做限制
+     */
+    var maxConcurrentCalls = Int.MAX_VALUE
+
+    /**
+     * 需要被忽略的异常类型, 这些异常既不算成功也不算失败
+     */
+    var ignoreExceptions: List<Class<out Throwable>> = emptyList()
+
+    /**
+     * 拷贝一份当前的配置
+     *
+     * @return 拷贝得到的配置
+     */
+    open fun copy(): CircuitBreakerConfig {
+        val config = CircuitBreakerConfig()
+        config.slidingWindowType = slidingWindowType
+        config.slidingWindowSize = slidingWindowSize
+        config.minimumNumberOfCalls = minimumNumberOfCalls
+        config.failureRateThreshold = failureRateThreshold
+        config.slowCallRateThreshold = slowCallRateThreshold
+        config.slowCallDurationThresholdMillis = slowCallDurationThresholdMillis
+        config.waitDurationInOpenStateMillis = waitDurationInOpenStateMillis
+        config.permittedNumberOfCallsInHalfOpenState = permittedNumberOfCallsInHalfOpenState
+        config.maxConcurrentCalls = maxConcurrentCalls
+        config.ignoreExceptions = ignoreExceptions
+        return config
+    }
+
+    /**
+     * 滑动窗口的类型
+     */
+    enum class SlidingWindowType {
+
+        /**
+         * 基于调用次数的滑动窗口, 统计最近的N次调用
+         */
+        COUNT_BASED,
+
+        /**
+         * 基于时间的滑动窗口, 统计最近的N秒内的调用
+         */
+        TIME_BASED
+    }
+}
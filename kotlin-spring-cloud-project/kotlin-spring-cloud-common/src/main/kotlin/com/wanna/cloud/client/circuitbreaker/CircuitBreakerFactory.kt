@@ -0,0 +1,18 @@
+package com.wanna.cloud.client.circuitbreaker
+
+/**
+ * 创建[CircuitBreaker]的工厂, 对于同一个id, 总是返回同一个[CircuitBreaker]
+ *
+ * @see CircuitBreaker
+ * @see DefaultCircuitBreakerFactory
+ */
+abstract class CircuitBreakerFactory {
+
+    /**
+     * 根据id, 获取(或创建)一个[CircuitBreaker]
+     *
+     * @param id CircuitBreaker的id, 例如FeignClient的name或者FeignClient的方法
+     * @return CircuitBreaker
+     */
+    abstract fun create(id: String): CircuitBreaker
+}
@@ -0,0 +1,24 @@
+package com.wanna.cloud.client.circuitbreaker
+
+import com.wanna.framework.context.event.ApplicationEvent
+
+/**
+ * [DefaultCircuitBreaker]的状态发生转换时, 发布的事件
+ *
+ * @param circuitBreaker 发生状态转换的CircuitBreaker
+ * @param fromState 转换之前的状态
+ * @param toState 转换之后的状态
+ */
+open class CircuitBreakerStateTransitionEvent(
+    circuitBreaker: DefaultCircuitBreaker,
+    val fromState: DefaultCircuitBreaker.State,
+    val toState: DefaultCircuitBreaker.State
+) : ApplicationEvent(circuitBreaker) {
+
+    /**
+     * 发生状态转换的CircuitBreaker的id
+     */
+    val circuitBreakerId: String = circuitBreaker.id
+
+    override fun toString(): String = "CircuitBreaker[$circuitBreakerId]的状态从${fromState}转换为${toState}"
+}
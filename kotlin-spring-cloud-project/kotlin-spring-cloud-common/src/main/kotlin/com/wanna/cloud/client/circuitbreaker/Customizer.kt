@@ -0,0 +1,16 @@
+package com.wanna.cloud.client.circuitbreaker
+
+/**
+ * 对于某个组件(例如[DefaultCircuitBreakerFactory])的自定义器, 可以往容器当中注册一个Customizer, 去对组件去进行自定义
+ *
+ * @param T 要去进行自定义的组件类型
+ */
+fun interface Customizer<T> {
+
+    /**
+     * 对给定的组件去进行自定义
+     *
+     * @param t 要去进行自定义的组件
+     */
+    fun customize(t: T)
+}
@@ -0,0 +1,271 @@
+package com.wanna.cloud.client.circuitbreaker
+
+import com.wanna.framework.context.event.ApplicationEventPublisher
+import com.wanna.framework.lang.Nullable
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReference
+import java.util.function.Function
+import java.util.function.Supplier
+
+/**
+ * [CircuitBreaker]的默认实现, 基于滑动窗口内的失败率/慢调用率去进行熔断, 并支持舱壁(Bulkhead)的并发调用数量限制;
+ *
+ * * 1.CLOSED: 正常放行所有的调用, 并在滑动窗口内统计调用的结果, 当失败率或者慢调用率超过阈值时, 转换为OPEN状态;
+ * * 2.OPEN: 拒绝所有的调用(抛出[CallNotPermittedException]), 等待[CircuitBreakerConfig.waitDurationInOpenStateMillis]之后, 转换为HALF_OPEN状态;
+ * * 3.HALF_OPEN: 只放行[CircuitBreakerConfig.permittedNumberOfCallsInHalfOpenState]个试探调用, 全部完成之后,
+ * 如果失败率或者慢调用率仍然超过阈值, 那么重新转换为OPEN状态, 否则转换为CLOSED状态.
+ *
+ * 状态机是无锁的, 每个状态都是一个不可变的状态对象(各自持有自己的统计信息), 状态的转换使用CAS去替换状态对象,
+ * 只有CAS成功的线程才会去发布[CircuitBreakerStateTransitionEvent]事件
+ *
+ * @param id CircuitBreaker的id
+ * @param config CircuitBreaker的配置信息
+ * @param eventPublisher 发布状态转换事件的事件发布器, 为null时不发布事件
+ */
+open class DefaultCircuitBreaker(
+    val id: String,
+    val config: CircuitBreakerConfig,
+    @Nullable private val eventPublisher: ApplicationEventPublisher? = null
+) : CircuitBreaker {
+
+    /**
+     * 当前的状态对象
+     */
+    private val stateReference = AtomicReference<CircuitBreakerState>(ClosedState())
+
+    /**
+     * 当前正在进行中的调用数量(舱壁)
+     */
+    private val concurrentCalls = AtomicInteger()
+
+    /**
+     * 获取当前的断路器的状态
+     *
+     * @return state
+     */
+    open fun getState(): State = stateReference.get().state
+
+    /**
+     * 获取当前正在进行中的调用数量
+     *
+     * @return 正在进行中的调用数量
+     */
+    open fun getConcurrentCalls(): Int = concurrentCalls.get()
+
+    @Suppress("UNCHECKED_CAST")
+    override fun <T> run(toRun: Supplier<T>, fallback: Function<Throwable, T>): T {
+        if (!tryAcquireBulkhead()) {
+            return fallback.apply(BulkheadFullException(id, config.maxConcurrentCalls))
+        }
+        var failure: Throwable? = null
+        var result: T? = null
+        try {
+            val state = stateReference.get()
+            val grantedState = state.tryAcquirePermission()
+            if (grantedState == null) {
+                failure = CallNotPermittedException(id, stateReference.get().state)
+            } else {
+                val startNanos = System.nanoTime()
+                try {
+                    result = toRun.get()
+                    grantedState.onResult(System.nanoTime() - startNanos, null)
+                } catch (ex: Throwable) {
+                    grantedState.onResult(System.nanoTime() - startNanos, ex)
+                    failure = ex
+                }
+            }
+        } finally {
+            concurrentCalls.decrementAndGet()
+        }
+
+        // 在释放掉舱壁的名额之后, 再去执行fallback
+        if (failure != null) {
+            return fallback.apply(failure)
+        }
+        return result as T
+    }
+
+    /**
+     * 强制将断路器转换为CLOSED状态(清空统计信息)
+     */
+    open fun transitionToClosedState() {
+        transition(stateReference.get(), ClosedState(), true)
+    }
+
+    /**
+     * 强制将断路器转换为OPEN状态
+     */
+    open fun transitionToOpenState() {
+        transition(stateReference.get(), OpenState(), true)
+    }
+
+    /**
+     * 尝试去获取舱壁的名额
+     *
+     * @return 如果获取成功return true; 如果并发调用数量已经达到上限return false
+     */
+    private fun tryAcquireBulkhead(): Boolean {
+        while (true) {
+            val current = concurrentCalls.get()
+            if (current >= config.maxConcurrentCalls) {
+                return false
+            }
+            if (concurrentCalls.compareAndSet(current, current + 1)) {
+                return true
+            }
+        }
+    }
+
+    /**
+     * 使用CAS的方式去进行状态的转换, 只有CAS成功的线程才会去发布状态转换事件
+     *
+     * @param from 转换之前的状态对象
+     * @param to 转换之后的状态对象
+     * @param force 是否是强制转换, 强制转换时, 在CAS失败时需要去进行重试
+     */
+    private fun transition(from: CircuitBreakerState, to: CircuitBreakerState, force: Boolean = false) {
+        var expected = from
+        while (!stateReference.compareAndSet(expected, to)) {
+            if (!force) {
+                return
+            }
+            expected = stateReference.get()
+        }
+        eventPublisher?.publishEvent(CircuitBreakerStateTransitionEvent(this, expected.state, to.state))
+    }
+
+    /**
+     * 检查统计信息当中的失败率/慢调用率是否超过了阈值
+     *
+     * @param snapshot 统计信息
+     * @param minimumNumberOfCalls 最少需要的调用次数
+     */
+    private fun isThresholdExceeded(snapshot: SlidingWindowMetrics.Snapshot, minimumNumberOfCalls: Int): Boolean {
+        if (snapshot.calls < minimumNumberOfCalls) {
+            return false
+        }
+        return snapshot.failureRate >= config.failureRateThreshold || snapshot.slowCallRate >= config.slowCallRateThreshold
+    }
+
+    /**
+     * 将调用结果转换为[SlidingWindowMetrics.Outcome], 如果是需要被忽略的异常, 那么return null
+     *
+     * @param durationNanos 调用耗时
+     * @param ex 调用抛出的异常(为null代表调用成功)
+     */
+    @Nullable
+    private fun toOutcome(durationNanos: Long, @Nullable ex: Throwable?): SlidingWindowMetrics.Outcome? {
+        if (ex != null && config.ignoreExceptions.any { it.isInstance(ex) }) {
+            return null
+        }
+        val slow = durationNanos >= config.slowCallDurationThresholdMillis * 1_000_000
+        return SlidingWindowMetrics.Outcome.of(ex != null, slow)
+    }
+
+    private fun newMetrics(): SlidingWindowMetrics = when (config.slidingWindowType) {
+        CircuitBreakerConfig.SlidingWindowType.COUNT_BASED -> CountBasedSlidingWindowMetrics(config.slidingWindowSize)
+        CircuitBreakerConfig.SlidingWindowType.TIME_BASED -> TimeBasedSlidingWindowMetrics(config.slidingWindowSize)
+    }
+
+    /**
+     * 断路器的状态
+     */
+    enum class State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * 断路器的状态对象
+     *
+     * @param state 状态
+     */
+    private abstract inner class CircuitBreakerState(val state: State) {
+
+        /**
+         * 尝试去获取调用的许可
+         *
+         * @return 如果允许调用, 那么return给出许可的状态对象(调用结果需要交给它去进行记录); 否则return null
+         */
+        @Nullable
+        abstract fun tryAcquirePermission(): CircuitBreakerState?
+
+        /**
+         * 记录一次调用的结果
+         *
+         * @param durationNanos 调用耗时
+         * @param ex 调用抛出的异常(为null代表调用成功)
+         */
+        abstract fun onResult(durationNanos: Long, @Nullable ex: Throwable?)
+    }
+
+    /**
+     * CLOSED状态, 放行所有的调用
+     */
+    private inner class ClosedState : CircuitBreakerState(State.CLOSED) {
+        private val metrics = newMetrics()
+
+        override fun tryAcquirePermission(): CircuitBreakerState = this
+
+        override fun onResult(durationNanos: Long, @Nullable ex: Throwable?) {
+            val outcome = toOutcome(durationNanos, ex) ?: return
+            if (isThresholdExceeded(metrics.record(outcome), config.minimumNumberOfCalls)) {
+                transition(this, OpenState())
+            }
+        }
+    }
+
+    /**
+     * OPEN状态, 拒绝所有的调用, 直到等待时间到期
+     */
+    private inner class OpenState : CircuitBreakerState(State.OPEN) {
+        private val retryAfterMillis = System.currentTimeMillis() + config.waitDurationInOpenStateMillis
+
+        override fun tryAcquirePermission(): CircuitBreakerState? {
+            if (System.currentTimeMillis() < retryAfterMillis) {
+                return null
+            }
+            // 等待时间已经到期, 转换为HALF_OPEN状态(可能已经被别的线程转换过了), 再交给新的状态去进行判断
+            transition(this, HalfOpenState())
+            val current = stateReference.get()
+            return if (current === this) null else current.tryAcquirePermission()
+        }
+
+        override fun onResult(durationNanos: Long, @Nullable ex: Throwable?) {
+            // OPEN状态下不会给出许可
+        }
+    }
+
+    /**
+     * HALF_OPEN状态, 只放行有限个数的试探调用
+     */
+    private inner class HalfOpenState : CircuitBreakerState(State.HALF_OPEN) {
+        private val permits = AtomicInteger(config.permittedNumberOfCallsInHalfOpenState)
+        private val metrics = CountBasedSlidingWindowMetrics(config.permittedNumberOfCallsInHalfOpenState)
+
+        override fun tryAcquirePermission(): CircuitBreakerState? {
+            while (true) {
+                val current = permits.get()
+                if (current <= 0) {
+                    return null
+                }
+                if (permits.compareAndSet(current, current - 1)) {
+                    return this
+                }
+            }
+        }
+
+        override fun onResult(durationNanos: Long, @Nullable ex: Throwable?) {
+            val outcome = toOutcome(durationNanos, ex)
+            if (outcome == null) {
+                permits.incrementAndGet()  // 被忽略的调用不占用试探调用的名额
+                return
+            }
+            val snapshot = metrics.record(outcome)
+            if (snapshot.calls >= config.permittedNumberOfCallsInHalfOpenState) {
+                if (isThresholdExceeded(snapshot, config.permittedNumberOfCallsInHalfOpenState)) {
+                    transition(this, OpenState())
+                } else {
+                    transition(this, ClosedState())
+                }
+            }
+        }
+    }
+}
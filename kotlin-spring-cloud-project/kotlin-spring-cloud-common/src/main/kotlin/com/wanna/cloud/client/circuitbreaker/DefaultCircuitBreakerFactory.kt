@@ -0,0 +1,79 @@
+package com.wanna.cloud.client.circuitbreaker
+
+import com.wanna.framework.context.ApplicationEventPublisherAware
+import com.wanna.framework.context.event.ApplicationEventPublisher
+import com.wanna.framework.lang.Nullable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.function.Consumer
+
+/**
+ * [CircuitBreakerFactory]的默认实现, 创建[DefaultCircuitBreaker], 对于同一个id的CircuitBreaker只会创建一次;
+ * 支持去对默认的配置, 以及某些id的CircuitBreaker的配置去进行自定义, CircuitBreaker的状态转换事件会通过
+ * [ApplicationEventPublisher]去进行发布
+ *
+ * @see DefaultCircuitBreaker
+ * @see Customizer
+ */
+open class DefaultCircuitBreakerFactory : CircuitBreakerFactory(), ApplicationEventPublisherAware {
+
+    /**
+     * 默认的配置信息
+     */
+    private val defaultConfig = CircuitBreakerConfig()
+
+    /**
+     * 某些id的CircuitBreaker的自定义配置信息, key-id, value-config
+     */
+    private val configs = ConcurrentHashMap<String, CircuitBreakerConfig>()
+
+    /**
+     * 已经创建的CircuitBreaker, key-id, value-CircuitBreaker
+     */
+    private val circuitBreakers = ConcurrentHashMap<String, DefaultCircuitBreaker>()
+
+    /**
+     * 发布CircuitBreaker的状态转换事件的事件发布器
+     */
+    @Nullable
+    private var eventPublisher: ApplicationEventPublisher? = null
+
+    override fun setApplicationEventPublisher(publisher: ApplicationEventPublisher) {
+        this.eventPublisher = publisher
+    }
+
+    override fun create(id: String): DefaultCircuitBreaker {
+        return circuitBreakers[id] ?: circuitBreakers.computeIfAbsent(id) {
+            DefaultCircuitBreaker(it, (configs[it] ?: defaultConfig).copy(), eventPublisher)
+        }
+    }
+
+    /**
+     * 对默认的配置信息去进行自定义, 只对之后创建的CircuitBreaker生效
+     *
+     * @param customizer 对默认的配置信息的自定义
+     */
+    open fun configureDefault(customizer: Consumer<CircuitBreakerConfig>) {
+        customizer.accept(defaultConfig)
+    }
+
+    /**
+     * 对给定的id的CircuitBreaker的配置信息去进行自定义(基于默认的配置信息), 只对之后创建的CircuitBreaker生效
+     *
+     * @param customizer 对配置信息的自定义
+     * @param ids 要去进行自定义的CircuitBreaker的id
+     */
+    open fun configure(customizer: Consumer<CircuitBreakerConfig>, vararg ids: String) {
+        for (id in ids) {
+            val config = (configs[id] ?: defaultConfig).copy()
+            customizer.accept(config)
+            configs[id] = config
+        }
+    }
+
+    /**
+     * 获取所有已经创建的CircuitBreaker
+     *
+     * @return key-id, value-CircuitBreaker
+     */
+    open fun getCircuitBreakers(): Map<String, DefaultCircuitBreaker> = HashMap(circuitBreakers)
+}
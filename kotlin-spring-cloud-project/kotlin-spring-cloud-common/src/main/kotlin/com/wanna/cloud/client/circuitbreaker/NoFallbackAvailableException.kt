@@ -0,0 +1,9 @@
+package com.wanna.cloud.client.circuitbreaker
+
+/**
+ * 断路器执行失败, 并且没有可用的fallback时抛出的异常
+ *
+ * @param message message
+ * @param cause 执行失败的原因
+ */
+open class NoFallbackAvailableException(message: String, cause: Throwable?) : RuntimeException(message, cause)
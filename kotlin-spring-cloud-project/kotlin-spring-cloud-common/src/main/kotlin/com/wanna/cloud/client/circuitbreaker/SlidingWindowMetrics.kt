@@ -0,0 +1,162 @@
+package com.wanna.cloud.client.circuitbreaker
+
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * 断路器的滑动窗口的统计信息, 记录滑动窗口内的调用次数/失败次数/慢调用次数; 所有的实现都是无锁的
+ *
+ * @see CountBasedSlidingWindowMetrics
+ * @see TimeBasedSlidingWindowMetrics
+ */
+internal interface SlidingWindowMetrics {
+
+    /**
+     * 记录一次调用的结果
+     *
+     * @param outcome 调用结果
+     * @return 记录之后的滑动窗口的统计信息
+     */
+    fun record(outcome: Outcome): Snapshot
+
+    /**
+     * 一次调用的结果
+     *
+     * @param failed 是否失败
+     * @param slow 是否是慢调用
+     */
+    enum class Outcome(val failed: Boolean, val slow: Boolean) {
+        SUCCESS(false, false), FAILURE(true, false), SLOW_SUCCESS(false, true), SLOW_FAILURE(true, true);
+
+        companion object {
+            @JvmStatic
+            fun of(failed: Boolean, slow: Boolean): Outcome =
+                if (failed) (if (slow) SLOW_FAILURE else FAILURE) else (if (slow) SLOW_SUCCESS else SUCCESS)
+        }
+    }
+
+    /**
+     * 滑动窗口的统计信息
+     *
+     * @param calls 调用次数
+     * @param failedCalls 失败的调用次数
+     * @param slowCalls 慢调用次数
+     */
+    class Snapshot(val calls: Int, val failedCalls: Int, val slowCalls: Int) {
+        val failureRate: Float get() = if (calls == 0) 0f else failedCalls * 100f / calls
+        val slowCallRate: Float get() = if (calls == 0) 0f else slowCalls * 100f / calls
+    }
+}
+
+/**
+ * 基于调用次数的滑动窗口, 使用一个环形数组去记录最近的N次调用的结果
+ *
+ * @param windowSize 滑动窗口的大小
+ */
+internal class CountBasedSlidingWindowMetrics(private val windowSize: Int) : SlidingWindowMetrics {
+
+    private val outcomes = AtomicReferenceArray<SlidingWindowMetrics.Outcome?>(windowSize)
+
+    private val index = AtomicLong()
+
+    private val calls = AtomicInteger()
+
+    private val failedCalls = AtomicInteger()
+
+    private val slowCalls = AtomicInteger()
+
+    override fun record(outcome: SlidingWindowMetrics.Outcome): SlidingWindowMetrics.Snapshot {
+        val slot = (index.getAndIncrement() % windowSize).toInt()
+        val old = outcomes.getAndSet(slot, outcome)
+
+        // 新的结果替换掉了环形数组当中的旧的结果, 需要去修正统计信息
+        if (old == null) {
+            calls.incrementAndGet()
+        }
+        adjust(failedCalls, old?.failed ?: false, outcome.failed)
+        adjust(slowCalls, old?.slow ?: false, outcome.slow)
+        return SlidingWindowMetrics.Snapshot(calls.get(), failedCalls.get(), slowCalls.get())
+    }
+
+    private fun adjust(counter: AtomicInteger, old: Boolean, new: Boolean) {
+        if (old != new) {
+            counter.addAndGet(if (new) 1 else -1)
+        }
+    }
+}
+
+/**
+ * 基于时间的滑动窗口, 每一秒使用一个桶去进行统计, 统计最近的N秒内的调用的结果;
+ * 每个桶都绑定了它所统计的那一秒(epoch), 跨秒时使用CAS去将旧的桶替换为新的一秒的桶, 而不是原地去重置计数,
+ * 因此不会出现一个线程刚刚记录的结果被另外一个线程的重置所覆盖掉的情况
+ *
+ * @param windowSeconds 滑动窗口的大小(秒)
+ */
+internal open class TimeBasedSlidingWindowMetrics(private val windowSeconds: Int) : SlidingWindowMetrics {
+
+    private val buckets = AtomicReferenceArray(Array(windowSeconds) { Bucket(-1) })
+
+    override fun record(outcome: SlidingWindowMetrics.Outcome): SlidingWindowMetrics.Snapshot {
+        val second = currentTimeMillis() / 1000
+        val bucket = currentBucket(second)
+        bucket.calls.incrementAndGet()
+        if (outcome.failed) {
+            bucket.failedCalls.incrementAndGet()
+        }
+        if (outcome.slow) {
+            bucket.slowCalls.incrementAndGet()
+        }
+        return snapshot(second)
+    }
+
+    /**
+     * 获取给定的这一秒对应的桶, 如果该位置的桶当中记录的是之前的某一秒的数据, 那么使用CAS去替换为一个新的桶
+     *
+     * @param second 当前时间(秒)
+     * @return 用于记录这一秒的调用结果的桶
+     */
+    private fun currentBucket(second: Long): Bucket {
+        val index = (second % windowSeconds).toInt()
+        while (true) {
+            val bucket = buckets.get(index)
+
+            // 该桶已经是这一秒的桶(或者是由于线程调度, 已经被别的线程替换为更新的一秒的桶), 直接使用
+            if (bucket.epochSecond >= second) {
+                return bucket
+            }
+            val newBucket = Bucket(second)
+            if (buckets.compareAndSet(index, bucket, newBucket)) {
+                return newBucket
+            }
+        }
+    }
+
+    private fun snapshot(second: Long): SlidingWindowMetrics.Snapshot {
+        var calls = 0
+        var failedCalls = 0
+        var slowCalls = 0
+        for (index in 0 until windowSeconds) {
+            val bucket = buckets.get(index)
+            if (second - bucket.epochSecond < windowSeconds) {
+                calls += bucket.calls.get()
+                failedCalls += bucket.failedCalls.get()
+                slowCalls += bucket.slowCalls.get()
+            }
+        }
+        return SlidingWindowMetrics.Snapshot(calls, failedCalls, slowCalls)
+    }
+
+    protected open fun currentTimeMillis(): Long = System.currentTimeMillis()
+
+    /**
+     * 一秒钟内的调用的统计信息
+     *
+     * @param epochSecond 该桶所统计的是哪一秒
+     */
+    private class Bucket(val epochSecond: Long) {
+        val calls = AtomicInteger()
+        val failedCalls = AtomicInteger()
+        val slowCalls = AtomicInteger()
+    }
+}
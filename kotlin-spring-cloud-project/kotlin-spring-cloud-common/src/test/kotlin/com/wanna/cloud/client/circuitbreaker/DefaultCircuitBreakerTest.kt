@@ -0,0 +1,258 @@
+package com.wanna.cloud.client.circuitbreaker
+
+import com.wanna.cloud.client.circuitbreaker.DefaultCircuitBreaker.State
+import com.wanna.framework.context.event.ApplicationEventPublisher
+import java.util.*
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Function
+import java.util.function.Supplier
+
+/**
+ * [DefaultCircuitBreaker]以及[SlidingWindowMetrics]的测试, 包括断路器的状态转换(CLOSED/OPEN/HALF_OPEN),
+ * HALF_OPEN状态下并发调用时的试探调用名额的限制, 以及滑动窗口的环形数组的回绕和时间窗口的桶的替换
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ */
+class DefaultCircuitBreakerTest {
+
+    /**
+     * 记录下来的状态转换事件
+     */
+    private val transitions: MutableList<Pair<State, State>> = Collections.synchronizedList(ArrayList())
+
+    private val eventPublisher = object : ApplicationEventPublisher {
+        override fun publishEvent(event: Any) {
+            if (event is CircuitBreakerStateTransitionEvent) {
+                transitions += event.fromState to event.toState
+            }
+        }
+    }
+
+    private fun newCircuitBreaker(customizer: CircuitBreakerConfig.() -> Unit): DefaultCircuitBreaker {
+        transitions.clear()
+        val config = CircuitBreakerConfig()
+        config.slidingWindowSize = 10
+        config.minimumNumberOfCalls = 4
+        config.failureRateThreshold = 50f
+        customizer.invoke(config)
+        return DefaultCircuitBreaker("test", config, eventPublisher)
+    }
+
+    /**
+     * 使用断路器去执行一次调用
+     *
+     * @param fail 调用是否要抛出异常
+     * @return 如果调用被放行return true; 如果调用被断路器拒绝return false
+     */
+    private fun call(circuitBreaker: DefaultCircuitBreaker, fail: Boolean): Boolean {
+        return circuitBreaker.run(Supplier {
+            if (fail) throw IllegalStateException("failed")
+            true
+        }, Function { it !is CallNotPermittedException })
+    }
+
+    fun testClosedToOpen() {
+        val circuitBreaker = newCircuitBreaker {}
+
+        // 调用次数没有达到minimumNumberOfCalls时, 即使全部失败也不会熔断
+        repeat(3) { check(call(circuitBreaker, true)) }
+        check(circuitBreaker.getState() == State.CLOSED)
+
+        // 4次调用当中失败3次, 失败率75%超过了阈值, 转换为OPEN状态
+        check(call(circuitBreaker, false))
+        check(circuitBreaker.getState() == State.OPEN)
+        check(transitions == listOf(State.CLOSED to State.OPEN)) { transitions }
+
+        // OPEN状态下的调用直接被拒绝
+        check(!call(circuitBreaker, false))
+
+        // 失败率没有达到阈值时, 保持CLOSED状态
+        val healthy = newCircuitBreaker {}
+        repeat(9) { check(call(healthy, it % 4 == 0)) }
+        check(healthy.getState() == State.CLOSED)
+        check(transitions.isEmpty())
+    }
+
+    fun testOpenToHalfOpenAfterWait() {
+        val circuitBreaker = newCircuitBreaker {
+            waitDurationInOpenStateMillis = 300L
+            permittedNumberOfCallsInHalfOpenState = 3
+        }
+        val openedAt = System.currentTimeMillis()
+        circuitBreaker.transitionToOpenState()
+
+        // 等待时间到期之前, 调用都被拒绝, 并且保持OPEN状态
+        check(!call(circuitBreaker, false))
+        check(circuitBreaker.getState() == State.OPEN)
+
+        // 等待时间到期之后, 第一个调用触发转换为HALF_OPEN状态, 并且被放行
+        Thread.sleep(circuitBreaker.config.waitDurationInOpenStateMillis - (System.currentTimeMillis() - openedAt) + 10)
+        check(call(circuitBreaker, false))
+        check(circuitBreaker.getState() == State.HALF_OPEN)
+        check(transitions == listOf(State.CLOSED to State.OPEN, State.OPEN to State.HALF_OPEN)) { transitions }
+    }
+
+    /**
+     * 在HALF_OPEN状态下, 大量的并发调用当中只有[CircuitBreakerConfig.permittedNumberOfCallsInHalfOpenState]个会被放行,
+     * 所有的试探调用完成之后, 根据试探调用的结果转换为CLOSED/OPEN状态
+     *
+     * @param fail 试探调用是否失败
+     */
+    fun testHalfOpenPermitsUnderConcurrentCallers(fail: Boolean) {
+        val permitted = 3
+        val callers = 16
+        val circuitBreaker = newCircuitBreaker {
+            waitDurationInOpenStateMillis = 0L
+            permittedNumberOfCallsInHalfOpenState = permitted
+        }
+        circuitBreaker.transitionToOpenState()
+
+        val executor = Executors.newFixedThreadPool(callers)
+        val barrier = CyclicBarrier(callers)
+        val entered = AtomicInteger()
+        val rejected = AtomicInteger()
+        val release = CountDownLatch(1)
+        try {
+            repeat(callers) {
+                executor.execute {
+                    barrier.await()
+                    circuitBreaker.run(Supplier {
+                        entered.incrementAndGet()
+                        release.await()
+                        if (fail) throw IllegalStateException("failed")
+                    }, Function { if (it is CallNotPermittedException) rejected.incrementAndGet() })
+                }
+            }
+
+            // 被拒绝的调用会直接返回, 等待它们全部完成之后, 被放行的调用数量恰好等于试探调用的名额
+            val deadline = System.currentTimeMillis() + 10_000L
+            while (rejected.get() < callers - permitted && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5)
+            }
+            check(rejected.get() == callers - permitted) { "rejected ${rejected.get()} calls" }
+            check(entered.get() == permitted) { "permitted ${entered.get()} calls" }
+            check(circuitBreaker.getState() == State.HALF_OPEN)
+
+            release.countDown()
+            executor.shutdown()
+            check(executor.awaitTermination(10, TimeUnit.SECONDS))
+        } finally {
+            executor.shutdownNow()
+        }
+
+        // 只有CAS成功的线程才会发布事件, 每种状态转换都只会发布一次
+        val expectedState = if (fail) State.OPEN else State.CLOSED
+        check(circuitBreaker.getState() == expectedState)
+        check(
+            transitions == listOf(
+                State.CLOSED to State.OPEN, State.OPEN to State.HALF_OPEN, State.HALF_OPEN to expectedState
+            )
+        ) { transitions }
+    }
+
+    fun testCountBasedWraparound() {
+        val metrics = CountBasedSlidingWindowMetrics(3)
+        metrics.record(SlidingWindowMetrics.Outcome.FAILURE)
+        metrics.record(SlidingWindowMetrics.Outcome.SLOW_FAILURE)
+        var snapshot = metrics.record(SlidingWindowMetrics.Outcome.SUCCESS)
+        check(snapshot.calls == 3 && snapshot.failedCalls == 2 && snapshot.slowCalls == 1)
+
+        // 环形数组写满之后, 新的结果会替换掉最旧的结果
+        snapshot = metrics.record(SlidingWindowMetrics.Outcome.SLOW_SUCCESS)
+        check(snapshot.calls == 3 && snapshot.failedCalls == 1 && snapshot.slowCalls == 2)
+        snapshot = metrics.record(SlidingWindowMetrics.Outcome.SUCCESS)
+        check(snapshot.calls == 3 && snapshot.failedCalls == 0 && snapshot.slowCalls == 1)
+
+        // 多次回绕之后, 统计信息仍然只包含最近的3次调用
+        val random = Random(42)
+        val recent = ArrayDeque(
+            listOf(
+                SlidingWindowMetrics.Outcome.SUCCESS,
+                SlidingWindowMetrics.Outcome.SLOW_SUCCESS,
+                SlidingWindowMetrics.Outcome.SUCCESS
+            )
+        )
+        repeat(1000) {
+            val outcome = SlidingWindowMetrics.Outcome.values()[random.nextInt(4)]
+            recent.removeFirst()
+            recent.addLast(outcome)
+            snapshot = metrics.record(outcome)
+            check(snapshot.calls == 3)
+            check(snapshot.failedCalls == recent.count { it.failed })
+            check(snapshot.slowCalls == recent.count { it.slow })
+        }
+
+        // 断路器当中旧的失败结果被滑出窗口之后, 不再参与失败率的计算
+        val circuitBreaker = newCircuitBreaker { slidingWindowSize = 4 }
+        repeat(2) { call(circuitBreaker, it == 0) }
+        repeat(10) { call(circuitBreaker, false) }
+        call(circuitBreaker, true)
+        check(circuitBreaker.getState() == State.CLOSED)
+        call(circuitBreaker, true)
+        check(circuitBreaker.getState() == State.OPEN)
+    }
+
+    fun testTimeBasedBuckets() {
+        val metrics = ManualClockTimeBasedSlidingWindowMetrics(2)
+        metrics.record(SlidingWindowMetrics.Outcome.FAILURE)
+        metrics.record(SlidingWindowMetrics.Outcome.FAILURE)
+        metrics.now = 1000L
+        var snapshot = metrics.record(SlidingWindowMetrics.Outcome.SUCCESS)
+        check(snapshot.calls == 3 && snapshot.failedCalls == 2)
+
+        // 第0秒的桶被第2秒的桶所替换
+        metrics.now = 2000L
+        snapshot = metrics.record(SlidingWindowMetrics.Outcome.SUCCESS)
+        check(snapshot.calls == 2 && snapshot.failedCalls == 0)
+
+        // 多个线程同时跨秒时, 只有一个线程会替换掉旧的桶, 所有的调用都会被记录到新的桶当中
+        val threads = 8
+        val callsPerThread = 10_000
+        val executor = Executors.newFixedThreadPool(threads)
+        val barrier = CyclicBarrier(threads)
+        try {
+            metrics.now = 10_000L
+            repeat(threads) {
+                executor.execute {
+                    barrier.await()
+                    repeat(callsPerThread) { metrics.record(SlidingWindowMetrics.Outcome.SLOW_FAILURE) }
+                }
+            }
+            executor.shutdown()
+            check(executor.awaitTermination(30, TimeUnit.SECONDS))
+        } finally {
+            executor.shutdownNow()
+        }
+        snapshot = metrics.record(SlidingWindowMetrics.Outcome.SUCCESS)
+        val expected = threads * callsPerThread
+        check(snapshot.calls == expected + 1) { "expected ${expected + 1} calls, but was ${snapshot.calls}" }
+        check(snapshot.failedCalls == expected && snapshot.slowCalls == expected)
+    }
+
+    /**
+     * 可以手动去控制时间的[TimeBasedSlidingWindowMetrics]
+     */
+    private class ManualClockTimeBasedSlidingWindowMetrics(windowSeconds: Int) :
+        TimeBasedSlidingWindowMetrics(windowSeconds) {
+        @Volatile
+        var now = 0L
+
+        override fun currentTimeMillis() = now
+    }
+}
+
+fun main() {
+    val test = DefaultCircuitBreakerTest()
+    test.testClosedToOpen()
+    test.testOpenToHalfOpenAfterWait()
+    test.testHalfOpenPermitsUnderConcurrentCallers(false)
+    test.testHalfOpenPermitsUnderConcurrentCallers(true)
+    test.testCountBasedWraparound()
+    test.testTimeBasedBuckets()
+}
@@ -1,3 +1,7 @@
+plugins {
+    id("me.champeau.jmh") version (jmhPluginVersion)
+}
+
 dependencies {
     implementation(project(":kotlin-spring-framework-project:kotlin-spring-core"))
     implementation(project(":kotlin-spring-framework-project:kotlin-spring-beans"))
@@ -6,4 +10,9 @@ dependencies {
     implementation(project(":kotlin-spring-boot-project:kotlin-spring-boot"))
     implementation(project(":kotlin-spring-boot-project:kotlin-spring-boot-autoconfigure"))
     implementation(project(":kotlin-spring-boot-project:kotlin-spring-boot-actuator"))
-}
\ No newline at end of file
+}
+
+// jmh benchmark, 使用"gradle jmh"去运行"src/jmh"下的Benchmark
+jmh {
+    jmhVersion.set(jmhCoreVersion)
+}
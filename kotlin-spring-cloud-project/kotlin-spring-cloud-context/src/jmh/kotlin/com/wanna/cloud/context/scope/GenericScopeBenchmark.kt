@@ -0,0 +1,89 @@
+package com.wanna.cloud.context.scope
+
+import com.wanna.framework.beans.factory.ObjectFactory
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.TimeUnit
+import java.util.function.Function
+
+/**
+ * [GenericScope]在刷新风暴下的获取Bean的延时的Benchmark, [get]/[execute]的线程不断地从Scope当中去获取Bean,
+ * [refresh]的线程不断地去对Scope内的全部的[beanCount]个Bean去进行重建(重建一个Bean需要耗费[createMicros]微秒);
+ * 如果获取Bean被重建所阻塞的话, 高百分位(p99.9)的延时将会接近于[createMicros]
+ *
+ * 使用"gradle :kotlin-spring-cloud-project:kotlin-spring-cloud-context:jmh"去运行
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/6
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class GenericScopeBenchmark {
+
+    /**
+     * 创建一个Bean需要耗费的时间(微秒)
+     */
+    @Param("0", "1000", "5000")
+    @JvmField
+    var createMicros = 0L
+
+    /**
+     * Scope内的Bean的数量
+     */
+    @Param("1", "16")
+    @JvmField
+    var beanCount = 1
+
+    private lateinit var scope: GenericScope
+
+    private lateinit var factory: ObjectFactory<Any>
+
+    @Setup
+    fun setup() {
+        scope = GenericScope()
+        factory = object : ObjectFactory<Any> {
+            override fun getObject(): Any {
+                if (createMicros > 0) {
+                    TimeUnit.MICROSECONDS.sleep(createMicros)
+                }
+                return Any()
+            }
+        }
+        for (index in 0 until beanCount) {
+            scope.get(beanName(index), factory)
+        }
+    }
+
+    @TearDown
+    fun tearDown() {
+        scope.destroy()
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(4)
+    fun get(): Any = scope.get(nextBeanName(), factory)
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(4)
+    fun execute(): Int = scope.execute(nextBeanName(), Function { it.hashCode() })
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(1)
+    fun refresh(): Any? = scope.rebuildAll()
+
+    private fun nextBeanName(): String = beanName(ThreadLocalRandom.current().nextInt(beanCount))
+
+    private fun beanName(index: Int): String = BEAN_NAMES[index]
+
+    companion object {
+        private val BEAN_NAMES = Array(16) { "bean$it" }
+    }
+}
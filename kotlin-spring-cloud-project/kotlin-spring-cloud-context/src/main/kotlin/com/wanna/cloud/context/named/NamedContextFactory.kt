@@ -4,10 +4,13 @@ import com.wanna.framework.beans.factory.support.DisposableBean
 import com.wanna.framework.context.ApplicationContext
 import com.wanna.framework.context.ApplicationContextAware
 import com.wanna.framework.context.annotation.AnnotationConfigApplicationContext
+import com.wanna.framework.context.event.ApplicationListener
+import com.wanna.framework.context.event.ContextRefreshedEvent
 import com.wanna.framework.beans.factory.exception.NoSuchBeanDefinitionException
 import com.wanna.framework.context.support.PropertySourcesPlaceholderConfigurer
 import com.wanna.framework.core.environment.MapPropertySource
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
 
 /**
  * ## NamedContextFactory是什么? 
@@ -46,6 +49,9 @@ abstract class NamedContextFactory<C : NamedContextFactory.Specification>(
     // parent ApplicationContext
     private var parent: ApplicationContext? = null
 
+    // 监听childContext刷新的Listener列表, 用于让使用方在childContext刷新时, 去清除掉基于childContext当中的Bean的缓存
+    private val contextRefreshListeners = CopyOnWriteArrayList<ContextRefreshListener>()
+
     override fun setApplicationContext(applicationContext: ApplicationContext) {
         this.parent = applicationContext
     }
@@ -59,6 +65,24 @@ abstract class NamedContextFactory<C : NamedContextFactory.Specification>(
         configurations.forEach { this.configurations[it.getName()] = it }
     }
 
+    /**
+     * 添加一个监听childContext刷新的Listener, 在任意一个childContext完成刷新时, 都会去进行回调
+     *
+     * @param listener ContextRefreshListener
+     */
+    open fun addContextRefreshListener(listener: ContextRefreshListener) {
+        this.contextRefreshListeners += listener
+    }
+
+    /**
+     * 移除一个监听childContext刷新的Listener, 使用方被销毁时需要去进行移除, 避免Listener一直被当前NamedContextFactory所持有
+     *
+     * @param listener 要去进行移除的ContextRefreshListener
+     */
+    open fun removeContextRefreshListener(listener: ContextRefreshListener) {
+        this.contextRefreshListeners -= listener
+    }
+
     /**
      * 获取所有的ChildContext的name列表
      */
@@ -114,6 +138,9 @@ abstract class NamedContextFactory<C : NamedContextFactory.Specification>(
         context.getEnvironment().getPropertySources()
             .addLast(MapPropertySource(propertySourceName, mapOf(propertyName to name)))
 
+        // 添加一个监听childContext刷新的Listener, 在childContext每次刷新时, 都去通知所有的ContextRefreshListener
+        context.addApplicationListener(ChildContextRefreshedListener(name, context))
+
         context.refresh()  // refresh
         return context
     }
@@ -161,6 +188,40 @@ abstract class NamedContextFactory<C : NamedContextFactory.Specification>(
 
     }
 
+    /**
+     * 监听childContext刷新的Listener, 在childContext当中的Bean被重新创建之后,
+     * 之前从childContext当中获取到的Bean可能都已经失效了, 使用方可以借助它去清除掉对应的缓存
+     *
+     * @see addContextRefreshListener
+     */
+    fun interface ContextRefreshListener {
+
+        /**
+         * 当某个childContext完成刷新时, 需要执行的回调
+         *
+         * @param name childContextName
+         * @param context 完成刷新的childContext
+         */
+        fun onContextRefreshed(name: String, context: ApplicationContext)
+    }
+
+    /**
+     * 注册到childContext当中的ContextRefreshedEvent的监听器, 负责将childContext的刷新事件转发给所有的[ContextRefreshListener]
+     *
+     * @param name childContextName
+     * @param context childContext
+     */
+    private inner class ChildContextRefreshedListener(
+        private val name: String, private val context: ApplicationContext
+    ) : ApplicationListener<ContextRefreshedEvent> {
+        override fun onApplicationEvent(event: ContextRefreshedEvent) {
+            // 只处理当前childContext自己的刷新事件
+            if (event.applicationContext === context) {
+                contextRefreshListeners.forEach { it.onContextRefreshed(name, context) }
+            }
+        }
+    }
+
     /**
      * Specification, 主要用来提供childName以及childContext的配置类的获取; 
      * 可以通过往容器当中去放入自定义Specification, 实现对childContext当中的配置类的自定义
@@ -1,28 +1,61 @@
 package com.wanna.cloud.context.scope
 
+import com.wanna.common.logging.LoggerFactory
 import com.wanna.framework.beans.factory.ObjectFactory
 import com.wanna.framework.beans.factory.config.BeanDefinitionRegistry
 import com.wanna.framework.beans.factory.config.ConfigurableListableBeanFactory
 import com.wanna.framework.beans.factory.config.Scope
 import com.wanna.framework.beans.factory.support.DisposableBean
 import com.wanna.framework.context.processor.factory.BeanDefinitionRegistryPostProcessor
-import java.util.concurrent.ConcurrentHashMap
-import java.util.concurrent.locks.ReentrantLock
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.scheduling.concurrent.CustomizableThreadFactory
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReference
+import java.util.function.Function
 
 /**
  * 这是一个通用的Scope, 提供了作为一个Scope的相关的通用方法, 它是一个BeanFactoryPostProcessor, 会将自身作为Scope注册到BeanFactory当中
+ *
+ * 对于Scope内的每个Bean, 都使用一个[BeanLifecycleWrapper]去维护该Bean的"当前代(Generation)", 读取Bean时只需要去读取一次
+ * AtomicReference, 不需要加锁; 在对Bean去进行重建时(见[rebuild]), 会在后台线程当中去构建新的Bean, 构建完成之后再原子性地替换掉
+ * 旧的Bean, 在重建的过程当中, 调用方仍然可以正常获取到旧的Bean; 而被替换下来的旧的Bean, 会等到所有通过[execute]正在进行的调用
+ * 都完成之后, 才会去执行destroy回调
  */
 open class GenericScope : Scope, BeanDefinitionRegistryPostProcessor, DisposableBean {
 
+    companion object {
+
+        /**
+         * Logger
+         */
+        @JvmStatic
+        private val logger = LoggerFactory.getLogger(GenericScope::class.java)
+    }
+
     // scopeName
     private var name = "generic"
 
-    // 操作缓存的锁, beanName->Lock
-    private val locks = ConcurrentHashMap<String, ReentrantLock>()
-
     // Scope Cache, 默认实现是基于ConcurrentHashMap的缓存
     private var cache = BeanLifecycleWrapperCache(StandardScopeCache())
 
+    // 在后台去重建Bean的Executor, 如果没有自定义的话, 那么在第一次需要使用时去创建一个默认的线程池
+    @Nullable
+    private var rebuildExecutor: Executor? = null
+
+    // 默认的用于重建Bean的线程池, 由当前Scope自己去进行创建, 也需要由当前Scope自己去进行关闭
+    @Nullable
+    private var defaultRebuildExecutor: ExecutorService? = null
+
+    // 当前线程正在创建的Bean, 用于在registerDestructionCallback时, 把destroy回调注册到正在创建的Bean上(而不是旧的Bean上)
+    private val beansInCreation = ThreadLocal<BeanInCreation>()
+
     /**
      * 支持去进行设置设置自定义的Cache
      *
@@ -49,18 +82,25 @@ open class GenericScope : Scope, BeanDefinitionRegistryPostProcessor, Disposable
     }
 
     /**
-     * 摧毁当前Scope内的全部Bean, 并回调所有的destroy Callback
+     * 设置在后台去重建Bean的Executor, 由调用方去负责管理该Executor的生命周期
+     *
+     * @param rebuildExecutor 重建Bean的Executor
+     */
+    open fun setRebuildExecutor(rebuildExecutor: Executor) {
+        this.rebuildExecutor = rebuildExecutor
+    }
+
+    /**
+     * 摧毁当前Scope内的全部Bean, 并回调所有的destroy Callback(正在通过[execute]使用的Bean, 会等到使用完成之后才去进行destroy)
      */
     override fun destroy() {
         val beanLifecycleWrappers = this.cache.clear()
-        beanLifecycleWrappers.forEach {
-            val lock = locks[it.getName()]!!
-            lock.lock()
-            try {
-                it.destroy()
-            } finally {
-                lock.unlock()
-            }
+        beanLifecycleWrappers.forEach { it.destroy() }
+
+        // 关闭默认的重建Bean的线程池
+        synchronized(this) {
+            this.defaultRebuildExecutor?.shutdown()
+            this.defaultRebuildExecutor = null
         }
     }
 
@@ -73,18 +113,62 @@ open class GenericScope : Scope, BeanDefinitionRegistryPostProcessor, Disposable
     open fun destroy(name: String): Boolean {
         val wrapper = this.cache.remove(name)
         if (wrapper != null) {
-            val lock = this.locks[wrapper.getName()]!!
-            lock.lock()
-            try {
-                wrapper.destroy()
-            } finally {
-                lock.unlock()
-            }
+            wrapper.destroy()
             return true
         }
         return false
     }
 
+    /**
+     * 在后台线程当中去重建Scope内的一个Bean, 重建完成之后原子性地替换掉旧的Bean, 旧的Bean会在所有的正在进行的调用完成之后被destroy;
+     * 在重建完成之前, 获取Bean的调用方仍然会拿到旧的Bean, 不会被阻塞; 如果该Bean还没有被创建过, 那么无需重建
+     *
+     * 对于同一个Bean的多次重建请求, 会被合并起来, 同一时刻最多只会有一个线程正在去重建该Bean
+     *
+     * @param name beanName
+     * @return 重建完成的Future; 如果Scope内不存在该Bean, 那么return null
+     */
+    @Nullable
+    open fun rebuild(name: String): CompletableFuture<Void>? {
+        val wrapper = this.cache.get(name) ?: return null
+        return wrapper.rebuild(getRebuildExecutor())
+    }
+
+    /**
+     * 在后台线程当中去重建Scope内的全部的Bean
+     *
+     * @return 全部的Bean都重建完成的Future
+     * @see rebuild
+     */
+    open fun rebuildAll(): CompletableFuture<Void> {
+        val executor = getRebuildExecutor()
+        val futures = this.cache.values().map { it.rebuild(executor) }
+        return CompletableFuture.allOf(*futures.toTypedArray())
+    }
+
+    /**
+     * 获取到Scope内的Bean并去执行给定的操作, 在操作执行完成之前, 即使该Bean已经被重建/移除, 旧的Bean也不会被destroy
+     *
+     * @param name beanName
+     * @param action 要对Bean去执行的操作
+     * @return 操作的执行结果
+     * @throws IllegalStateException 如果Scope内不存在该Bean
+     */
+    open fun <T> execute(name: String, action: Function<Any, T>): T {
+        val wrapper = this.cache.get(name) ?: throw IllegalStateException("Scope[${getName()}]当中不存在Bean[$name]")
+        return wrapper.execute(action)
+    }
+
+    /**
+     * 判断当前Scope内是否已经存在给定的beanName的Bean
+     *
+     * @param name beanName
+     * @return 如果存在return true; 否则return false
+     */
+    open fun containsBean(name: String): Boolean {
+        return this.cache.get(name) != null
+    }
+
     override fun postProcessBeanDefinitionRegistry(registry: BeanDefinitionRegistry) {
 
     }
@@ -98,13 +182,11 @@ open class GenericScope : Scope, BeanDefinitionRegistryPostProcessor, Disposable
 
     override fun get(beanName: String, factory: ObjectFactory<*>): Any {
         // 如果必要的话, 将ObjectFactory加入到缓存当中(如果已经存在了的话, 那么不会替换之前的)
-        val value = this.cache.put(beanName, BeanLifecycleWrapper(beanName, factory))
-        this.locks.putIfAbsent(beanName, ReentrantLock())
-        try {
-            return value.getBean()
-        } catch (ex: Exception) {
-            throw ex
+        var value = this.cache.get(beanName)
+        if (value == null) {
+            value = this.cache.put(beanName, BeanLifecycleWrapper(beanName, factory))
         }
+        return value.getBean()
     }
 
     /**
@@ -114,6 +196,12 @@ open class GenericScope : Scope, BeanDefinitionRegistryPostProcessor, Disposable
      * @param callback 要设置的destroy回调
      */
     override fun registerDestructionCallback(name: String, callback: Runnable) {
+        // 如果当前线程正在创建该Bean, 那么回调应该属于正在创建的Bean
+        val beanInCreation = beansInCreation.get()
+        if (beanInCreation != null && beanInCreation.name == name) {
+            beanInCreation.callback = callback
+            return
+        }
         val lifecycleWrapper = this.cache.get(name) ?: return
         lifecycleWrapper.setDestroyCallback(callback)
     }
@@ -126,11 +214,38 @@ open class GenericScope : Scope, BeanDefinitionRegistryPostProcessor, Disposable
      */
     override fun remove(name: String): Any? {
         val lifecycleWrapper = this.cache.remove(name)
-        return lifecycleWrapper?.getBean()
+        return lifecycleWrapper?.detach()
+    }
+
+    /**
+     * 获取重建Bean的Executor, 如果没有自定义的话, 那么使用默认的线程池
+     *
+     * @return Executor
+     */
+    protected open fun getRebuildExecutor(): Executor {
+        val rebuildExecutor = this.rebuildExecutor
+        if (rebuildExecutor != null) {
+            return rebuildExecutor
+        }
+        synchronized(this) {
+            var executor = this.defaultRebuildExecutor
+            if (executor == null) {
+                val threadFactory = CustomizableThreadFactory("${getName()}-scope-rebuild-")
+                threadFactory.setDaemon(true)
+                val poolSize = Runtime.getRuntime().availableProcessors().coerceAtLeast(2)
+                val pool = ThreadPoolExecutor(
+                    poolSize, poolSize, 60L, TimeUnit.SECONDS, LinkedBlockingQueue(), threadFactory
+                )
+                pool.allowCoreThreadTimeOut(true)
+                executor = pool
+                this.defaultRebuildExecutor = executor
+            }
+            return executor
+        }
     }
 
     /**
-     * 提供了ScopeCache的包装, 本来ScopeCache的是一个Object对象, 我们将它去进行扩展, 保证操作的Object对象, 都是BeanLifecycleWrapper对象; 
+     * 提供了ScopeCache的包装, 本来ScopeCache的是一个Object对象, 我们将它去进行扩展, 保证操作的Object对象, 都是BeanLifecycleWrapper对象;
      *
      * @see BeanLifecycleWrapper
      * @see ScopeCache
@@ -149,43 +264,254 @@ open class GenericScope : Scope, BeanDefinitionRegistryPostProcessor, Disposable
             return this.scopeCache.get(name) as BeanLifecycleWrapper?
         }
 
+        fun values(): Collection<BeanLifecycleWrapper> {
+            return this.scopeCache.values().map { it as BeanLifecycleWrapper }.toList()
+        }
+
         fun clear(): Collection<BeanLifecycleWrapper> {
             return this.scopeCache.clear().map { it as BeanLifecycleWrapper }.toList()
         }
     }
 
     /**
-     * 维护了一个Scope内的Bean的生命周期相关的组件, 维护了一个Bean以及它的destroy回调函数; 
+     * 当前线程正在创建的Bean, 在创建Bean的过程当中, BeanFactory会回调[registerDestructionCallback]去注册destroy回调
+     *
+     * @param name beanName
+     */
+    private class BeanInCreation(val name: String) {
+        @Volatile
+        var callback: Runnable? = null
+    }
+
+    /**
+     * Scope内的一个Bean的"一代", 维护了Bean对象以及它的destroy回调, 以及正在使用该Bean的调用的数量;
+     * 当它被替换下来(retire)之后, 需要等到正在进行的调用数量降为0时, 才会去执行destroy回调
+     *
+     * @param bean Bean对象
+     * @param callback destroy回调
+     */
+    private class Generation(val bean: Any, @Volatile var callback: Runnable?) {
+
+        companion object {
+
+            /**
+             * 在[state]当中标识该代已经被替换下来的标志位
+             */
+            private const val RETIRED = 1 shl 30
+        }
+
+        // 正在使用该Bean的调用的数量, 以及是否已经被替换下来的标志位([RETIRED]);
+        // 两者需要放在同一个原子变量当中, 否则"计数降为0"和"检查是否被替换下来"之间, 可能会有新的调用开始使用该Bean
+        private val state = AtomicInteger()
+
+        // 是否已经执行过destroy回调了? 保证destroy回调只会执行一次
+        private val destroyed = AtomicBoolean()
+
+        /**
+         * 尝试开始一次对于Bean的使用
+         *
+         * @return 如果该代已经被替换下来了, 那么return false, 调用方需要重新去获取最新的一代
+         */
+        fun acquire(): Boolean {
+            while (true) {
+                val current = state.get()
+                if (current and RETIRED != 0) {
+                    return false
+                }
+                if (state.compareAndSet(current, current + 1)) {
+                    return true
+                }
+            }
+        }
+
+        /**
+         * 结束一次对于Bean的使用, 如果该代已经被替换下来并且已经没有正在进行的调用了, 那么去执行destroy
+         */
+        fun release() {
+            if (state.decrementAndGet() == RETIRED) {
+                destroyIfNecessary()
+            }
+        }
+
+        /**
+         * 将该代标记为已经被替换下来, 如果已经没有正在进行的调用了, 那么直接去执行destroy
+         */
+        fun retire() {
+            if (state.updateAndGet { it or RETIRED } == RETIRED) {
+                destroyIfNecessary()
+            }
+        }
+
+        private fun destroyIfNecessary() {
+            if (destroyed.compareAndSet(false, true)) {
+                val callback = this.callback
+                this.callback = null
+                callback?.run()
+            }
+        }
+    }
+
+    /**
+     * 维护了一个Scope内的Bean的生命周期相关的组件, 维护了一个Bean的当前代([Generation])以及用来创建它的ObjectFactory;
      * 因为它会被加入缓存的Value当中, 应该实现自定义的equals方法, 去保证不该替换时别进行替换
      *
      * @param name beanName
      * @param objectFactory 创建Bean的factory
      */
-    private class BeanLifecycleWrapper(private val name: String, private val objectFactory: ObjectFactory<*>) {
-        private var callback: Runnable? = null
-        private var bean: Any? = null
+    private inner class BeanLifecycleWrapper(private val name: String, private val objectFactory: ObjectFactory<*>) {
+
+        // 当前代, 读取Bean时直接读取, 不需要加锁
+        private val current = AtomicReference<Generation?>()
+
+        // 重建请求的版本号, 每次请求重建都+1, 用来合并重建请求
+        private val rebuildVersion = AtomicInteger()
+
+        // 正在进行的重建的Future, 为null代表当前没有正在进行的重建
+        private val rebuilding = AtomicReference<CompletableFuture<Void>?>()
+
+        // 该Bean是否已经从Scope当中移除?
+        @Volatile
+        private var closed = false
 
         fun getName(): String {
             return this.name
         }
 
         fun getBean(): Any {
-            if (this.bean == null) {
-                this.bean = objectFactory.getObject()
+            // fast path, 直接读取当前代, 无锁
+            return (current.get() ?: getOrCreateGeneration()).bean
+        }
+
+        fun <T> execute(action: Function<Any, T>): T {
+            while (true) {
+                val generation = current.get() ?: getOrCreateGeneration()
+                if (generation.acquire()) {
+                    try {
+                        return action.apply(generation.bean)
+                    } finally {
+                        generation.release()
+                    }
+                }
             }
-            return this.bean!!
         }
 
         fun setDestroyCallback(callback: Runnable) {
-            this.callback = callback
+            current.get()?.callback = callback
         }
 
-        fun destroy() {
-            if (this.callback != null) {
-                callback!!.run()
+        /**
+         * 请求在后台去重建Bean, 如果已经有正在进行的重建, 那么该重建会观察到版本号的变化, 并在完成之后再去重建一次
+         */
+        fun rebuild(executor: Executor): CompletableFuture<Void> {
+            rebuildVersion.incrementAndGet()
+            while (true) {
+                val running = rebuilding.get()
+                if (running != null) {
+                    return running
+                }
+                val future = CompletableFuture<Void>()
+                if (rebuilding.compareAndSet(null, future)) {
+                    try {
+                        executor.execute { doRebuild(future) }
+                    } catch (ex: Throwable) {
+                        rebuilding.set(null)
+                        future.completeExceptionally(ex)
+                    }
+                    return future
+                }
+            }
+        }
+
+        private fun doRebuild(future: CompletableFuture<Void>) {
+            var failure: Throwable? = null
+            while (true) {
+                val version = rebuildVersion.get()
+
+                // 还没有创建过的Bean, 等到第一次使用时再去创建即可
+                if (current.get() != null && !closed) {
+                    try {
+                        swap(createGeneration())
+                        failure = null
+                    } catch (ex: Throwable) {
+                        // 重建失败, 那么将旧的Bean去进行移除, 下次获取Bean时重新去创建, 让调用方可以感知到异常
+                        logger.error("重建Scope[${this@GenericScope.getName()}]当中的Bean[$name]失败", ex)
+                        swap(null)
+                        failure = ex
+                    }
+                }
+                if (rebuildVersion.get() != version) {
+                    continue
+                }
+                rebuilding.set(null)
+
+                // 在清除rebuilding之前, 可能又有新的重建请求到来, 并拿到了当前的Future, 需要继续去进行重建
+                if (rebuildVersion.get() == version || !rebuilding.compareAndSet(null, future)) {
+                    break
+                }
+            }
+            if (failure != null) {
+                future.completeExceptionally(failure)
+            } else {
+                future.complete(null)
+            }
+        }
+
+        /**
+         * 原子性地替换掉当前代, 并将旧的一代标记为已经被替换下来
+         *
+         * @param generation 新的一代
+         */
+        private fun swap(@Nullable generation: Generation?) {
+            current.getAndSet(generation)?.retire()
+
+            // 如果在重建的过程当中, 该Bean已经被移除了, 那么新创建的Bean也需要去进行destroy
+            if (closed) {
+                current.getAndSet(null)?.retire()
+            }
+        }
+
+        private fun getOrCreateGeneration(): Generation {
+            synchronized(this) {
+                var generation = current.get()
+                if (generation == null) {
+                    generation = createGeneration()
+                    current.set(generation)
+                }
+                return generation
+            }
+        }
+
+        private fun createGeneration(): Generation {
+            val previous = beansInCreation.get()
+            val beanInCreation = BeanInCreation(name)
+            beansInCreation.set(beanInCreation)
+            try {
+                val bean = objectFactory.getObject() ?: throw IllegalStateException("Bean[$name]的ObjectFactory返回了null")
+                return Generation(bean, beanInCreation.callback)
+            } finally {
+                if (previous == null) {
+                    beansInCreation.remove()
+                } else {
+                    beansInCreation.set(previous)
+                }
             }
-            this.callback = null
-            this.bean = null
+        }
+
+        /**
+         * 将该Bean从Scope当中移除, 并返回移除之前的Bean(不会去执行destroy回调)
+         */
+        @Nullable
+        fun detach(): Any? {
+            closed = true
+            return current.getAndSet(null)?.bean
+        }
+
+        /**
+         * 将该Bean从Scope当中移除, 并在正在进行的调用全部完成之后去执行destroy回调
+         */
+        fun destroy() {
+            closed = true
+            current.getAndSet(null)?.retire()
         }
 
         override fun equals(other: Any?): Boolean {
@@ -211,4 +537,4 @@ open class GenericScope : Scope, BeanDefinitionRegistryPostProcessor, Disposable
             return name.hashCode()
         }
     }
-}
\ No newline at end of file
+}
@@ -8,6 +8,13 @@ interface ScopeCache {
     fun clear(): Collection<Any>
     fun remove(name: String): Any?
 
+    /**
+     * 获取当前缓存当中的全部元素(快照)
+     *
+     * @return 缓存当中的全部元素
+     */
+    fun values(): Collection<Any>
+
     /**
      * 放入元素到缓存当中, 如果不存在才放入, 如果存在了, 那么就不放入
      *
@@ -19,6 +19,10 @@ open class StandardScopeCache : ScopeCache {
         return values
     }
 
+    override fun values(): Collection<Any> {
+        return ArrayList(cache.values)
+    }
+
     override fun remove(name: String): Any? {
         return this.cache.remove(name)
     }
@@ -8,6 +8,8 @@ import com.wanna.framework.context.event.ApplicationListener
 import com.wanna.framework.context.event.ContextRefreshedEvent
 import com.wanna.framework.context.stereotype.Component
 import com.wanna.framework.core.Ordered
+import java.util.concurrent.CompletableFuture
+import java.util.function.Function
 
 /**
  * 这是一个RefreshScope, 它的父类是GenericScope, 是一个BeanFactoryPostProcessor, 会自己将自己注册到BeanFactory的Scope当中
@@ -54,24 +56,44 @@ open class RefreshScope : GenericScope(), Ordered, ApplicationContextAware, Appl
     }
 
     /**
-     * 给定一个beanName, 去进行refresh
+     * 给定一个beanName, 去进行refresh; 新的Bean会在后台去进行构建, 构建完成之后原子性地替换掉旧的Bean,
+     * 在新的Bean构建完成之前, 调用方仍然可以拿到旧的Bean, 在新的Bean替换完成时, 发布事件RefreshScopeRefreshedEvent
      *
      * @param name beanName
+     * @return 如果RefreshScope内存在该Bean, return true; 否则return false
      */
     open fun refresh(name: String): Boolean {
-        if (super.destroy(name)) {
-            this.applicationContext.publishEvent(RefreshScopeRefreshedEvent(name))
-            return true
+        val future = super.rebuild(name) ?: return false
+        future.thenRun { this.applicationContext.publishEvent(RefreshScopeRefreshedEvent(name)) }
+        return true
+    }
+
+    /**
+     * 刷新Scope内的全部Bean, 在后台去重建全部的Bean, 在全部的Bean都刷新完成时, 发布事件RefreshScopeRefreshedEvent
+     *
+     * @return 全部的Bean都刷新完成的Future, 调用方如果需要等待刷新完成, 可以使用该Future去进行等待
+     */
+    open fun refreshAll(): CompletableFuture<Void> {
+        // 不管是否有Bean重建失败, 都需要去发布刷新完成的事件
+        return super.rebuildAll().whenComplete { _, _ ->
+            this.applicationContext.publishEvent(RefreshScopeRefreshedEvent())
         }
-        return false
     }
 
     /**
-     * 刷新Scope内的全部Bean, 在刷新完成时, 发布事件RefreshScopeRefreshedEvent
+     * 获取到RefreshScope内的Bean并去执行给定的操作, 如果Bean还没有被创建, 那么先从容器当中去进行获取;
+     * 在操作执行完成之前, 即使该Bean已经被刷新, 旧的Bean也不会被destroy
+     *
+     * @param name beanName
+     * @param action 要对Bean去执行的操作
+     * @return 操作的执行结果
      */
-    open fun refreshAll() {
-        super.destroy()  // super.destroy, 摧毁RefreshScope内的全部Bean
-        this.applicationContext.publishEvent(RefreshScopeRefreshedEvent())
+    override fun <T> execute(name: String, action: Function<Any, T>): T {
+        // Bean还没有被创建, 那么先从容器当中去获取一次, 让它加入到Scope当中
+        if (!containsBean(name)) {
+            this.applicationContext.getBean(name)
+        }
+        return super.execute(name, action)
     }
 
     override fun setApplicationContext(applicationContext: ApplicationContext) {
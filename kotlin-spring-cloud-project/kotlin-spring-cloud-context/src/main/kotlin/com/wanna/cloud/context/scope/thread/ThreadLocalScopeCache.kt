@@ -25,6 +25,10 @@ open class ThreadLocalScopeCache : ScopeCache {
         return values
     }
 
+    override fun values(): Collection<Any> {
+        return ArrayList(this.cache.get().values)
+    }
+
     override fun remove(name: String): Any? {
         return this.cache.get().remove(name)
     }
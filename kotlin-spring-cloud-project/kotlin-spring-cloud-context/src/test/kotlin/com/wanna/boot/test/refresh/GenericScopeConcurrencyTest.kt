@@ -0,0 +1,193 @@
+package com.wanna.boot.test.refresh
+
+import com.wanna.cloud.context.scope.GenericScope
+import com.wanna.framework.beans.factory.ObjectFactory
+import java.util.*
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Function
+
+/**
+ * [GenericScope]的并发测试, 在刷新风暴(不停地去进行rebuild)的情况下:
+ *
+ * * 1.正在通过execute去使用的Bean, 不能被destroy;
+ * * 2.每个被替换下来的Bean, 都会且只会被destroy一次, 创建的Bean的数量始终等于被destroy的数量加上仍然存活的数量;
+ * * 3.对于同一个Bean的多次重建请求会被合并.
+ *
+ * Note: 刷新风暴下获取Bean的延时, 使用"src/jmh"下的GenericScopeBenchmark去进行测量
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/6
+ */
+class GenericScopeConcurrencyTest {
+
+    fun testNoDestroyWhileInFlight() {
+        val scope = GenericScope()
+        val factory = ScopedCounterFactory(scope, "counter") { Thread.sleep(1) }
+        scope.get("counter", factory)
+
+        val running = AtomicBoolean(true)
+        val violations = AtomicInteger()
+        val readers = (0 until 8).map {
+            Thread {
+                while (running.get()) {
+                    scope.execute("counter", Function { bean ->
+                        bean as ScopedCounter
+                        repeat(100) { if (bean.destroyed) violations.incrementAndGet() }
+                    })
+                }
+            }
+        }
+        readers.forEach { it.start() }
+        repeat(200) {
+            scope.rebuild("counter")
+            Thread.sleep(1)
+        }
+        scope.rebuild("counter")!!.get(10, TimeUnit.SECONDS)
+        running.set(false)
+        readers.forEach { it.join() }
+
+        // 当前正在使用的Bean不应该被destroy, 其余的全部Bean应该都被destroy并且只destroy一次
+        check(violations.get() == 0) { "${violations.get()} calls observed a destroyed bean" }
+        val current = scope.get("counter", factory) as ScopedCounter
+        check(!current.destroyed)
+        factory.checkLifecycle(1)
+
+        scope.destroy()
+        check(current.destroyed)
+        factory.checkLifecycle(0)
+    }
+
+    fun testRebuildCoalesced() {
+        val scope = GenericScope()
+        val rebuilding = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        val blockCreation = AtomicBoolean(false)
+        val factory = ScopedCounterFactory(scope, "counter") {
+            if (blockCreation.get()) {
+                rebuilding.countDown()
+                release.await()
+            }
+        }
+        scope.get("counter", factory)
+        blockCreation.set(true)
+
+        // 第一次重建阻塞在创建Bean的过程当中时, 再去发起999次重建请求, 它们都会被合并到正在进行的重建当中
+        val futures = ArrayList<CompletableFuture<Void>>()
+        futures += scope.rebuild("counter")!!
+        check(rebuilding.await(10, TimeUnit.SECONDS))
+        repeat(999) { futures += scope.rebuild("counter")!! }
+        check(futures.all { it === futures[0] })
+        release.countDown()
+        futures[0].get(10, TimeUnit.SECONDS)
+
+        // 初次创建, 正在进行的那一次重建, 以及合并之后的一次重建
+        check(factory.created.size == 3) { "created ${factory.created.size} beans" }
+        factory.checkLifecycle(1)
+        scope.destroy()
+        factory.checkLifecycle(0)
+    }
+
+    fun testLifecycleDuringRefreshStorm() {
+        val scope = GenericScope()
+        val factories = (0 until 16).map { ScopedCounterFactory(scope, "bean$it") { Thread.sleep(1) } }
+        factories.forEachIndexed { index, factory -> scope.get("bean$index", factory) }
+
+        val threads = 8
+        val callsPerThread = 20_000
+        val violations = AtomicInteger()
+        val latch = CountDownLatch(threads)
+        val readers = (0 until threads).map {
+            Thread {
+                for (i in 0 until callsPerThread) {
+                    scope.execute("bean${i and 15}", Function { bean ->
+                        if ((bean as ScopedCounter).destroyed) violations.incrementAndGet()
+                    })
+                }
+                latch.countDown()
+            }
+        }
+
+        // 刷新风暴, 不停地去刷新Scope内的全部Bean
+        val running = AtomicBoolean(true)
+        val refresher = Thread {
+            while (running.get()) {
+                scope.rebuildAll()
+                Thread.sleep(1)
+            }
+        }
+        refresher.start()
+        readers.forEach { it.start() }
+        check(latch.await(60, TimeUnit.SECONDS))
+        running.set(false)
+        refresher.join()
+        scope.rebuildAll().get(10, TimeUnit.SECONDS)
+
+        check(violations.get() == 0) { "${violations.get()} calls observed a destroyed bean" }
+        check(factories.sumOf { it.created.size } > factories.size) { "no bean was rebuilt" }
+        factories.forEach { it.checkLifecycle(1) }
+
+        scope.destroy()
+        factories.forEach { it.checkLifecycle(0) }
+    }
+
+    /**
+     * 放入到Scope当中的Bean, 记录它被destroy的次数
+     */
+    private class ScopedCounter {
+        val destroyCount = AtomicInteger()
+
+        val destroyed: Boolean
+            get() = destroyCount.get() > 0
+    }
+
+    /**
+     * 给Scope提供Bean的ObjectFactory, 模拟BeanFactory的行为, 在创建Bean时去注册destroy回调
+     *
+     * @param scope Scope
+     * @param name beanName
+     * @param beforeCreate 创建Bean之前要执行的操作(例如模拟创建Bean需要耗费一定的时间)
+     */
+    private class ScopedCounterFactory(
+        private val scope: GenericScope,
+        private val name: String,
+        private val beforeCreate: () -> Unit
+    ) : ObjectFactory<ScopedCounter> {
+
+        /**
+         * 已经创建出来的全部的Bean
+         */
+        val created: MutableList<ScopedCounter> = Collections.synchronizedList(ArrayList())
+
+        override fun getObject(): ScopedCounter {
+            beforeCreate.invoke()
+            val bean = ScopedCounter()
+            created += bean
+            scope.registerDestructionCallback(name) { bean.destroyCount.incrementAndGet() }
+            return bean
+        }
+
+        /**
+         * 检查创建的Bean的数量等于被destroy的数量加上仍然存活的数量, 并且每个Bean最多只会被destroy一次
+         *
+         * @param live 期望的仍然存活的Bean的数量
+         */
+        fun checkLifecycle(live: Int) {
+            val beans = synchronized(created) { ArrayList(created) }
+            val destroyed = beans.count { it.destroyed }
+            check(beans.all { it.destroyCount.get() <= 1 }) { "bean[$name] is destroyed more than once" }
+            check(beans.size - destroyed == live) { "bean[$name]: created=${beans.size}, destroyed=$destroyed, expected live=$live" }
+        }
+    }
+}
+
+fun main() {
+    val test = GenericScopeConcurrencyTest()
+    test.testNoDestroyWhileInFlight()
+    test.testRebuildCoalesced()
+    test.testLifecycleDuringRefreshStorm()
+}
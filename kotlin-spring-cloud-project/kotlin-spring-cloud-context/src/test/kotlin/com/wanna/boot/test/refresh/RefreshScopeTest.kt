@@ -34,7 +34,7 @@ fun main() {
     val bean1 = applicationContext.getBean("u")
     val registeredScope = applicationContext.getBeanFactory().getRegisteredScope("refresh")
     val refreshScope = registeredScope as com.wanna.cloud.context.scope.refresh.RefreshScope
-    refreshScope.refreshAll()
+    refreshScope.refreshAll().get()
     val bean2 = applicationContext.getBean("u")
     println("bean1==bean2?--->[${bean1 === bean2}]")
 
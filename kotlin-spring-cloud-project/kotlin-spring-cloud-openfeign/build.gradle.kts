@@ -1,3 +1,7 @@
+plugins {
+    id("me.champeau.jmh") version (jmhPluginVersion)
+}
+
 dependencies {
     implementation(project(":kotlin-spring-framework-project:kotlin-spring-core"))
     implementation(project(":kotlin-spring-framework-project:kotlin-spring-beans"))
@@ -24,4 +28,12 @@ dependencies {
     testImplementation("io.netty:netty-codec-http:$nettyVersion")
     testImplementation(project(":kotlin-spring-cloud-project:kotlin-spring-cloud-ribbon"))
     testImplementation(project(":kotlin-spring-cloud-project:kotlin-spring-cloud-nacos:kotlin-spring-cloud-nacos-discovery"))
+
+    // for jmh benchmark
+    jmh(project(":kotlin-spring-cloud-project:kotlin-spring-cloud-ribbon"))
+}
+
+// jmh benchmark, 使用"gradle jmh"去运行"src/jmh"下的Benchmark
+jmh {
+    jmhVersion.set(jmhCoreVersion)
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.wanna.cloud.openfeign.ribbon
+
+import com.netflix.loadbalancer.BaseLoadBalancer
+import com.netflix.loadbalancer.ILoadBalancer
+import com.netflix.loadbalancer.RoundRobinRule
+import com.netflix.loadbalancer.Server
+import com.wanna.cloud.netflix.ribbon.RibbonClientSpecification
+import com.wanna.cloud.netflix.ribbon.SpringClientFactory
+import com.wanna.framework.context.annotation.Bean
+import com.wanna.framework.context.annotation.Configuration
+import feign.Client
+import feign.Request
+import feign.RequestTemplate
+import feign.Response
+import org.openjdk.jmh.annotations.*
+import java.net.URI
+import java.util.concurrent.TimeUnit
+
+/**
+ * [RibbonLoadBalancerFeignClient]的每次请求的额外开销的Benchmark, 对比使用缓存的执行器(缓存ILoadBalancer, 基于下标去替换主机地址)
+ * 以及原来的每次都去[SpringClientFactory]当中getBean并使用[URI.create]去解析url的执行方式
+ *
+ * 使用"gradle :kotlin-spring-cloud-project:kotlin-spring-cloud-openfeign:jmh"去运行
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class RibbonLoadBalancerFeignClientBenchmark {
+
+    private lateinit var springClientFactory: SpringClientFactory
+
+    private lateinit var cachedClient: RibbonLoadBalancerFeignClient
+
+    private lateinit var uncachedClient: UncachedRibbonLoadBalancerFeignClient
+
+    private lateinit var request: Request
+
+    @Setup
+    fun setup() {
+        springClientFactory = SpringClientFactory()
+        springClientFactory.setConfigurations(
+            listOf(RibbonClientSpecification(SERVICE_ID, arrayOf(BenchmarkRibbonConfiguration::class.java)))
+        )
+        cachedClient = RibbonLoadBalancerFeignClient(springClientFactory, NoopClient())
+        uncachedClient = UncachedRibbonLoadBalancerFeignClient(springClientFactory, NoopClient())
+        request = Request.create(
+            Request.HttpMethod.GET, "http://$SERVICE_ID/user/list?page=1&size=20",
+            emptyMap(), null, Charsets.UTF_8, RequestTemplate()
+        )
+
+        // 提前创建好childContext
+        springClientFactory.getInstance(SERVICE_ID, ILoadBalancer::class.java)
+    }
+
+    @TearDown
+    fun tearDown() {
+        springClientFactory.destroy()
+    }
+
+    @Benchmark
+    fun cached(): Response = cachedClient.execute(request, null)
+
+    @Benchmark
+    fun uncached(): Response = uncachedClient.execute(request, null)
+
+    /**
+     * 原来的执行方式: 每次都去SpringClientFactory当中获取ILoadBalancer, 并使用URI.create去解析url
+     */
+    class UncachedRibbonLoadBalancerFeignClient(
+        private val springClientFactory: SpringClientFactory, private val delegate: Client
+    ) : Client {
+        override fun execute(request: Request, options: Request.Options?): Response {
+            val uri = URI.create(request.url())
+            val serviceId = uri.host
+            val loadBalancer = springClientFactory.getInstance(serviceId, ILoadBalancer::class.java)!!
+            val server = loadBalancer.chooseServer(serviceId)!!
+            val path = uri.scheme + "://" + server.hostPort + uri.path
+            return delegate.execute(
+                Request.create(
+                    request.httpMethod(), path, request.headers(),
+                    Request.Body.create(request.body()), request.requestTemplate()
+                ), options
+            )
+        }
+    }
+
+    /**
+     * 不发送真实的网络请求的Client, 只为了排除掉网络的开销
+     */
+    class NoopClient : Client {
+        override fun execute(request: Request, options: Request.Options?): Response =
+            Response.builder().status(200).request(request).headers(emptyMap()).build()
+    }
+
+    /**
+     * 为childContext提供一个固定Server列表的ILoadBalancer
+     */
+    @Configuration(proxyBeanMethods = false)
+    open class BenchmarkRibbonConfiguration {
+        @Bean
+        open fun ribbonLoadBalancer(): ILoadBalancer {
+            val loadBalancer = BaseLoadBalancer()
+            loadBalancer.setRule(RoundRobinRule())
+            loadBalancer.addServers((0 until 8).map { Server("10.0.0.$it", 8080) })
+            return loadBalancer
+        }
+    }
+
+    companion object {
+        private const val SERVICE_ID = "user-service"
+    }
+}
@@ -8,6 +8,7 @@ import com.wanna.cloud.openfeign.ribbon.FeignRibbonClientAutoConfiguration
 import com.wanna.framework.context.annotation.Autowired
 import com.wanna.framework.context.annotation.Bean
 import com.wanna.framework.context.annotation.Configuration
+import com.wanna.framework.core.environment.Environment
 
 /**
  * FeignClient的自动配置类, 它必须在FeignRibbonClientAutoConfiguration导入完成之后才去进行导入！
@@ -30,15 +31,19 @@ open class FeignAutoConfiguration {
     }
 
     /**
-     * 如果存在有CircuitBreaker的话, 那么使用SpringCloud的CircuitBreaker
+     * 如果存在有CircuitBreaker的话, 那么使用SpringCloud的CircuitBreaker(需要通过"feign.circuitbreaker.enabled"去开启,
+     * 没有开启时FeignClientsConfiguration提供的是原生的Feign.Builder, 该Targeter直接去进行target);
+     * 可以通过"feign.circuitbreaker.group.enabled"去配置是否整个FeignClient共用一个CircuitBreaker
      */
     @Configuration(proxyBeanMethods = false)
     @ConditionalOnClass(value = [com.wanna.cloud.client.circuitbreaker.CircuitBreaker::class])
     open class CircuitBreakerPresentFeignTargeterConfiguration {
         @Bean
         @ConditionalOnMissingBean
-        open fun feignCircuitBreakerTargeter(): FeignCircuitBreakerTargeter {
-            return FeignCircuitBreakerTargeter()
+        open fun feignCircuitBreakerTargeter(environment: Environment): FeignCircuitBreakerTargeter {
+            return FeignCircuitBreakerTargeter(
+                environment.getProperty("feign.circuitbreaker.group.enabled", Boolean::class.java, false)
+            )
         }
     }
 
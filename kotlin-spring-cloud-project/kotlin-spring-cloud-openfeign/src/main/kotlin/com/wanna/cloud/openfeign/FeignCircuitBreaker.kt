@@ -1,5 +1,7 @@
 package com.wanna.cloud.openfeign
 
+import com.wanna.cloud.client.circuitbreaker.CircuitBreakerFactory
+import com.wanna.framework.lang.Nullable
 import feign.Feign
 import feign.Target
 
@@ -10,9 +12,43 @@ object FeignCircuitBreaker {
     }
 
     /**
-     * 扩展FeignBuilder, 提供自定义逻辑的Builder, 为Fallback和FallbackFactory提供支持
+     * 扩展FeignBuilder, 提供自定义逻辑的Builder, 为Fallback和FallbackFactory提供支持,
+     * 并使用[CircuitBreakerFactory]创建的CircuitBreaker去包装每一次方法调用
      */
     class Builder : Feign.Builder() {
+
+        /**
+         * 创建CircuitBreaker的工厂, 为null时不使用CircuitBreaker, 只在调用失败时执行fallback
+         */
+        @Nullable
+        private var circuitBreakerFactory: CircuitBreakerFactory? = null
+
+        /**
+         * FeignClient的name
+         */
+        @Nullable
+        private var feignClientName: String? = null
+
+        /**
+         * 是否整个FeignClient共用一个CircuitBreaker? 为false时, FeignClient的每个方法都使用一个单独的CircuitBreaker
+         */
+        private var circuitBreakerGroupEnabled = false
+
+        fun circuitBreakerFactory(@Nullable circuitBreakerFactory: CircuitBreakerFactory?): Builder {
+            this.circuitBreakerFactory = circuitBreakerFactory
+            return this
+        }
+
+        fun feignClientName(feignClientName: String): Builder {
+            this.feignClientName = feignClientName
+            return this
+        }
+
+        fun circuitBreakerGroupEnabled(circuitBreakerGroupEnabled: Boolean): Builder {
+            this.circuitBreakerGroupEnabled = circuitBreakerGroupEnabled
+            return this
+        }
+
         override fun <T : Any?> target(target: Target<T>?): T {
             return build(null).newInstance(target)
         }
@@ -33,9 +69,12 @@ object FeignCircuitBreaker {
         private fun build(fallbackFactory: FallbackFactory<*>?): Feign {
             // 设置InvocationHandler为自定义的InvocationHandler
             super.invocationHandlerFactory { target, dispatch ->
-                return@invocationHandlerFactory FeignCircuitBreakerInvocationHandler(target, fallbackFactory, dispatch)
+                return@invocationHandlerFactory FeignCircuitBreakerInvocationHandler(
+                    target, fallbackFactory, dispatch, circuitBreakerFactory,
+                    feignClientName ?: target.name(), circuitBreakerGroupEnabled
+                )
             }
             return super.build()
         }
     }
-}
\ No newline at end of file
+}
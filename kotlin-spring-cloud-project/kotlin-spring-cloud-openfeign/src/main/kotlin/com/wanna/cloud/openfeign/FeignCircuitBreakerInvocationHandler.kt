@@ -1,24 +1,95 @@
 package com.wanna.cloud.openfeign
 
+import com.wanna.cloud.client.circuitbreaker.CircuitBreaker
+import com.wanna.cloud.client.circuitbreaker.CircuitBreakerFactory
+import com.wanna.framework.lang.Nullable
+import feign.Feign
 import feign.InvocationHandlerFactory.MethodHandler
 import java.lang.reflect.InvocationHandler
+import java.lang.reflect.InvocationTargetException
 import java.lang.reflect.Method
+import java.util.function.Function
+import java.util.function.Supplier
 
 /**
- * Feign的CircuitBreaker的InvocationHandler, 用来反射执行目标方法
+ * Feign的CircuitBreaker的InvocationHandler, 用来反射执行目标方法;
+ *
+ * * 1.如果存在有[CircuitBreakerFactory], 那么使用CircuitBreaker去包装每一次方法调用(每个FeignClient或者每个方法一个CircuitBreaker);
+ * * 2.如果调用失败(包括CircuitBreaker处于打开状态/舱壁已满), 并且配置了fallback/fallbackFactory, 那么使用fallback去执行降级逻辑;
+ * 如果没有配置fallback, 那么直接将原始的异常抛出去
+ *
+ * @param target Feign的Target
+ * @param fallbackFactory FallbackFactory(为null代表没有配置fallback)
+ * @param dispatch 每个方法对应的MethodHandler
+ * @param circuitBreakerFactory 创建CircuitBreaker的工厂(为null代表不使用CircuitBreaker)
+ * @param feignClientName FeignClient的name
+ * @param circuitBreakerGroupEnabled 是否整个FeignClient共用一个CircuitBreaker
  */
 class FeignCircuitBreakerInvocationHandler(
     private val target: feign.Target<*>,
-    private val fallbackFactory: FallbackFactory<*>?,
-    private val dispatch: Map<Method, MethodHandler>
+    @Nullable private val fallbackFactory: FallbackFactory<*>?,
+    private val dispatch: Map<Method, MethodHandler>,
+    @Nullable private val circuitBreakerFactory: CircuitBreakerFactory? = null,
+    private val feignClientName: String = target.name(),
+    private val circuitBreakerGroupEnabled: Boolean = false
 ) : InvocationHandler {
 
-    override fun invoke(proxy: Any?, method: Method, args: Array<out Any>): Any {
+    /**
+     * 每个方法对应的CircuitBreaker, 在创建InvocationHandler时就去进行初始化, 避免每次调用都去进行查找
+     */
+    private val circuitBreakers: Map<Method, CircuitBreaker> = initCircuitBreakers()
+
+    override fun invoke(proxy: Any?, method: Method, args: Array<out Any?>?): Any? {
         return when (method.name) {
             "hashCode" -> hashCode()
             "toString" -> toString()
-            "equals" -> equals(args[0])
-            else -> dispatch[method]!!.invoke(args)
+            "equals" -> equals(args?.get(0))
+            else -> invokeMethod(method, args)
+        }
+    }
+
+    private fun invokeMethod(method: Method, @Nullable args: Array<out Any?>?): Any? {
+        val methodHandler = dispatch[method]!!
+        val circuitBreaker = circuitBreakers[method]
+        if (circuitBreaker == null) {
+            if (fallbackFactory == null) {
+                return methodHandler.invoke(args)
+            }
+            return try {
+                methodHandler.invoke(args)
+            } catch (ex: Throwable) {
+                invokeFallback(method, args, ex)
+            }
+        }
+        return circuitBreaker.run(Supplier { methodHandler.invoke(args) }, Function { cause ->
+            if (fallbackFactory == null) throw cause else invokeFallback(method, args, cause)
+        })
+    }
+
+    /**
+     * 使用FallbackFactory创建的fallback对象去执行降级逻辑
+     *
+     * @param method 要执行的方法
+     * @param args 方法参数
+     * @param cause 调用失败的原因
+     * @return fallback的执行结果
+     */
+    private fun invokeFallback(method: Method, @Nullable args: Array<out Any?>?, cause: Throwable): Any? {
+        val fallback = fallbackFactory!!.create(cause)
+        try {
+            return method.invoke(fallback, *(args ?: emptyArray()))
+        } catch (ex: InvocationTargetException) {
+            throw ex.targetException
+        }
+    }
+
+    private fun initCircuitBreakers(): Map<Method, CircuitBreaker> {
+        val circuitBreakerFactory = this.circuitBreakerFactory ?: return emptyMap()
+        val circuitBreakers = HashMap<Method, CircuitBreaker>()
+        dispatch.keys.forEach {
+            val id = if (circuitBreakerGroupEnabled) feignClientName else feignClientName + "#" + Feign.configKey(target.type(), it)
+            circuitBreakers[it] = circuitBreakerFactory.create(id)
         }
+        return circuitBreakers
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,21 @@
 package com.wanna.cloud.openfeign
 
+import com.wanna.cloud.client.circuitbreaker.CircuitBreakerFactory
 import feign.Feign
 import feign.Target
 
 /**
  * Feign的CircuitBreaker(熔断器, 断路器)的Targeter;
  * 在DefaultTargeter的基础上, 增加了fallback机制, 支持处理@FeignClient上的fallback和fallback机制;
+ * 只有在"feign.circuitbreaker.enabled"为true时, FeignClient才会使用[FeignCircuitBreaker.Builder]去进行构建,
+ * 此时FeignClient的调用都会使用[CircuitBreakerFactory]创建的CircuitBreaker去进行包装
  *
+ * @param circuitBreakerGroupEnabled 是否整个FeignClient共用一个CircuitBreaker? 为false时每个方法使用一个单独的CircuitBreaker
  * @see DefaultTargeter
  * @see FeignClient.fallback
  * @see FeignClient.fallbackFactory
  */
-class FeignCircuitBreakerTargeter : Targeter {
+class FeignCircuitBreakerTargeter(private val circuitBreakerGroupEnabled: Boolean = false) : Targeter {
 
     @Suppress("UNCHECKED_CAST")
     override fun <T> target(
@@ -28,6 +32,9 @@ class FeignCircuitBreakerTargeter : Targeter {
         val fallback = factory.fallback
         val fallbackFactory = factory.fallbackFactory
         val contextId = factory.contextId!!
+        feign.circuitBreakerFactory(context.getInstance(contextId, CircuitBreakerFactory::class.java))
+            .feignClientName(factory.name ?: contextId)
+            .circuitBreakerGroupEnabled(circuitBreakerGroupEnabled)
         if (fallback != null) {
             return feign.target(target, context.getInstance(contextId, fallback) as T)
         }
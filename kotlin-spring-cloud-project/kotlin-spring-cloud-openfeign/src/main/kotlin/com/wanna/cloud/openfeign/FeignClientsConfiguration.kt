@@ -14,6 +14,7 @@ import com.wanna.framework.context.annotation.Configuration
 import com.wanna.framework.context.annotation.Scope
 import com.wanna.framework.context.format.support.DefaultFormattingConversionService
 import com.wanna.framework.context.format.support.FormattingConversionService
+import com.wanna.framework.core.environment.Environment
 import com.wanna.framework.web.http.converter.HttpMessageConverter
 import com.wanna.framework.web.http.converter.json.MappingJackson2HttpMessageConverter
 import feign.Contract
@@ -72,14 +73,22 @@ open class FeignClientsConfiguration {
         return MappingJackson2HttpMessageConverter()
     }
 
+    /**
+     * 如果存在有CircuitBreaker的话, 只有在"feign.circuitbreaker.enabled"为true时, 才会使用CircuitBreaker去包装FeignClient的调用;
+     * 默认情况下仍然使用原生的[Feign.Builder], CircuitBreaker不会介入FeignClient的调用
+     */
     @ConditionalOnClass(value = [com.wanna.cloud.client.circuitbreaker.CircuitBreaker::class])
     @Configuration(proxyBeanMethods = false)
     open class CircuitBreakerPresentFeignBuilderConfiguration {
 
         @Bean
+        @ConditionalOnMissingBean
         @Scope(BeanDefinition.SCOPE_PROTOTYPE)
-        fun circuitBreakerFeignBuilder(): Feign.Builder {
-            return FeignCircuitBreaker.builder()
+        fun circuitBreakerFeignBuilder(environment: Environment, retryer: Retryer): Feign.Builder {
+            if (environment.getProperty("feign.circuitbreaker.enabled", Boolean::class.java, false)) {
+                return FeignCircuitBreaker.builder()
+            }
+            return Feign.builder().retryer(retryer)
         }
     }
 
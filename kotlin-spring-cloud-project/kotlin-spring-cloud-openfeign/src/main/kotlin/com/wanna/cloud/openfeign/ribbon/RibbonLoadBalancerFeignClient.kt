@@ -1,34 +1,95 @@
 package com.wanna.cloud.openfeign.ribbon
 
 import com.netflix.loadbalancer.ILoadBalancer
+import com.netflix.loadbalancer.Server
+import com.wanna.cloud.context.named.NamedContextFactory.ContextRefreshListener
 import com.wanna.cloud.netflix.ribbon.SpringClientFactory
-import com.wanna.framework.util.StringUtils
+import com.wanna.cloud.netflix.ribbon.loadbalancer.ServerCallRecorder
+import com.wanna.framework.beans.factory.support.DisposableBean
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.ConcurrentReferenceHashMap
 import feign.Client
 import feign.Request
 import feign.Response
-import java.net.URI
+import java.util.concurrent.ConcurrentHashMap
 
 /**
  * 支持LoadBalancer进行负载均衡的FeignClient, 使用负载均衡策略去完成远程调用并获取请求的最终结果
  *
+ * 对于每个serviceId, 都会缓存一份[LoadBalancedExecution](包含已经解析好的[ILoadBalancer]), 避免每次请求都去
+ * [SpringClientFactory]当中去进行getBean; 当serviceId对应的childContext发生刷新时, 对应的缓存将会被清除掉.
+ * 监听childContext刷新的Listener, 会在当前FeignClient被销毁时从[SpringClientFactory]当中去进行移除
+ *
  * @param springClientFactory Spring ClientFactory 来自于Ribbon, 用来实现负载均衡
  * @param delegate 委托的FeignClient, 完成真正的网络请求的处理(包装ApacheHttpClient/OkHttp等的Client)
  */
 open class RibbonLoadBalancerFeignClient(val springClientFactory: SpringClientFactory, val delegate: Client) :
-    Client {
+    Client, DisposableBean {
+
+    /**
+     * 每个serviceId对应的负载均衡的执行器的缓存, key-serviceId, value-LoadBalancedExecution
+     */
+    private val executions = ConcurrentHashMap<String, LoadBalancedExecution>()
+
+    /**
+     * childContext刷新之后, 之前缓存的ILoadBalancer已经失效, 需要清除掉缓存
+     */
+    private val contextRefreshListener = ContextRefreshListener { name, _ -> executions.remove(name) }
+
+    init {
+        springClientFactory.addContextRefreshListener(contextRefreshListener)
+    }
+
     override fun execute(request: Request, options: Request.Options?): Response {
-        // request.url获取到请求的URI路径, 将协议/主机名/路径分开
-        val uri = URI.create(request.url())
-        val serviceId = uri.host
+        // request.url获取到请求的URL, 直接基于下标去切分出来协议/主机名/路径, 不必每次都去构建URI对象
+        val url = request.url()
+        val template = UrlTemplate.parse(url)
+        val serviceId = template.serviceId
 
         // 使用Ribbon的LoadBalancer, 从注册中心(ServiceRegistry)当中去获取到一个合适的ServiceInstance实例
-        val loadBalancer = springClientFactory.getInstance(serviceId, ILoadBalancer::class.java)!!
-        val server = loadBalancer.chooseServer(serviceId)
+        val execution = getExecution(serviceId)
+        val server = execution.loadBalancer.chooseServer(serviceId)
             ?: throw IllegalStateException("没有从注册中心当中找到合适的ServiceInstance去处理本次请求")
 
-        // 解析成为一个正确的uri, 并构建一个新的request去执行真正的请求的发送
-        val path = uri.scheme + "://" + server.hostPort + getCleanPath(uri.path)
-        return delegate.execute(createNewRequest(request, path), options)
+        // 将serviceId替换成为真实的主机地址, 并构建一个新的request去执行真正的请求的发送
+        val newRequest = createNewRequest(request, execution.reconstructUrl(template, server))
+        val recorder = execution.recorder ?: return delegate.execute(newRequest, options)
+
+        // 记录请求的执行情况, 5xx的响应也视为失败, 交给负载均衡规则以及异常实例的检测器去使用
+        val startNanos = recorder.start(server)
+        var success = false
+        try {
+            val response = delegate.execute(newRequest, options)
+            success = response.status() < 500
+            return response
+        } finally {
+            recorder.complete(server, startNanos, success)
+        }
+    }
+
+    /**
+     * 获取到serviceId对应的[LoadBalancedExecution], 如果缓存当中不存在的话, 那么从[SpringClientFactory]当中去进行获取
+     *
+     * @param serviceId serviceId
+     * @return 该serviceId对应的LoadBalancedExecution
+     */
+    protected open fun getExecution(serviceId: String): LoadBalancedExecution {
+        var execution = executions[serviceId]
+        if (execution == null) {
+            val loadBalancer = springClientFactory.getInstance(serviceId, ILoadBalancer::class.java)
+                ?: throw IllegalStateException("无法为服务[$serviceId]找到合适的ILoadBalancer")
+            execution = LoadBalancedExecution(loadBalancer, springClientFactory.getServerCallRecorder(serviceId))
+            executions.putIfAbsent(serviceId, execution)
+        }
+        return execution
+    }
+
+    /**
+     * 销毁当前FeignClient时, 将监听childContext刷新的Listener从[SpringClientFactory]当中移除掉, 并清除掉缓存
+     */
+    override fun destroy() {
+        springClientFactory.removeContextRefreshListener(contextRefreshListener)
+        executions.clear()
     }
 
     /**
@@ -50,19 +111,101 @@ open class RibbonLoadBalancerFeignClient(val springClientFactory: SpringClientFa
     }
 
     /**
-     * 获取一个干净的路径;
-     * * 1.如果path不是以"/"作为开头, 那么需要拼接上"/"
-     * * 2.如果path以"/"作为结尾, 那么需要去掉"/"
+     * 某个serviceId对应的负载均衡的执行器, 维护了该服务的[ILoadBalancer], 以及每个[Server]对应的"host:port"的缓存
+     *
+     * @param loadBalancer 该服务的ILoadBalancer
+     * @param recorder 该服务的请求执行情况的记录器
      */
-    private fun getCleanPath(path: String): String {
-        var result = path
-        if (StringUtils.hasText(path)) {
-            if (!path.startsWith("/")) {
-                result = "/$path"
-            } else if (path.endsWith("/")) {
-                result = path.substring(0, path.length - 1)
+    protected class LoadBalancedExecution(val loadBalancer: ILoadBalancer, @Nullable val recorder: ServerCallRecorder?) {
+
+        /**
+         * Server的"host:port"的缓存(Server.getHostPort每次都会去进行字符串的拼接), Server下线之后允许被GC回收掉
+         */
+        private val hostPorts = ConcurrentReferenceHashMap<Server, String>(16)
+
+        /**
+         * 将url当中的serviceId替换成为[Server]的真实的主机地址
+         *
+         * @param template 已经解析好的url
+         * @param server 负载均衡选出来的Server
+         * @return 替换之后的url
+         */
+        fun reconstructUrl(template: UrlTemplate, server: Server): String {
+            val hostPort = hostPorts.computeIfAbsent(server) { it.hostPort }
+            return template.expand(hostPort)
+        }
+    }
+
+    /**
+     * 对于Feign的请求url的解析结果, 只记录serviceId在url当中的起止位置, 在替换主机地址时直接基于下标去进行拼接
+     *
+     * @param url 原始的url, 例如"http://serviceId/path?query"
+     * @param hostStart serviceId在url当中的起始位置
+     * @param hostEnd serviceId(包含端口号)在url当中的结束位置
+     * @param pathEnd path在url当中的结束位置(query/fragment的起始位置)
+     */
+    protected class UrlTemplate private constructor(
+        private val url: String,
+        private val hostStart: Int,
+        private val hostEnd: Int,
+        private val pathEnd: Int,
+        val serviceId: String
+    ) {
+        companion object {
+
+            /**
+             * 解析给定的url, 得到[UrlTemplate]
+             *
+             * @param url url
+             * @return UrlTemplate
+             */
+            @JvmStatic
+            fun parse(url: String): UrlTemplate {
+                val schemeEnd = url.indexOf("://")
+                require(schemeEnd > 0) { "不合法的url[$url], 缺少协议" }
+                val hostStart = schemeEnd + 3
+                var serviceIdEnd = -1
+                var index = hostStart
+                while (index < url.length) {
+                    val ch = url[index]
+                    if (ch == '/' || ch == '?' || ch == '#') {
+                        break
+                    }
+                    if (ch == ':' && serviceIdEnd == -1) {
+                        serviceIdEnd = index
+                    }
+                    index++
+                }
+                val hostEnd = index
+
+                // 找到path的结束位置, 也就是query/fragment的起始位置
+                while (index < url.length && url[index] != '?' && url[index] != '#') {
+                    index++
+                }
+                if (serviceIdEnd == -1) {
+                    serviceIdEnd = hostEnd
+                }
+                return UrlTemplate(url, hostStart, hostEnd, index, url.substring(hostStart, serviceIdEnd))
             }
         }
-        return result ?: ""
+
+        /**
+         * 使用给定的"host:port"去替换掉url当中的serviceId, 生成最终的url
+         *
+         * * 1.如果path以"/"作为结尾, 那么需要去掉"/"
+         * * 2.query和fragment部分保持原样
+         *
+         * @param hostPort 真实的主机地址
+         * @return 替换之后的url
+         */
+        fun expand(hostPort: String): String {
+            val cleanPathEnd = if (pathEnd > hostEnd + 1 && url[pathEnd - 1] == '/') pathEnd - 1 else pathEnd
+            val builder = StringBuilder(url.length - (hostEnd - hostStart) + hostPort.length)
+            builder.append(url, 0, hostStart)
+                .append(hostPort)
+                .append(url, hostEnd, cleanPathEnd)
+                .append(url, pathEnd, url.length)
+            return builder.toString()
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.wanna.cloud.netflix.ribbon
 
+import com.netflix.client.IClientConfigAware
 import com.netflix.client.config.CommonClientConfigKey.*
 import com.netflix.client.config.DefaultClientConfigImpl
 import com.netflix.client.config.IClientConfig
@@ -7,11 +8,15 @@ import com.netflix.client.config.IClientConfigKey
 import com.netflix.loadbalancer.*
 import com.wanna.boot.autoconfigure.condition.ConditionalOnMissingBean
 import com.wanna.boot.context.properties.EnableConfigurationProperties
+import com.wanna.cloud.netflix.ribbon.loadbalancer.*
+import com.wanna.framework.beans.BeanUtils
 import com.wanna.framework.beans.factory.annotation.Value
 import com.wanna.framework.context.annotation.Bean
 import com.wanna.framework.context.annotation.Configuration
 import com.wanna.framework.context.aware.EnvironmentAware
 import com.wanna.framework.core.environment.Environment
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.ClassUtils
 
 /**
  * RibbonClient的配置类, RibbonClient要想实现负载均衡, 必须组合ILoadBalancer去完成负载均衡, 需要使用到ILoadBalancer,
@@ -19,6 +24,11 @@ import com.wanna.framework.core.environment.Environment
  * 在真正地提供负载均衡的Server(ServiceInstance)一方(比如Nacos、Eureka等), 只需要按需替换掉配置的默认配置即可实现让Ribbon去完成负载均衡;
  * 比如Nacos当中, 就替换掉默认的ServerList去让Ribbon知道, Nacos的DiscoveryServer当中根据serviceId能够去, 找到哪些实例列表;
  *
+ * IRule和IPing也支持通过"{clientName}.ribbon.NFLoadBalancerRuleClassName"/"ribbon.NFLoadBalancerRuleClassName"
+ * (以及NFLoadBalancerPingClassName)去进行配置, 例如使用[LeastOutstandingRequestsRule]/[PeakEwmaRule]/[ResponseTimeWeightedRule]
+ * 这些基于请求的执行情况的规则, 以及[TcpPing]/[HttpPing]这些真实的健康检查; 请求的执行情况通过[ServerCallRecorder]去进行记录,
+ * 并由[OutlierDetector]基于错误率去驱逐掉异常的实例
+ *
  * @see IClientConfig
  * @see IRule
  * @see IPing
@@ -26,6 +36,8 @@ import com.wanna.framework.core.environment.Environment
  * @see ServerList
  * @see ServerListFilter
  * @see ILoadBalancer
+ * @see ServerCallRecorder
+ * @see OutlierDetector
  */
 @EnableConfigurationProperties
 @Configuration(proxyBeanMethods = false)
@@ -47,24 +59,66 @@ open class RibbonClientConfiguration : EnvironmentAware {
         config.set(ConnectTimeout, getProperty(ConnectTimeout, 1000))
         config.set(ReadTimeout, getProperty(ReadTimeout, 1000))
         config.set(GZipPayload, true)
+        config.set(NFLoadBalancerPingInterval, getProperty(NFLoadBalancerPingInterval, 30))
+        config.set(NFLoadBalancerMaxTotalPingTime, getProperty(NFLoadBalancerMaxTotalPingTime, 2))
         return config
     }
 
     /**
-     * 给容器中导入一个默认的负载均衡的规则, 配置ILoadBalancer去完成
+     * 异常实例的检测器, 基于观测到的错误率去将异常的实例暂时从负载均衡的候选列表当中驱逐出去
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    open fun ribbonOutlierDetector(): OutlierDetector {
+        val outlierDetector = OutlierDetector()
+        outlierDetector.consecutiveErrors = getProperty("OutlierConsecutiveErrors", outlierDetector.consecutiveErrors)
+        outlierDetector.errorRateThreshold =
+            getProperty("OutlierErrorRateThreshold", outlierDetector.errorRateThreshold)
+        outlierDetector.minimumRequests = getProperty("OutlierMinimumRequests", outlierDetector.minimumRequests)
+        outlierDetector.intervalMillis = getProperty("OutlierIntervalMillis", outlierDetector.intervalMillis)
+        outlierDetector.baseEjectionTimeMillis =
+            getProperty("OutlierBaseEjectionTimeMillis", outlierDetector.baseEjectionTimeMillis)
+        outlierDetector.maxEjectionTimeMillis =
+            getProperty("OutlierMaxEjectionTimeMillis", outlierDetector.maxEjectionTimeMillis)
+        outlierDetector.maxEjectionPercent = getProperty("OutlierMaxEjectionPercent", outlierDetector.maxEjectionPercent)
+        return outlierDetector
+    }
+
+    /**
+     * 给容器中导入一个默认的负载均衡的规则, 配置ILoadBalancer去完成;
+     * 如果配置了"NFLoadBalancerRuleClassName", 那么使用配置的规则, 否则使用ZoneAvoidanceRule
      */
     @Bean
     @ConditionalOnMissingBean
-    open fun ribbonRule(config: IClientConfig): IRule {
-        val rule = ZoneAvoidanceRule()
-        rule.initWithNiwsConfig(config)
+    open fun ribbonRule(config: IClientConfig, outlierDetector: OutlierDetector): IRule {
+        val rule = instantiate(NFLoadBalancerRuleClassName.key(), IRule::class.java) ?: ZoneAvoidanceRule()
+        if (rule is IClientConfigAware) {
+            rule.initWithNiwsConfig(config)
+        }
+        if (rule is AbstractServerCallAwareRule) {
+            rule.outlierDetector = outlierDetector
+        }
         return rule
     }
 
+    /**
+     * 给容器中导入一个默认的Ping, 如果配置了"NFLoadBalancerPingClassName", 那么使用配置的Ping, 否则使用DummyPing
+     */
     @Bean
     @ConditionalOnMissingBean
-    open fun ribbonPing(): IPing {
-        return DummyPing()
+    open fun ribbonPing(config: IClientConfig): IPing {
+        val ping = instantiate(NFLoadBalancerPingClassName.key(), IPing::class.java) ?: DummyPing()
+        val connectTimeout = config.get(ConnectTimeout, 1000)
+        val readTimeout = config.get(ReadTimeout, 1000)
+        when (ping) {
+            is TcpPing -> ping.connectTimeout = connectTimeout
+            is HttpPing -> {
+                ping.pingPath = getProperty("PingPath", ping.pingPath)
+                ping.connectTimeout = connectTimeout
+                ping.readTimeout = readTimeout
+            }
+        }
+        return ping
     }
 
     @Bean
@@ -105,6 +159,23 @@ open class RibbonClientConfiguration : EnvironmentAware {
         return ZoneAwareLoadBalancer(config, rule, ping, serverList, serverListFilter, serverListUpdater)
     }
 
+    /**
+     * 记录每个Server的请求的执行情况, 并通知给负载均衡规则以及异常实例的检测器
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    open fun ribbonServerCallRecorder(
+        loadBalancer: ILoadBalancer, rule: IRule, outlierDetector: OutlierDetector
+    ): ServerCallRecorder {
+        val listeners = ArrayList<ServerCallListener>()
+        if (rule is ServerCallListener) {
+            listeners += rule
+        }
+        outlierDetector.loadBalancer = loadBalancer
+        listeners += outlierDetector
+        return ServerCallRecorder(loadBalancer, listeners)
+    }
+
     override fun setEnvironment(environment: Environment) {
         this.environment = environment
     }
@@ -112,4 +183,35 @@ open class RibbonClientConfiguration : EnvironmentAware {
     private fun getProperty(connectTimeout: IClientConfigKey<Int>, defaultConnectTimeout: Int): Int? {
         return environment!!.getProperty("ribbon.$connectTimeout", Int::class.java, defaultConnectTimeout)
     }
+
+    /**
+     * 获取Ribbon的配置信息, 优先使用"{clientName}.ribbon.{name}", 其次使用"ribbon.{name}"
+     *
+     * @param name 属性名
+     * @param defaultValue 默认值
+     * @return 属性值
+     */
+    @Suppress("UNCHECKED_CAST")
+    private fun <T : Any> getProperty(name: String, defaultValue: T): T {
+        val environment = this.environment!!
+        val type = defaultValue::class.javaObjectType as Class<T>
+        return environment.getProperty("$clientName.ribbon.$name", type)
+            ?: environment.getProperty("ribbon.$name", type)
+            ?: defaultValue
+    }
+
+    /**
+     * 如果配置了给定的属性, 那么使用属性值作为类名去实例化一个对象
+     *
+     * @param name 属性名(例如NFLoadBalancerRuleClassName)
+     * @param type 要求的类型
+     * @return 实例化得到的对象(如果没有配置该属性, return null)
+     */
+    @Nullable
+    private fun <T> instantiate(name: String, type: Class<T>): T? {
+        val className = environment!!.getProperty("$clientName.ribbon.$name")
+            ?: environment!!.getProperty("ribbon.$name")
+            ?: return null
+        return BeanUtils.instantiateClass(ClassUtils.forName<Any>(className.trim(), javaClass.classLoader), type)
+    }
 }
\ No newline at end of file
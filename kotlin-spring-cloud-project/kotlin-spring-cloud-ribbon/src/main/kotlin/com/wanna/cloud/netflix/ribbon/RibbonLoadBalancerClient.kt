@@ -4,7 +4,12 @@ import com.netflix.loadbalancer.Server
 import com.wanna.cloud.client.ServiceInstance
 import com.wanna.cloud.client.loadbalancer.LoadBalancerClient
 import com.wanna.cloud.client.loadbalancer.LoadBalancerRequest
+import com.wanna.cloud.context.named.NamedContextFactory.ContextRefreshListener
+import com.wanna.cloud.netflix.ribbon.loadbalancer.ServerCallRecorder
+import com.wanna.framework.beans.factory.support.DisposableBean
+import com.wanna.framework.lang.Nullable
 import java.net.URI
+import java.util.concurrent.ConcurrentHashMap
 
 /**
  * * Ribbon针对于SpringCloud的实现的LoadBalancerClient, 它组合了SpringClientFactory, 支持从childContext当中, 去获取组件;
@@ -15,11 +20,27 @@ import java.net.URI
  * * 1.在使用方, 想要去使用LoadBalancedClient, 只需要注入LoadBalancerClient, 并给定request的apply方式(callback), 即可完成请求的发送和处理;
  * * 2.既然这个类当中, 是使用到SpringClientFactory去完成的负载均衡, 那么别的地方, 当然可以不注入LoadBalancerClient, 当然也可以注入
  * SpringClientFactory去自己完成处理; 毕竟也是SpringClientFactory在默认情况下是由Ribbon提供的, 也确实是整合的了负载均衡的相关功能(比如ILoadBalancer)
+ * * 3.每个serviceId对应的[ServerCallRecorder]会被缓存下来, 避免每次请求都去childContext当中去进行getBean, 当childContext发生刷新时, 对应的缓存将会被清除掉
  *
  * @param springClientFactory SpringClientFactory(NamedContextFactory), Spring ClientFactory-->Spring当中的Client的Factory
  * @see LoadBalancerClient
  */
-open class RibbonLoadBalancerClient(private val springClientFactory: SpringClientFactory) : LoadBalancerClient {
+open class RibbonLoadBalancerClient(private val springClientFactory: SpringClientFactory) : LoadBalancerClient,
+    DisposableBean {
+
+    /**
+     * 每个serviceId对应的ServerCallRecorder的缓存, key-serviceId, value-ServerCallRecorderHolder
+     */
+    private val recorders = ConcurrentHashMap<String, ServerCallRecorderHolder>()
+
+    /**
+     * childContext刷新之后, 之前缓存的ServerCallRecorder已经失效, 需要清除掉缓存
+     */
+    private val contextRefreshListener = ContextRefreshListener { name, _ -> recorders.remove(name) }
+
+    init {
+        springClientFactory.addContextRefreshListener(contextRefreshListener)
+    }
 
     override fun <T> execute(serviceId: String, request: LoadBalancerRequest<T>): T {
         val serviceInstance =
@@ -27,25 +48,79 @@ open class RibbonLoadBalancerClient(private val springClientFactory: SpringClien
         return execute(serviceId, serviceInstance, request)
     }
 
+    /**
+     * 使用给定的ServiceInstance去执行请求, 如果是Ribbon的Server, 那么需要将请求的执行情况记录下来,
+     * 交给基于请求的执行情况的负载均衡规则以及异常实例的检测器去使用
+     */
     override fun <T> execute(serviceId: String, serviceInstance: ServiceInstance, request: LoadBalancerRequest<T>): T {
+        if (serviceInstance is RibbonServer) {
+            val recorder = getServerCallRecorder(serviceId)
+            if (recorder != null) {
+                return recorder.record(serviceInstance.getServer()) { request.apply(serviceInstance) }
+            }
+        }
         return request.apply(serviceInstance)
     }
 
-    override fun reconstructURI(serviceInstance: ServiceInstance, uri: URI): URI {
-        val serviceUri = serviceInstance.getUri()
-
-        // 从ServiceInstance当中去获取到真实的主机地址
-        val host: String =
-            if (serviceUri.startsWith("http://")) serviceUri.substring(7)
-            else if (serviceUri.startsWith("https://")) serviceUri.substring(8)
-            else serviceUri
+    /**
+     * 获取serviceId对应的[ServerCallRecorder], 如果缓存当中不存在的话, 那么从[SpringClientFactory]当中去进行获取
+     *
+     * @param serviceId serviceId
+     * @return 该serviceId对应的ServerCallRecorder(childContext当中不存在的话, return null)
+     */
+    @Nullable
+    protected open fun getServerCallRecorder(serviceId: String): ServerCallRecorder? {
+        var holder = recorders[serviceId]
+        if (holder == null) {
+            holder = ServerCallRecorderHolder(springClientFactory.getServerCallRecorder(serviceId))
+            recorders.putIfAbsent(serviceId, holder)
+        }
+        return holder.recorder
+    }
 
-        // 将原始的包含了serviceName的host替换成为ServiceInstance当中的真实host
-        val originUri = uri.toString()
-        val newUri = originUri.replace(serviceInstance.getServiceId(), host)
+    /**
+     * 将原始的包含了serviceName的URI当中的host替换成为ServiceInstance当中的真实host;
+     * 直接基于URI已经解析好的各个组成部分去进行拼接, 而不是对整个URI字符串去进行替换
+     *
+     * @param serviceInstance 负载均衡选出来的ServiceInstance
+     * @param uri 原始的URI
+     * @return 替换之后的URI
+     */
+    override fun reconstructURI(serviceInstance: ServiceInstance, uri: URI): URI {
+        val host = serviceInstance.getHost()
+        val port = serviceInstance.getPort()
+        if (host == uri.host && port == uri.port) {
+            return uri
+        }
+        val scheme = uri.scheme ?: serviceInstance.getSchema() ?: "http"
+        val rawPath = uri.rawPath
+        val rawQuery = uri.rawQuery
+        val rawFragment = uri.rawFragment
 
-        // 构建一个新的URI去进行return
-        return URI(newUri)
+        val builder = StringBuilder(scheme.length + host.length + (rawPath?.length ?: 0) + (rawQuery?.length ?: 0) + 16)
+        builder.append(scheme).append("://")
+        if (uri.rawUserInfo != null) {
+            builder.append(uri.rawUserInfo).append('@')
+        }
+        // IPv6的地址需要使用"[]"去进行包裹
+        if (host.indexOf(':') >= 0 && !host.startsWith("[")) {
+            builder.append('[').append(host).append(']')
+        } else {
+            builder.append(host)
+        }
+        if (port >= 0) {
+            builder.append(':').append(port)
+        }
+        if (rawPath != null) {
+            builder.append(rawPath)
+        }
+        if (rawQuery != null) {
+            builder.append('?').append(rawQuery)
+        }
+        if (rawFragment != null) {
+            builder.append('#').append(rawFragment)
+        }
+        return URI(builder.toString())
     }
 
     /**
@@ -59,6 +134,21 @@ open class RibbonLoadBalancerClient(private val springClientFactory: SpringClien
         return RibbonServer(serviceId, server)
     }
 
+    /**
+     * 销毁时, 将监听childContext刷新的Listener从[SpringClientFactory]当中移除掉, 并清除掉缓存
+     */
+    override fun destroy() {
+        springClientFactory.removeContextRefreshListener(contextRefreshListener)
+        recorders.clear()
+    }
+
+    /**
+     * ServerCallRecorder的缓存项, childContext当中不存在ServerCallRecorder时也需要被缓存下来
+     *
+     * @param recorder ServerCallRecorder
+     */
+    private class ServerCallRecorderHolder(@Nullable val recorder: ServerCallRecorder?)
+
     /**
      * 这是将RibbonServer适配到SpringCloud的ServiceInstance的RibbonServer, 起一层桥接的作用
      *
@@ -80,5 +170,12 @@ open class RibbonLoadBalancerClient(private val springClientFactory: SpringClien
         override fun getUri(): String = "${getSchema()}://${server.hostPort}"
 
         override fun getMetadata(): Map<String, String> = emptyMap()
+
+        /**
+         * 获取到Ribbon的Server
+         *
+         * @return Server
+         */
+        fun getServer(): Server = server
     }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.netflix.client.IClient
 import com.netflix.client.config.IClientConfig
 import com.netflix.loadbalancer.ILoadBalancer
 import com.wanna.cloud.context.named.NamedContextFactory
+import com.wanna.cloud.netflix.ribbon.loadbalancer.ServerCallRecorder
 
 /**
  * 它创建了一个Child Context列表, 允许Specification在各自的Context当中去定义各自的Bean; 
@@ -45,4 +46,14 @@ open class SpringClientFactory : NamedContextFactory<RibbonClientSpecification>(
     open fun getClientConfig(name: String): IClientConfig? {
         return getInstance(name, IClientConfig::class.java)
     }
-}
\ No newline at end of file
+
+    /**
+     * 从指定的childContext当中去获取ServerCallRecorder, 用于记录对于Server的请求的执行情况
+     *
+     * @param name childContextName(serviceName)
+     * @return 如果childContext当中包含了ServerCallRecorder, 那么return; 不然return null
+     */
+    open fun getServerCallRecorder(name: String): ServerCallRecorder? {
+        return getInstance(name, ServerCallRecorder::class.java)
+    }
+}
@@ -0,0 +1,61 @@
+package com.wanna.cloud.netflix.ribbon.loadbalancer
+
+import com.netflix.client.config.IClientConfig
+import com.netflix.loadbalancer.AbstractLoadBalancerRule
+import com.netflix.loadbalancer.ILoadBalancer
+import com.netflix.loadbalancer.Server
+import com.wanna.framework.lang.Nullable
+
+/**
+ * 基于请求的执行情况去进行负载均衡的规则的基础类, 通过[ServerCallListener]去接收每个Server的请求的执行情况;
+ *
+ * 候选的Server列表为ILoadBalancer当中的可达的Server(通过Ping检测), 并排除掉被[OutlierDetector]驱逐的Server;
+ * 如果所有的可达的Server都被驱逐了, 那么降级为使用所有的可达的Server
+ *
+ * @see ServerCallRecorder
+ */
+abstract class AbstractServerCallAwareRule : AbstractLoadBalancerRule(), ServerCallListener {
+
+    /**
+     * 异常实例的检测器, 为null时不去排除被驱逐的Server
+     */
+    @Nullable
+    var outlierDetector: OutlierDetector? = null
+
+    override fun initWithNiwsConfig(clientConfig: IClientConfig) {
+
+    }
+
+    override fun choose(key: Any?): Server? {
+        val loadBalancer = loadBalancer ?: return null
+        val candidates = getCandidateServers(loadBalancer)
+        if (candidates.isEmpty()) {
+            return null
+        }
+        if (candidates.size == 1) {
+            return candidates[0]
+        }
+        return choose(candidates)
+    }
+
+    /**
+     * 从候选的Server列表当中去选择出来一个合适的Server
+     *
+     * @param candidates 候选的Server列表(至少有两个)
+     * @return 选择出来的Server
+     */
+    protected abstract fun choose(candidates: List<Server>): Server?
+
+    /**
+     * 获取候选的Server列表
+     *
+     * @param loadBalancer ILoadBalancer
+     * @return 候选的Server列表
+     */
+    protected open fun getCandidateServers(loadBalancer: ILoadBalancer): List<Server> {
+        val reachableServers = loadBalancer.reachableServers ?: return emptyList()
+        val outlierDetector = this.outlierDetector ?: return reachableServers
+        val healthyServers = reachableServers.filter { !outlierDetector.isEjected(it) }
+        return healthyServers.ifEmpty { reachableServers }
+    }
+}
@@ -0,0 +1,41 @@
+package com.wanna.cloud.netflix.ribbon.loadbalancer
+
+import com.netflix.loadbalancer.IPing
+import com.netflix.loadbalancer.Server
+import java.io.IOException
+import java.net.HttpURLConnection
+import java.net.URL
+
+/**
+ * 基于HTTP请求的Ping, 向Server的[pingPath]发送一个GET请求, 如果在超时时间内得到了2xx的响应, 那么认为该Server是存活的
+ *
+ * @param pingPath 要去进行探测的路径, 例如"/actuator/health"
+ * @param connectTimeout 建立连接的超时时间(毫秒)
+ * @param readTimeout 读取响应的超时时间(毫秒)
+ */
+open class HttpPing(
+    var pingPath: String = "/",
+    var connectTimeout: Int = 2000,
+    var readTimeout: Int = 2000
+) : IPing {
+
+    override fun isAlive(server: Server): Boolean {
+        val scheme = if (server.scheme == "https") "https" else "http"
+        val path = if (pingPath.startsWith("/")) pingPath else "/$pingPath"
+        var connection: HttpURLConnection? = null
+        return try {
+            connection = URL("$scheme://${server.host}:${server.port}$path").openConnection() as HttpURLConnection
+            connection.connectTimeout = connectTimeout
+            connection.readTimeout = readTimeout
+            connection.requestMethod = "GET"
+            connection.useCaches = false
+            val statusCode = connection.responseCode
+            // 读取完响应体, 让连接可以被复用
+            (if (statusCode >= 400) connection.errorStream else connection.inputStream)?.use { it.readBytes() }
+            statusCode in 200..299
+        } catch (ex: IOException) {
+            connection?.disconnect()
+            false
+        }
+    }
+}
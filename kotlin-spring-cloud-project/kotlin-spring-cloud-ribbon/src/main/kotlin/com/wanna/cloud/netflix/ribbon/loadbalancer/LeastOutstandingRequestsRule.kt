@@ -0,0 +1,55 @@
+package com.wanna.cloud.netflix.ribbon.loadbalancer
+
+import com.netflix.loadbalancer.Server
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * 选择在途请求数量最少的Server的负载均衡规则, 在途请求数量相同的多个Server之间, 随机去进行选择
+ *
+ * @see AbstractServerCallAwareRule
+ */
+open class LeastOutstandingRequestsRule : AbstractServerCallAwareRule() {
+
+    /**
+     * 每个Server的在途请求数量
+     */
+    private val outstandingRequests = ConcurrentHashMap<Server, AtomicInteger>()
+
+    override fun choose(candidates: List<Server>): Server? {
+        val random = ThreadLocalRandom.current()
+        var chosen: Server? = null
+        var least = Int.MAX_VALUE
+        var ties = 0
+        for (server in candidates) {
+            val outstanding = getOutstandingRequests(server)
+            if (outstanding < least) {
+                least = outstanding
+                chosen = server
+                ties = 1
+
+                // 在途请求数量相同时, 使用蓄水池抽样, 保证每个Server被选中的概率相同
+            } else if (outstanding == least && random.nextInt(++ties) == 0) {
+                chosen = server
+            }
+        }
+        return chosen
+    }
+
+    /**
+     * 获取某个Server的在途请求数量
+     *
+     * @param server Server
+     * @return 在途请求数量
+     */
+    open fun getOutstandingRequests(server: Server): Int = outstandingRequests[server]?.get() ?: 0
+
+    override fun onRequestStart(server: Server) {
+        outstandingRequests.computeIfAbsent(server) { AtomicInteger() }.incrementAndGet()
+    }
+
+    override fun onRequestComplete(server: Server, latencyNanos: Long, success: Boolean) {
+        outstandingRequests[server]?.updateAndGet { if (it > 0) it - 1 else 0 }
+    }
+}
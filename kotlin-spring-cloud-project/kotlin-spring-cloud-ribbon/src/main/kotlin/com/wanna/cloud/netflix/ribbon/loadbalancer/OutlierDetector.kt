@@ -0,0 +1,164 @@
+package com.wanna.cloud.netflix.ribbon.loadbalancer
+
+import com.netflix.loadbalancer.ILoadBalancer
+import com.netflix.loadbalancer.Server
+import com.wanna.framework.lang.Nullable
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 异常实例的检测器, 基于观测到的每个[Server]的请求的错误率, 将异常的Server暂时从负载均衡的候选列表当中驱逐出去;
+ * 解决某个实例"活着但是一直在报错"的情况下, Ping无法检测出来, 从而导致该实例一直在接收流量的问题
+ *
+ * * 1.连续失败次数达到[consecutiveErrors], 或者在统计窗口内的请求数量达到[minimumRequests]并且错误率达到[errorRateThreshold]时, 驱逐该Server;
+ * * 2.驱逐时长为[baseEjectionTimeMillis]*驱逐次数(最多为[maxEjectionTimeMillis]), 驱逐时间到期之后, 该Server自动恢复;
+ * * 3.被驱逐的Server的数量最多只能占[loadBalancer]当中的全部Server的数量的[maxEjectionPercent]%, 避免所有的Server都被驱逐
+ *
+ * @see AbstractServerCallAwareRule
+ */
+open class OutlierDetector : ServerCallListener {
+
+    /**
+     * 连续失败多少次之后, 需要驱逐该Server
+     */
+    var consecutiveErrors = 5
+
+    /**
+     * 统计窗口内的错误率的阈值
+     */
+    var errorRateThreshold = 0.5
+
+    /**
+     * 统计窗口内的最少请求数量, 请求数量不足时, 不基于错误率去进行驱逐
+     */
+    var minimumRequests = 20
+
+    /**
+     * 错误率的统计窗口的大小(毫秒)
+     */
+    var intervalMillis = 10_000L
+
+    /**
+     * 基础的驱逐时长(毫秒), 每次驱逐的时长为基础的驱逐时长*驱逐次数
+     */
+    var baseEjectionTimeMillis = 30_000L
+
+    /**
+     * 最长的驱逐时长(毫秒)
+     */
+    var maxEjectionTimeMillis = 300_000L
+
+    /**
+     * 被驱逐的Server最多能占已知的Server的百分比
+     */
+    var maxEjectionPercent = 50
+
+    /**
+     * 当前服务的ILoadBalancer, 用于获取全部的Server的数量, 为null时只能使用已经观测到请求的Server的数量
+     */
+    @Nullable
+    var loadBalancer: ILoadBalancer? = null
+
+    /**
+     * 每个Server的统计信息
+     */
+    private val states = ConcurrentHashMap<Server, OutlierState>()
+
+    /**
+     * 检查给定的Server当前是否已经被驱逐
+     *
+     * @param server Server
+     * @return 如果该Server已经被驱逐, return true; 否则return false
+     */
+    open fun isEjected(server: Server): Boolean {
+        val state = states[server] ?: return false
+        return state.ejectedUntil > currentTimeMillis()
+    }
+
+    override fun onRequestComplete(server: Server, latencyNanos: Long, success: Boolean) {
+        val state = states.computeIfAbsent(server) { OutlierState() }
+        val now = currentTimeMillis()
+        synchronized(state) {
+            state.rollWindow(now)
+            state.requests++
+            if (success) {
+                state.consecutiveErrors = 0
+                return
+            }
+            state.errors++
+            state.consecutiveErrors++
+
+            // 已经被驱逐了(驱逐之前已经发出去的请求), 不必再去进行检查
+            if (state.ejectedUntil > now) {
+                return
+            }
+            val tripped = state.consecutiveErrors >= consecutiveErrors ||
+                    (state.requests >= minimumRequests && state.errors >= state.requests * errorRateThreshold)
+            if (tripped && canEject(now)) {
+                state.ejectionCount++
+                state.ejectedUntil = now + minOf(baseEjectionTimeMillis * state.ejectionCount, maxEjectionTimeMillis)
+                state.reset(now)
+            }
+        }
+    }
+
+    /**
+     * 检查当前是否还允许去驱逐一个Server
+     *
+     * @param now 当前时间
+     * @return 如果驱逐之后的Server数量没有超过全部的Server数量的[maxEjectionPercent]%, 那么return true
+     */
+    private fun canEject(now: Long): Boolean {
+        val ejected = states.values.count { it.ejectedUntil > now }
+        return (ejected + 1) * 100 <= maxEjectionPercent * getServerCount()
+    }
+
+    /**
+     * 获取当前服务的全部的Server的数量(包括还没有接收到请求的Server, 以及被Ping检测为不可达的Server)
+     *
+     * @return Server的数量
+     */
+    private fun getServerCount(): Int {
+        val allServers = loadBalancer?.allServers ?: return states.size
+        return allServers.size
+    }
+
+    /**
+     * 获取当前时间, 子类可以去进行重写
+     *
+     * @return 当前时间(毫秒)
+     */
+    protected open fun currentTimeMillis(): Long = System.currentTimeMillis()
+
+    /**
+     * 单个Server的错误率的统计信息
+     */
+    private inner class OutlierState {
+        var windowStart = 0L
+        var requests = 0
+        var errors = 0
+        var consecutiveErrors = 0
+        var ejectionCount = 0
+
+        @Volatile
+        var ejectedUntil = 0L
+
+        /**
+         * 如果统计窗口已经过期, 那么开启一个新的统计窗口; 如果上一个窗口内没有错误, 那么驱逐次数减少一次
+         */
+        fun rollWindow(now: Long) {
+            if (now - windowStart >= intervalMillis) {
+                if (errors == 0 && ejectionCount > 0 && ejectedUntil <= now) {
+                    ejectionCount--
+                }
+                reset(now)
+            }
+        }
+
+        fun reset(now: Long) {
+            windowStart = now
+            requests = 0
+            errors = 0
+            consecutiveErrors = 0
+        }
+    }
+}
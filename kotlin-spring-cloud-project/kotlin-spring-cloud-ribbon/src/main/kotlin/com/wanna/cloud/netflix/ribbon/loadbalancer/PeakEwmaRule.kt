@@ -0,0 +1,117 @@
+package com.wanna.cloud.netflix.ribbon.loadbalancer
+
+import com.netflix.loadbalancer.Server
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.math.exp
+
+/**
+ * 基于Peak-EWMA(峰值敏感的指数加权移动平均)延时的负载均衡规则;
+ *
+ * * 1.每个Server维护一个延时的EWMA, 如果观测到的延时高于当前的EWMA, 那么直接使用观测到的延时(对于延时的升高立刻作出反应),
+ * 否则按照距离上次观测的时间去进行指数衰减(对于延时的降低缓慢作出反应);
+ * * 2.Server的负载为"EWMA*(在途请求数量+1)", 使用"Power of Two Choices"的方式, 随机选择两个Server, 并选择负载较低的那个
+ *
+ * @see AbstractServerCallAwareRule
+ */
+open class PeakEwmaRule : AbstractServerCallAwareRule() {
+
+    /**
+     * EWMA的衰减时间(毫秒), 越小对于延时的变化越敏感
+     */
+    var decayTimeMillis = 10_000L
+
+    /**
+     * 对于还没有延时数据, 但是存在有在途请求的Server的惩罚延时(毫秒)
+     */
+    var penaltyMillis = 1_000L
+
+    /**
+     * 每个Server的Peak-EWMA的统计信息
+     */
+    private val states = ConcurrentHashMap<Server, PeakEwma>()
+
+    override fun choose(candidates: List<Server>): Server? {
+        val random = ThreadLocalRandom.current()
+        val first = random.nextInt(candidates.size)
+        var second = random.nextInt(candidates.size - 1)
+        if (second >= first) {
+            second++
+        }
+        val now = System.nanoTime()
+        val server1 = candidates[first]
+        val server2 = candidates[second]
+        return if (getLoad(server1, now) <= getLoad(server2, now)) server1 else server2
+    }
+
+    /**
+     * 获取某个Server的负载
+     *
+     * @param server Server
+     * @param now 当前时间(纳秒)
+     * @return 该Server的负载(EWMA*(在途请求数量+1))
+     */
+    protected open fun getLoad(server: Server, now: Long): Double {
+        val state = states[server] ?: return 0.0
+        val outstanding = state.outstanding.get()
+        val cost = state.getCost(now)
+        if (cost == 0.0 && outstanding > 0) {
+            return TimeUnit.MILLISECONDS.toNanos(penaltyMillis).toDouble() + outstanding
+        }
+        return cost * (outstanding + 1)
+    }
+
+    override fun onRequestStart(server: Server) {
+        getState(server).outstanding.incrementAndGet()
+    }
+
+    override fun onRequestComplete(server: Server, latencyNanos: Long, success: Boolean) {
+        val state = getState(server)
+        state.outstanding.updateAndGet { if (it > 0) it - 1 else 0 }
+        state.observe(latencyNanos.toDouble(), System.nanoTime())
+    }
+
+    private fun getState(server: Server): PeakEwma = states.computeIfAbsent(server) { PeakEwma() }
+
+    /**
+     * 单个Server的Peak-EWMA的统计信息
+     */
+    private inner class PeakEwma {
+        val outstanding = AtomicInteger()
+
+        @Volatile
+        private var cost = 0.0
+
+        @Volatile
+        private var stamp = System.nanoTime()
+
+        /**
+         * 观测到一次请求的延时
+         *
+         * @param latencyNanos 请求的延时(纳秒)
+         * @param now 当前时间(纳秒)
+         */
+        @Synchronized
+        fun observe(latencyNanos: Double, now: Long) {
+            val elapsed = maxOf(now - stamp, 0L)
+            stamp = now
+            cost = if (latencyNanos > cost) latencyNanos else {
+                val weight = decayWeight(elapsed)
+                cost * weight + latencyNanos * (1 - weight)
+            }
+        }
+
+        /**
+         * 获取当前的EWMA(按照距离上次观测的时间去进行衰减, 让一段时间没有请求的Server重新有机会被选中)
+         *
+         * @param now 当前时间(纳秒)
+         * @return 当前的EWMA
+         */
+        fun getCost(now: Long): Double = cost * decayWeight(maxOf(now - stamp, 0L))
+
+        private fun decayWeight(elapsedNanos: Long): Double =
+            exp(-elapsedNanos.toDouble() / TimeUnit.MILLISECONDS.toNanos(decayTimeMillis))
+    }
+}
@@ -0,0 +1,110 @@
+package com.wanna.cloud.netflix.ribbon.loadbalancer
+
+import com.netflix.loadbalancer.Server
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ThreadLocalRandom
+
+/**
+ * 按照响应时间去进行加权随机选择的负载均衡规则, 每个Server的权重为其平均响应时间的倒数, 响应越快的Server被选中的概率越高;
+ *
+ * 和Ribbon原生的WeightedResponseTimeRule不同的是, 它不需要去启动一个后台的定时器线程,
+ * 而是在选择Server时, 如果权重已经过期(超过[weightRefreshIntervalMillis]), 或者有新的Server有了响应时间数据, 那么再去重新计算权重;
+ * 对于还没有响应时间数据的Server, 使用已知的Server的平均权重
+ *
+ * @see AbstractServerCallAwareRule
+ */
+open class ResponseTimeWeightedRule : AbstractServerCallAwareRule() {
+
+    /**
+     * 权重的刷新间隔(毫秒)
+     */
+    var weightRefreshIntervalMillis = 1_000L
+
+    /**
+     * 响应时间的移动平均的平滑系数, 越大对于最近的响应时间越敏感
+     */
+    var alpha = 0.3
+
+    /**
+     * 每个Server的响应时间的移动平均(纳秒)
+     */
+    private val responseTimes = ConcurrentHashMap<Server, Double>()
+
+    /**
+     * 当前的权重信息
+     */
+    @Volatile
+    private var weights: Weights? = null
+
+    override fun choose(candidates: List<Server>): Server? {
+        val now = System.currentTimeMillis()
+        var weights = this.weights
+        if (weights == null || now - weights.timestamp >= weightRefreshIntervalMillis
+            || weights.servers != candidates || weights.observedServers < responseTimes.size
+        ) {
+            weights = computeWeights(candidates, now)
+            this.weights = weights
+        }
+        val cumulative = weights.cumulativeWeights
+        val random = ThreadLocalRandom.current().nextDouble(cumulative[cumulative.size - 1])
+        var index = cumulative.binarySearch(random)
+        if (index < 0) {
+            index = -index - 1
+        } else {
+            index++  // random恰好等于某个累计权重, 属于下一个区间
+        }
+        return weights.servers[minOf(index, weights.servers.size - 1)]
+    }
+
+    override fun onRequestComplete(server: Server, latencyNanos: Long, success: Boolean) {
+        responseTimes.merge(server, latencyNanos.toDouble()) { old, new -> old * (1 - alpha) + new * alpha }
+    }
+
+    /**
+     * 获取某个Server的响应时间的移动平均(纳秒), 如果还没有响应时间数据的话, return null
+     *
+     * @param server Server
+     */
+    open fun getResponseTime(server: Server): Double? = responseTimes[server]
+
+    /**
+     * 为给定的Server列表去计算权重
+     *
+     * @param servers Server列表
+     * @param now 当前时间
+     * @return 计算得到的权重信息
+     */
+    private fun computeWeights(servers: List<Server>, now: Long): Weights {
+        val rawWeights = DoubleArray(servers.size)
+        var known = 0
+        var knownTotal = 0.0
+        for (i in servers.indices) {
+            val responseTime = responseTimes[servers[i]]
+            if (responseTime != null) {
+                rawWeights[i] = 1.0 / maxOf(responseTime, 1.0)
+                known++
+                knownTotal += rawWeights[i]
+            }
+        }
+        val defaultWeight = if (known == 0) 1.0 else knownTotal / known
+        val cumulative = DoubleArray(servers.size)
+        var total = 0.0
+        for (i in servers.indices) {
+            total += if (rawWeights[i] > 0) rawWeights[i] else defaultWeight
+            cumulative[i] = total
+        }
+        return Weights(ArrayList(servers), cumulative, responseTimes.size, now)
+    }
+
+    /**
+     * 权重信息
+     *
+     * @param servers Server列表
+     * @param cumulativeWeights 累计的权重
+     * @param observedServers 计算权重时, 已经有响应时间数据的Server的数量
+     * @param timestamp 计算权重的时间
+     */
+    private class Weights(
+        val servers: List<Server>, val cumulativeWeights: DoubleArray, val observedServers: Int, val timestamp: Long
+    )
+}
@@ -0,0 +1,28 @@
+package com.wanna.cloud.netflix.ribbon.loadbalancer
+
+import com.netflix.loadbalancer.Server
+
+/**
+ * 对于某个[Server]的一次请求的监听器, 负载均衡规则(IRule)/异常实例驱逐([OutlierDetector])等组件,
+ * 可以基于它去统计每个Server的在途请求数量/响应时间/错误率等信息
+ *
+ * @see ServerCallRecorder
+ */
+interface ServerCallListener {
+
+    /**
+     * 在对于Server的请求开始发送之前的回调
+     *
+     * @param server 负载均衡选择出来的Server
+     */
+    fun onRequestStart(server: Server) {}
+
+    /**
+     * 在对于Server的请求完成之后的回调
+     *
+     * @param server 负载均衡选择出来的Server
+     * @param latencyNanos 本次请求的耗时(纳秒)
+     * @param success 本次请求是否成功?
+     */
+    fun onRequestComplete(server: Server, latencyNanos: Long, success: Boolean) {}
+}
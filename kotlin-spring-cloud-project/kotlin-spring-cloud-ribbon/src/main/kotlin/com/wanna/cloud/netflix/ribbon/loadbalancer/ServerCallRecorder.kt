@@ -0,0 +1,80 @@
+package com.wanna.cloud.netflix.ribbon.loadbalancer
+
+import com.netflix.loadbalancer.AbstractLoadBalancer
+import com.netflix.loadbalancer.ILoadBalancer
+import com.netflix.loadbalancer.Server
+import com.netflix.loadbalancer.ServerStats
+import com.wanna.framework.lang.Nullable
+
+/**
+ * 负责去记录对于某个[Server]的请求的执行情况, 每个childContext当中都存在有一个;
+ *
+ * * 1.将请求的执行情况记录到Ribbon的[ServerStats]当中(Ribbon原生的BestAvailableRule/AvailabilityFilteringRule等规则依赖于它);
+ * * 2.将请求的执行情况通知给所有的[ServerCallListener], 例如基于延时的负载均衡规则, 以及[OutlierDetector]
+ *
+ * @param loadBalancer 当前childContext当中的ILoadBalancer
+ * @param listeners 当前childContext当中的ServerCallListener列表
+ */
+open class ServerCallRecorder(
+    private val loadBalancer: ILoadBalancer,
+    private val listeners: List<ServerCallListener>
+) {
+
+    /**
+     * 记录一次对于Server的请求的开始
+     *
+     * @param server Server
+     * @return 请求的开始时间(纳秒), 在[complete]时需要传入
+     */
+    open fun start(server: Server): Long {
+        getServerStats(server)?.incrementActiveRequestsCount()
+        listeners.forEach { it.onRequestStart(server) }
+        return System.nanoTime()
+    }
+
+    /**
+     * 记录一次对于Server的请求的结束
+     *
+     * @param server Server
+     * @param startNanos [start]返回的请求开始时间
+     * @param success 请求是否成功?
+     */
+    open fun complete(server: Server, startNanos: Long, success: Boolean) {
+        val latencyNanos = System.nanoTime() - startNanos
+        val stats = getServerStats(server)
+        if (stats != null) {
+            stats.decrementActiveRequestsCount()
+            stats.noteResponseTime(latencyNanos / 1_000_000.0)
+            if (success) {
+                stats.clearSuccessiveConnectionFailureCount()
+            } else {
+                stats.incrementSuccessiveConnectionFailureCount()
+                stats.addToFailureCount()
+            }
+        }
+        listeners.forEach { it.onRequestComplete(server, latencyNanos, success) }
+    }
+
+    /**
+     * 执行给定的请求, 并记录请求的执行情况, 如果请求执行过程中抛出了异常, 那么记录为失败
+     *
+     * @param server Server
+     * @param action 要执行的请求
+     * @return 请求的执行结果
+     */
+    open fun <T> record(server: Server, action: () -> T): T {
+        val startNanos = start(server)
+        var success = false
+        try {
+            val result = action.invoke()
+            success = true
+            return result
+        } finally {
+            complete(server, startNanos, success)
+        }
+    }
+
+    @Nullable
+    private fun getServerStats(server: Server): ServerStats? =
+        (loadBalancer as? AbstractLoadBalancer)?.loadBalancerStats?.getSingleServerStat(server)
+}
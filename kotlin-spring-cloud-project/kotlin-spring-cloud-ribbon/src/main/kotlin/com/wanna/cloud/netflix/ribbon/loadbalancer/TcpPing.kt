@@ -0,0 +1,24 @@
+package com.wanna.cloud.netflix.ribbon.loadbalancer
+
+import com.netflix.loadbalancer.IPing
+import com.netflix.loadbalancer.Server
+import java.io.IOException
+import java.net.InetSocketAddress
+import java.net.Socket
+
+/**
+ * 基于TCP连接的Ping, 如果能在[connectTimeout]内和Server建立起来TCP连接, 那么认为该Server是存活的
+ *
+ * @param connectTimeout 建立TCP连接的超时时间(毫秒)
+ */
+open class TcpPing(var connectTimeout: Int = 2000) : IPing {
+
+    override fun isAlive(server: Server): Boolean {
+        return try {
+            Socket().use { it.connect(InetSocketAddress(server.host, server.port), connectTimeout) }
+            true
+        } catch (ex: IOException) {
+            false
+        }
+    }
+}
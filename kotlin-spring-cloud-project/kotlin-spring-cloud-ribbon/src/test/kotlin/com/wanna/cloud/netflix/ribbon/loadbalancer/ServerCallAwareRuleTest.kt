@@ -0,0 +1,217 @@
+package com.wanna.cloud.netflix.ribbon.loadbalancer
+
+import com.netflix.loadbalancer.BaseLoadBalancer
+import com.netflix.loadbalancer.DummyPing
+import com.netflix.loadbalancer.IRule
+import com.netflix.loadbalancer.Server
+import com.sun.net.httpserver.HttpServer
+import java.net.HttpURLConnection
+import java.net.InetSocketAddress
+import java.net.URL
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * 基于请求的执行情况的负载均衡规则([PeakEwmaRule]/[LeastOutstandingRequestsRule])以及[OutlierDetector]的测试,
+ * 每个Server都是一个进程内的HttpServer桩, 可以分别去指定它的响应延时以及响应状态码, 请求的执行情况通过[ServerCallRecorder]去进行记录
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ */
+class ServerCallAwareRuleTest {
+
+    /**
+     * 进程内的HttpServer桩
+     *
+     * @param delayMillis 响应延时(毫秒)
+     * @param status 响应状态码
+     */
+    class StubServer(private val delayMillis: Long, private val status: Int = 200) {
+
+        private val httpServer = HttpServer.create(InetSocketAddress("127.0.0.1", 0), 0)
+
+        val server: Server
+
+        init {
+            httpServer.executor = Executors.newCachedThreadPool()
+            httpServer.createContext("/") { exchange ->
+                Thread.sleep(delayMillis)
+                exchange.sendResponseHeaders(status, -1)
+                exchange.close()
+            }
+            httpServer.start()
+            server = Server("127.0.0.1", httpServer.address.port)
+        }
+
+        fun stop() {
+            httpServer.stop(0)
+            (httpServer.executor as ExecutorService).shutdownNow()
+        }
+    }
+
+    /**
+     * 使用给定的Server桩以及负载均衡规则, 去创建ILoadBalancer以及ServerCallRecorder
+     */
+    class Fixture(val stubs: List<StubServer>, val rule: IRule, val outlierDetector: OutlierDetector? = null) {
+        val loadBalancer = BaseLoadBalancer()
+        val recorder: ServerCallRecorder
+
+        init {
+            loadBalancer.setPing(DummyPing())
+            loadBalancer.setRule(rule)
+            loadBalancer.addServers(stubs.map { it.server })
+            val listeners = ArrayList<ServerCallListener>()
+            if (rule is ServerCallListener) {
+                listeners += rule
+            }
+            if (outlierDetector != null) {
+                outlierDetector.loadBalancer = loadBalancer
+                listeners += outlierDetector
+                (rule as? AbstractServerCallAwareRule)?.outlierDetector = outlierDetector
+            }
+            recorder = ServerCallRecorder(loadBalancer, listeners)
+        }
+
+        /**
+         * 向给定的Server去发送一次请求, 5xx的响应视为失败
+         *
+         * @param server Server
+         * @return 响应状态码
+         */
+        fun call(server: Server): Int {
+            val startNanos = recorder.start(server)
+            var status = -1
+            try {
+                val connection = URL("http://${server.hostPort}/").openConnection() as HttpURLConnection
+                status = connection.responseCode
+                connection.disconnect()
+                return status
+            } finally {
+                recorder.complete(server, startNanos, status in 1..499)
+            }
+        }
+
+        /**
+         * 使用负载均衡规则去选择一个Server并发送请求
+         *
+         * @return 选择出来的Server
+         */
+        fun callChosen(): Server {
+            val server = loadBalancer.chooseServer(null)
+            call(server)
+            return server
+        }
+
+        fun close() {
+            loadBalancer.shutdown()
+            stubs.forEach(StubServer::stop)
+        }
+    }
+
+    /**
+     * 可以手动去控制时间的OutlierDetector
+     */
+    class ManualClockOutlierDetector : OutlierDetector() {
+        @Volatile
+        var now = 1_000_000L
+
+        override fun currentTimeMillis() = now
+    }
+
+    fun testPeakEwmaRule() {
+        val fast = StubServer(0)
+        val slow = StubServer(100)
+        // 使用较短的衰减时间, 让EWMA可以在测试期间尽快地收敛到真实的延时
+        val rule = PeakEwmaRule()
+        rule.decayTimeMillis = 200L
+        val fixture = Fixture(listOf(fast, slow), rule)
+        try {
+            // 两个Server都先有一些延时的观测数据(第一次请求包含建立连接等的开销, 不作为稳定的延时)
+            repeat(3) {
+                fixture.call(fast.server)
+                fixture.call(slow.server)
+            }
+            Thread.sleep(rule.decayTimeMillis)
+            repeat(3) { fixture.call(fast.server) }
+            val chosen = (0 until 100).map { fixture.callChosen() }
+            val fastCount = chosen.count { it == fast.server }
+            check(fastCount >= 90) { "fast server is chosen $fastCount/100 times" }
+        } finally {
+            fixture.close()
+        }
+    }
+
+    fun testLeastOutstandingRequestsRule() {
+        val slow = StubServer(1000)
+        val stubs = listOf(slow, StubServer(0), StubServer(0))
+        val rule = LeastOutstandingRequestsRule()
+        val fixture = Fixture(stubs, rule)
+        val executor = Executors.newFixedThreadPool(2)
+        try {
+            // 让slow上面存在有两个在途请求
+            val started = CountDownLatch(2)
+            repeat(2) {
+                executor.execute {
+                    started.countDown()
+                    fixture.call(slow.server)
+                }
+            }
+            started.await()
+            val deadline = System.currentTimeMillis() + 5000
+            while (rule.getOutstandingRequests(slow.server) < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5)
+            }
+            check(rule.getOutstandingRequests(slow.server) == 2)
+
+            // 存在在途请求的Server不会被选中, 其余的Server都会被选中
+            val chosen = (0 until 30).map { fixture.callChosen() }
+            check(chosen.none { it == slow.server })
+            check(chosen.toSet().size == 2)
+
+            // 在途请求完成之后, 在途请求数量归零
+            executor.shutdown()
+            check(executor.awaitTermination(10, TimeUnit.SECONDS))
+            check(rule.getOutstandingRequests(slow.server) == 0)
+        } finally {
+            executor.shutdownNow()
+            fixture.close()
+        }
+    }
+
+    fun testOutlierDetectorEjection() {
+        val failing = listOf(StubServer(0, 500), StubServer(0, 500), StubServer(0, 500))
+        val healthy = StubServer(0)
+        val outlierDetector = ManualClockOutlierDetector()
+        outlierDetector.consecutiveErrors = 3
+        outlierDetector.maxEjectionPercent = 50
+        outlierDetector.baseEjectionTimeMillis = 30_000L
+        val fixture = Fixture(failing + healthy, LeastOutstandingRequestsRule(), outlierDetector)
+        try {
+            // 只有失败的Server接收到了请求, 驱逐比例按照ILoadBalancer当中的全部Server(4个)去进行计算, 最多只能驱逐2个
+            failing.forEach { stub -> repeat(3) { check(fixture.call(stub.server) == 500) } }
+            val ejected = failing.filter { outlierDetector.isEjected(it.server) }
+            check(ejected.size == 2) { "ejected ${ejected.size} servers" }
+            check(!outlierDetector.isEjected(healthy.server))
+
+            // 被驱逐的Server不会再被负载均衡规则所选中
+            val chosen = (0 until 30).map { fixture.callChosen() }
+            check(chosen.none { server -> ejected.any { it.server == server } })
+
+            // 驱逐时间到期之后, Server自动恢复
+            outlierDetector.now += outlierDetector.baseEjectionTimeMillis
+            check(failing.none { outlierDetector.isEjected(it.server) })
+        } finally {
+            fixture.close()
+        }
+    }
+}
+
+fun main() {
+    val test = ServerCallAwareRuleTest()
+    test.testPeakEwmaRule()
+    test.testLeastOutstandingRequestsRule()
+    test.testOutlierDetectorEjection()
+}
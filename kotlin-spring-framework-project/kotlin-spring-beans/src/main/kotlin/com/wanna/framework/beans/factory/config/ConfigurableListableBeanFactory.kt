@@ -40,6 +40,24 @@ interface ConfigurableListableBeanFactory : ListableBeanFactory, ConfigurableBea
      */
     fun isAutowireCandidate(beanName: String, descriptor: DependencyDescriptor): Boolean
 
+    /**
+     * 冻结所有的BeanDefinition的配置信息, 冻结之后BeanDefinition不应该再被修改, BeanFactory可以去对BeanDefinition的元信息去进行缓存
+     */
+    fun freezeConfiguration()
+
+    /**
+     * 当前BeanFactory的BeanDefinition的配置信息是否已经被冻结?
+     *
+     * @return 如果已经冻结, return true; 否则return false
+     */
+    fun isConfigurationFrozen(): Boolean
+
+    /**
+     * 清除掉所有的MergedBeanDefinition的缓存, 在BeanDefinition被修改之后(例如BeanFactoryPostProcessor执行完成之后),
+     * 需要去进行调用, 从而保证之后获取到的MergedBeanDefinition是基于最新的BeanDefinition去进行Merge得到的
+     */
+    fun clearMetadataCache()
+
     /**
      * 预实例化所有的单实例Bean(完成剩下所有单实例Bean的实例化和初始化)
      */
@@ -500,26 +500,32 @@ abstract class AbstractAutowireCapableBeanFactory() : AbstractBeanFactory(), Aut
         // 就交给ApplicationContextAwareBeanPostProcessor去完成, 因为ApplicationContextAware能获取更多对象, 比如Environment
         invokeAwareMethods(bean, beanName)
 
-        // 执行初始化之前的方法(BeforeInitialization), 应用所有的对Bean的初始化进行干涉的BeanPostProcessor
-        var wrappedBean: Any = bean
+        // 使用ApplicationStartup去记录Bean的初始化(BeanPostProcessor以及初始化方法)的耗时
+        val beanInitialize = getApplicationStartup().start("spring.beans.initialize").tag("beanName", beanName)
+        try {
+            // 执行初始化之前的方法(BeforeInitialization), 应用所有的对Bean的初始化进行干涉的BeanPostProcessor
+            var wrappedBean: Any = bean
 
-        if (mbd == null || !mbd.isSynthetic()) {
-            wrappedBean = applyBeanPostProcessorsBeforeInitialization(bean, beanName)
-        }
+            if (mbd == null || !mbd.isSynthetic()) {
+                wrappedBean = applyBeanPostProcessorsBeforeInitialization(bean, beanName)
+            }
 
 
-        // 执行初始化方法, 如果在执行初始化过程当中发生了异常, 那么把异常包装成为BeanCreationException抛出去
-        try {
-            invokeInitMethod(wrappedBean, beanName, mbd)
-        } catch (ex: Throwable) {
-            throw BeanCreationException("执行对Bean的初始化过程中出现了异常", ex, beanName)
-        }
+            // 执行初始化方法, 如果在执行初始化过程当中发生了异常, 那么把异常包装成为BeanCreationException抛出去
+            try {
+                invokeInitMethod(wrappedBean, beanName, mbd)
+            } catch (ex: Throwable) {
+                throw BeanCreationException("执行对Bean的初始化过程中出现了异常", ex, beanName)
+            }
 
-        // 执行初始化之后的方法(AfterInitialization), 应用所有的对Bean的初始化进行干涉的BeanPostProcessor
-        if (mbd == null || !mbd.isSynthetic()) {
-            wrappedBean = applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName)
+            // 执行初始化之后的方法(AfterInitialization), 应用所有的对Bean的初始化进行干涉的BeanPostProcessor
+            if (mbd == null || !mbd.isSynthetic()) {
+                wrappedBean = applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName)
+            }
+            return wrappedBean
+        } finally {
+            beanInitialize.end()  // end initialize
         }
-        return wrappedBean
     }
 
     /**
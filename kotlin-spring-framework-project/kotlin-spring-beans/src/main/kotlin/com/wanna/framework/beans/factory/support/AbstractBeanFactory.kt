@@ -226,7 +226,7 @@ abstract class AbstractBeanFactory(private var parentBeanFactory: BeanFactory? =
             try {
                 // tag requiredType
                 if (requiredType != null) {
-                    beanCreation.tag("requiredType", requiredType::class.java.toString())
+                    beanCreation.tag("requiredType", requiredType.toString())
                 }
 
                 // 将它依赖的Bean先去进行实例化工作...
@@ -965,6 +965,15 @@ abstract class AbstractBeanFactory(private var parentBeanFactory: BeanFactory? =
         this.mergedBeanDefinitions[beanName]?.stale = true
     }
 
+    /**
+     * 清除掉所有的MergedBeanDefinition的缓存, 将所有的MergedBeanDefinition的stale标志位都设置为true
+     *
+     * @see clearMergedBeanDefinition
+     */
+    open fun clearMetadataCache() {
+        this.mergedBeanDefinitions.keys.forEach(this::clearMergedBeanDefinition)
+    }
+
 
     /**
      * 返回合并之后的BeanDefinition(RootBeanDefinition)
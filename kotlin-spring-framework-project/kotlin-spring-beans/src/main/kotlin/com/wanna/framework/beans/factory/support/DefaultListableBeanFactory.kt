@@ -7,6 +7,7 @@ import com.wanna.framework.beans.TypeConverter
 import com.wanna.framework.beans.factory.*
 import com.wanna.framework.beans.factory.BeanFactory.Companion.FACTORY_BEAN_PREFIX
 import com.wanna.framework.beans.factory.config.BeanDefinitionRegistry
+import com.wanna.framework.beans.factory.config.BeanReference
 import com.wanna.framework.beans.factory.config.ConfigurableBeanFactory
 import com.wanna.framework.beans.factory.config.ConfigurableListableBeanFactory
 import com.wanna.framework.beans.factory.exception.NoSuchBeanDefinitionException
@@ -15,12 +16,16 @@ import com.wanna.framework.beans.factory.support.definition.BeanDefinition
 import com.wanna.framework.beans.factory.support.definition.RootBeanDefinition
 import com.wanna.framework.core.ParameterNameDiscoverer
 import com.wanna.framework.core.ResolvableType
+import com.wanna.framework.core.SpringProperties
 import com.wanna.framework.core.comparator.AnnotationAwareOrderComparator
 import com.wanna.framework.core.comparator.OrderComparator
 import com.wanna.framework.lang.Nullable
 import com.wanna.framework.util.ClassUtils
 import java.util.*
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ForkJoinPool
 import java.util.function.Consumer
 import java.util.function.Predicate
 import javax.inject.Provider
@@ -49,6 +54,11 @@ open class DefaultListableBeanFactory : ConfigurableListableBeanFactory, BeanDef
         @JvmStatic
         private val logger = LoggerFactory.getLogger(DefaultListableBeanFactory::class.java)
 
+        /**
+         * 是否需要去开启单实例Bean的并行预实例化的属性名
+         */
+        const val PARALLEL_PRE_INSTANTIATION_PROPERTY_NAME = "spring.beans.parallel-pre-instantiation"
+
         init {
             try {
                 javaxInjectProviderClass =
@@ -107,6 +117,40 @@ open class DefaultListableBeanFactory : ConfigurableListableBeanFactory, BeanDef
      */
     private var manualSingletonNames = LinkedHashSet<String>()
 
+    /**
+     * beanType对应的beanNames列表的缓存(包含非单例Bean), Key-beanType, Value-该类型对应的beanNames;
+     * 只有在配置信息已经被冻结的情况下, 才会去使用该缓存
+     *
+     * @see isConfigurationFrozen
+     */
+    private val allBeanNamesByType = ConcurrentHashMap<Class<*>, List<String>>(64)
+
+    /**
+     * beanType对应的beanNames列表的缓存(只包含单例Bean), Key-beanType, Value-该类型对应的beanNames;
+     * 只有在配置信息已经被冻结的情况下, 才会去使用该缓存
+     *
+     * @see isConfigurationFrozen
+     */
+    private val singletonBeanNamesByType = ConcurrentHashMap<Class<*>, List<String>>(64)
+
+    /**
+     * BeanDefinition的配置信息是否已经被冻结? 冻结之后, 就可以对beanType对应的beanNames去进行缓存
+     */
+    @Volatile
+    private var configurationFrozen = false
+
+    /**
+     * 是否需要去并行地完成单实例Bean的预实例化? 默认为false, 可以通过"spring.beans.parallel-pre-instantiation"这个SpringProperties去进行开启
+     *
+     * @see SpringProperties
+     */
+    private var parallelPreInstantiation = SpringProperties.getFlag(PARALLEL_PRE_INSTANTIATION_PROPERTY_NAME)
+
+    /**
+     * 并行预实例化单实例Bean时要使用的并行度, 默认为CPU核数
+     */
+    private var preInstantiationParallelism = Runtime.getRuntime().availableProcessors()
+
     /**
      * 按照类型去注入一个可以被解析的依赖, 比如BeanFactory/ApplicationContext, 就需要去进行注册, 方便使用者可以去进行@Autowired注入
      *
@@ -130,23 +174,11 @@ open class DefaultListableBeanFactory : ConfigurableListableBeanFactory, BeanDef
         // copy一份BeanDefinitionNames去进行实例化, 避免在初始化过程当中又遇到了新注册进来的BeanDefinition的情况, 这时候会出现并发修改异常
         val beanDefinitionNames = ArrayList(this.beanDefinitionNames)
 
-        beanDefinitionNames.forEach { beanName ->
-            val mbd: RootBeanDefinition = getMergedLocalBeanDefinition(beanName)
-            // 如果该Bean是单例的、非抽象的、非懒加载的, 那么需要在这里去完成初始化...
-            if (mbd.isSingleton() && !mbd.isAbstract() && !mbd.isLazyInit()) {
-
-                // 如果它是一个SmartFactoryBean, 并且渴望去进行初始化, 才需要去进行getBean
-                if (isFactoryBean(beanName)) {
-                    val bean = getBean(FACTORY_BEAN_PREFIX + beanName)
-                    if (bean is SmartFactoryBean<*> && bean.isEagerInit()) {
-                        getBean(beanName)
-                    }
-
-                    // 如果它不是FactoryBean, 那么直接去getBean完成Bean的实例化和初始化工作
-                } else {
-                    getBean(beanName)
-                }
-            }
+        // 如果开启了并行预实例化, 那么根据Bean之间的依赖关系, 将互相独立的Bean交给线程池去进行并行地实例化
+        if (isParallelPreInstantiation()) {
+            ParallelSingletonPreInstantiator(beanDefinitionNames).preInstantiate()
+        } else {
+            beanDefinitionNames.forEach(this::preInstantiateSingleton)
         }
 
         // 在初始化完所有的单实例Bean之后, 需要回调所有的SmartInitializingSingleton, 完成Bean的初始化工作...
@@ -162,6 +194,84 @@ open class DefaultListableBeanFactory : ConfigurableListableBeanFactory, BeanDef
         }
     }
 
+    /**
+     * 如果给定的Bean是单例的、非抽象的、非懒加载的, 那么去完成该Bean的预实例化
+     *
+     * @param beanName beanName
+     */
+    private fun preInstantiateSingleton(beanName: String) {
+        val mbd: RootBeanDefinition = getMergedLocalBeanDefinition(beanName)
+        // 如果该Bean是单例的、非抽象的、非懒加载的, 那么需要在这里去完成初始化...
+        if (isPreInstantiationCandidate(mbd)) {
+
+            // 如果它是一个SmartFactoryBean, 并且渴望去进行初始化, 才需要去进行getBean
+            if (isFactoryBean(beanName)) {
+                val bean = getBean(FACTORY_BEAN_PREFIX + beanName)
+                if (bean is SmartFactoryBean<*> && bean.isEagerInit()) {
+                    getBean(beanName)
+                }
+
+                // 如果它不是FactoryBean, 那么直接去getBean完成Bean的实例化和初始化工作
+            } else {
+                getBean(beanName)
+            }
+        }
+    }
+
+    /**
+     * 根据Bean之间的依赖关系(dependsOn/factoryBeanName/BeanReference), 对给定的Bean去进行排序, 被依赖的Bean排在前面;
+     * 只考虑给定的Bean之间的依赖关系, 对于依赖图当中存在的环, 环上的Bean之间的顺序不做保证
+     *
+     * @param beanNames 要去进行排序的beanName列表(不存在BeanDefinition的beanName将会被忽略掉)
+     * @return 按照创建顺序排序之后的beanName列表
+     */
+    open fun getBeanNamesInCreationOrder(beanNames: Collection<String>): List<String> =
+        SingletonDependencyGraph(beanNames.filter(this::containsBeanDefinition)).sort()
+
+    /**
+     * 检查给定的MergedBeanDefinition对应的Bean是否需要去进行预实例化?
+     *
+     * @param mbd MergedBeanDefinition
+     * @return 如果是单例的、非抽象的、非懒加载的, return true; 否则return false
+     */
+    private fun isPreInstantiationCandidate(mbd: RootBeanDefinition): Boolean =
+        mbd.isSingleton() && !mbd.isAbstract() && !mbd.isLazyInit()
+
+    /**
+     * 设置是否需要去并行地完成单实例Bean的预实例化, 开启之后, 互相之间没有依赖关系的单实例Bean将会在ForkJoinPool当中去进行并行地创建
+     *
+     * @param parallelPreInstantiation 是否开启并行预实例化
+     */
+    open fun setParallelPreInstantiation(parallelPreInstantiation: Boolean) {
+        this.parallelPreInstantiation = parallelPreInstantiation
+    }
+
+    /**
+     * 是否需要去并行地完成单实例Bean的预实例化?
+     *
+     * @return 如果开启了并行预实例化, return true; 否则return false
+     */
+    open fun isParallelPreInstantiation(): Boolean = this.parallelPreInstantiation
+
+    /**
+     * 设置并行预实例化单实例Bean时要使用的并行度(线程数)
+     *
+     * @param parallelism 并行度, 必须大于0
+     */
+    open fun setPreInstantiationParallelism(parallelism: Int) {
+        if (parallelism <= 0) {
+            throw IllegalArgumentException("parallelism must be greater than 0, but got $parallelism")
+        }
+        this.preInstantiationParallelism = parallelism
+    }
+
+    /**
+     * 获取并行预实例化单实例Bean时要使用的并行度(线程数)
+     *
+     * @return parallelism
+     */
+    open fun getPreInstantiationParallelism(): Int = this.preInstantiationParallelism
+
     /**
      * 给定一个beanName, 去判断该Bean是否是FactoryBean
      *
@@ -897,7 +1007,7 @@ open class DefaultListableBeanFactory : ConfigurableListableBeanFactory, BeanDef
      * @return BeanDefinitionNames当中是否存在有该name对应的BeanDefinition?
      * @see getBeanDefinition
      */
-    override fun containsBeanDefinition(name: String): Boolean = beanDefinitionNames.contains(name)
+    override fun containsBeanDefinition(name: String): Boolean = beanDefinitionMap.containsKey(name)
 
     /**
      * 获取BeanDefinition, 一定能获取到, 如果获取不到直接抛出异常;
@@ -938,6 +1048,9 @@ open class DefaultListableBeanFactory : ConfigurableListableBeanFactory, BeanDef
 
         // clear Merged BeanDefinition
         clearMergedBeanDefinition(name)
+
+        // BeanDefinition发生了变更, 之前根据beanType去进行缓存的beanNames已经失效
+        clearByTypeCache()
     }
 
     /**
@@ -1017,7 +1130,36 @@ open class DefaultListableBeanFactory : ConfigurableListableBeanFactory, BeanDef
 
             // 覆盖之前的BeanDefinition
             beanDefinitionMap[name] = beanDefinition
+
+            // 之前的BeanDefinition已经被覆盖, 之前Merged的BeanDefinition需要重新去进行Merge
+            clearMergedBeanDefinition(name)
         }
+
+        // BeanDefinition发生了变更, 之前根据beanType去进行缓存的beanNames已经失效
+        clearByTypeCache()
+    }
+
+    /**
+     * 冻结所有的BeanDefinition的配置信息, 在此之后就可以对beanType对应的beanNames去进行缓存
+     */
+    override fun freezeConfiguration() {
+        clearByTypeCache()
+        this.configurationFrozen = true
+    }
+
+    /**
+     * 当前BeanFactory的BeanDefinition的配置信息是否已经被冻结?
+     *
+     * @return 如果已经冻结, return true; 否则return false
+     */
+    override fun isConfigurationFrozen(): Boolean = this.configurationFrozen
+
+    /**
+     * 清除掉根据beanType去进行缓存的beanNames
+     */
+    protected open fun clearByTypeCache() {
+        this.allBeanNamesByType.clear()
+        this.singletonBeanNamesByType.clear()
     }
 
     /**
@@ -1054,6 +1196,9 @@ open class DefaultListableBeanFactory : ConfigurableListableBeanFactory, BeanDef
                 val updatedManualSingleNames = LinkedHashSet(this.manualSingletonNames)
                 action.accept(updatedManualSingleNames)
                 this.manualSingletonNames = updatedManualSingleNames
+
+                // 手动注册的单例Bean也会参与类型的匹配, 因此也需要清除掉根据beanType去进行缓存的beanNames
+                clearByTypeCache()
             }
         }
     }
@@ -1119,7 +1264,23 @@ open class DefaultListableBeanFactory : ConfigurableListableBeanFactory, BeanDef
     override fun getBeanNamesForType(
         type: Class<*>, includeNonSingletons: Boolean, allowEagerInit: Boolean
     ): List<String> {
-        return doGetBeanNamesForType(type, includeNonSingletons, allowEagerInit)
+        // 如果配置信息还没冻结, BeanDefinition还可能发生变化, 那么不能使用缓存;
+        // 如果不允许eagerInit, 匹配结果会受到FactoryBean是否已经完成实例化的影响, 也不能使用缓存
+        if (!isConfigurationFrozen() || !allowEagerInit) {
+            return doGetBeanNamesForType(type, includeNonSingletons, allowEagerInit)
+        }
+        val cache = if (includeNonSingletons) this.allBeanNamesByType else this.singletonBeanNamesByType
+        var resolvedBeanNames = cache[type]
+        if (resolvedBeanNames != null) {
+            return resolvedBeanNames
+        }
+        resolvedBeanNames = Collections.unmodifiableList(doGetBeanNamesForType(type, includeNonSingletons, true))
+
+        // 只有当beanType可以被当前BeanFactory的ClassLoader所加载时, 才去进行缓存, 避免ClassLoader泄漏
+        if (ClassUtils.isCacheSafe(type, getBeanClassLoader())) {
+            cache[type] = resolvedBeanNames
+        }
+        return resolvedBeanNames!!
     }
 
     /**
@@ -1134,9 +1295,14 @@ open class DefaultListableBeanFactory : ConfigurableListableBeanFactory, BeanDef
      */
     private fun doGetBeanNamesForType(
         type: Class<*>, includeNonSingletons: Boolean, allowEagerInit: Boolean
-    ): List<String> {
+    ): MutableList<String> {
         val beanNames = ArrayList<String>()
-        for (beanName in getBeanDefinitionNames()) {
+
+        // 对于所有的BeanDefinition去进行匹配时, 都使用同一个ResolvableType, 避免每次匹配时都去重新构建
+        val resolvableType = ResolvableType.forClass(type)
+
+        // Note: beanDefinitionNames采用写时复制的方式去进行更新, 因此这里直接迭代是安全的, 不必再去copy一份
+        for (beanName in this.beanDefinitionNames) {
             var beanNameToUse = beanName
             val mbd = getMergedLocalBeanDefinition(beanNameToUse)
             val isFactoryBean = isFactoryBean(beanNameToUse, mbd)
@@ -1146,18 +1312,24 @@ open class DefaultListableBeanFactory : ConfigurableListableBeanFactory, BeanDef
             var matchFound = false
             // 如果它不是一个FactoryBean的话, 那么直接去匹配就行
             if (!isFactoryBean) {
-                if (isTypeMatch(beanNameToUse, ResolvableType.forClass(type), allowFactoryBeanInit)) {
+                if ((includeNonSingletons || mbd.isSingleton())
+                    && isTypeMatch(beanNameToUse, resolvableType, allowFactoryBeanInit)
+                ) {
                     matchFound = true
                 }
                 // 如果它是一个FactoryBean的话, 那么需要匹配beanName, 也要匹配&beanName
             } else {
-                if (isTypeMatch(beanNameToUse, ResolvableType.forClass(type), allowFactoryBeanInit)) {
+                if ((includeNonSingletons || mbd.isSingleton())
+                    && isTypeMatch(beanNameToUse, resolvableType, allowFactoryBeanInit)
+                ) {
                     matchFound = true
                 }
                 if (!matchFound) {
                     // fixed: 如果是FactoryBean才匹配了你给的类型, 那么说明你想要的是FactoryBean, 我们必须给beanName加上&
                     beanNameToUse = FACTORY_BEAN_PREFIX + beanName
-                    if (isTypeMatch(beanNameToUse, ResolvableType.forClass(type), allowFactoryBeanInit)) {
+                    if ((includeNonSingletons || mbd.isSingleton())
+                        && isTypeMatch(beanNameToUse, resolvableType, allowFactoryBeanInit)
+                    ) {
                         matchFound = true
 
                     }
@@ -1201,4 +1373,158 @@ open class DefaultListableBeanFactory : ConfigurableListableBeanFactory, BeanDef
      * @return allowBeanDefinitionOverriding
      */
     open fun isAllowBeanDefinitionOverriding(): Boolean = this.allowBeanDefinitionOverriding
+
+    /**
+     * 单实例Bean的并行预实例化器, 根据[SingletonDependencyGraph]去得到Bean之间的依赖关系,
+     * 一个Bean只有在它所依赖的Bean都完成创建之后才会去进行创建, 互相之间没有依赖关系的Bean将会在ForkJoinPool当中去进行并行地创建.
+     *
+     * Note: 通过@Autowired等方式注入的依赖无法从BeanDefinition当中推断出来, 依赖图当中的环上的边也会被忽略掉, 因此互相依赖的Bean可能会在不同的线程当中去进行创建;
+     * 对于这些依赖, 会在创建Bean的过程当中, 通过单例Bean的创建锁去进行等待, 如果多个线程之间出现了循环依赖(等待图当中出现了环),
+     * 将会使用早期引用去进行解决, 具体参见[DefaultSingletonBeanRegistry.getSingleton]
+     *
+     * @param beanNames 要去进行预实例化的beanName列表
+     */
+    private inner class ParallelSingletonPreInstantiator(beanNames: List<String>) {
+
+        /**
+         * 需要去进行预实例化的Bean之间的依赖图
+         */
+        private val dependencyGraph =
+            SingletonDependencyGraph(beanNames.filter { isPreInstantiationCandidate(getMergedLocalBeanDefinition(it)) })
+
+        /**
+         * 执行所有的单实例Bean的并行预实例化, 阻塞直到所有的Bean都完成创建
+         *
+         * @throws BeansException 如果有Bean创建失败的话, 抛出第一个失败的Bean的异常
+         */
+        fun preInstantiate() {
+            val classLoader = getBeanClassLoader()
+            val threadFactory = ForkJoinPool.ForkJoinWorkerThreadFactory { pool ->
+                val worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool)
+                worker.name = "pre-instantiate-" + worker.poolIndex
+                worker.contextClassLoader = classLoader
+                worker
+            }
+            val pool = ForkJoinPool(getPreInstantiationParallelism(), threadFactory, null, false)
+            try {
+                val futures = LinkedHashMap<String, CompletableFuture<Void>>()
+                dependencyGraph.sort().forEach { beanName ->
+                    val dependencyFutures = dependencyGraph.getDependencies(beanName).mapNotNull { futures[it] }.toTypedArray()
+                    futures[beanName] = CompletableFuture.allOf(*dependencyFutures)
+                        .thenRunAsync({ preInstantiateSingletonWithStep(beanName) }, pool)
+                }
+                try {
+                    CompletableFuture.allOf(*futures.values.toTypedArray()).join()
+                } catch (ex: CompletionException) {
+                    val cause = ex.cause ?: ex
+                    if (cause is RuntimeException) throw cause
+                    if (cause is Error) throw cause
+                    throw ex
+                }
+            } finally {
+                pool.shutdown()
+            }
+        }
+
+        /**
+         * 对单个Bean去进行预实例化, 并使用ApplicationStartup去记录下来该Bean的创建过程(方便去分析启动过程当中的关键路径)
+         *
+         * @param beanName beanName
+         */
+        private fun preInstantiateSingletonWithStep(beanName: String) {
+            val step = getApplicationStartup().start("spring.beans.pre-instantiate")
+                .tag("beanName", beanName)
+                .tag("thread", Thread.currentThread().name)
+                .tag("dependsOn") { dependencyGraph.getDependencies(beanName).toString() }
+            try {
+                preInstantiateSingleton(beanName)
+            } catch (ex: Throwable) {
+                step.tag("exception", ex::class.java.toString())
+                step.tag("message", ex.message ?: "")
+                throw ex
+            } finally {
+                step.end()
+            }
+        }
+    }
+
+    /**
+     * 单实例Bean之间的依赖图, 根据MergedBeanDefinition当中的dependsOn/factoryBeanName/BeanReference去构建,
+     * 只会记录给定的beanName列表之间的依赖关系
+     *
+     * @param beanNames 要去构建依赖图的beanName列表
+     */
+    private inner class SingletonDependencyGraph(beanNames: Collection<String>) {
+
+        /**
+         * 依赖图当中的beanName列表
+         */
+        private val candidateNames = LinkedHashSet(beanNames)
+
+        /**
+         * 依赖图, Key-beanName, Value-该Bean依赖的位于依赖图当中的beanName列表
+         */
+        private val dependencies = LinkedHashMap<String, Set<String>>()
+
+        init {
+            candidateNames.forEach { dependencies[it] = resolveDependencies(it) }
+        }
+
+        /**
+         * 获取给定的Bean所依赖的位于依赖图当中的beanName列表
+         *
+         * @param beanName beanName
+         * @return 该Bean依赖的beanName列表
+         */
+        fun getDependencies(beanName: String): Set<String> = dependencies[beanName]!!
+
+        /**
+         * 根据依赖关系对Bean去进行拓扑排序(被依赖的Bean排在前面), 对于依赖图当中存在的环, 直接忽略掉环上的最后一条边;
+         * 因此环上的Bean并不保证会在同一个线程当中去进行创建, 它们之间的循环依赖由单例Bean的创建锁以及早期引用去进行解决
+         *
+         * @return 排序之后的beanName列表
+         */
+        fun sort(): List<String> {
+            val sorted = LinkedHashSet<String>()
+            val visiting = HashSet<String>()
+            fun visit(beanName: String) {
+                if (beanName in sorted || !visiting.add(beanName)) {
+                    return
+                }
+                dependencies[beanName]!!.forEach(::visit)
+                visiting -= beanName
+                sorted += beanName
+            }
+            candidateNames.forEach(::visit)
+
+            // 移除掉环上的边, 避免CompletableFuture之间出现互相等待的情况
+            val positions = HashMap<String, Int>()
+            sorted.forEachIndexed { index, beanName -> positions[beanName] = index }
+            dependencies.replaceAll { beanName, deps -> deps.filterTo(LinkedHashSet()) { positions[it]!! < positions[beanName]!! } }
+            return ArrayList(sorted)
+        }
+
+        /**
+         * 从MergedBeanDefinition当中去解析出来给定的Bean所依赖的位于依赖图当中的beanName列表
+         *
+         * @param beanName beanName
+         * @return 该Bean依赖的beanName列表
+         */
+        private fun resolveDependencies(beanName: String): Set<String> {
+            val mbd = getMergedLocalBeanDefinition(beanName)
+            val result = LinkedHashSet<String>()
+            result += mbd.getDependsOn()
+            mbd.getFactoryBeanName()?.let { result += it }
+            mbd.getConstructorArgumentValues().getIndexedArgumentValue().values.forEach { addBeanReference(result, it.value) }
+            mbd.getConstructorArgumentValues().getGenericArguments().forEach { addBeanReference(result, it.value) }
+            mbd.getPropertyValues().getPropertyValues().forEach { addBeanReference(result, it.value) }
+            return result.map { transformBeanName(it) }.filterTo(LinkedHashSet()) { it != beanName && it in candidateNames }
+        }
+
+        private fun addBeanReference(result: MutableSet<String>, @Nullable value: Any?) {
+            if (value is BeanReference) {
+                result += value.getBeanName()
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import com.wanna.framework.beans.factory.config.SingletonBeanRegistry
 import com.wanna.framework.lang.Nullable
 import java.util.*
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.locks.ReentrantLock
 
 /**
  * 它是一个默认的单实例Bean的注册中心, 维护了SpringBeanFactory的三级缓存, 可以从三级缓存当中去获取Bean
@@ -66,6 +67,28 @@ open class DefaultSingletonBeanRegistry : SingletonBeanRegistry {
      */
     private val disposableBeans = LinkedHashMap<String, DisposableBean>()
 
+    /**
+     * 每个单例Bean的创建锁, 不同的单例Bean可以被不同的线程去进行并发地创建, 同一个单例Bean同一时刻只能被一个线程去进行创建;
+     * 锁在被最外层的持有者释放时就会被移除掉(此时该Bean已经被注册到一级缓存当中, 或者是已经创建失败), 不会为每个Bean都一直保留一把锁
+     */
+    private val singletonCreationLocks = ConcurrentHashMap<String, SingletonCreationLock>(256)
+
+    /**
+     * 正在创建单例Bean的线程, Key-beanName, Value-正在创建该Bean的线程;
+     * 只有正在创建该Bean的线程, 才能看到该Bean的早期引用(二级缓存/三级缓存)
+     */
+    private val singletonCreationThreads = ConcurrentHashMap<String, Thread>(16)
+
+    /**
+     * 等待图(wait-for graph), Key-正在等待别的线程去完成单例Bean的创建的线程, Value-该线程正在等待的创建锁, 用于去检测多个线程之间的死锁
+     */
+    private val threadsWaitingForSingleton = ConcurrentHashMap<Thread, SingletonCreationLock>(16)
+
+    /**
+     * 等待图的锁, 在等待图当中登记等待关系以及检测环这两个操作需要是原子的, 否则两个线程同时登记时可能都检测不到环
+     */
+    private val waitForGraphMonitor = Any()
+
     /**
      * 根据beanName去获取单实例的Bean
      *
@@ -78,7 +101,8 @@ open class DefaultSingletonBeanRegistry : SingletonBeanRegistry {
         var singletonObject = singletonObjects[beanName]
 
         // 如果一级缓存中没有, 并且当前Bean已经正在创建当中了, 那么说明有可能在二级缓存/三级缓存中
-        if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
+        // Note: 如果该Bean正在被别的线程所创建, 那么它的早期引用对当前线程不可见, 当前线程应该等待别的线程完成创建
+        if (singletonObject == null && isSingletonCurrentlyInCreation(beanName) && isEarlyReferenceVisible(beanName)) {
             singletonObject = earlySingletonObjects[beanName]
 
             // 如果二级缓存中没有, 那么判断, 是否允许了早期引用? 如果允许的话, 那么说明允许循环依赖, 有可能在三级缓存当中
@@ -120,26 +144,197 @@ open class DefaultSingletonBeanRegistry : SingletonBeanRegistry {
      * @return 获取到的单例对象(获取不到return null)
      */
     open fun getSingleton(beanName: String, factory: ObjectFactory<*>): Any? {
-        // beforeSingletonCreation...
-        beforeSingletonCreation(beanName)
+        // 获取到该Bean的创建锁, 如果该Bean正在被别的线程所创建, 那么需要等待别的线程完成创建
+        val lock = acquireCreationLock(beanName)
+        try {
+            // 在等待锁的过程当中, 别的线程可能已经完成了该Bean的创建, 那么直接return
+            val existingObject = singletonObjects[beanName]
+            if (existingObject != null) {
+                return existingObject
+            }
+
+            // 如果没有拿到锁, 说明多个线程之间发生了循环依赖, 持有锁的线程正在等待当前线程,
+            // 此时该Bean的早期引用是稳定的, 我们直接使用它的早期引用(和单线程情况下的循环依赖的处理方式一致)
+            if (lock == null) {
+                return getEarlySingletonForDeadlock(beanName)
+            }
+
+            // beforeSingletonCreation...
+            beforeSingletonCreation(beanName)
+
+            val singletonObject: Any?
+            val newCreation: Boolean
+            singletonCreationThreads[beanName] = Thread.currentThread()
+            try {
+                // 调用objectFactory.getObject获取Bean, 一般ObjectFactory在这里会是createBean方法
+                singletonObject = factory.getObject()
+                newCreation = true
+            } catch (ex: Exception) {
+                throw ex
+            } finally {
+                singletonCreationThreads.remove(beanName)
+
+                // afterSingletonCreation...
+                afterSingletonCreation(beanName)
+            }
+            // 如果是新创建的, 还需要将Bean加入到一级缓存的列表当中
+            if (newCreation && singletonObject != null) {
+                addSingleton(beanName, singletonObject)
+            }
+            return singletonObject
+        } finally {
+            if (lock != null) {
+                releaseCreationLock(beanName, lock)
+            }
+        }
+    }
 
-        val singletonObject: Any?
-        val newCreation: Boolean
+    /**
+     * 持有给定的单例Bean的锁去执行给定的操作(例如从FactoryBean当中去获取单例的FactoryBeanObject),
+     * 如果等待锁的过程当中发现和别的线程之间发生了死锁, 那么将会在不持有锁的情况下去执行该操作
+     *
+     * @param beanName beanName
+     * @param action 要去执行的操作
+     * @return 操作的执行结果
+     */
+    protected open fun <T> doWithSingletonLock(beanName: String, action: () -> T): T {
+        val lock = acquireCreationLock(beanName)
+        val currentThread = Thread.currentThread()
+        val previousThread = if (lock != null) singletonCreationThreads.put(beanName, currentThread) else null
         try {
-            // 调用objectFactory.getObject获取Bean, 一般ObjectFactory在这里会是createBean方法
-            singletonObject = factory.getObject()
-            newCreation = true
-        } catch (ex: Exception) {
-            throw ex
+            return action.invoke()
         } finally {
-            // afterSingletonCreation...
-            afterSingletonCreation(beanName)
+            if (lock != null) {
+                if (previousThread != null) {
+                    singletonCreationThreads[beanName] = previousThread
+                } else {
+                    singletonCreationThreads.remove(beanName)
+                }
+                releaseCreationLock(beanName, lock)
+            }
+        }
+    }
+
+    /**
+     * 获取某个单例Bean的创建锁, 如果锁正在被别的线程所持有, 那么阻塞等待;
+     * 在开始等待之前, 会在等待图当中登记当前线程正在等待的锁, 并检查是否会形成环(也就是多个线程之间出现了循环依赖).
+     *
+     * Note: 一个环上的等待关系, 一定是由最后一个开始等待的线程去补全的, 因此只需要在开始等待时去进行一次检查, 不需要在等待的过程当中去进行轮询
+     *
+     * @param beanName beanName
+     * @return 获取到的创建锁; 如果发生了死锁(多个线程之间出现了循环依赖), return null
+     */
+    @Nullable
+    private fun acquireCreationLock(beanName: String): SingletonCreationLock? {
+        val currentThread = Thread.currentThread()
+        while (true) {
+            val lock = singletonCreationLocks.computeIfAbsent(beanName) { SingletonCreationLock() }
+            if (!lock.tryLock()) {
+                synchronized(waitForGraphMonitor) {
+                    if (isCreationDeadlocked(lock, currentThread)) {
+                        if (logger.isDebugEnabled) {
+                            logger.debug("线程[${currentThread.name}]和正在创建Bean[$beanName]的线程之间发生了循环依赖, 将会使用该Bean的早期引用")
+                        }
+                        return null
+                    }
+                    threadsWaitingForSingleton[currentThread] = lock
+                }
+                try {
+                    lock.lockInterruptibly()
+                } catch (ex: InterruptedException) {
+                    Thread.currentThread().interrupt()
+                    throw BeanCurrentlyInCreationException("等待Bean[$beanName]的创建时线程被中断", ex, beanName)
+                } finally {
+                    threadsWaitingForSingleton.remove(currentThread)
+                }
+            }
+
+            // 在等待的过程当中, 该锁可能已经被之前的持有者从Map当中移除掉了, 此时需要重新去获取最新的锁, 保证同一时刻只有一个线程可以去创建该Bean
+            if (singletonCreationLocks[beanName] === lock) {
+                return lock
+            }
+            lock.unlock()
         }
-        // 如果是新创建的, 还需要将Bean加入到一级缓存的列表当中
-        if (newCreation && singletonObject != null) {
-            addSingleton(beanName, singletonObject)
+    }
+
+    /**
+     * 释放某个单例Bean的创建锁, 如果是最外层的持有者去进行释放, 那么将该锁从Map当中移除掉
+     *
+     * @param beanName beanName
+     * @param lock 该Bean的创建锁
+     */
+    private fun releaseCreationLock(beanName: String, lock: SingletonCreationLock) {
+        if (lock.holdCount == 1) {
+            singletonCreationLocks.remove(beanName, lock)
         }
-        return singletonObject
+        lock.unlock()
+    }
+
+    /**
+     * 检查当前线程如果去等待给定的锁, 是否会导致死锁? (需要在持有[waitForGraphMonitor]的情况下去进行调用)
+     * 沿着等待图当中的"锁->持有锁的线程->该线程正在等待的锁"这条链路去进行寻找, 如果最终回到了当前线程, 那么说明发生了死锁
+     *
+     * @param lock 当前线程想要去等待的锁
+     * @param currentThread 当前线程
+     * @return 如果发生了死锁, return true; 否则return false
+     */
+    private fun isCreationDeadlocked(lock: SingletonCreationLock, currentThread: Thread): Boolean {
+        val visited = HashSet<Thread>()
+        var waitingLock: SingletonCreationLock? = lock
+        while (waitingLock != null) {
+            val owner = waitingLock.getOwner() ?: return false
+            if (owner == currentThread) {
+                return true
+            }
+            if (!visited.add(owner)) {
+                return false
+            }
+            val nextLock = threadsWaitingForSingleton[owner]
+
+            // 如果该线程已经拿到了它在等待的锁(只是还没有来得及从等待图当中移除), 那么它并不处于等待状态
+            if (nextLock != null && nextLock.getOwner() == owner) {
+                return false
+            }
+            waitingLock = nextLock
+        }
+        return false
+    }
+
+    /**
+     * 在多个线程之间发生循环依赖时, 获取到别的线程正在创建的Bean的早期引用
+     *
+     * @param beanName beanName
+     * @return 该Bean的早期引用
+     * @throws BeanCurrentlyInCreationException 如果该Bean并未暴露早期引用(例如构造器循环依赖)
+     */
+    private fun getEarlySingletonForDeadlock(beanName: String): Any {
+        synchronized(singletonObjects) {
+            var singletonObject = singletonObjects[beanName] ?: earlySingletonObjects[beanName]
+            if (singletonObject == null) {
+                val objectFactory = singletonFactories[beanName]
+                if (objectFactory != null) {
+                    val earlySingletonObject = objectFactory.getObject() as Any
+                    singletonFactories.remove(beanName)
+                    earlySingletonObjects[beanName] = earlySingletonObject
+                    singletonObject = earlySingletonObject
+                }
+            }
+            return singletonObject ?: throw BeanCurrentlyInCreationException(
+                "[$beanName]正在被别的线程创建当中, 并且无法获取到它的早期引用", null, beanName
+            )
+        }
+    }
+
+    /**
+     * 检查给定的正在创建当中的Bean的早期引用, 对于当前线程是否可见?
+     * 只有正在创建该Bean的线程(或者是没有线程正在创建它时), 才能看到它的早期引用
+     *
+     * @param beanName beanName
+     * @return 如果早期引用对于当前线程可见, return true; 否则return false
+     */
+    protected open fun isEarlyReferenceVisible(beanName: String): Boolean {
+        val creationThread = singletonCreationThreads[beanName]
+        return creationThread == null || creationThread == Thread.currentThread()
     }
 
     /**
@@ -217,6 +412,13 @@ open class DefaultSingletonBeanRegistry : SingletonBeanRegistry {
         return singletonsCurrentlyInCreation.contains(beanName)
     }
 
+    /**
+     * 当前是否存在有正在创建当中的单实例Bean(不管是在哪个线程当中创建的)?
+     *
+     * @return 如果存在有正在创建当中的单实例Bean, return true; 否则return false
+     */
+    open fun hasSingletonsCurrentlyInCreation(): Boolean = singletonsCurrentlyInCreation.isNotEmpty()
+
     /**
      * 设置某个Bean是否正在创建当中的状态
      *
@@ -373,10 +575,18 @@ open class DefaultSingletonBeanRegistry : SingletonBeanRegistry {
             this.earlySingletonObjects.clear()
             this.singletonFactories.clear()
             this.registeredSingletons.clear()
+            this.singletonCreationLocks.clear()
             this.singletonsCurrentlyInDestruction = false
         }
     }
 
+    /**
+     * 单例Bean的创建锁, 暴露出来持有该锁的线程, 用于在等待图当中去检测死锁
+     */
+    private class SingletonCreationLock : ReentrantLock() {
+        public override fun getOwner(): Thread? = super.getOwner()
+    }
+
     /**
      * 摧毁当前的SingleBeanRegistry所有的单实例Bean
      */
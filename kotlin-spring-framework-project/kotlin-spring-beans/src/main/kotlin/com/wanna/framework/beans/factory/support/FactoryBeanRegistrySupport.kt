@@ -1,6 +1,7 @@
 package com.wanna.framework.beans.factory.support
 
 import com.wanna.framework.beans.factory.FactoryBean
+import java.util.concurrent.ConcurrentHashMap
 
 /**
  * 它是一个FactoryBean的注册中心, 在DefaultSingletonBeanRegistry的基础上, 新增了FactoryBean的缓存的支持和管理...
@@ -15,7 +16,7 @@ open class FactoryBeanRegistrySupport : DefaultSingletonBeanRegistry() {
     /**
      * FactoryBeanObject的缓存列表
      */
-    private val factoryBeanObjectCache = LinkedHashMap<String, Any>()
+    private val factoryBeanObjectCache = ConcurrentHashMap<String, Any>(16)
 
     /**
      * 根据beanName从FactoryBeanObject当中去获取FactoryBeanObject
@@ -35,7 +36,8 @@ open class FactoryBeanRegistrySupport : DefaultSingletonBeanRegistry() {
     open fun getObjectFromFactoryBean(factoryBean: FactoryBean<*>, beanName: String, shouldProcess: Boolean): Any {
         // 1.如果该FactoryBean是单例的, 并且已经包含了该SingletonBean的话...
         if (containsSingleton(beanName) && factoryBean.isSingleton()) {
-            synchronized(getSingletonMutex()) {
+            // Note: 这里只去加上该FactoryBean自身的锁, 而不是全局的单例锁, 避免FactoryBean.getObject当中去getBean时和别的线程发生死锁
+            return doWithSingletonLock(beanName) {
                 // 尝试从缓存去进行获取, 如果获取不到, 那么就去构建一波FactoryBeanObject
                 var factoryBeanObject = factoryBeanObjectCache[beanName]
                 if (factoryBeanObject == null) {
@@ -50,7 +52,7 @@ open class FactoryBeanRegistrySupport : DefaultSingletonBeanRegistry() {
                 if (containsSingleton(beanName)) {
                     factoryBeanObjectCache[beanName] = factoryBeanObject!!  // put Cache
                 }
-                return factoryBeanObject!!
+                factoryBeanObject!!
             }
 
             // 如果还没有包含该Singleton, 或者它是Prototype的FactoryBean的话...
@@ -47,9 +47,9 @@ abstract class AbstractBeanDefinition : BeanDefinition, BeanMetadataAttributeAcc
         target.setInstanceSupplier(origin.getInstanceSupplier())
         target.setFactoryBeanName(origin.getFactoryBeanName())
         target.setFactoryMethodName(origin.getFactoryMethodName())
-        target.setLazyInit(origin.isLazyInit())
         target.setAutowireCandidate(origin.isAutowireCandidate())
         if (origin is AbstractBeanDefinition && target is AbstractBeanDefinition) {
+            target.lazyInit = origin.lazyInit
             target.setBeanClassName(origin.beanClassName)
             target.setSource(origin.getSource())
             target.setSynthetic(origin.synthetic)
@@ -61,6 +61,8 @@ abstract class AbstractBeanDefinition : BeanDefinition, BeanMetadataAttributeAcc
             target.setResource(origin.resource)
             target.constructorArgumentValues = ConstructorArgumentValues(origin.constructorArgumentValues)
             this.getPropertyValues().addPropertyValues(origin.propertyValues.getPropertyValues().toList())
+        } else {
+            target.setLazyInit(origin.isLazyInit())
         }
     }
 
@@ -142,9 +144,10 @@ abstract class AbstractBeanDefinition : BeanDefinition, BeanMetadataAttributeAcc
     private var autowireCandidate = true
 
     /**
-     * 是否懒加载, 默认为false
+     * 是否懒加载, 为null时代表没有被显式地设置过, 此时按照非懒加载去进行处理
      */
-    private var lazyInit = false
+    @Nullable
+    private var lazyInit: Boolean? = null
 
     /**
      * Bean所依赖的Bean的列表, 设置的是依赖的BeanName
@@ -399,12 +402,20 @@ abstract class AbstractBeanDefinition : BeanDefinition, BeanMetadataAttributeAcc
      * 是否是懒加载的? 如果是非懒加载的, 那么在SpringBeanFactory启动时, 就会完成实例化和初始化工作;
      * 如果设置为懒加载, 那么只有在你第一次去进行getBean时, 才会完成该Bean的初始化工作
      */
-    override fun isLazyInit() = lazyInit
+    override fun isLazyInit() = lazyInit ?: false
 
     override fun setLazyInit(lazyInit: Boolean) {
         this.lazyInit = lazyInit
     }
 
+    /**
+     * 获取显式设置的lazyInit, 可以用来区分"默认的非懒加载"和"显式指定为非懒加载(例如@Lazy(false))"这两种情况
+     *
+     * @return 显式设置的lazyInit(如果没有被显式设置过, return null)
+     */
+    @Nullable
+    open fun getLazyInit(): Boolean? = lazyInit
+
     override fun setDependsOn(dependsOn: Array<String>) {
         this.dependsOn = dependsOn
     }
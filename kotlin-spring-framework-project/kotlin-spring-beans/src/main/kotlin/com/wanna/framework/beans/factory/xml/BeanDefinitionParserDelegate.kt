@@ -499,9 +499,9 @@ class BeanDefinitionParserDelegate(val readerContext: XmlReaderContext) {
             bd.setAbstract(element.getAttribute(ABSTRACT_ATTRIBUTE) == TRUE_VALUE)
         }
 
-        // 设置lazyInit属性(默认为false, 只有配置了true才会为true)
+        // 设置lazyInit属性(没有配置时保持未设置的状态, 配置了true才会为true, 配置了false则为显式的非懒加载)
         val lazyInit = element.getAttribute(LAZY_INIT_ATTRIBUTE)
-        if (!StringUtils.hasText(lazyInit)) {
+        if (StringUtils.hasText(lazyInit)) {
             bd.setLazyInit(TRUE_VALUE == lazyInit)
         }
 
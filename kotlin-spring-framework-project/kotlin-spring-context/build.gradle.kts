@@ -1,3 +1,7 @@
+plugins {
+    id("me.champeau.jmh") version (jmhPluginVersion)
+}
+
 dependencies {
 
     // for runtime
@@ -16,3 +20,8 @@ dependencies {
     testImplementation("com.alibaba:druid:$druidVersion")
     testImplementation("mysql:mysql-connector-java:$mysqlVersion")
 }
+
+// jmh benchmark, 使用"gradle jmh"去运行"src/jmh"下的Benchmark
+jmh {
+    jmhVersion.set(jmhCoreVersion)
+}
@@ -0,0 +1,129 @@
+package com.wanna.framework.context.index
+
+import com.wanna.framework.asm.ClassWriter
+import com.wanna.framework.asm.Opcodes
+import com.wanna.framework.context.annotation.AnnotationConfigApplicationContext
+import com.wanna.framework.context.stereotype.Component
+import org.openjdk.jmh.annotations.*
+import java.io.File
+import java.net.URLClassLoader
+import java.nio.file.Files
+import java.util.concurrent.TimeUnit
+
+/**
+ * 使用候选组件索引和使用类路径扫描去启动ApplicationContext的耗时的Benchmark,
+ * 在[setup]时会去生成[classCount]个类(其中每[COMPONENT_RATIO]个类当中有一个标注了@Component), 并使用[CandidateComponentsIndexer]去生成索引,
+ * "indexed"使用包含索引的ClassLoader, "scanned"使用不包含索引的ClassLoader
+ *
+ * 使用"gradle :kotlin-spring-framework-project:kotlin-spring-context:jmh"去运行
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class CandidateComponentsIndexBenchmark {
+
+    /**
+     * 要去生成的类的数量
+     */
+    @Param("500", "3000")
+    @JvmField
+    var classCount = 0
+
+    private lateinit var workDir: File
+
+    private lateinit var indexedClassLoader: URLClassLoader
+
+    private lateinit var scannedClassLoader: URLClassLoader
+
+    @Setup
+    fun setup() {
+        workDir = Files.createTempDirectory("components-index").toFile()
+        val classesDir = File(workDir, "classes")
+        val indexDir = File(workDir, "index")
+        generateClasses(classesDir, classCount)
+
+        val indexer = CandidateComponentsIndexer()
+        indexer.write(
+            indexer.index(listOf(classesDir)),
+            File(indexDir, CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION)
+        )
+
+        val parent = CandidateComponentsIndexBenchmark::class.java.classLoader
+        indexedClassLoader = URLClassLoader(arrayOf(classesDir.toURI().toURL(), indexDir.toURI().toURL()), parent)
+        scannedClassLoader = URLClassLoader(arrayOf(classesDir.toURI().toURL()), parent)
+    }
+
+    @TearDown
+    fun tearDown() {
+        indexedClassLoader.close()
+        scannedClassLoader.close()
+        workDir.deleteRecursively()
+    }
+
+    @Benchmark
+    fun indexed(): Int = startContext(indexedClassLoader)
+
+    @Benchmark
+    fun scanned(): Int = startContext(scannedClassLoader)
+
+    /**
+     * 将给定的ClassLoader作为线程上下文ClassLoader, 去扫描[BASE_PACKAGE]并启动ApplicationContext
+     *
+     * @param classLoader ClassLoader
+     * @return 启动之后的ApplicationContext当中的BeanDefinition的数量
+     */
+    private fun startContext(classLoader: ClassLoader): Int {
+        val thread = Thread.currentThread()
+        val previousClassLoader = thread.contextClassLoader
+        thread.contextClassLoader = classLoader
+        try {
+            val applicationContext = AnnotationConfigApplicationContext(BASE_PACKAGE)
+            val count = applicationContext.getBeanDefinitionCount()
+            applicationContext.close()
+            return count
+        } finally {
+            thread.contextClassLoader = previousClassLoader
+        }
+    }
+
+    /**
+     * 在给定的目录下, 去生成[count]个拥有无参构造器的类, 其中每[COMPONENT_RATIO]个类当中有一个标注了@Component
+     *
+     * @param classesDir 输出的目录
+     * @param count 类的数量
+     */
+    private fun generateClasses(classesDir: File, count: Int) {
+        val packageDir = File(classesDir, BASE_PACKAGE.replace('.', '/'))
+        packageDir.mkdirs()
+        for (index in 0 until count) {
+            val internalName = BASE_PACKAGE.replace('.', '/') + "/Generated$index"
+            val writer = ClassWriter(ClassWriter.COMPUTE_MAXS)
+            writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, internalName, null, "java/lang/Object", null)
+            if (index % COMPONENT_RATIO == 0) {
+                writer.visitAnnotation("L" + Component::class.java.name.replace('.', '/') + ";", true).visitEnd()
+            }
+            val constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null)
+            constructor.visitCode()
+            constructor.visitVarInsn(Opcodes.ALOAD, 0)
+            constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false)
+            constructor.visitInsn(Opcodes.RETURN)
+            constructor.visitMaxs(0, 0)
+            constructor.visitEnd()
+            writer.visitEnd()
+            File(packageDir, "Generated$index.class").writeBytes(writer.toByteArray())
+        }
+    }
+
+    companion object {
+        private const val BASE_PACKAGE = "com.wanna.benchmark.generated"
+
+        private const val COMPONENT_RATIO = 20
+    }
+}
@@ -0,0 +1,106 @@
+package com.wanna.framework.transaction.interceptor
+
+import com.wanna.framework.aop.intercept.MethodInvocation
+import com.wanna.framework.transaction.PlatformTransactionManager
+import com.wanna.framework.transaction.TransactionDefinition
+import com.wanna.framework.transaction.TransactionStatus
+import com.wanna.framework.transaction.annotation.AnnotationTransactionAttributeSource
+import com.wanna.framework.transaction.annotation.Transactional
+import com.wanna.framework.transaction.support.DefaultTransactionStatus
+import org.openjdk.jmh.annotations.*
+import java.lang.reflect.Method
+import java.util.concurrent.TimeUnit
+
+/**
+ * 被[TransactionInterceptor]拦截的事务方法的调用的Benchmark, 对比使用TransactionAttribute的缓存,
+ * 以及每次调用都重新去进行@Transactional注解的解析的情况下的吞吐量
+ *
+ * 使用"gradle :kotlin-spring-framework-project:kotlin-spring-context:jmh"去运行
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/6
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class TransactionInterceptorBenchmark {
+
+    private lateinit var cachedInterceptor: TransactionInterceptor
+
+    private lateinit var uncachedInterceptor: TransactionInterceptor
+
+    private lateinit var transactionalInvocation: MethodInvocation
+
+    private lateinit var nonTransactionalInvocation: MethodInvocation
+
+    @Setup
+    fun setup() {
+        cachedInterceptor = createInterceptor(AnnotationTransactionAttributeSource())
+        uncachedInterceptor = createInterceptor(UncachedTransactionAttributeSource())
+        val service = UserServiceImpl()
+        transactionalInvocation = BenchmarkMethodInvocation(service, UserService::class.java.getMethod("save"))
+        nonTransactionalInvocation = BenchmarkMethodInvocation(service, UserService::class.java.getMethod("find"))
+    }
+
+    @Benchmark
+    fun cachedTransactional(): Any? = cachedInterceptor.invoke(transactionalInvocation)
+
+    @Benchmark
+    fun uncachedTransactional(): Any? = uncachedInterceptor.invoke(transactionalInvocation)
+
+    @Benchmark
+    fun cachedNonTransactional(): Any? = cachedInterceptor.invoke(nonTransactionalInvocation)
+
+    @Benchmark
+    fun uncachedNonTransactional(): Any? = uncachedInterceptor.invoke(nonTransactionalInvocation)
+
+    private fun createInterceptor(source: TransactionAttributeSource): TransactionInterceptor {
+        val interceptor = TransactionInterceptor()
+        interceptor.setTransactionAttributeSource(source)
+        interceptor.setTransactionManager(NoopTransactionManager())
+        return interceptor
+    }
+
+    /**
+     * 原来的执行方式: 每次都去重新解析@Transactional注解
+     */
+    class UncachedTransactionAttributeSource : AnnotationTransactionAttributeSource() {
+        override fun getTransactionAttribute(method: Method, targetClass: Class<*>?): TransactionAttribute? =
+            computeTransactionAttribute(method, targetClass)
+    }
+
+    /**
+     * 不操作真实的资源的事务管理器, 只为了排除掉数据库的开销
+     */
+    class NoopTransactionManager : PlatformTransactionManager {
+        override fun getTransaction(definition: TransactionDefinition?): TransactionStatus =
+            DefaultTransactionStatus(null, true, false, null)
+
+        override fun rollback(status: TransactionStatus) {}
+
+        override fun commit(status: TransactionStatus) {}
+    }
+
+    class BenchmarkMethodInvocation(private val target: Any, private val method: Method) : MethodInvocation {
+        override fun getMethod(): Method = method
+        override fun getArguments(): Array<Any?> = emptyArray()
+        override fun getThis(): Any = target
+        override fun proceed(): Any? = method.invoke(target)
+    }
+
+    interface UserService {
+        fun save(): Int
+        fun find(): Int
+    }
+
+    open class UserServiceImpl : UserService {
+        @Transactional
+        override fun save(): Int = 1
+
+        override fun find(): Int = 2
+    }
+}
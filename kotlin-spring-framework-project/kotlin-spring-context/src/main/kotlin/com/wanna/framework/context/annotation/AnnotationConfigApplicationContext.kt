@@ -6,6 +6,7 @@ import com.wanna.framework.context.annotation.AnnotationConfigUtils.CONFIGURATIO
 import com.wanna.framework.context.support.AbstractApplicationContext
 import com.wanna.framework.context.support.GenericApplicationContext
 import com.wanna.framework.core.environment.ConfigurableEnvironment
+import com.wanna.framework.core.io.ResourceLoader
 
 /**
  * 这是一个支持注解的处理的ApplicationContext,
@@ -68,6 +69,16 @@ open class AnnotationConfigApplicationContext(beanFactory: DefaultListableBeanFa
         this.reader.setEnvironment(environment)
     }
 
+    /**
+     * 设置ResourceLoader, 同时也将它设置给Scanner, 让Scanner使用它去进行资源的加载以及候选组件索引的加载
+     *
+     * @param resourceLoader ResourceLoader
+     */
+    override fun setResourceLoader(resourceLoader: ResourceLoader) {
+        super.setResourceLoader(resourceLoader)
+        this.scanner.setResourceLoader(resourceLoader)
+    }
+
     /**
      * 设置注册时, 要使用的BeanNameGenerator, 在进行ConfigurationClassPostProcessor, 支持从容器当中去进行获取BeanNameGenerator,
      * 也就是说, 通过ApplicationContext的setBeanNameGenerator, 可以替换全局的BeanNameGenerator
@@ -98,10 +98,10 @@ object AnnotationConfigUtils {
             abd.setPrimary(true)
         }
 
-        // 如果标注了@Lazy注解, 将BeanDefinition的LazyInit设置为true
+        // 如果标注了@Lazy注解, 将BeanDefinition的LazyInit设置为@Lazy注解的value(@Lazy(false)代表显式地指定为非懒加载)
         val lazy = metadata.isAnnotated(Lazy::class.java.name)
         if (lazy) {
-            abd.setLazyInit(true)
+            abd.setLazyInit(metadata.getAnnotations().get(Lazy::class.java).getBoolean(MergedAnnotation.VALUE))
         }
 
         // 如果标注了Role注解, 需要设置Bean的Role信息
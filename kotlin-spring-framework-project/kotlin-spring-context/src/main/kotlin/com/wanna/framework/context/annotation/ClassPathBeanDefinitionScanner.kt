@@ -120,16 +120,6 @@ open class ClassPathBeanDefinitionScanner @JvmOverloads constructor(
         return beanDefinitions
     }
 
-    /**
-     * 从指定的包下, 扫描出来所有的BeanDefinitions列表, 默认实现是创建ScannedGenericBeanDefinition
-     *
-     * @param packageName 指定需要去进行扫描BeanDefinition的包名
-     * @return 指定的包下扫描得到的所有的BeanDefinition的列表
-     */
-    open fun findCandidateComponents(packageName: String): Set<BeanDefinition> {
-        return scanCandidateComponents(packageName)
-    }
-
     /**
      * 设置BeanNameGenerator
      *
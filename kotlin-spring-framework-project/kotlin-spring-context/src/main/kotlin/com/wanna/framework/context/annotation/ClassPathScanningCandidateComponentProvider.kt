@@ -5,10 +5,14 @@ import com.wanna.framework.beans.factory.support.definition.AnnotatedBeanDefinit
 import com.wanna.framework.beans.factory.support.definition.BeanDefinition
 import com.wanna.framework.beans.factory.support.definition.ScannedGenericBeanDefinition
 import com.wanna.framework.context.ResourceLoaderAware
+import com.wanna.framework.context.index.CandidateComponentsIndex
+import com.wanna.framework.context.index.CandidateComponentsIndexLoader
 import com.wanna.framework.context.stereotype.Component
+import com.wanna.framework.context.stereotype.Indexed
 import com.wanna.framework.core.environment.Environment
 import com.wanna.framework.core.environment.EnvironmentCapable
 import com.wanna.framework.core.environment.StandardEnvironment
+import com.wanna.framework.core.io.Resource
 import com.wanna.framework.core.io.ResourceLoader
 import com.wanna.framework.core.io.support.ResourcePatternResolver
 import com.wanna.framework.core.io.support.ResourcePatternResolver.Companion.CLASSPATH_ALL_URL_PREFIX
@@ -17,9 +21,11 @@ import com.wanna.framework.core.type.classreading.CachingMetadataReaderFactory
 import com.wanna.framework.core.type.classreading.MetadataReader
 import com.wanna.framework.core.type.classreading.MetadataReaderFactory
 import com.wanna.framework.core.type.filter.AnnotationTypeFilter
+import com.wanna.framework.core.type.filter.AssignableTypeFilter
 import com.wanna.framework.core.type.filter.TypeFilter
 import com.wanna.framework.lang.Nullable
 import com.wanna.framework.util.ClassUtils
+import com.wanna.framework.util.ResourceUtils.CLASSPATH_URL_PREFIX
 import com.wanna.common.logging.Logger
 import com.wanna.common.logging.LoggerFactory
 import java.io.IOException
@@ -81,6 +87,13 @@ open class ClassPathScanningCandidateComponentProvider(
     @Nullable
     private var metadataReaderFactory: MetadataReaderFactory? = null
 
+    /**
+     * 候选组件的索引, 如果类路径下不存在有索引的话, 那么为null
+     */
+    @Nullable
+    private var componentsIndex: CandidateComponentsIndex? =
+        CandidateComponentsIndexLoader.loadIndex(resourcePatternResolver.getClassLoader())
+
     init {
         // 是否要应用默认的Filter? 默认情况下, 需要去匹配@Component的Bean
         if (useDefaultFilters) {
@@ -88,6 +101,85 @@ open class ClassPathScanningCandidateComponentProvider(
         }
     }
 
+    /**
+     * 给定一个候选的包, 去寻找该包下的候选的组件
+     *
+     * * 1.如果类路径下存在有候选组件的索引("META-INF/spring.components"), 并且所有的includeFilter都支持使用索引,
+     * 并且索引对于该包没有过期, 那么直接从索引当中去获取候选的组件, 只需要去对索引当中的类去进行解析;
+     * * 2.否则, 对该包下的所有的类去进行扫描
+     *
+     * @param basePackage 要扫描的包? (支持去进行占位符解析)
+     * @return 该包下找到的所有的候选BeanDefinition
+     * @see CandidateComponentsIndex
+     */
+    open fun findCandidateComponents(basePackage: String): Set<BeanDefinition> {
+        val componentsIndex = this.componentsIndex
+        if (componentsIndex != null && indexSupportsIncludeFilters()) {
+            val resolvedBasePackage = getEnvironment().resolvePlaceholders(basePackage)!!
+            if (componentsIndex.isUpToDate(resolvedBasePackage)) {
+                val candidates = addCandidateComponentsFromIndex(componentsIndex, resolvedBasePackage)
+                if (candidates != null) {
+                    return candidates
+                }
+            }
+            if (logger.isDebugEnabled) {
+                logger.debug("Candidate components index is stale for package [$basePackage], fallback to scanning")
+            }
+        }
+        return scanCandidateComponents(basePackage)
+    }
+
+    /**
+     * 从候选组件的索引当中, 去获取到给定的包下的候选的组件
+     *
+     * @param index 候选组件的索引
+     * @param basePackage 要寻找的包(已经完成占位符解析)
+     * @return 该包下找到的所有的候选BeanDefinition(如果发现索引当中的类已经不存在了, 说明索引已经过期, return null)
+     */
+    @Nullable
+    private fun addCandidateComponentsFromIndex(index: CandidateComponentsIndex, basePackage: String): Set<BeanDefinition>? {
+        val candidates = LinkedHashSet<BeanDefinition>()
+        val types = LinkedHashSet<String>()
+        this.includeFilters.forEach { types += index.getCandidateTypes(basePackage, extractStereotype(it)!!) }
+        for (type in types) {
+            val resource = getResourcePatternResolver().getResource(
+                CLASSPATH_URL_PREFIX + ClassUtils.convertClassNameToResourcePath(type) + ClassUtils.CLASS_FILE_SUFFIX
+            )
+            if (!resource.exists()) {
+                return null
+            }
+            addCandidateComponent(resource, candidates)
+        }
+        return candidates
+    }
+
+    /**
+     * 检查所有的includeFilter是否都支持使用索引? 只有所有的includeFilter都能被转换为Stereotype时, 才能使用索引
+     *
+     * @return 如果全部都支持的话, return true; 否则return false
+     */
+    private fun indexSupportsIncludeFilters(): Boolean = this.includeFilters.all { extractStereotype(it) != null }
+
+    /**
+     * 从给定的TypeFilter当中, 去提取到它在索引当中对应的Stereotype
+     *
+     * @param filter TypeFilter
+     * @return Stereotype(如果该Filter不支持使用索引的话, return null)
+     * @see Indexed
+     */
+    @Nullable
+    private fun extractStereotype(filter: TypeFilter): String? {
+        if (filter is AnnotationTypeFilter) {
+            val annotationType = filter.getAnnotationType()
+            return if (annotationType.isAnnotationPresent(Indexed::class.java)) annotationType.name else null
+        }
+        if (filter is AssignableTypeFilter) {
+            val targetType = filter.getTargetType()
+            return if (targetType.isAnnotationPresent(Indexed::class.java)) targetType.name else null
+        }
+        return null
+    }
+
     /**
      * 给定一个候选的包, 去扫描该包下的候选的组件
      *
@@ -103,48 +195,58 @@ open class ClassPathScanningCandidateComponentProvider(
                 if (logger.isTraceEnabled) {
                     logger.trace("Scanning resource... [$it]")
                 }
-                if (it.isReadable()) {
-                    try {
-                        // 读取到当前资源对应的MetadataReader
-                        val metadataReader = getMetadataReaderFactory().getMetadataReader(it)
-
-                        // 如果它能够被TypeFilter所匹配上, 那么需要创建BeanDefinition并收集起来...
-                        if (isCandidateComponent(metadataReader)) {
-                            val beanDefinition = ScannedGenericBeanDefinition(metadataReader)
-                            beanDefinition.setSource(it)
-
-                            // 对BeanDefinition去进行检查, 排除掉抽象类
-                            if (isCandidateComponent(beanDefinition)) {
-                                if (logger.isDebugEnabled) {
-                                    logger.debug("Resource [$it] will be a candidate BeanDefinition to register")
-                                }
-                                candidates += beanDefinition
-                            } else {
-                                if (logger.isDebugEnabled) {
-                                    logger.debug("Resource of abstract class $it has been filtered")
-                                }
-                            }
-                        } else {
-                            if (logger.isTraceEnabled) {
-                                logger.trace("Ignore cannot match by filter resource $it")
-                            }
+                addCandidateComponent(it, candidates)
+            }
+        } catch (ex: IOException) {
+            throw IllegalStateException("Read resource file Error", ex)
+        }
+        return candidates
+    }
+
+    /**
+     * 对给定的资源去进行解析, 如果它是一个候选的组件, 那么创建BeanDefinition并收集起来
+     *
+     * @param resource 类的资源
+     * @param candidates 收集候选BeanDefinition的结果集
+     */
+    private fun addCandidateComponent(resource: Resource, candidates: MutableSet<BeanDefinition>) {
+        if (resource.isReadable()) {
+            try {
+                // 读取到当前资源对应的MetadataReader
+                val metadataReader = getMetadataReaderFactory().getMetadataReader(resource)
+
+                // 如果它能够被TypeFilter所匹配上, 那么需要创建BeanDefinition并收集起来...
+                if (isCandidateComponent(metadataReader)) {
+                    val beanDefinition = ScannedGenericBeanDefinition(metadataReader)
+                    beanDefinition.setSource(resource)
+
+                    // 对BeanDefinition去进行检查, 排除掉抽象类
+                    if (isCandidateComponent(beanDefinition)) {
+                        if (logger.isDebugEnabled) {
+                            logger.debug("Resource [$resource] will be a candidate BeanDefinition to register")
                         }
-                    } catch (ex: Throwable) {
-                        // temp ignore LinkageError
-                        if (ex !is NoClassDefFoundError) {
-                            throw IllegalStateException("Cannot read given resource [$it]", ex)
+                        candidates += beanDefinition
+                    } else {
+                        if (logger.isDebugEnabled) {
+                            logger.debug("Resource of abstract class $resource has been filtered")
                         }
                     }
                 } else {
                     if (logger.isTraceEnabled) {
-                        logger.debug("Ignore a cannot readable resource [$it]")
+                        logger.trace("Ignore cannot match by filter resource $resource")
                     }
                 }
+            } catch (ex: Throwable) {
+                // temp ignore LinkageError
+                if (ex !is NoClassDefFoundError) {
+                    throw IllegalStateException("Cannot read given resource [$resource]", ex)
+                }
+            }
+        } else {
+            if (logger.isTraceEnabled) {
+                logger.debug("Ignore a cannot readable resource [$resource]")
             }
-        } catch (ex: IOException) {
-            throw IllegalStateException("Read resource file Error", ex)
         }
-        return candidates
     }
 
     /**
@@ -168,6 +270,9 @@ open class ClassPathScanningCandidateComponentProvider(
 
         // 在设置ResourceLoader时, 也去创建一下MetadataReaderFactory, 去提供资源的加载
         this.metadataReaderFactory = CachingMetadataReaderFactory(resourceLoader)
+
+        // 使用ResourceLoader的ClassLoader去重新加载候选组件的索引
+        this.componentsIndex = CandidateComponentsIndexLoader.loadIndex(resourceLoader.getClassLoader())
     }
 
     /**
@@ -176,7 +281,7 @@ open class ClassPathScanningCandidateComponentProvider(
      * @param metadataReaderFactory MetadataReaderFactory
      */
     open fun setMetadataReaderFactory(metadataReaderFactory: MetadataReaderFactory) {
-        this.metadataReaderFactory
+        this.metadataReaderFactory = metadataReaderFactory
     }
 
     /**
@@ -1,7 +1,6 @@
 package com.wanna.framework.context.annotation
 
 import com.wanna.common.logging.LoggerFactory
-import com.wanna.framework.beans.BeanUtils
 import com.wanna.framework.beans.factory.config.BeanDefinitionRegistry
 import com.wanna.framework.beans.factory.support.BeanDefinitionHolder
 import com.wanna.framework.beans.factory.support.BeanDefinitionReader
@@ -15,12 +14,12 @@ import com.wanna.framework.context.annotation.DeferredImportSelector.Group.Entry
 import com.wanna.framework.context.stereotype.Component
 import com.wanna.framework.core.annotation.*
 import com.wanna.framework.core.comparator.AnnotationAwareOrderComparator
-import com.wanna.framework.core.environment.CompositePropertySource
 import com.wanna.framework.core.environment.ConfigurableEnvironment
 import com.wanna.framework.core.environment.Environment
 import com.wanna.framework.core.io.ResourceLoader
-import com.wanna.framework.core.io.support.DefaultPropertySourceFactory
+import com.wanna.framework.core.io.support.PropertySourceDescriptor
 import com.wanna.framework.core.io.support.PropertySourceFactory
+import com.wanna.framework.core.io.support.PropertySourceProcessor
 import com.wanna.framework.core.type.AnnotationMetadata
 import com.wanna.framework.core.type.MethodMetadata
 import com.wanna.framework.core.type.StandardAnnotationMetadata
@@ -30,10 +29,7 @@ import com.wanna.framework.core.type.filter.AssignableTypeFilter
 import com.wanna.framework.lang.Nullable
 import com.wanna.framework.util.ClassUtils
 import com.wanna.framework.util.StringUtils
-import java.io.FileNotFoundException
 import java.io.IOException
-import java.net.SocketException
-import java.net.UnknownHostException
 import java.util.*
 import java.util.function.Predicate
 
@@ -55,12 +51,6 @@ open class ConfigurationClassParser(
         @JvmStatic
         private val logger = LoggerFactory.getLogger(ConfigurationClass::class.java)
 
-        /**
-         * 默认情况下的[PropertySourceFactory], 用于去创建PropertySource, 并注册到Spring的[Environment]当中
-         */
-        @JvmStatic
-        private val DEFAULT_PROPERTY_SOURCE_FACTORY = DefaultPropertySourceFactory()
-
         /**
          * DeferredImportSelectorHolder的比较器, 因为对[DeferredImportSelector]包装了一层,
          * 因此对于Comparator也需要去进行适配一层
@@ -116,6 +106,18 @@ open class ConfigurationClassParser(
      */
     private val objectSourceClass = SourceClass(Any::class.java)
 
+    /**
+     * 负责将@PropertySource导入的资源添加到Spring Environment当中的处理器
+     */
+    private val propertySourceProcessor by lazy {
+        PropertySourceProcessor(this.environment as ConfigurableEnvironment, this.resourceLoader)
+    }
+
+    /**
+     * 已经处理过的@PropertySource的信息(按照处理的顺序)
+     */
+    private val propertySourceDescriptors = ArrayList<PropertySourceDescriptor>()
+
     /**
      * 获取导入被@Import配置类的信息的注册中心(导入栈), 用来处理ImportAware接口的注入Metadata信息
      *
@@ -130,6 +132,13 @@ open class ConfigurationClassParser(
      */
     open fun getConfigurationClasses(): Set<ConfigurationClass> = this.configClasses.keys
 
+    /**
+     * 获取当前[ConfigurationClassParser]已经处理过的@PropertySource的信息列表
+     *
+     * @return 按照处理顺序的PropertySourceDescriptor列表
+     */
+    open fun getPropertySourceDescriptors(): List<PropertySourceDescriptor> = this.propertySourceDescriptors
+
     /**
      * 解析容器中已经有的BeanDefinition当中的相关导入组件的配置类;
      * 一个BeanDefinitionHolder当中维护了beanDefinition和beanName信息
@@ -409,60 +418,31 @@ open class ConfigurationClassParser(
                 throw IllegalStateException("@PropertySource(value)必须配置至少一个资源路径")
             }
 
-            // 创建PropertySourceFactory, 交给它去完成配置文件(Properties)的加载工作...
-            // 如果有自定义PropertySourceFactory的话, 那么需要使用用户自定义的PropertySourceFactory
+            // 如果有自定义PropertySourceFactory的话, 那么需要使用用户自定义的PropertySourceFactory去完成配置文件的加载
             val factoryClass = propertySource.getClass("factory")
+            @Suppress("UNCHECKED_CAST")
             val propertySourceFactory =
-                if (factoryClass == PropertySourceFactory::class.java) DEFAULT_PROPERTY_SOURCE_FACTORY
-                else BeanUtils.instantiateClass(factoryClass) as PropertySourceFactory
+                if (factoryClass == PropertySourceFactory::class.java) null
+                else factoryClass as Class<out PropertySourceFactory>
 
-            // 遍历给定的所有资源的位置(location), 使用PropertySourceFactory去进行加载
-            locations.forEach {
+            // location支持使用占位符, 这里需要去进行解析占位符, 无法解析的location视为资源不存在
+            val resolvedLocations = ArrayList<String>()
+            for (location in locations) {
                 try {
-                    // location支持使用占位符, 这里需要去进行解析占位符
-                    val location = this.environment.resolveRequiredPlaceholders(it)
-                    val resource = resourceLoader.getResource(location)
-                    addPropertySource(propertySourceFactory.createPropertySource(name, resource))
-                } catch (ex: Exception) {
-                    if (ex is IllegalArgumentException || ex is SocketException || ex is FileNotFoundException || ex is UnknownHostException) {
-                        if (ignoreResourceNotFound) {
-                            logger.info("给定的资源路径[$it]未找到, 将会被忽略掉...")
-                            return
-                        }
+                    resolvedLocations += this.environment.resolveRequiredPlaceholders(location)
+                } catch (ex: IllegalArgumentException) {
+                    if (!ignoreResourceNotFound) {
+                        throw ex
                     }
-                    throw ex
+                    logger.info("给定的资源路径[$location]未找到, 将会被忽略掉...")
                 }
             }
-        }
-    }
-
-    /**
-     * 添加一个PropertySource到Spring Environment当中
-     *
-     * @param propertySource 要去进行添加的PropertySource
-     */
-    private fun addPropertySource(propertySource: com.wanna.framework.core.environment.PropertySource<*>) {
-        val name = propertySource.name
-        val propertySources = (this.environment as ConfigurableEnvironment).getPropertySources()
-
-        if (propertySources.contains(name)) {
-            val oldPropertySource = propertySources.get(name)!!
-
-            // 如果之前就是CompositePropertySource, 那么直接添加到之前的后面就行
-            if (oldPropertySource is CompositePropertySource) {
-                oldPropertySource.addPropertySource(propertySource)
-
-                // 如果之前还不是组合的PropertySource, 那么需要组合旧的和新的
-            } else {
-                val composite = CompositePropertySource(name)
-                composite.addPropertySource(oldPropertySource)
-                composite.addPropertySource(propertySource)
-                propertySources.replace(name, composite)  // replace
-            }
 
-            // 如果之前都还没存在过该name的PropertySource, 直接addLast到Environment当中
-        } else {
-            propertySources.addLast(propertySource)
+            // 交给PropertySourceProcessor去加载资源并添加到Environment当中, 同时记录下来, 供AOT生成快照时去使用
+            val descriptor =
+                PropertySourceDescriptor(resolvedLocations, ignoreResourceNotFound, name, propertySourceFactory)
+            propertySourceProcessor.processPropertySource(descriptor)
+            propertySourceDescriptors += descriptor
         }
     }
 
@@ -0,0 +1,581 @@
+package com.wanna.framework.context.aot
+
+import com.wanna.framework.beans.factory.config.BeanDefinitionRegistry
+import com.wanna.framework.beans.factory.config.RuntimeBeanReference
+import com.wanna.framework.beans.factory.support.BeanNameGenerator
+import com.wanna.framework.beans.factory.support.definition.AbstractBeanDefinition
+import com.wanna.framework.beans.factory.support.definition.BeanDefinition
+import com.wanna.framework.beans.factory.support.definition.GenericBeanDefinition
+import com.wanna.framework.beans.factory.support.definition.RootBeanDefinition
+import com.wanna.framework.context.annotation.ImportBeanDefinitionRegistrar
+import com.wanna.framework.context.annotation.ImportRegistry
+import com.wanna.framework.context.annotation.ParserStrategyUtils
+import com.wanna.framework.core.environment.ConfigurableEnvironment
+import com.wanna.framework.core.environment.Environment
+import com.wanna.framework.core.io.ResourceLoader
+import com.wanna.framework.core.io.support.PropertySourceDescriptor
+import com.wanna.framework.core.io.support.PropertySourceFactory
+import com.wanna.framework.core.io.support.PropertySourceProcessor
+import com.wanna.framework.core.type.AnnotationMetadata
+import com.wanna.framework.core.type.classreading.MetadataReaderFactory
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.ClassUtils
+import com.wanna.framework.util.StringUtils
+import java.io.File
+import java.io.Writer
+import java.util.Properties
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 配置类解析结果的快照, 在构建时通过执行配置类的解析(只执行到BeanDefinition的注册为止)去生成,
+ * 在运行时可以直接使用快照去注册BeanDefinition, 从而跳过配置类的解析(类路径的扫描/注解的解析/条件的计算等).
+ *
+ * 快照当中按照注册的顺序记录了两种条目:
+ *
+ * * 1.[BeanDefinitionEntry], 可以被直接序列化的BeanDefinition(例如@ComponentScan扫描得到的/@Import导入的/@Bean方法的BeanDefinition),
+ * 只会记录beanClassName/factoryMethodName等属性, @Bean方法在运行时会根据方法名去进行解析;
+ * * 2.[RegistrarEntry], [ImportBeanDefinitionRegistrar]的一次执行, 由Registrar注册的BeanDefinition(可能带有InstanceSupplier等无法序列化的信息)
+ * 不会被序列化, 而是在运行时使用导入它的类的注解信息去重新执行一次该Registrar.
+ *
+ * 此外, 快照当中还记录了配置类上的@PropertySource导入的资源(已经完成占位符的解析), 在运行时注册BeanDefinition之前,
+ * 会先将这些资源添加到Environment当中, 和配置类的解析过程保持一致.
+ *
+ * 快照使用Properties的格式去进行存储, 例如:
+ *
+ * ```properties
+ * version=2
+ * configurationClasses=com.wanna.example.App
+ * activeProfiles=
+ * propertySources=1
+ * propertySource.0.location.0=classpath:app.properties
+ * entries=2
+ * entry.0.bean=userService
+ * entry.0.definition=generic
+ * entry.0.beanClass=com.wanna.example.UserService
+ * entry.1.registrar=com.wanna.boot.context.properties.EnableConfigurationPropertiesRegistrar
+ * entry.1.importingClass=com.wanna.example.App
+ * ```
+ *
+ * @param configurationClasses 生成快照时的配置类列表(按照处理的顺序), 运行时需要和当前的配置类列表完全一致才能使用该快照
+ * @param activeProfiles 生成快照时的ActiveProfiles
+ * @param entries 快照的条目(按照注册的顺序)
+ * @param imports 配置类的导入关系, Key-被导入的配置类, Value-导入它的类, 用于在运行时去支持[com.wanna.framework.context.annotation.ImportAware]
+ * @param introspectedClasses 在生成快照时使用反射的方式去获取注解信息的类, 运行时也需要使用反射的方式去获取注解信息, 从而和构建时保持一致
+ * @param propertySources 配置类上的@PropertySource导入的资源(按照处理的顺序)
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ *
+ * @see BeanDefinitionSnapshotLoader
+ * @see BeanDefinitionSnapshotRecorder
+ * @see BeanDefinitionSnapshotGenerator
+ */
+open class BeanDefinitionSnapshot(
+    val configurationClasses: List<String>,
+    val activeProfiles: List<String>,
+    val entries: List<Entry>,
+    val imports: Map<String, String>,
+    val introspectedClasses: Set<String>,
+    val propertySources: List<PropertySourceDescriptor>
+) {
+
+    companion object {
+
+        /**
+         * 快照格式的版本号
+         */
+        const val VERSION = "2"
+
+        private const val VERSION_KEY = "version"
+        private const val CONFIGURATION_CLASSES_KEY = "configurationClasses"
+        private const val ACTIVE_PROFILES_KEY = "activeProfiles"
+        private const val INTROSPECTED_CLASSES_KEY = "introspectedClasses"
+        private const val ENTRIES_KEY = "entries"
+        private const val ENTRY_PREFIX = "entry."
+        private const val IMPORTS_PREFIX = "imports."
+        private const val PROPERTY_SOURCES_KEY = "propertySources"
+        private const val PROPERTY_SOURCE_PREFIX = "propertySource."
+
+        private const val BEAN = "bean"
+        private const val DEFINITION = "definition"
+        private const val BEAN_CLASS = "beanClass"
+        private const val FACTORY_BEAN_NAME = "factoryBeanName"
+        private const val FACTORY_METHOD_NAME = "factoryMethodName"
+        private const val SCOPE = "scope"
+        private const val LAZY_INIT = "lazyInit"
+        private const val PRIMARY = "primary"
+        private const val ABSTRACT = "abstract"
+        private const val SYNTHETIC = "synthetic"
+        private const val AUTOWIRE_CANDIDATE = "autowireCandidate"
+        private const val AUTOWIRE_MODE = "autowireMode"
+        private const val ROLE = "role"
+        private const val DEPENDS_ON = "dependsOn"
+        private const val INIT_METHOD_NAME = "initMethodName"
+        private const val DESTROY_METHOD_NAME = "destroyMethodName"
+        private const val DESCRIPTION = "description"
+        private const val ATTRIBUTE_PREFIX = "attribute."
+        private const val PROPERTY_PREFIX = "property."
+        private const val REGISTRAR = "registrar"
+        private const val IMPORTING_CLASS = "importingClass"
+        private const val NAME = "name"
+        private const val LOCATION_PREFIX = "location."
+        private const val FACTORY = "factory"
+        private const val IGNORE_RESOURCE_NOT_FOUND = "ignoreResourceNotFound"
+
+        private const val DEFINITION_ROOT = "root"
+        private const val DEFINITION_GENERIC = "generic"
+
+        /**
+         * 从Properties当中去读取快照
+         *
+         * @param properties 快照文件的内容
+         * @param classLoader 用于去加载PropertySourceFactory的ClassLoader(为null时使用默认的ClassLoader)
+         * @return 读取得到的快照
+         * @throws IllegalStateException 如果快照的格式不正确
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun read(properties: Properties, @Nullable classLoader: ClassLoader? = null): BeanDefinitionSnapshot {
+            val version = properties.getProperty(VERSION_KEY)
+            if (version != VERSION) {
+                throw IllegalStateException("Unsupported bean definition snapshot version [$version], expected [$VERSION]")
+            }
+            val entryCount = (properties.getProperty(ENTRIES_KEY) ?: "0").toInt()
+            val entries = ArrayList<Entry>(entryCount)
+            for (index in 0 until entryCount) {
+                val prefix = "$ENTRY_PREFIX$index."
+                val registrar = properties.getProperty(prefix + REGISTRAR)
+                if (registrar != null) {
+                    entries += RegistrarEntry(registrar, getRequiredProperty(properties, prefix + IMPORTING_CLASS))
+                } else {
+                    val beanName = getRequiredProperty(properties, prefix + BEAN)
+                    entries += BeanDefinitionEntry(beanName, readBeanDefinition(properties, prefix))
+                }
+            }
+            val propertySourceCount = (properties.getProperty(PROPERTY_SOURCES_KEY) ?: "0").toInt()
+            val propertySources = ArrayList<PropertySourceDescriptor>(propertySourceCount)
+            for (index in 0 until propertySourceCount) {
+                propertySources += readPropertySource(properties, "$PROPERTY_SOURCE_PREFIX$index.", classLoader)
+            }
+            val imports = LinkedHashMap<String, String>()
+            for (key in properties.stringPropertyNames()) {
+                if (key.startsWith(IMPORTS_PREFIX)) {
+                    imports[key.substring(IMPORTS_PREFIX.length)] = properties.getProperty(key)
+                }
+            }
+            return BeanDefinitionSnapshot(
+                readList(properties, CONFIGURATION_CLASSES_KEY),
+                readList(properties, ACTIVE_PROFILES_KEY),
+                entries,
+                imports,
+                LinkedHashSet(readList(properties, INTROSPECTED_CLASSES_KEY)),
+                propertySources
+            )
+        }
+
+        /**
+         * 检查给定的BeanDefinition是否可以被序列化到快照当中
+         *
+         * @param beanName beanName
+         * @param beanDefinition BeanDefinition
+         * @throws IllegalStateException 如果该BeanDefinition无法被序列化
+         */
+        @JvmStatic
+        fun checkSupported(beanName: String, beanDefinition: BeanDefinition) {
+            val reason = when {
+                beanDefinition !is AbstractBeanDefinition -> "not an AbstractBeanDefinition"
+                beanDefinition.getInstanceSupplier() != null -> "instance supplier is not supported"
+                beanDefinition.hasMethodOverrides() -> "method overrides are not supported"
+                beanDefinition.hasConstructorArgumentValues() -> "constructor argument values are not supported"
+                else -> beanDefinition.getPropertyValues().getPropertyValues()
+                    .firstOrNull { encodeValue(it.value, true) == null }
+                    ?.let { "property value of type [${it.value!!::class.java.name}] for property '${it.name}' is not supported" }
+                    ?: beanDefinition.attributeNames()
+                        .firstOrNull { encodeValue(beanDefinition.getAttribute(it), false) == null }
+                        ?.let { "attribute '$it' of type [${beanDefinition.getAttribute(it)!!::class.java.name}] is not supported" }
+            }
+            if (reason != null) {
+                throw IllegalStateException("Cannot create bean definition snapshot for bean '$beanName': $reason")
+            }
+        }
+
+        /**
+         * 从Properties当中去读取一个@PropertySource导入的资源
+         *
+         * @param properties 快照文件的内容
+         * @param prefix 前缀("propertySource.{index}.")
+         * @param classLoader 用于去加载PropertySourceFactory的ClassLoader
+         * @return 读取得到的PropertySourceDescriptor
+         */
+        @JvmStatic
+        private fun readPropertySource(
+            properties: Properties,
+            prefix: String,
+            @Nullable classLoader: ClassLoader?
+        ): PropertySourceDescriptor {
+            val locations = ArrayList<String>()
+            while (true) {
+                locations += properties.getProperty(prefix + LOCATION_PREFIX + locations.size) ?: break
+            }
+            val factoryClassName = properties.getProperty(prefix + FACTORY)
+            return PropertySourceDescriptor(
+                locations,
+                properties.getProperty(prefix + IGNORE_RESOURCE_NOT_FOUND).toBoolean(),
+                properties.getProperty(prefix + NAME),
+                if (factoryClassName == null) null
+                else ClassUtils.forName<PropertySourceFactory>(factoryClassName, classLoader)
+            )
+        }
+
+        /**
+         * 从Properties当中去读取一个BeanDefinition
+         *
+         * @param properties 快照文件的内容
+         * @param prefix 条目的前缀("entry.{index}.")
+         * @return 读取得到的BeanDefinition
+         */
+        @JvmStatic
+        private fun readBeanDefinition(properties: Properties, prefix: String): AbstractBeanDefinition {
+            val beanDefinition = if (properties.getProperty(prefix + DEFINITION) == DEFINITION_ROOT)
+                RootBeanDefinition() else GenericBeanDefinition()
+            properties.getProperty(prefix + BEAN_CLASS)?.let { beanDefinition.setBeanClassName(it) }
+            properties.getProperty(prefix + FACTORY_BEAN_NAME)?.let { beanDefinition.setFactoryBeanName(it) }
+            properties.getProperty(prefix + FACTORY_METHOD_NAME)?.let { beanDefinition.setFactoryMethodName(it) }
+            properties.getProperty(prefix + SCOPE)?.let { beanDefinition.setScope(it) }
+            properties.getProperty(prefix + LAZY_INIT)?.let { beanDefinition.setLazyInit(it.toBoolean()) }
+            properties.getProperty(prefix + PRIMARY)?.let { beanDefinition.setPrimary(it.toBoolean()) }
+            properties.getProperty(prefix + ABSTRACT)?.let { beanDefinition.setAbstract(it.toBoolean()) }
+            properties.getProperty(prefix + SYNTHETIC)?.let { beanDefinition.setSynthetic(it.toBoolean()) }
+            properties.getProperty(prefix + AUTOWIRE_CANDIDATE)?.let { beanDefinition.setAutowireCandidate(it.toBoolean()) }
+            properties.getProperty(prefix + AUTOWIRE_MODE)?.let { beanDefinition.setAutowireMode(it.toInt()) }
+            properties.getProperty(prefix + ROLE)?.let { beanDefinition.setRole(it.toInt()) }
+            properties.getProperty(prefix + DEPENDS_ON)?.let {
+                beanDefinition.setDependsOn(StringUtils.commaDelimitedListToStringArray(it))
+            }
+            properties.getProperty(prefix + INIT_METHOD_NAME)?.let { beanDefinition.setInitMethodName(it) }
+            properties.getProperty(prefix + DESTROY_METHOD_NAME)?.let { beanDefinition.setDestroyMethodName(it) }
+            properties.getProperty(prefix + DESCRIPTION)?.let { beanDefinition.setDescription(it) }
+
+            val attributePrefix = prefix + ATTRIBUTE_PREFIX
+            val propertyPrefix = prefix + PROPERTY_PREFIX
+            for (key in properties.stringPropertyNames().sorted()) {
+                if (key.startsWith(attributePrefix)) {
+                    beanDefinition.setAttribute(
+                        key.substring(attributePrefix.length), decodeValue(properties.getProperty(key))
+                    )
+                } else if (key.startsWith(propertyPrefix)) {
+                    beanDefinition.getPropertyValues().addPropertyValue(
+                        key.substring(propertyPrefix.length), decodeValue(properties.getProperty(key))
+                    )
+                }
+            }
+            return beanDefinition
+        }
+
+        /**
+         * 将BeanDefinition的属性值/Attribute编码成为"{type}:{value}"的字符串
+         *
+         * @param value 属性值
+         * @param allowReference 是否允许RuntimeBeanReference?
+         * @return 编码之后的字符串(不支持该类型的值的话, return null)
+         */
+        @Nullable
+        @JvmStatic
+        private fun encodeValue(@Nullable value: Any?, allowReference: Boolean): String? {
+            return when (value) {
+                null -> "null:"
+                is String -> "string:$value"
+                is Boolean -> "boolean:$value"
+                is Int -> "int:$value"
+                is Long -> "long:$value"
+                is RuntimeBeanReference -> if (allowReference) "ref:${value.getBeanName()}" else null
+                else -> null
+            }
+        }
+
+        /**
+         * 将"{type}:{value}"格式的字符串解码成为属性值/Attribute
+         *
+         * @param encoded 编码之后的字符串
+         * @return 解码得到的值
+         */
+        @Nullable
+        @JvmStatic
+        private fun decodeValue(encoded: String): Any? {
+            val type = encoded.substringBefore(':')
+            val value = encoded.substringAfter(':')
+            return when (type) {
+                "null" -> null
+                "string" -> value
+                "boolean" -> value.toBoolean()
+                "int" -> value.toInt()
+                "long" -> value.toLong()
+                "ref" -> RuntimeBeanReference(value)
+                else -> throw IllegalStateException("Unknown value type [$type] in bean definition snapshot")
+            }
+        }
+
+        @JvmStatic
+        private fun getRequiredProperty(properties: Properties, key: String): String =
+            properties.getProperty(key) ?: throw IllegalStateException("Missing '$key' in bean definition snapshot")
+
+        @JvmStatic
+        private fun readList(properties: Properties, key: String): List<String> =
+            StringUtils.commaDelimitedListToStringArray(properties.getProperty(key)).toList()
+    }
+
+    /**
+     * 获取快照当中被直接序列化的BeanDefinition的beanName列表(不包含由Registrar在运行时去注册的BeanDefinition)
+     *
+     * @return beanName列表
+     */
+    open fun getBeanDefinitionNames(): List<String> = entries.filterIsInstance<BeanDefinitionEntry>().map { it.beanName }
+
+    /**
+     * 使用快照, 将BeanDefinition注册到给定的[BeanDefinitionRegistry]当中, 对于[RegistrarEntry]将会重新去执行对应的Registrar;
+     * 在注册BeanDefinition之前, 会先将@PropertySource导入的资源添加到Environment当中
+     *
+     * @param registry BeanDefinitionRegistry
+     * @param environment Environment
+     * @param resourceLoader ResourceLoader
+     * @param importBeanNameGenerator 执行Registrar时需要使用到的BeanNameGenerator
+     * @param metadataReaderFactory 用于去读取类的注解信息的MetadataReaderFactory
+     * @return 基于快照的导入关系的[ImportRegistry]
+     */
+    open fun registerBeanDefinitions(
+        registry: BeanDefinitionRegistry,
+        environment: Environment,
+        resourceLoader: ResourceLoader,
+        importBeanNameGenerator: BeanNameGenerator,
+        metadataReaderFactory: MetadataReaderFactory
+    ): ImportRegistry {
+        val classLoader = resourceLoader.getClassLoader()
+        val metadataResolver: (String) -> AnnotationMetadata = {
+            if (introspectedClasses.contains(it)) AnnotationMetadata.introspect(ClassUtils.forName<Any>(it, classLoader))
+            else metadataReaderFactory.getMetadataReader(it).annotationMetadata
+        }
+        if (propertySources.isNotEmpty()) {
+            if (environment !is ConfigurableEnvironment) {
+                throw IllegalStateException("Cannot add @PropertySource resources to a non-configurable Environment")
+            }
+            val propertySourceProcessor = PropertySourceProcessor(environment, resourceLoader)
+            propertySources.forEach(propertySourceProcessor::processPropertySource)
+        }
+        for (entry in entries) {
+            when (entry) {
+                is BeanDefinitionEntry -> registry.registerBeanDefinition(entry.beanName, entry.beanDefinition)
+                is RegistrarEntry -> {
+                    val registrar = ParserStrategyUtils.instanceClass<ImportBeanDefinitionRegistrar>(
+                        ClassUtils.forName<Any>(entry.registrarClassName, classLoader), environment, registry, resourceLoader
+                    )
+                    registrar.registerBeanDefinitions(
+                        metadataResolver(entry.importingClassName), registry, importBeanNameGenerator
+                    )
+                }
+            }
+        }
+        return SnapshotImportRegistry(imports, metadataResolver)
+    }
+
+    /**
+     * 将快照写入到给定的文件当中
+     *
+     * @param outputFile 输出的文件
+     */
+    open fun write(outputFile: File) {
+        outputFile.parentFile?.mkdirs()
+        outputFile.bufferedWriter(Charsets.ISO_8859_1).use(this::write)
+    }
+
+    /**
+     * 将快照以Properties的格式写入到给定的Writer当中, 条目的顺序是固定的并且不包含时间戳, 保证对于同样的输入生成的内容相同
+     *
+     * @param writer Writer
+     */
+    open fun write(writer: Writer) {
+        writer.write("# Generated by BeanDefinitionSnapshotGenerator, do not edit\n")
+        writeProperty(writer, VERSION_KEY, VERSION)
+        writeProperty(writer, CONFIGURATION_CLASSES_KEY, configurationClasses.joinToString(","))
+        writeProperty(writer, ACTIVE_PROFILES_KEY, activeProfiles.joinToString(","))
+        writeProperty(writer, INTROSPECTED_CLASSES_KEY, introspectedClasses.sorted().joinToString(","))
+        writeProperty(writer, PROPERTY_SOURCES_KEY, propertySources.size.toString())
+        propertySources.forEachIndexed { index, propertySource ->
+            val prefix = "$PROPERTY_SOURCE_PREFIX$index."
+            writeProperty(writer, prefix + NAME, propertySource.name)
+            propertySource.locations.forEachIndexed { i, location -> writeProperty(writer, "$prefix$LOCATION_PREFIX$i", location) }
+            writeProperty(writer, prefix + FACTORY, propertySource.propertySourceFactory?.name)
+            if (propertySource.ignoreResourceNotFound) {
+                writeProperty(writer, prefix + IGNORE_RESOURCE_NOT_FOUND, "true")
+            }
+        }
+        writeProperty(writer, ENTRIES_KEY, entries.size.toString())
+        entries.forEachIndexed { index, entry ->
+            val prefix = "$ENTRY_PREFIX$index."
+            when (entry) {
+                is RegistrarEntry -> {
+                    writeProperty(writer, prefix + REGISTRAR, entry.registrarClassName)
+                    writeProperty(writer, prefix + IMPORTING_CLASS, entry.importingClassName)
+                }
+                is BeanDefinitionEntry -> writeBeanDefinition(writer, prefix, entry)
+            }
+        }
+        imports.toSortedMap().forEach { (imported, importing) -> writeProperty(writer, IMPORTS_PREFIX + imported, importing) }
+    }
+
+    /**
+     * 将一个BeanDefinition写入到Writer当中, 只会写入和默认值不同的属性
+     *
+     * @param writer Writer
+     * @param prefix 条目的前缀("entry.{index}.")
+     * @param entry BeanDefinition的条目
+     */
+    private fun writeBeanDefinition(writer: Writer, prefix: String, entry: BeanDefinitionEntry) {
+        val beanDefinition = entry.beanDefinition
+        writeProperty(writer, prefix + BEAN, entry.beanName)
+        writeProperty(
+            writer, prefix + DEFINITION,
+            if (beanDefinition is RootBeanDefinition) DEFINITION_ROOT else DEFINITION_GENERIC
+        )
+        writeProperty(writer, prefix + BEAN_CLASS, beanDefinition.getBeanClassName())
+        writeProperty(writer, prefix + FACTORY_BEAN_NAME, beanDefinition.getFactoryBeanName())
+        writeProperty(writer, prefix + FACTORY_METHOD_NAME, beanDefinition.getFactoryMethodName())
+        if (beanDefinition.getScope() != AbstractBeanDefinition.DEFAULT_SCOPE) {
+            writeProperty(writer, prefix + SCOPE, beanDefinition.getScope())
+        }
+        beanDefinition.getLazyInit()?.let { writeProperty(writer, prefix + LAZY_INIT, it.toString()) }
+        if (beanDefinition.isPrimary()) {
+            writeProperty(writer, prefix + PRIMARY, "true")
+        }
+        if (beanDefinition.isAbstract()) {
+            writeProperty(writer, prefix + ABSTRACT, "true")
+        }
+        if (beanDefinition.isSynthetic()) {
+            writeProperty(writer, prefix + SYNTHETIC, "true")
+        }
+        if (!beanDefinition.isAutowireCandidate()) {
+            writeProperty(writer, prefix + AUTOWIRE_CANDIDATE, "false")
+        }
+        if (beanDefinition.getAutowireMode() != AbstractBeanDefinition.AUTOWIRE_NO) {
+            writeProperty(writer, prefix + AUTOWIRE_MODE, beanDefinition.getAutowireMode().toString())
+        }
+        if (beanDefinition.getRole() != BeanDefinition.ROLE_APPLICATION) {
+            writeProperty(writer, prefix + ROLE, beanDefinition.getRole().toString())
+        }
+        if (beanDefinition.getDependsOn().isNotEmpty()) {
+            writeProperty(writer, prefix + DEPENDS_ON, beanDefinition.getDependsOn().joinToString(","))
+        }
+        writeProperty(writer, prefix + INIT_METHOD_NAME, beanDefinition.getInitMethodName())
+        writeProperty(writer, prefix + DESTROY_METHOD_NAME, beanDefinition.getDestroyMethodName())
+        writeProperty(writer, prefix + DESCRIPTION, beanDefinition.getDescription())
+        beanDefinition.attributeNames().sorted().forEach {
+            writeProperty(writer, prefix + ATTRIBUTE_PREFIX + it, encodeValue(beanDefinition.getAttribute(it), false))
+        }
+        beanDefinition.getPropertyValues().getPropertyValues().forEach {
+            writeProperty(writer, prefix + PROPERTY_PREFIX + it.name, encodeValue(it.value, true))
+        }
+    }
+
+    /**
+     * 写入一行"key=value", 对于key/value当中的特殊字符, 按照Properties的格式去进行转义
+     *
+     * @param writer Writer
+     * @param key key
+     * @param value value(为null时不写入)
+     */
+    private fun writeProperty(writer: Writer, key: String, @Nullable value: String?) {
+        value ?: return
+        writer.write(escape(key, true))
+        writer.write("=")
+        writer.write(escape(value, false))
+        writer.write("\n")
+    }
+
+    /**
+     * 按照Properties的格式去对字符串去进行转义
+     *
+     * @param value 需要转义的字符串
+     * @param isKey 是否是key? (key当中的空格/"="/":"也需要去进行转义)
+     * @return 转义之后的字符串
+     */
+    private fun escape(value: String, isKey: Boolean): String {
+        val builder = StringBuilder(value.length)
+        value.forEachIndexed { index, ch ->
+            when {
+                ch == '\\' -> builder.append("\\\\")
+                ch == '\n' -> builder.append("\\n")
+                ch == '\r' -> builder.append("\\r")
+                ch == '\t' -> builder.append("\\t")
+                ch == ' ' && (isKey || index == 0) -> builder.append("\\ ")
+                isKey && (ch == '=' || ch == ':' || ch == '#' || ch == '!') -> builder.append('\\').append(ch)
+                ch.code < 0x20 || ch.code > 0x7e -> builder.append(String.format("\\u%04x", ch.code))
+                else -> builder.append(ch)
+            }
+        }
+        return builder.toString()
+    }
+
+    override fun toString(): String =
+        "BeanDefinitionSnapshot(configurationClasses=$configurationClasses, activeProfiles=$activeProfiles, entries=${entries.size}, propertySources=${propertySources.size})"
+
+    /**
+     * 快照当中的一个条目
+     */
+    sealed class Entry
+
+    /**
+     * 被直接序列化的BeanDefinition的条目
+     *
+     * @param beanName beanName
+     * @param beanDefinition BeanDefinition
+     */
+    class BeanDefinitionEntry(val beanName: String, val beanDefinition: AbstractBeanDefinition) : Entry() {
+        init {
+            checkSupported(beanName, beanDefinition)
+        }
+
+        override fun toString(): String = "BeanDefinitionEntry(beanName=$beanName)"
+    }
+
+    /**
+     * [ImportBeanDefinitionRegistrar]的一次执行的条目
+     *
+     * @param registrarClassName Registrar的全类名
+     * @param importingClassName 导入该Registrar的类的全类名
+     */
+    class RegistrarEntry(val registrarClassName: String, val importingClassName: String) : Entry() {
+        override fun toString(): String = "RegistrarEntry(registrar=$registrarClassName, importingClass=$importingClassName)"
+    }
+
+    /**
+     * 基于快照当中记录的导入关系的[ImportRegistry], 导入类的注解信息在第一次被使用到时才会去进行读取
+     *
+     * @param imports 导入关系, Key-被导入的配置类, Value-导入它的类
+     * @param metadataResolver 根据类名去获取注解信息的函数
+     */
+    private class SnapshotImportRegistry(
+        imports: Map<String, String>,
+        private val metadataResolver: (String) -> AnnotationMetadata
+    ) : ImportRegistry {
+
+        /**
+         * 导入关系, Key-被导入的配置类, Value-导入它的类
+         */
+        private val imports = ConcurrentHashMap(imports)
+
+        /**
+         * 导入类的注解信息的缓存, Key-导入类的全类名, Value-注解信息
+         */
+        private val metadataCache = ConcurrentHashMap<String, AnnotationMetadata>()
+
+        @Nullable
+        override fun getImportingClassFor(importedClass: String): AnnotationMetadata? {
+            val importingClass = imports[importedClass] ?: return null
+            return metadataCache.computeIfAbsent(importingClass, metadataResolver)
+        }
+
+        override fun removeImportingClass(importingClass: String) {
+            imports.values.removeIf { it == importingClass }
+        }
+    }
+}
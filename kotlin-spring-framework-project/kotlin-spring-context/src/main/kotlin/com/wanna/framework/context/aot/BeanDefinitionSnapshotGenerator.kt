@@ -0,0 +1,103 @@
+package com.wanna.framework.context.aot
+
+import com.wanna.common.logging.LoggerFactory
+import com.wanna.framework.context.annotation.AnnotationConfigApplicationContext
+import com.wanna.framework.context.annotation.AnnotationConfigUtils
+import com.wanna.framework.context.processor.factory.internal.ConfigurationClassPostProcessor
+import com.wanna.framework.context.support.AbstractApplicationContext
+import com.wanna.framework.core.SpringProperties
+import com.wanna.framework.util.ClassUtils
+import java.io.File
+
+/**
+ * [BeanDefinitionSnapshot]的生成器, 在构建时使用[AbstractApplicationContext.refreshForAotProcessing]去刷新ApplicationContext,
+ * 只执行到BeanDefinition的注册完成为止, 并从[ConfigurationClassPostProcessor]当中去获取到记录得到的快照.
+ *
+ * 可以通过[main]方法去进行执行, 参数为"<输出目录> <配置类1> <配置类2>...", 运行时的类路径当中需要包含配置类以及它们的依赖;
+ * 对于SpringBoot应用, 可以使用"com.wanna.boot.aot.SpringApplicationAotProcessor"去生成快照.
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ *
+ * @see BeanDefinitionSnapshot
+ * @see BeanDefinitionSnapshotLoader
+ */
+open class BeanDefinitionSnapshotGenerator {
+
+    companion object {
+
+        /**
+         * Logger
+         */
+        @JvmStatic
+        private val logger = LoggerFactory.getLogger(BeanDefinitionSnapshotGenerator::class.java)
+
+        /**
+         * 根据给定的配置类去生成快照文件
+         *
+         * @param args "<输出目录> <配置类1> <配置类2>..."
+         */
+        @JvmStatic
+        fun main(vararg args: String) {
+            if (args.size < 2) {
+                throw IllegalArgumentException("Usage: BeanDefinitionSnapshotGenerator <outputDir> <configClass>...")
+            }
+            val classLoader = ClassUtils.getDefaultClassLoader()
+            val context = AnnotationConfigApplicationContext()
+            context.register(*args.drop(1).map { ClassUtils.forName<Any>(it, classLoader) }.toTypedArray())
+
+            val generator = BeanDefinitionSnapshotGenerator()
+            generator.write(generator.generate(context), File(args[0]))
+        }
+    }
+
+    /**
+     * 对给定的ApplicationContext去执行AOT处理, 并生成快照
+     *
+     * @param context 还没有被刷新过的ApplicationContext
+     * @return 生成的快照
+     * @throws IllegalStateException 如果ApplicationContext当中不存在有配置类, 或者是存在有无法被序列化的BeanDefinition
+     */
+    open fun generate(context: AbstractApplicationContext): BeanDefinitionSnapshot {
+        val processing = SpringProperties.getProperty(BeanDefinitionSnapshotLoader.AOT_PROCESSING)
+        SpringProperties.setFlag(BeanDefinitionSnapshotLoader.AOT_PROCESSING)
+        try {
+            context.refreshForAotProcessing()
+        } finally {
+            SpringProperties.setProperty(BeanDefinitionSnapshotLoader.AOT_PROCESSING, processing)
+        }
+        return getSnapshot(context)
+    }
+
+    /**
+     * 从已经完成AOT处理的ApplicationContext当中, 去获取到记录得到的快照
+     *
+     * @param context 已经完成AOT处理的ApplicationContext
+     * @return 快照
+     * @throws IllegalStateException 如果ApplicationContext当中不存在有配置类
+     */
+    open fun getSnapshot(context: AbstractApplicationContext): BeanDefinitionSnapshot {
+        val postProcessor = context.getBeanFactory().getBean(
+            AnnotationConfigUtils.CONFIGURATION_ANNOTATION_PROCESSOR_BEAN_NAME, ConfigurationClassPostProcessor::class.java
+        )
+        return postProcessor.getBeanDefinitionSnapshot()
+            ?: throw IllegalStateException("No configuration classes were processed in ApplicationContext [$context]")
+    }
+
+    /**
+     * 将快照写入到给定的输出目录当中("{outputDir}/META-INF/spring-aot/{第一个配置类的全类名}.beandefinitions")
+     *
+     * @param snapshot 快照
+     * @param outputDir 输出目录
+     * @return 写入的快照文件
+     */
+    open fun write(snapshot: BeanDefinitionSnapshot, outputDir: File): File {
+        val outputFile = File(outputDir, BeanDefinitionSnapshotLoader.getSnapshotLocation(snapshot.configurationClasses))
+        snapshot.write(outputFile)
+        if (logger.isInfoEnabled) {
+            logger.info("Generated bean definition snapshot [$outputFile] with ${snapshot.entries.size} entries")
+        }
+        return outputFile
+    }
+}
@@ -0,0 +1,168 @@
+package com.wanna.framework.context.aot
+
+import com.wanna.common.logging.LoggerFactory
+import com.wanna.framework.core.SpringProperties
+import com.wanna.framework.core.io.UrlResource
+import com.wanna.framework.core.io.support.PropertiesLoaderUtils
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.ClassUtils
+import com.wanna.framework.util.ResourceUtils
+import java.io.File
+import java.net.URL
+
+/**
+ * [BeanDefinitionSnapshot]的加载器, 负责在运行时从类路径下去加载构建时生成的快照文件
+ * ("META-INF/spring-aot/{第一个配置类的全类名}.beandefinitions").
+ *
+ * 只有在"spring.aot.enabled"这个属性(SystemProperties或者是"spring.properties"当中)被设置为true时, 才会去使用快照;
+ * 快照只有在下面的条件都满足的情况下才是可用的, 否则将会回退到正常的配置类的解析:
+ *
+ * * 1.快照当中记录的配置类列表和当前的配置类列表完全一致;
+ * * 2.快照当中记录的ActiveProfiles和当前的ActiveProfiles完全一致;
+ * * 3.如果快照文件位于目录当中(开发环境), 那么第一个配置类所在的classes目录当中不能存在有比快照文件更新的Class文件.
+ *
+ * Note: 配置类的条件(@Conditional)在构建时就已经被计算好了, 运行时不会再去进行重新计算, 因此只应该在构建时的环境和运行时的环境一致时去开启;
+ * 配置类上的@PropertySource的资源位置也是在构建时完成占位符的解析之后被记录到快照当中的, 运行时会在注册BeanDefinition之前,
+ * 先将这些资源重新加载并添加到Environment当中
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ *
+ * @see BeanDefinitionSnapshot
+ * @see BeanDefinitionSnapshotGenerator
+ */
+object BeanDefinitionSnapshotLoader {
+
+    /**
+     * 是否要在运行时去使用快照的属性名
+     */
+    const val AOT_ENABLED = "spring.aot.enabled"
+
+    /**
+     * 当前是否正处于构建时的AOT处理当中的属性名, 为true时ConfigurationClassPostProcessor将会在解析配置类的同时去记录快照
+     */
+    const val AOT_PROCESSING = "spring.aot.processing"
+
+    /**
+     * 快照文件所在的目录
+     */
+    const val SNAPSHOT_RESOURCE_LOCATION_PREFIX = "META-INF/spring-aot/"
+
+    /**
+     * 快照文件的后缀名
+     */
+    const val SNAPSHOT_RESOURCE_SUFFIX = ".beandefinitions"
+
+    /**
+     * Logger
+     */
+    @JvmStatic
+    private val logger = LoggerFactory.getLogger(BeanDefinitionSnapshotLoader::class.java)
+
+    /**
+     * 运行时是否要去使用快照?
+     *
+     * @return 如果"spring.aot.enabled"为true, return true; 否则return false
+     */
+    @JvmStatic
+    fun isAotEnabled(): Boolean = SpringProperties.getFlag(AOT_ENABLED)
+
+    /**
+     * 当前是否正处于构建时的AOT处理当中?
+     *
+     * @return 如果"spring.aot.processing"为true, return true; 否则return false
+     */
+    @JvmStatic
+    fun isAotProcessing(): Boolean = SpringProperties.getFlag(AOT_PROCESSING)
+
+    /**
+     * 获取给定的配置类列表对应的快照文件的位置
+     *
+     * @param configurationClasses 配置类列表(不能为空)
+     * @return 快照文件的位置
+     */
+    @JvmStatic
+    fun getSnapshotLocation(configurationClasses: List<String>): String {
+        if (configurationClasses.isEmpty()) {
+            throw IllegalArgumentException("Configuration classes must not be empty")
+        }
+        return SNAPSHOT_RESOURCE_LOCATION_PREFIX + configurationClasses[0] + SNAPSHOT_RESOURCE_SUFFIX
+    }
+
+    /**
+     * 为给定的配置类列表去加载快照
+     *
+     * @param classLoader ClassLoader(为null时使用默认的ClassLoader)
+     * @param configurationClasses 当前的配置类列表(按照处理的顺序)
+     * @param activeProfiles 当前的ActiveProfiles
+     * @return 加载得到的快照(如果不存在可用的快照, 那么return null)
+     */
+    @Nullable
+    @JvmStatic
+    fun loadSnapshot(
+        @Nullable classLoader: ClassLoader?,
+        configurationClasses: List<String>,
+        activeProfiles: List<String>
+    ): BeanDefinitionSnapshot? {
+        if (configurationClasses.isEmpty()) {
+            return null
+        }
+        val classLoaderToUse = classLoader ?: ClassUtils.getDefaultClassLoader()
+        val location = getSnapshotLocation(configurationClasses)
+        val url = classLoaderToUse.getResource(location) ?: return null
+        val snapshot = try {
+            BeanDefinitionSnapshot.read(PropertiesLoaderUtils.loadProperties(UrlResource(url)), classLoaderToUse)
+        } catch (ex: Exception) {
+            logger.warn("Unable to load bean definition snapshot from [$url], fallback to parse configuration classes", ex)
+            return null
+        }
+        if (snapshot.configurationClasses != configurationClasses) {
+            if (logger.isInfoEnabled) {
+                logger.info("Ignore bean definition snapshot [$url], configuration classes ${snapshot.configurationClasses} do not match $configurationClasses")
+            }
+            return null
+        }
+        if (snapshot.activeProfiles != activeProfiles) {
+            if (logger.isInfoEnabled) {
+                logger.info("Ignore bean definition snapshot [$url], active profiles ${snapshot.activeProfiles} do not match $activeProfiles")
+            }
+            return null
+        }
+        if (isOutdated(url, configurationClasses[0], classLoaderToUse)) {
+            if (logger.isInfoEnabled) {
+                logger.info("Ignore bean definition snapshot [$url], there are class files modified after the snapshot was generated")
+            }
+            return null
+        }
+        return snapshot
+    }
+
+    /**
+     * 检查位于目录当中的快照是否已经过期了(Jar包当中的快照和类是一起打包的, 不会出现过期的情况)
+     *
+     * @param snapshotUrl 快照文件的URL
+     * @param configurationClass 第一个配置类
+     * @param classLoader ClassLoader
+     * @return 如果配置类所在的classes目录当中存在有比快照更新的Class文件, return true; 否则return false
+     */
+    private fun isOutdated(snapshotUrl: URL, configurationClass: String, classLoader: ClassLoader): Boolean {
+        if (!ResourceUtils.isFileURL(snapshotUrl)) {
+            return false
+        }
+        val classResourcePath = ClassUtils.convertClassNameToResourcePath(configurationClass) + ClassUtils.CLASS_FILE_SUFFIX
+        val classUrl = classLoader.getResource(classResourcePath)
+        if (classUrl == null || !ResourceUtils.isFileURL(classUrl)) {
+            return false
+        }
+        try {
+            // 根据配置类的包的层级, 找到配置类所在的classes目录
+            var classesDir: File? = File(ResourceUtils.toURI(classUrl)).parentFile
+            repeat(configurationClass.count { it == '.' }) { classesDir = classesDir?.parentFile }
+            val snapshotTimestamp = File(ResourceUtils.toURI(snapshotUrl)).lastModified()
+            return classesDir != null && ClassUtils.hasClassFileModifiedAfter(classesDir!!, snapshotTimestamp)
+        } catch (ex: Exception) {
+            return true
+        }
+    }
+}
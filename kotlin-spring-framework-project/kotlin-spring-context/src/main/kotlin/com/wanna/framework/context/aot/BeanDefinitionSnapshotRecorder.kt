@@ -0,0 +1,171 @@
+package com.wanna.framework.context.aot
+
+import com.wanna.framework.beans.factory.config.BeanDefinitionRegistry
+import com.wanna.framework.beans.factory.support.BeanNameGenerator
+import com.wanna.framework.beans.factory.support.definition.AbstractBeanDefinition
+import com.wanna.framework.beans.factory.support.definition.BeanDefinition
+import com.wanna.framework.context.annotation.ConfigurationClassBeanDefinitionReader
+import com.wanna.framework.context.annotation.ImportBeanDefinitionRegistrar
+import com.wanna.framework.context.annotation.ImportRegistry
+import com.wanna.framework.core.environment.Environment
+import com.wanna.framework.core.io.ResourceLoader
+import com.wanna.framework.core.io.support.PropertySourceDescriptor
+import com.wanna.framework.core.type.AnnotationMetadata
+import com.wanna.framework.core.type.StandardAnnotationMetadata
+
+/**
+ * 在构建时的AOT处理当中, 负责记录配置类的解析过程, 从而生成[BeanDefinitionSnapshot]:
+ *
+ * * 1.在创建时记录下[BeanDefinitionRegistry]当中已经存在的BeanDefinition, 这些BeanDefinition在运行时同样会存在, 不需要被记录到快照当中;
+ * * 2.通过[createBeanDefinitionReader]创建的Reader, 会记录下每一次[ImportBeanDefinitionRegistrar]的执行, 以及它注册的BeanDefinition;
+ * * 3.在配置类解析完成之后, 通过[createSnapshot]按照注册的顺序去生成快照.
+ *
+ * @param registry BeanDefinitionRegistry
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ *
+ * @see com.wanna.framework.context.processor.factory.internal.ConfigurationClassPostProcessor
+ */
+open class BeanDefinitionSnapshotRecorder(private val registry: BeanDefinitionRegistry) {
+
+    /**
+     * 在开始解析配置类之前就已经存在的beanName
+     */
+    private val existingBeanNames: Set<String> = HashSet(registry.getBeanDefinitionNames())
+
+    /**
+     * 按照执行顺序记录的所有的Registrar的执行
+     */
+    private val registrarInvocations = ArrayList<RegistrarInvocation>()
+
+    /**
+     * 创建一个会去记录Registrar的执行的[ConfigurationClassBeanDefinitionReader]
+     *
+     * @param importBeanNameGenerator BeanNameGenerator
+     * @param environment Environment
+     * @param importRegistry ImportRegistry
+     * @param resourceLoader ResourceLoader
+     * @return ConfigurationClassBeanDefinitionReader
+     */
+    open fun createBeanDefinitionReader(
+        importBeanNameGenerator: BeanNameGenerator,
+        environment: Environment,
+        importRegistry: ImportRegistry,
+        resourceLoader: ResourceLoader
+    ): ConfigurationClassBeanDefinitionReader =
+        RecordingBeanDefinitionReader(importBeanNameGenerator, environment, importRegistry, resourceLoader)
+
+    /**
+     * 根据配置类的解析结果, 去生成快照
+     *
+     * @param configurationClasses 配置类列表(按照处理的顺序)
+     * @param activeProfiles ActiveProfiles
+     * @param parsedClasses 所有已经完成解析的配置类的全类名
+     * @param importRegistry 解析配置类时得到的ImportRegistry
+     * @param propertySources 解析配置类时处理的@PropertySource导入的资源
+     * @return 生成的快照
+     * @throws IllegalStateException 如果存在有无法被序列化的BeanDefinition
+     */
+    open fun createSnapshot(
+        configurationClasses: List<String>,
+        activeProfiles: List<String>,
+        parsedClasses: Collection<String>,
+        importRegistry: ImportRegistry,
+        propertySources: List<PropertySourceDescriptor>
+    ): BeanDefinitionSnapshot {
+        val introspectedClasses = LinkedHashSet<String>()
+
+        // 记录下每个beanName是由哪一次Registrar的执行所注册的
+        val owners = HashMap<String, RegistrarInvocation>()
+        for (invocation in registrarInvocations) {
+            invocation.beanDefinitions.keys.forEach { owners[it] = invocation }
+        }
+
+        // 按照注册的顺序去生成条目, 由Registrar注册的BeanDefinition使用Registrar的条目去进行代替(Registrar在它注册的第一个Bean的位置去执行)
+        val entries = ArrayList<BeanDefinitionSnapshot.Entry>()
+        val recordedInvocations = HashSet<RegistrarInvocation>()
+        for (beanName in registry.getBeanDefinitionNames()) {
+            if (existingBeanNames.contains(beanName)) {
+                continue
+            }
+            val beanDefinition = registry.getBeanDefinition(beanName)
+            val owner = owners[beanName]
+            if (owner != null && owner.beanDefinitions[beanName] === beanDefinition) {
+                if (recordedInvocations.add(owner)) {
+                    entries += owner.toEntry(introspectedClasses)
+                }
+                continue
+            }
+            BeanDefinitionSnapshot.checkSupported(beanName, beanDefinition)
+            entries += BeanDefinitionSnapshot.BeanDefinitionEntry(beanName, beanDefinition as AbstractBeanDefinition)
+        }
+
+        // 没有注册任何BeanDefinition的Registrar, 也需要在运行时去执行(例如Bean已经存在时就不会去进行注册的情况)
+        for (invocation in registrarInvocations) {
+            if (recordedInvocations.add(invocation)) {
+                entries += invocation.toEntry(introspectedClasses)
+            }
+        }
+
+        // 记录配置类的导入关系
+        val imports = LinkedHashMap<String, String>()
+        for (parsedClass in parsedClasses) {
+            val importingMetadata = importRegistry.getImportingClassFor(parsedClass) ?: continue
+            imports[parsedClass] = importingMetadata.getClassName()
+            if (importingMetadata is StandardAnnotationMetadata) {
+                introspectedClasses += importingMetadata.getClassName()
+            }
+        }
+        return BeanDefinitionSnapshot(
+            configurationClasses, activeProfiles, entries, imports, introspectedClasses, ArrayList(propertySources)
+        )
+    }
+
+    /**
+     * 一次Registrar的执行
+     *
+     * @param registrar Registrar
+     * @param importingMetadata 导入该Registrar的类的注解信息
+     * @param beanDefinitions 本次执行注册的BeanDefinition
+     */
+    private class RegistrarInvocation(
+        val registrar: ImportBeanDefinitionRegistrar,
+        val importingMetadata: AnnotationMetadata,
+        val beanDefinitions: Map<String, BeanDefinition>
+    ) {
+        fun toEntry(introspectedClasses: MutableSet<String>): BeanDefinitionSnapshot.RegistrarEntry {
+            if (importingMetadata is StandardAnnotationMetadata) {
+                introspectedClasses += importingMetadata.getClassName()
+            }
+            return BeanDefinitionSnapshot.RegistrarEntry(registrar::class.java.name, importingMetadata.getClassName())
+        }
+    }
+
+    /**
+     * 会去记录Registrar的执行的[ConfigurationClassBeanDefinitionReader]
+     */
+    private inner class RecordingBeanDefinitionReader(
+        importBeanNameGenerator: BeanNameGenerator,
+        environment: Environment,
+        importRegistry: ImportRegistry,
+        resourceLoader: ResourceLoader
+    ) : ConfigurationClassBeanDefinitionReader(
+        registry, importBeanNameGenerator, environment, importRegistry, resourceLoader
+    ) {
+        override fun loadBeanDefinitionsFromRegistrars(registrars: Map<ImportBeanDefinitionRegistrar, AnnotationMetadata>) {
+            registrars.forEach { (registrar, annotationMetadata) ->
+                val beanNamesBefore = HashSet(registry.getBeanDefinitionNames())
+                super.loadBeanDefinitionsFromRegistrars(mapOf(registrar to annotationMetadata))
+                val beanDefinitions = LinkedHashMap<String, BeanDefinition>()
+                for (beanName in registry.getBeanDefinitionNames()) {
+                    if (!beanNamesBefore.contains(beanName)) {
+                        beanDefinitions[beanName] = registry.getBeanDefinition(beanName)
+                    }
+                }
+                registrarInvocations += RegistrarInvocation(registrar, annotationMetadata, beanDefinitions)
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.wanna.framework.context.index
+
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.AntPathMatcher
+import com.wanna.framework.util.ClassUtils
+import com.wanna.framework.util.LinkedMultiValueMap
+import com.wanna.framework.util.MultiValueMap
+import com.wanna.framework.util.ResourceUtils
+import com.wanna.framework.util.StringUtils
+import java.io.File
+import java.io.IOException
+import java.net.URL
+import java.util.Properties
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 候选组件的索引, 维护了从"META-INF/spring.components"当中加载得到的"Stereotype->类型列表"的映射关系,
+ * 索引文件的格式为Properties, Key为组件的全类名, Value为该组件的Stereotype列表(使用","去进行分割), 例如:
+ *
+ * ```properties
+ * com.wanna.example.UserService=com.wanna.framework.context.stereotype.Component
+ * ```
+ *
+ * 索引是在构建时生成的, 如果在生成索引之后又去修改了类(比如IDE直接去进行增量编译, 而没有去执行索引的生成),
+ * 那么索引就会过期, 因此在使用索引之前, 需要使用[isUpToDate]去检查一下索引对于给定的包是否仍然可用:
+ *
+ * * 1.对于Jar包当中的包, 要求该Jar包当中必须存在有索引文件(Jar包当中的类和索引是一起打包的, 不会出现过期的情况),
+ * 对于嵌套的Jar包(例如SpringBoot的FatJar当中的"BOOT-INF/lib/xxx.jar"以及"BOOT-INF/classes"), 使用最内层的归档去进行匹配;
+ * * 2.对于目录当中的包, 要求该包所在的类路径目录当中必须存在有索引文件(或者是被别的目录当中的索引通过"META-INF/spring.components.roots"
+ * 声明为它所覆盖的classes目录), 并且该目录下的所有的".class"文件, 都不能比覆盖该目录的索引文件更新.
+ *
+ * @param classLoader 加载索引使用的ClassLoader, 用于去进行过期检查时, 去定位包所在的类路径
+ * @param indexResources 索引文件的URL列表
+ * @param indexes 从索引文件当中加载得到的Properties列表
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/8
+ *
+ * @see CandidateComponentsIndexLoader
+ * @see CandidateComponentsIndexer
+ */
+open class CandidateComponentsIndex(
+    @Nullable private val classLoader: ClassLoader?,
+    private val indexResources: List<URL>,
+    indexes: List<Properties>
+) {
+    companion object {
+
+        /**
+         * 包名的路径匹配器, 以"."作为分隔符
+         */
+        @JvmStatic
+        private val PATH_MATCHER = AntPathMatcher(".")
+
+        /**
+         * 索引文件相对于类路径目录的深度("META-INF/spring.components")
+         */
+        private const val INDEX_RESOURCE_DEPTH = 2
+    }
+
+    /**
+     * 索引的条目, Key-Stereotype, Value-标注了该Stereotype的类型列表
+     */
+    private val index: MultiValueMap<String, Entry> = parseIndex(indexes)
+
+    /**
+     * 所有包含了索引的Jar包(对于嵌套的Jar包, 为最内层的归档)的URL
+     */
+    private val indexedJars: Set<String> = indexResources.filter { ResourceUtils.isJarURL(it) }
+        .map { extractJarFileUrl(it) }.toSet()
+
+    /**
+     * 所有被索引所覆盖的类路径目录, 以及覆盖它的索引文件的最后修改时间, Key-类路径目录, Value-索引文件的最后修改时间
+     */
+    private val indexedDirectories: Map<File, Long> = getIndexedDirectories()
+
+    /**
+     * 对包去进行过期检查的结果的缓存, Key-basePackage, Value-索引对于该包是否可用
+     */
+    private val upToDateCache = ConcurrentHashMap<String, Boolean>()
+
+    /**
+     * 根据给定的basePackage和Stereotype, 从索引当中去获取到所有的候选的类型
+     *
+     * @param basePackage basePackage(支持去使用Ant风格的表达式)
+     * @param stereotype Stereotype(注解/父类型的全类名)
+     * @return 该包下所有的标注了该Stereotype的类型的全类名
+     */
+    open fun getCandidateTypes(basePackage: String, stereotype: String): Set<String> {
+        val candidates = this.index[stereotype] ?: return emptySet()
+        val result = LinkedHashSet<String>()
+        for (candidate in candidates) {
+            if (candidate.match(basePackage)) {
+                result += candidate.type
+            }
+        }
+        return result
+    }
+
+    /**
+     * 检查索引当中是否存在有给定的Stereotype
+     *
+     * @param stereotype Stereotype
+     * @return 如果存在有该Stereotype的组件, return true; 否则return false
+     */
+    open fun hasStereotype(stereotype: String): Boolean = this.index.containsKey(stereotype)
+
+    /**
+     * 检查索引对于给定的包是否仍然可用(没有过期), 检查的结果将会被缓存起来
+     *
+     * @param basePackage basePackage
+     * @return 如果该包所在的所有的类路径都被索引所覆盖, 并且索引没有过期, return true; 否则return false
+     */
+    open fun isUpToDate(basePackage: String): Boolean =
+        upToDateCache.computeIfAbsent(basePackage) { checkUpToDate(it) }
+
+    /**
+     * 对给定的包去进行过期检查, 找到该包所在的全部的类路径, 挨个去进行检查
+     *
+     * @param basePackage basePackage
+     * @return 索引对于该包是否可用
+     */
+    private fun checkUpToDate(basePackage: String): Boolean {
+        val packagePath = ClassUtils.convertClassNameToResourcePath(getPackageRoot(basePackage))
+        try {
+            val classLoader = this.classLoader ?: ClassUtils.getDefaultClassLoader()
+            val roots = classLoader.getResources(packagePath)
+            while (roots.hasMoreElements()) {
+                val root = roots.nextElement()
+                if (ResourceUtils.isJarURL(root)) {
+                    // Jar包当中必须要存在有索引, 不然该Jar包当中的组件就不会被扫描到
+                    if (!indexedJars.contains(extractJarFileUrl(root))) {
+                        return false
+                    }
+                } else if (ResourceUtils.isFileURL(root)) {
+                    // 包所在的类路径目录当中必须要存在有索引, 并且目录当中不能存在有比该目录自己的索引更新的Class文件
+                    val packageDirectory = File(ResourceUtils.toURI(root))
+                    val packageDepth = if (packagePath.isEmpty()) 0 else packagePath.trimEnd('/').split('/').size
+                    val indexTimestamp = indexedDirectories[getClassPathRoot(packageDirectory, packageDepth)] ?: return false
+                    if (ClassUtils.hasClassFileModifiedAfter(packageDirectory, indexTimestamp)) {
+                        return false
+                    }
+                }
+            }
+            return true
+        } catch (ex: IOException) {
+            return false
+        }
+    }
+
+    /**
+     * 获取所有被索引所覆盖的类路径目录, 包括索引文件所在的类路径目录自身,
+     * 以及在该目录的"META-INF/spring.components.roots"当中声明的classes目录
+     *
+     * @return Key-类路径目录, Value-覆盖该目录的索引文件的最后修改时间
+     */
+    private fun getIndexedDirectories(): Map<File, Long> {
+        val indexFiles = indexResources.filter { ResourceUtils.isFileURL(it) }.map { File(ResourceUtils.toURI(it)) }
+        val directories = HashMap<File, Long>()
+        indexFiles.forEach { directories[getClassPathRoot(it, INDEX_RESOURCE_DEPTH)] = it.lastModified() }
+
+        // 自身存在有索引的目录, 优先使用它自己的索引; 其余的classes目录使用声明覆盖它的索引
+        for (indexFile in indexFiles) {
+            val root = getClassPathRoot(indexFile, INDEX_RESOURCE_DEPTH)
+            val rootsFile = File(root, CandidateComponentsIndexLoader.COMPONENTS_ROOTS_RESOURCE_LOCATION)
+            if (rootsFile.isFile) {
+                rootsFile.readLines(Charsets.UTF_8).filter { it.isNotBlank() }
+                    .forEach { directories.putIfAbsent(File(root, it.trim()).canonicalFile, indexFile.lastModified()) }
+            }
+        }
+        return directories
+    }
+
+    /**
+     * 根据类路径目录下的一个文件/目录, 以及它相对于类路径目录的深度, 去获取到类路径目录
+     *
+     * @param file 类路径目录下的文件/目录
+     * @param depth 该文件/目录相对于类路径目录的深度
+     * @return 类路径目录(规范化之后的绝对路径)
+     */
+    private fun getClassPathRoot(file: File, depth: Int): File {
+        var root = file.absoluteFile
+        repeat(depth) { root = root.parentFile ?: root }
+        return root.canonicalFile
+    }
+
+    /**
+     * 获取basePackage当中不包含表达式的根包名, 例如"com.wanna.*.service"的根包名为"com.wanna"
+     *
+     * @param basePackage basePackage
+     * @return 根包名
+     */
+    private fun getPackageRoot(basePackage: String): String {
+        if (!PATH_MATCHER.isPattern(basePackage)) {
+            return basePackage
+        }
+        return basePackage.split('.').takeWhile { !PATH_MATCHER.isPattern(it) }.joinToString(".")
+    }
+
+    /**
+     * 从"jar:file:/xxx.jar!/com/wanna"这样的URL当中, 去提取到Jar包的URL("file:/xxx.jar");
+     * 对于嵌套的Jar包, 例如"jar:file:/app.jar!/BOOT-INF/lib/xxx.jar!/com/wanna", 提取到的是最内层的归档的完整路径
+     * ("file:/app.jar!/BOOT-INF/lib/xxx.jar"), 从而让FatJar当中的每个Jar包/classes目录都需要使用它自己的索引
+     *
+     * @param jarUrl Jar URL
+     * @return Jar包的URL
+     */
+    private fun extractJarFileUrl(jarUrl: URL): String {
+        val file = jarUrl.file
+        val separatorIndex = file.lastIndexOf(ResourceUtils.JAR_URL_SEPARATOR)
+        return if (separatorIndex == -1) file else file.substring(0, separatorIndex)
+    }
+
+    /**
+     * 将索引文件当中的"type=stereotype1,stereotype2"的条目, 转换为"Stereotype->类型列表"的映射关系
+     *
+     * @param indexes 索引文件的Properties列表
+     * @return Stereotype->类型列表
+     */
+    private fun parseIndex(indexes: List<Properties>): MultiValueMap<String, Entry> {
+        val index = LinkedMultiValueMap<String, Entry>()
+        for (properties in indexes) {
+            properties.forEach { (type, stereotypes) ->
+                for (stereotype in StringUtils.commaDelimitedListToStringArray(stereotypes.toString())) {
+                    index.add(stereotype.trim(), Entry(type.toString()))
+                }
+            }
+        }
+        return index
+    }
+
+    override fun toString(): String = "CandidateComponentsIndex(indexResources=$indexResources)"
+
+    /**
+     * 索引当中的一个类型的条目
+     *
+     * @param type 类型的全类名
+     */
+    private class Entry(val type: String) {
+
+        /**
+         * 该类型所在的包名
+         */
+        private val packageName: String = ClassUtils.getPackageName(type)
+
+        /**
+         * 检查该类型是否位于给定的包(或者是它的子包)下
+         *
+         * @param basePackage basePackage(支持去使用Ant风格的表达式)
+         * @return 如果位于该包下, return true; 否则return false
+         */
+        fun match(basePackage: String): Boolean {
+            if (PATH_MATCHER.isPattern(basePackage)) {
+                return PATH_MATCHER.match(basePackage, packageName)
+            }
+            return packageName == basePackage || type.startsWith("$basePackage.")
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.wanna.framework.context.index
+
+import com.wanna.framework.core.SpringProperties
+import com.wanna.framework.core.io.UrlResource
+import com.wanna.framework.core.io.support.PropertiesLoaderUtils
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.ClassUtils
+import com.wanna.framework.util.ConcurrentReferenceHashMap
+import com.wanna.common.logging.LoggerFactory
+import java.io.IOException
+import java.net.URL
+import java.util.Properties
+
+/**
+ * [CandidateComponentsIndex]的加载器, 负责从类路径下去加载所有的"META-INF/spring.components"索引文件,
+ * 对于每个ClassLoader加载得到的索引, 都会被缓存起来.
+ *
+ * 可以通过将"spring.index.ignore"这个属性(SystemProperties或者是"spring.properties"当中)设置为true, 去关闭索引的使用
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/8
+ *
+ * @see CandidateComponentsIndex
+ */
+object CandidateComponentsIndexLoader {
+
+    /**
+     * 索引文件的位置
+     */
+    const val COMPONENTS_RESOURCE_LOCATION = "META-INF/spring.components"
+
+    /**
+     * 记录索引文件所覆盖的classes目录的文件的位置, 和索引文件位于同一个类路径下,
+     * 每行是一个classes目录相对于该类路径目录的路径(用于索引被生成到单独的目录当中的情况)
+     */
+    const val COMPONENTS_ROOTS_RESOURCE_LOCATION = "META-INF/spring.components.roots"
+
+    /**
+     * 是否要忽略索引的属性名
+     */
+    const val IGNORE_INDEX = "spring.index.ignore"
+
+    /**
+     * Logger
+     */
+    @JvmStatic
+    private val logger = LoggerFactory.getLogger(CandidateComponentsIndexLoader::class.java)
+
+    /**
+     * 不存在有索引时, 在缓存当中使用的标识(ConcurrentMap当中不允许存放null)
+     */
+    @JvmStatic
+    private val NO_INDEX = CandidateComponentsIndex(null, emptyList(), emptyList())
+
+    /**
+     * 索引的缓存, Key-ClassLoader, Value-该ClassLoader加载得到的索引(不存在索引时为[NO_INDEX])
+     */
+    @JvmStatic
+    private val cache = ConcurrentReferenceHashMap<ClassLoader, CandidateComponentsIndex>()
+
+    /**
+     * 使用给定的ClassLoader去加载候选组件的索引
+     *
+     * @param classLoader ClassLoader(为null时使用默认的ClassLoader)
+     * @return 加载得到的索引(如果类路径下不存在有索引, 或者是索引被忽略了, 那么return null)
+     * @throws IllegalArgumentException 如果读取索引文件失败
+     */
+    @Nullable
+    @JvmStatic
+    fun loadIndex(@Nullable classLoader: ClassLoader?): CandidateComponentsIndex? {
+        if (SpringProperties.getProperty(IGNORE_INDEX).toBoolean()) {
+            return null
+        }
+        val classLoaderToUse = classLoader ?: ClassUtils.getDefaultClassLoader()
+        val index = cache.computeIfAbsent(classLoaderToUse) { doLoadIndex(it) ?: NO_INDEX }
+        return if (index === NO_INDEX) null else index
+    }
+
+    /**
+     * 执行真正的索引的加载
+     *
+     * @param classLoader ClassLoader
+     * @return 加载得到的索引(不存在的话, return null)
+     */
+    @Nullable
+    private fun doLoadIndex(classLoader: ClassLoader): CandidateComponentsIndex? {
+        try {
+            val urls = classLoader.getResources(COMPONENTS_RESOURCE_LOCATION)
+            if (!urls.hasMoreElements()) {
+                return null
+            }
+            val indexResources = ArrayList<URL>()
+            val indexes = ArrayList<Properties>()
+            while (urls.hasMoreElements()) {
+                val url = urls.nextElement()
+                indexResources += url
+                indexes += PropertiesLoaderUtils.loadProperties(UrlResource(url))
+            }
+            if (logger.isDebugEnabled) {
+                logger.debug("Loaded ${indexes.sumOf { it.size }} index(es) from $indexResources")
+            }
+            return CandidateComponentsIndex(classLoader, indexResources, indexes)
+        } catch (ex: IOException) {
+            throw IllegalArgumentException("Unable to load indexes from location [$COMPONENTS_RESOURCE_LOCATION]", ex)
+        }
+    }
+}
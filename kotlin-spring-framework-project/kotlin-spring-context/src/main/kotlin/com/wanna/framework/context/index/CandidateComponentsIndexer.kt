@@ -0,0 +1,225 @@
+package com.wanna.framework.context.index
+
+import com.wanna.framework.context.stereotype.Indexed
+import com.wanna.framework.core.io.DefaultResourceLoader
+import com.wanna.framework.core.io.FileSystemResource
+import com.wanna.framework.core.type.classreading.MetadataReader
+import com.wanna.framework.core.type.classreading.MetadataReaderFactory
+import com.wanna.framework.core.type.classreading.SimpleMetadataReaderFactory
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.ClassUtils
+import com.wanna.common.logging.LoggerFactory
+import java.io.File
+import java.util.TreeMap
+import java.util.TreeSet
+
+/**
+ * 候选组件的索引的生成器, 在构建时对编译得到的Class文件去进行解析, 生成"META-INF/spring.components"索引文件.
+ *
+ * 对于每个(非注解的)类, 会去收集它的Stereotype:
+ *
+ * * 1.类上直接/间接(Meta注解)标注的所有的注解当中, 被[Indexed]所标注的注解(例如@Service上的@Component);
+ * * 2.类的所有父类/接口当中, 被[Indexed]所标注的类型.
+ *
+ * 可以通过[main]方法去进行执行, 参数为"<输出目录> <classes目录1> <classes目录2>...",
+ * 运行时的类路径当中需要包含classes目录以及它们的依赖, Gradle插件的"generateComponentsIndex"任务就是基于该方式去生成索引的;
+ * 如果输出目录不是classes目录, 那么还会在输出目录当中生成"META-INF/spring.components.roots", 记录该索引所覆盖的classes目录,
+ * 从而让运行时对于classes目录当中的包, 可以使用该索引去进行过期检查
+ *
+ * @param classLoader 解析注解时使用的ClassLoader
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/8
+ *
+ * @see CandidateComponentsIndex
+ * @see Indexed
+ */
+open class CandidateComponentsIndexer(@Nullable classLoader: ClassLoader? = ClassUtils.getDefaultClassLoader()) {
+
+    companion object {
+
+        /**
+         * Logger
+         */
+        @JvmStatic
+        private val logger = LoggerFactory.getLogger(CandidateComponentsIndexer::class.java)
+
+        /**
+         * 根据给定的classes目录去生成索引文件
+         *
+         * @param args "<输出目录> <classes目录1> <classes目录2>..."
+         */
+        @JvmStatic
+        fun main(vararg args: String) {
+            if (args.isEmpty()) {
+                throw IllegalArgumentException("Usage: CandidateComponentsIndexer <outputDir> <classesDir>...")
+            }
+            val indexer = CandidateComponentsIndexer()
+            val outputDir = File(args[0])
+            val classesDirs = args.drop(1).map { File(it) }
+            val index = indexer.index(classesDirs)
+            indexer.write(index, File(outputDir, CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION))
+            indexer.writeRoots(classesDirs, outputDir)
+        }
+    }
+
+    /**
+     * MetadataReaderFactory, 提供对于类的元信息的读取
+     */
+    private val metadataReaderFactory: MetadataReaderFactory =
+        SimpleMetadataReaderFactory(DefaultResourceLoader(classLoader))
+
+    /**
+     * 已经解析过的类型是否被[Indexed]直接标注的缓存, Key-类型的全类名, Value-是否被[Indexed]标注
+     */
+    private val indexedTypes = HashMap<String, Boolean>()
+
+    /**
+     * 对给定的classes目录下的所有的Class文件去生成索引
+     *
+     * @param classesDirs classes目录列表
+     * @return 生成的索引, Key-组件的全类名, Value-该组件的Stereotype列表(都是按照字典序排好序的)
+     */
+    open fun index(classesDirs: List<File>): Map<String, Set<String>> {
+        val index = TreeMap<String, Set<String>>()
+        for (classesDir in classesDirs) {
+            if (!classesDir.isDirectory) {
+                continue
+            }
+            classesDir.walkTopDown().filter { it.isFile && it.name.endsWith(ClassUtils.CLASS_FILE_SUFFIX) }.forEach {
+                try {
+                    val metadataReader = metadataReaderFactory.getMetadataReader(FileSystemResource(it))
+                    if (metadataReader.classMetadata.isAnnotation()) {
+                        return@forEach
+                    }
+                    val stereotypes = getStereotypes(metadataReader)
+                    if (stereotypes.isNotEmpty()) {
+                        index[metadataReader.classMetadata.getClassName()] = stereotypes
+                    }
+                } catch (ex: LinkageError) {
+                    // 类上的注解依赖了不在类路径下的类, 无法被索引, 直接跳过
+                    if (logger.isDebugEnabled) {
+                        logger.debug("Skip indexing class file [$it], cause: $ex")
+                    }
+                }
+            }
+        }
+        return index
+    }
+
+    /**
+     * 将索引写入到给定的文件当中, 条目是按照字典序排好序的, 并且不包含时间戳, 保证对于同样的输入生成的文件相同
+     *
+     * @param index 索引
+     * @param outputFile 输出的文件
+     */
+    open fun write(index: Map<String, Set<String>>, outputFile: File) {
+        outputFile.parentFile?.mkdirs()
+        outputFile.bufferedWriter(Charsets.ISO_8859_1).use { writer ->
+            index.forEach { (type, stereotypes) ->
+                writer.write(type)
+                writer.write("=")
+                writer.write(stereotypes.joinToString(","))
+                writer.newLine()
+            }
+        }
+    }
+
+    /**
+     * 在输出目录当中, 记录索引所覆盖的classes目录(相对于输出目录的路径, 保证生成的文件和构建所在的位置无关);
+     * 如果所有的classes目录都是输出目录本身, 那么不需要去进行记录
+     *
+     * @param classesDirs classes目录列表
+     * @param outputDir 索引的输出目录
+     */
+    open fun writeRoots(classesDirs: List<File>, outputDir: File) {
+        val outputRoot = outputDir.canonicalFile
+        val roots = classesDirs.map { it.canonicalFile }.filter { it != outputRoot }.distinct()
+        val rootsFile = File(outputDir, CandidateComponentsIndexLoader.COMPONENTS_ROOTS_RESOURCE_LOCATION)
+        if (roots.isEmpty()) {
+            rootsFile.delete()
+            return
+        }
+        rootsFile.parentFile?.mkdirs()
+        rootsFile.bufferedWriter(Charsets.UTF_8).use { writer ->
+            roots.forEach {
+                writer.write(it.relativeTo(outputRoot).invariantSeparatorsPath)
+                writer.newLine()
+            }
+        }
+    }
+
+    /**
+     * 获取给定的类的所有的Stereotype
+     *
+     * @param metadataReader 类的MetadataReader
+     * @return 该类的Stereotype列表
+     */
+    protected open fun getStereotypes(metadataReader: MetadataReader): Set<String> {
+        val stereotypes = TreeSet<String>()
+
+        // 直接/间接标注的注解当中, 被@Indexed标注的注解
+        metadataReader.annotationMetadata.getAnnotations().forEach {
+            if (it.type.isAnnotationPresent(Indexed::class.java)) {
+                stereotypes += it.type.name
+            }
+        }
+
+        // 父类/接口当中, 被@Indexed标注的类型
+        collectIndexedSuperTypes(metadataReader, stereotypes, HashSet())
+        return stereotypes
+    }
+
+    /**
+     * 沿着类的继承关系, 去收集所有被[Indexed]直接标注的父类/接口
+     *
+     * @param metadataReader 类的MetadataReader
+     * @param stereotypes 收集Stereotype的结果集
+     * @param visited 已经访问过的类型
+     */
+    private fun collectIndexedSuperTypes(
+        metadataReader: MetadataReader,
+        stereotypes: MutableSet<String>,
+        visited: MutableSet<String>
+    ) {
+        val classMetadata = metadataReader.classMetadata
+        val superTypes = ArrayList<String>(classMetadata.getInterfaceNames().asList())
+        classMetadata.getSuperClassName()?.let { superTypes += it }
+        for (superType in superTypes) {
+            if (superType.startsWith("java.") || superType.startsWith("kotlin.") || !visited.add(superType)) {
+                continue
+            }
+            val superTypeReader = getMetadataReader(superType) ?: continue
+            if (isIndexedType(superType, superTypeReader)) {
+                stereotypes += superType
+            }
+            collectIndexedSuperTypes(superTypeReader, stereotypes, visited)
+        }
+    }
+
+    /**
+     * 检查给定的类型, 是否被[Indexed]所直接标注
+     *
+     * @param type 类型的全类名
+     * @param metadataReader 该类型的MetadataReader
+     * @return 如果被[Indexed]标注, return true; 否则return false
+     */
+    private fun isIndexedType(type: String, metadataReader: MetadataReader): Boolean =
+        indexedTypes.getOrPut(type) { metadataReader.annotationMetadata.hasAnnotation(Indexed::class.java.name) }
+
+    /**
+     * 根据类名去获取到MetadataReader
+     *
+     * @param className 类名
+     * @return MetadataReader(如果该类不在类路径下, return null)
+     */
+    @Nullable
+    private fun getMetadataReader(className: String): MetadataReader? {
+        return try {
+            metadataReaderFactory.getMetadataReader(className)
+        } catch (ex: Exception) {
+            null
+        }
+    }
+}
@@ -13,6 +13,9 @@ import com.wanna.framework.beans.factory.support.definition.AbstractBeanDefiniti
 import com.wanna.framework.beans.factory.support.definition.AnnotatedBeanDefinition
 import com.wanna.framework.context.ApplicationStartupAware
 import com.wanna.framework.context.ResourceLoaderAware
+import com.wanna.framework.context.aot.BeanDefinitionSnapshot
+import com.wanna.framework.context.aot.BeanDefinitionSnapshotLoader
+import com.wanna.framework.context.aot.BeanDefinitionSnapshotRecorder
 import com.wanna.framework.context.annotation.*
 import com.wanna.framework.context.annotation.ConfigurationClassUtils.getOrder
 import com.wanna.framework.context.aware.EnvironmentAware
@@ -32,6 +35,9 @@ import com.wanna.framework.lang.Nullable
 /**
  * SpringBeanFactory的配置类处理器, 用来扫描Spring当中的配置类, 包括对@Configuration/@Component/@Bean等注解的处理
  *
+ * * 1.在构建时的AOT处理当中("spring.aot.processing"), 会在解析配置类的同时去记录[BeanDefinitionSnapshot];
+ * * 2.在运行时如果开启了"spring.aot.enabled"并且存在有可用的快照, 那么直接使用快照去注册BeanDefinition, 跳过配置类的解析.
+ *
  * @see ConfigurationClassParser
  * @see ConfigurationClassBeanDefinitionReader
  */
@@ -105,6 +111,12 @@ open class ConfigurationClassPostProcessor : BeanDefinitionRegistryPostProcessor
      */
     private var applicationStartup: ApplicationStartup? = null
 
+    /**
+     * 在AOT处理当中, 解析配置类时记录得到的BeanDefinition的快照
+     */
+    @Nullable
+    private var beanDefinitionSnapshot: BeanDefinitionSnapshot? = null
+
     /**
      * 设置当前的BeanDefinition的局部BeanNameGenerator, 设置之后整个扫描过程都会采用给定的BeanNameGenerator作为beanName的生成器
      */
@@ -206,6 +218,16 @@ open class ConfigurationClassPostProcessor : BeanDefinitionRegistryPostProcessor
 
         // determine (Environment & ConfigurationClassParser)  to use
         val environment = this.environment ?: StandardEnvironment()
+
+        // 如果是在构建时的AOT处理当中, 需要去记录配置类的解析过程; 否则如果存在有可用的快照, 那么直接使用快照去注册BeanDefinition
+        val configurationClasses = configCandidates.mapNotNull { it.beanDefinition.getBeanClassName() }
+        val recorder = if (BeanDefinitionSnapshotLoader.isAotProcessing()) BeanDefinitionSnapshotRecorder(registry) else null
+        if (recorder == null && BeanDefinitionSnapshotLoader.isAotEnabled()
+            && registerBeanDefinitionsFromSnapshot(registry, singletonBeanRegistry, environment, configurationClasses)
+        ) {
+            return
+        }
+
         val parser = this.parser ?: ConfigurationClassParser(
             registry, environment, componentScanBeanNameGenerator, resourceLoader, metadataReaderFactory
         )
@@ -229,9 +251,13 @@ open class ConfigurationClassPostProcessor : BeanDefinitionRegistryPostProcessor
             configClasses.removeAll(alreadyParsed)
 
             // determine ConfigurationClassBeanDefinitionReader to use
-            val reader = this.reader ?: ConfigurationClassBeanDefinitionReader(
-                registry, importBeanBeanNameGenerator, environment, parser.getImportRegistry(), resourceLoader
-            )
+            val reader = this.reader
+                ?: recorder?.createBeanDefinitionReader(
+                    importBeanBeanNameGenerator, environment, parser.getImportRegistry(), resourceLoader
+                )
+                ?: ConfigurationClassBeanDefinitionReader(
+                    registry, importBeanBeanNameGenerator, environment, parser.getImportRegistry(), resourceLoader
+                )
 
             // 交给reader去从本次parser解析得到的ConfigClass当中去加载BeanDefinition
             // 1.如果它是被@Import导入进来的, 那么会在这里完成BeanDefinition的注册
@@ -279,12 +305,64 @@ open class ConfigurationClassPostProcessor : BeanDefinitionRegistryPostProcessor
             singletonBeanRegistry.registerSingleton(IMPORT_REGISTRY_BEAN_NAME, parser.getImportRegistry())
         }
 
+        // 如果是在AOT处理当中, 根据记录的解析过程去生成快照
+        if (recorder != null) {
+            this.beanDefinitionSnapshot = recorder.createSnapshot(
+                configurationClasses,
+                environment.getActiveProfiles().toList(),
+                alreadyParsed.map { it.metadata.getClassName() },
+                parser.getImportRegistry(),
+                parser.getPropertySourceDescriptors()
+            )
+        }
+
         // 如果它是Caching带缓存的话, 那么把缓存清空掉...
         if (this.metadataReaderFactory is CachingMetadataReaderFactory) {
             (this.metadataReaderFactory as CachingMetadataReaderFactory).clearCache()
         }
     }
 
+    /**
+     * 尝试使用构建时生成的快照去注册BeanDefinition, 从而跳过配置类的解析
+     *
+     * @param registry BeanDefinitionRegistry
+     * @param singletonBeanRegistry 用于注册ImportRegistry的SingletonBeanRegistry
+     * @param environment Environment
+     * @param configurationClasses 配置类列表(按照处理的顺序)
+     * @return 如果存在有可用的快照并完成了BeanDefinition的注册, return true; 否则return false
+     */
+    protected open fun registerBeanDefinitionsFromSnapshot(
+        registry: BeanDefinitionRegistry,
+        @Nullable singletonBeanRegistry: SingletonBeanRegistry?,
+        environment: Environment,
+        configurationClasses: List<String>
+    ): Boolean {
+        val snapshot = BeanDefinitionSnapshotLoader.loadSnapshot(
+            getBeanClassLoader(), configurationClasses, environment.getActiveProfiles().toList()
+        ) ?: return false
+
+        val restoreConfig = getApplicationStartup().start("spring.context.config-classes.restore")  // start restoreConfig
+        val importRegistry = snapshot.registerBeanDefinitions(
+            registry, environment, resourceLoader, importBeanBeanNameGenerator, metadataReaderFactory
+        )
+        if (singletonBeanRegistry != null && !singletonBeanRegistry.containsSingleton(IMPORT_REGISTRY_BEAN_NAME)) {
+            singletonBeanRegistry.registerSingleton(IMPORT_REGISTRY_BEAN_NAME, importRegistry)
+        }
+        restoreConfig.tag("entryCount", snapshot.entries.size.toString()).end()  // tag and end
+        if (logger.isInfoEnabled) {
+            logger.info("Registered bean definitions from snapshot for configuration classes $configurationClasses, entries=${snapshot.entries.size}")
+        }
+        return true
+    }
+
+    /**
+     * 获取在AOT处理当中记录得到的BeanDefinition的快照
+     *
+     * @return 快照(如果不是在AOT处理当中, 或者是还没有完成配置类的解析, return null)
+     */
+    @Nullable
+    open fun getBeanDefinitionSnapshot(): BeanDefinitionSnapshot? = this.beanDefinitionSnapshot
+
     /**
      * 如果必要的话, 尝试使用CGLIB去增强目标配置类(针对于所有的"FULL"配置类)
      *
@@ -7,7 +7,9 @@ package com.wanna.framework.context.stereotype
  * @see Service
  * @see Controller
  * @see Repository
+ * @see Indexed
  */
+@Indexed
 @Target(AnnotationTarget.ANNOTATION_CLASS, AnnotationTarget.CLASS, AnnotationTarget.TYPE)
 annotation class Component(
     val value: String = ""
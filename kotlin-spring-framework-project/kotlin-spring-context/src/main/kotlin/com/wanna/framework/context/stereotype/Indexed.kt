@@ -0,0 +1,22 @@
+package com.wanna.framework.context.stereotype
+
+/**
+ * 标识被标注的注解(或者是类型)是一个需要被记录到候选组件索引("META-INF/spring.components")当中的Stereotype.
+ *
+ * * 1.如果标注在一个注解上, 那么所有直接/间接(Meta注解)标注了该注解的类, 都会以该注解的全类名作为Stereotype被记录到索引当中;
+ * * 2.如果标注在一个类/接口上, 那么它的所有子类, 都会以该类型的全类名作为Stereotype被记录到索引当中.
+ *
+ * 在类路径扫描时, 如果所有的includeFilter都是基于被[Indexed]标注的注解/类型去进行匹配的,
+ * 那么就可以直接从索引当中去获取候选组件, 而不必去对包下的所有类去进行ASM的解析
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/8
+ *
+ * @see Component
+ * @see com.wanna.framework.context.index.CandidateComponentsIndex
+ * @see com.wanna.framework.context.index.CandidateComponentsIndexer
+ */
+@Target(AnnotationTarget.ANNOTATION_CLASS, AnnotationTarget.CLASS)
+@MustBeDocumented
+annotation class Indexed
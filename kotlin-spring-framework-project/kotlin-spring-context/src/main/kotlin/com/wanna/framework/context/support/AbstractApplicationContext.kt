@@ -220,14 +220,19 @@ abstract class AbstractApplicationContext() : ConfigurableApplicationContext, De
                 initMessageSource()
 
                 // 交给子类去完成, 子类可以在这里去完成TomcatWebServer等对象的创建...
+                val refresh = this.applicationStartup.start("spring.context.on-refresh")  // start onRefresh
                 onRefresh()
+                refresh.end()  // end onRefresh
 
                 // 注册监听器, 在这个步骤之前所发布的事件, 都会被保存到早期事件当中...这里会去完成所有早期事件的发布
                 // 在这里完成了监听器的注册之后, ApplicationEventMulticaster已经可以处理事件了, 就不需要早期事件列表的存在了
                 registerListeners()
 
                 // 完成剩下的所有单实例Bean的初始化工作
+                val finishInitialization =
+                    this.applicationStartup.start("spring.context.beans.finish-initialization")  // start finish initialization
                 finishBeanFactoryInitialization(beanFactory)
+                finishInitialization.end()  // end finish initialization
 
                 // 完成当前的ApplicationContext的刷新工作
                 finishRefresh()
@@ -250,6 +255,27 @@ abstract class AbstractApplicationContext() : ConfigurableApplicationContext, De
         }
     }
 
+    /**
+     * 为AOT处理去刷新当前的ApplicationContext, 只执行到BeanDefinition的注册完成为止:
+     * 只会去执行BeanDefinitionRegistryPostProcessor的postProcessBeanDefinitionRegistry方法,
+     * 不会去对BeanFactory去进行后置处理, 也不会去创建任何的业务Bean(不会有onRefresh/finishBeanFactoryInitialization等步骤).
+     *
+     * 经过该方法刷新的ApplicationContext, 只能用于在构建时去获取BeanDefinition的信息, 不能再去进行正常的使用
+     *
+     * @see com.wanna.framework.context.aot.BeanDefinitionSnapshotGenerator
+     */
+    open fun refreshForAotProcessing() {
+        synchronized(this.startupShutdownMonitor) {
+            prepareRefresh()
+            val beanFactory = obtainFreshBeanFactory()
+            prepareBeanFactory(beanFactory)
+            postProcessBeanFactory(beanFactory)
+            PostProcessorRegistrationDelegate.invokeBeanFactoryPostProcessors(
+                beanFactory, beanFactoryPostProcessors, registryOnly = true
+            )
+        }
+    }
+
     /**
      * 为当前的ApplicationContext去生成一个id
      *
@@ -550,6 +576,9 @@ abstract class AbstractApplicationContext() : ConfigurableApplicationContext, De
             getBeanFactory().addEmbeddedValueResolver { strVal -> getEnvironment().resolveRequiredPlaceholders(strVal) }
         }
 
+        // 冻结BeanDefinition的配置信息, 允许BeanFactory去对BeanDefinition的元信息(例如beanType对应的beanNames)去进行缓存
+        beanFactory.freezeConfiguration()
+
         // 完成BeanFactory当中剩下的所有单实例Bean的实例化和初始化工作
         beanFactory.preInstantiateSingletons()
     }
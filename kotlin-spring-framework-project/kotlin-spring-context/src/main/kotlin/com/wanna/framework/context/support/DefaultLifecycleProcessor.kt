@@ -15,6 +15,20 @@ import com.wanna.framework.context.LifecycleProcessor
  */
 open class DefaultLifecycleProcessor : LifecycleProcessor, BeanFactoryAware {
 
+    companion object {
+
+        /**
+         * 通过系统属性"spring.context.exit=onRefresh", 可以让JVM在ApplicationContext刷新完成之后(启动Lifecycle Bean之前)直接退出,
+         * 主要用于AppCDS的训练运行, 在应用的类都已经加载完成之后退出, 从而在JVM退出时生成CDS归档文件
+         */
+        const val EXIT_PROPERTY_NAME = "spring.context.exit"
+
+        /**
+         * 在ApplicationContext刷新完成之后退出的属性值
+         */
+        const val ON_REFRESH_VALUE = "onRefresh"
+    }
+
     /**
      * beanFactory
      */
@@ -38,7 +52,13 @@ open class DefaultLifecycleProcessor : LifecycleProcessor, BeanFactoryAware {
 
     override fun isRunning() = this.running
 
-    override fun onRefresh() = start()
+    override fun onRefresh() {
+        // Note: 这里使用halt而不是exit, 因为当前线程还持有着ApplicationContext的刷新锁, exit触发的ShutdownHook去关闭容器时会死锁
+        if (System.getProperty(EXIT_PROPERTY_NAME) == ON_REFRESH_VALUE) {
+            Runtime.getRuntime().halt(0)
+        }
+        start()
+    }
 
     override fun onClose() = stop()
 
@@ -28,10 +28,15 @@ object PostProcessorRegistrationDelegate {
      *
      * @param postProcessors 在ApplicationContext当中已经注册的BeanFactoryPostProcessor列表
      * @param beanFactory BeanFactory
+     * @param registryOnly 是否只执行BeanDefinitionRegistryPostProcessor的postProcessBeanDefinitionRegistry方法?
+     * (AOT处理时只需要完成BeanDefinition的注册, 不应该对BeanFactory去进行后置处理)
      */
     @JvmStatic
+    @JvmOverloads
     fun invokeBeanFactoryPostProcessors(
-        beanFactory: ConfigurableListableBeanFactory, postProcessors: List<BeanFactoryPostProcessor>
+        beanFactory: ConfigurableListableBeanFactory,
+        postProcessors: List<BeanFactoryPostProcessor>,
+        registryOnly: Boolean = false
     ) {
         val applicationStartup = beanFactory.getApplicationStartup()
         // 已经处理过的BeanFactoryPostProcessor的beanName列表
@@ -121,6 +126,11 @@ object PostProcessorRegistrationDelegate {
             registryPostProcessors.addAll(currentRegistryPostProcessors)
             currentRegistryPostProcessors.clear()  // clear掉
 
+            // 如果只需要完成BeanDefinition的注册, 那么到这里就可以结束了
+            if (registryOnly) {
+                return
+            }
+
             // 执行所有的BeanDefinitionRegistryPostProcessor的postProcessBeanFactory方法
             invokeBeanFactoryPostProcessors(registryPostProcessors, beanFactory)
 
@@ -168,6 +178,9 @@ object PostProcessorRegistrationDelegate {
             nonOrderedProcessors += beanFactory.getBean(beanName, BeanFactoryPostProcessor::class.java)
         }
         invokeBeanFactoryPostProcessors(nonOrderedProcessors, beanFactory)
+
+        // BeanFactoryPostProcessor有可能已经修改了BeanDefinition(例如placeholder的替换/设置懒加载), 需要清除掉MergedBeanDefinition的缓存
+        beanFactory.clearMetadataCache()
     }
 
 
@@ -1,13 +1,22 @@
 package com.wanna.framework.transaction.interceptor
 
+import com.wanna.framework.core.MethodClassKey
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.ClassUtils
+import com.wanna.framework.util.ConcurrentReferenceHashMap
 import java.lang.reflect.Method
 import java.lang.reflect.Modifier
 
 /**
- * 提供了支持fallback的方式去进行获取@Transactional注解的方式的模板方法; 
+ * 提供了支持fallback的方式去进行获取@Transactional注解的方式的模板方法;
  *
- * * 1.首先会尝试去指定的方法上去找@Transactional
- * * 2.尝试去指定的方法所在的类上去找@Transactional
+ * * 1.首先会尝试去目标类当中的最具体的方法上去找@Transactional
+ * * 2.尝试去目标类当中的最具体的方法所在的类上去找@Transactional
+ * * 3.如果最具体的方法和原始方法不同, 那么再尝试去原始方法以及原始方法所在的类上去找@Transactional
+ *
+ * 对于每个(method, targetClass), 解析的结果都会被缓存起来(没有事务的方法使用[NULL_TRANSACTION_ATTRIBUTE]作为标识),
+ * 避免在事务方法的每次调用以及Pointcut的每次匹配时都需要去重新进行注解的解析; 缓存使用的是[ConcurrentReferenceHashMap],
+ * 缓存当中对于Method/Class的引用并不会阻止ClassLoader被卸载
  *
  * @see findTransactionAttribute
  * @see TransactionAttribute
@@ -15,6 +24,22 @@ import java.lang.reflect.Modifier
  */
 abstract class AbstractFallbackTransactionAttributeSource : TransactionAttributeSource {
 
+    companion object {
+
+        /**
+         * 对于没有事务的方法, 在缓存当中使用的标识(ConcurrentMap当中不允许存放null)
+         */
+        @JvmStatic
+        private val NULL_TRANSACTION_ATTRIBUTE: TransactionAttribute = object : DefaultTransactionAttribute() {
+            override fun toString(): String = "NULL_TRANSACTION_ATTRIBUTE"
+        }
+    }
+
+    /**
+     * 事务属性的缓存, key-(method, targetClass), value-TransactionAttribute(没有事务的方法为[NULL_TRANSACTION_ATTRIBUTE])
+     */
+    private val attributeCache = ConcurrentReferenceHashMap<Any, TransactionAttribute>(1024)
+
     /**
      * 给定目标类/目标方法, 尝试去匹配@Transactional注解, 并封装成为TransactionAttribute
      *
@@ -22,19 +47,69 @@ abstract class AbstractFallbackTransactionAttributeSource : TransactionAttribute
      * @param targetClass 目标类
      * @return 如果目标类上没有@Transactional, 那么return null; 如果找到了的话, 将@Transactional封装成为TransactionAttribute
      */
-    override fun getTransactionAttribute(method: Method, targetClass: Class<*>?): TransactionAttribute? {
+    @Nullable
+    override fun getTransactionAttribute(method: Method, @Nullable targetClass: Class<*>?): TransactionAttribute? {
+        // Object的方法, 不可能存在事务
+        if (method.declaringClass == Any::class.java) {
+            return null
+        }
+        val cacheKey = getCacheKey(method, targetClass)
+        val cached = this.attributeCache[cacheKey]
+        if (cached != null) {
+            return if (cached === NULL_TRANSACTION_ATTRIBUTE) null else cached
+        }
+        val txAttr = computeTransactionAttribute(method, targetClass)
+        this.attributeCache[cacheKey] = txAttr ?: NULL_TRANSACTION_ATTRIBUTE
+        return txAttr
+    }
+
+    /**
+     * 获取(method, targetClass)对应的缓存Key
+     *
+     * @param method 目标方法
+     * @param targetClass 目标类
+     * @return 缓存Key
+     */
+    protected open fun getCacheKey(method: Method, @Nullable targetClass: Class<*>?): Any =
+        MethodClassKey(method, targetClass)
+
+    /**
+     * 真正地去解析给定的方法的TransactionAttribute(不使用缓存)
+     *
+     * @param method 目标方法
+     * @param targetClass 目标类
+     * @return 解析得到的TransactionAttribute(如果不存在的话, return null)
+     */
+    @Nullable
+    protected open fun computeTransactionAttribute(method: Method, @Nullable targetClass: Class<*>?): TransactionAttribute? {
         // 如果必须是public方法, 但是给定的方法不是的话, 那么return null
         if (allowPublicMethodsOnly() && !Modifier.isPublic(method.modifiers)) {
             return null
         }
-        var txAttr: TransactionAttribute? = findTransactionAttribute(method)
+
+        // 方法有可能是接口上的方法, 需要找到目标类当中的最具体的方法
+        val specificMethod = ClassUtils.getMostSpecificMethod(method, targetClass?.let { ClassUtils.getUserClass(it) })
+
+        var txAttr: TransactionAttribute? = findTransactionAttribute(specificMethod)
         if (txAttr != null) {
             return txAttr
         }
-        txAttr = findTransactionAttribute(method.declaringClass)
+        txAttr = findTransactionAttribute(specificMethod.declaringClass)
         if (txAttr != null) {
             return txAttr
         }
+
+        // 最具体的方法上没有找到的话, 那么fallback到原始方法上去找
+        if (specificMethod != method) {
+            txAttr = findTransactionAttribute(method)
+            if (txAttr != null) {
+                return txAttr
+            }
+            txAttr = findTransactionAttribute(method.declaringClass)
+            if (txAttr != null) {
+                return txAttr
+            }
+        }
         return null
     }
 
@@ -55,9 +130,9 @@ abstract class AbstractFallbackTransactionAttributeSource : TransactionAttribute
     protected abstract fun findTransactionAttribute(method: Method): TransactionAttribute?
 
     /**
-     * 是否只允许public方法(默认为false)拥有事务? 
+     * 是否只允许public方法(默认为false)拥有事务?
      *
      * @return 如果只允许public方法, return true; 不然为false
      */
     protected open fun allowPublicMethodsOnly() = false
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package com.wanna.framework.transaction.interceptor
 
 import com.wanna.framework.aop.intercept.MethodInterceptor
 import com.wanna.framework.aop.intercept.MethodInvocation
+import com.wanna.framework.aop.support.AopUtils
 
 /**
  * Spring事务的增强拦截器器, 负责对给容器中需要产生事务的Bean去生成代理, 而该代理, 会被当前的组件所拦截和进行处理
@@ -23,6 +24,9 @@ open class TransactionInterceptor : MethodInterceptor, TransactionAspectSupport(
                 return invocation.proceed()
             }
         }
-        return invokeWithinTransaction(invocation.getMethod(), null, callback)
+        // 需要传递目标类, 才能找到目标类当中的最具体的方法上的@Transactional, 并且让TransactionAttribute的缓存可以按照目标类去进行区分
+        val target = invocation.getThis()
+        val targetClass = if (target != null) AopUtils.getTargetClass(target) else null
+        return invokeWithinTransaction(invocation.getMethod(), targetClass, callback)
     }
 }
\ No newline at end of file
@@ -0,0 +1,162 @@
+package com.wanna.framework.simple.test.aot
+
+import com.wanna.framework.beans.factory.config.BeanDefinitionRegistry
+import com.wanna.framework.beans.factory.config.RuntimeBeanReference
+import com.wanna.framework.beans.factory.support.definition.AbstractBeanDefinition
+import com.wanna.framework.beans.factory.support.definition.BeanDefinition
+import com.wanna.framework.beans.factory.support.definition.GenericBeanDefinition
+import com.wanna.framework.context.annotation.*
+import com.wanna.framework.context.aot.BeanDefinitionSnapshot
+import com.wanna.framework.context.aot.BeanDefinitionSnapshotGenerator
+import com.wanna.framework.core.io.support.PropertySourceDescriptor
+import com.wanna.framework.core.type.AnnotationMetadata
+import com.wanna.framework.core.type.classreading.CachingMetadataReaderFactory
+import java.io.StringReader
+import java.io.StringWriter
+import java.util.*
+
+/**
+ * [BeanDefinitionSnapshot]的读写测试, 通过[BeanDefinitionSnapshotGenerator]去解析配置类并生成快照,
+ * 将快照写出之后再重新读取回来, 使用读取得到的快照去注册BeanDefinition, 检查和解析配置类得到的结果一致,
+ * 包括Registrar的重新执行/ImportAware的导入关系/@Lazy(false)/RuntimeBeanReference的属性值/@PropertySource导入的资源
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ */
+class BeanDefinitionSnapshotTest {
+
+    fun testRoundTrip() {
+        // 解析配置类, 并生成快照
+        val parsedContext = AnnotationConfigApplicationContext()
+        parsedContext.register(SnapshotConfig::class.java)
+        val snapshot = BeanDefinitionSnapshotGenerator().generate(parsedContext)
+
+        // @PropertySource的资源位置在构建时就完成了占位符的解析, 未找到的资源被忽略
+        check(
+            snapshot.propertySources == listOf(
+                PropertySourceDescriptor(listOf("classpath:aot/snapshot-test.properties"), false, "aotSnapshot", null),
+                PropertySourceDescriptor(listOf("classpath:aot/missing.properties"), true, null, null)
+            )
+        ) { snapshot.propertySources }
+        check(parsedContext.getEnvironment().getProperty("aot.snapshot.message") == "hello")
+
+        // 写出快照之后重新读取回来
+        val writer = StringWriter()
+        snapshot.write(writer)
+        val properties = Properties()
+        properties.load(StringReader(writer.toString()))
+        val restored = BeanDefinitionSnapshot.read(properties)
+        check(restored.configurationClasses == snapshot.configurationClasses)
+        check(restored.propertySources == snapshot.propertySources)
+        check(restored.imports == snapshot.imports)
+        check(restored.entries.size == snapshot.entries.size)
+
+        // 写出的内容是稳定的
+        val rewriter = StringWriter()
+        restored.write(rewriter)
+        check(rewriter.toString() == writer.toString())
+
+        // 使用快照去注册BeanDefinition, 和解析配置类得到的结果进行比较
+        val restoredContext = AnnotationConfigApplicationContext()
+        restoredContext.register(SnapshotConfig::class.java)
+        val registry = restoredContext.getBeanFactory() as BeanDefinitionRegistry
+        check(restoredContext.getEnvironment().getProperty("aot.snapshot.message") == null)
+        val importRegistry = restored.registerBeanDefinitions(
+            registry, restoredContext.getEnvironment(), restoredContext,
+            FullyQualifiedAnnotationBeanNameGenerator.INSTANCE, CachingMetadataReaderFactory(restoredContext)
+        )
+        checkSameBeanDefinitions(parsedContext.getBeanFactory() as BeanDefinitionRegistry, registry)
+
+        // @PropertySource导入的资源在注册BeanDefinition之前就已经被添加到Environment当中
+        check(restoredContext.getEnvironment().getProperty("aot.snapshot.message") == "hello")
+        check(restoredContext.getEnvironment().getPropertySources().contains("aotSnapshot"))
+
+        // Registrar使用导入它的类的注解信息去重新执行
+        check(registry.containsBeanDefinition("registeredBean"))
+        val registered = registry.getBeanDefinition("registeredBean")
+        check(propertyValues(registered) == mapOf("target" to "ref:eagerService"))
+
+        // @Lazy(false)
+        check((registry.getBeanDefinition("eagerService") as AbstractBeanDefinition).getLazyInit() == false)
+
+        // XML当中配置的RuntimeBeanReference属性值
+        val consumer = registry.getBeanDefinition("snapshotConsumer")
+        check(propertyValues(consumer) == mapOf("service" to "ref:eagerService"))
+
+        // ImportAware的导入关系
+        check(importRegistry.getImportingClassFor(ImportAwareConfig::class.java.name)?.getClassName() == SnapshotConfig::class.java.name)
+    }
+
+    /**
+     * 检查两个BeanDefinitionRegistry当中的BeanDefinition是否一致
+     *
+     * @param expected 解析配置类得到的BeanDefinitionRegistry
+     * @param actual 使用快照去注册BeanDefinition的BeanDefinitionRegistry
+     */
+    private fun checkSameBeanDefinitions(expected: BeanDefinitionRegistry, actual: BeanDefinitionRegistry) {
+        check(expected.getBeanDefinitionNames() == actual.getBeanDefinitionNames()) {
+            "expected ${expected.getBeanDefinitionNames()}, but was ${actual.getBeanDefinitionNames()}"
+        }
+        for (beanName in expected.getBeanDefinitionNames()) {
+            val expectedDefinition = expected.getBeanDefinition(beanName) as AbstractBeanDefinition
+            val actualDefinition = actual.getBeanDefinition(beanName) as AbstractBeanDefinition
+            check(expectedDefinition.getBeanClassName() == actualDefinition.getBeanClassName()) { beanName }
+            check(expectedDefinition.getFactoryBeanName() == actualDefinition.getFactoryBeanName()) { beanName }
+            check(expectedDefinition.getFactoryMethodName() == actualDefinition.getFactoryMethodName()) { beanName }
+            check(expectedDefinition.getScope() == actualDefinition.getScope()) { beanName }
+            check(expectedDefinition.getLazyInit() == actualDefinition.getLazyInit()) { beanName }
+            check(expectedDefinition.isPrimary() == actualDefinition.isPrimary()) { beanName }
+            check(expectedDefinition.getRole() == actualDefinition.getRole()) { beanName }
+            check(propertyValues(expectedDefinition) == propertyValues(actualDefinition)) { beanName }
+        }
+    }
+
+    /**
+     * 获取BeanDefinition的属性值, RuntimeBeanReference使用"ref:{beanName}"去进行表示
+     *
+     * @param beanDefinition BeanDefinition
+     * @return 属性值(Key-属性名, Value-属性值)
+     */
+    private fun propertyValues(beanDefinition: BeanDefinition): Map<String, Any?> =
+        beanDefinition.getPropertyValues().getPropertyValues().associate {
+            val value = it.value
+            it.name to if (value is RuntimeBeanReference) "ref:${value.getBeanName()}" else value
+        }
+
+    @Import([ImportAwareConfig::class, SnapshotRegistrar::class])
+    @ImportResource(["classpath:aot/snapshot-test.xml"])
+    @PropertySource(["classpath:\${aot.snapshot.dir:aot}/snapshot-test.properties"], name = "aotSnapshot")
+    @Configuration(proxyBeanMethods = false)
+    open class SnapshotConfig {
+        @Bean
+        @Lazy(false)
+        open fun eagerService(): SnapshotService = SnapshotService()
+    }
+
+    @PropertySource(["classpath:aot/missing.properties"], ignoreResourceNotFound = true)
+    @Configuration(proxyBeanMethods = false)
+    open class ImportAwareConfig : ImportAware {
+        override fun setImportMetadata(annotationMetadata: AnnotationMetadata) {}
+    }
+
+    class SnapshotRegistrar : ImportBeanDefinitionRegistrar {
+        override fun registerBeanDefinitions(annotationMetadata: AnnotationMetadata, registry: BeanDefinitionRegistry) {
+            check(annotationMetadata.getClassName() == SnapshotConfig::class.java.name)
+            val beanDefinition = GenericBeanDefinition(SnapshotConsumer::class.java)
+            beanDefinition.getPropertyValues().addPropertyValue("target", RuntimeBeanReference("eagerService"))
+            registry.registerBeanDefinition("registeredBean", beanDefinition)
+        }
+    }
+
+    class SnapshotService
+
+    class SnapshotConsumer {
+        var service: SnapshotService? = null
+        var target: SnapshotService? = null
+    }
+}
+
+fun main() {
+    BeanDefinitionSnapshotTest().testRoundTrip()
+}
@@ -0,0 +1,66 @@
+package com.wanna.framework.simple.test.concurrent
+
+import com.wanna.framework.beans.factory.config.RuntimeBeanReference
+import com.wanna.framework.beans.factory.support.DefaultListableBeanFactory
+import com.wanna.framework.beans.factory.support.definition.RootBeanDefinition
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.TimeUnit
+
+/**
+ * 测试两个线程分别去创建互相依赖的两个单例Bean的情况, 两个线程在实例化完成之后都持有着各自的Bean的创建锁,
+ * 再去获取对方的Bean时, 后开始等待的线程会在等待图当中检测到环, 从而使用对方的早期引用去完成创建
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ */
+class CrossThreadCircularReferenceTest {
+
+    companion object {
+        /**
+         * 保证两个线程都已经完成实例化(持有着各自的Bean的创建锁)之后, 才去注入对方
+         */
+        val barrier = CyclicBarrier(2)
+    }
+
+    class A {
+        init {
+            barrier.await(10, TimeUnit.SECONDS)
+        }
+
+        var other: Any? = null
+    }
+
+    class B {
+        init {
+            barrier.await(10, TimeUnit.SECONDS)
+        }
+
+        var other: Any? = null
+    }
+}
+
+fun main() {
+    val beanFactory = DefaultListableBeanFactory()
+    val a = RootBeanDefinition(CrossThreadCircularReferenceTest.A::class.java)
+    a.getPropertyValues().addPropertyValue("other", RuntimeBeanReference("b"))
+    val b = RootBeanDefinition(CrossThreadCircularReferenceTest.B::class.java)
+    b.getPropertyValues().addPropertyValue("other", RuntimeBeanReference("a"))
+    beanFactory.registerBeanDefinition("a", a)
+    beanFactory.registerBeanDefinition("b", b)
+
+    val results = ConcurrentHashMap<String, Any>()
+    val threads = listOf("a", "b").map { beanName ->
+        Thread({ results[beanName] = beanFactory.getBean(beanName) }, "create-$beanName")
+    }
+    threads.forEach(Thread::start)
+    threads.forEach { it.join(10000L) }
+
+    // 两个线程都不会一直阻塞, 并且拿到的都是对方最终的单例对象
+    check(threads.none(Thread::isAlive)) { "deadlocked" }
+    val beanA = results["a"] as CrossThreadCircularReferenceTest.A
+    val beanB = results["b"] as CrossThreadCircularReferenceTest.B
+    check(beanA.other === beanB && beanB.other === beanA)
+    check(beanFactory.getBean("a") === beanA && beanFactory.getBean("b") === beanB)
+}
@@ -0,0 +1,167 @@
+package com.wanna.framework.simple.test.index
+
+import com.wanna.framework.context.index.CandidateComponentsIndex
+import com.wanna.framework.context.index.CandidateComponentsIndexLoader
+import com.wanna.framework.context.index.CandidateComponentsIndexer
+import java.io.File
+import java.net.URL
+import java.net.URLClassLoader
+import java.nio.file.Files
+import java.util.*
+
+/**
+ * [CandidateComponentsIndex]的过期检查的测试, 每个类路径目录都需要使用它自己的索引文件的时间戳去进行检查,
+ * 不存在有索引文件的类路径目录, 不能被别的目录当中的索引所覆盖
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ */
+class CandidateComponentsIndexTest {
+
+    companion object {
+
+        /**
+         * 测试使用的包名
+         */
+        const val BASE_PACKAGE = "com.wanna.indextest"
+
+        /**
+         * 测试使用的基准时间戳
+         */
+        private const val NOW = 1_700_000_000_000L
+    }
+
+    /**
+     * 测试过程当中创建的临时目录
+     */
+    private val directories = ArrayList<File>()
+
+    fun testIndexedDirectory() {
+        val indexed = createClassPathRoot("Indexed", classTimestamp = NOW - 10_000, indexTimestamp = NOW)
+        check(loadIndex(indexed).isUpToDate(BASE_PACKAGE))
+        check(loadIndex(indexed).getCandidateTypes(BASE_PACKAGE, "Component") == setOf("$BASE_PACKAGE.Indexed"))
+
+        // 在生成索引之后又去修改了类, 索引过期
+        File(indexed, classFilePath("Indexed")).setLastModified(NOW + 10_000)
+        check(!loadIndex(indexed).isUpToDate(BASE_PACKAGE))
+    }
+
+    fun testIndexedAndUnindexedDirectory() {
+        // 没有索引的目录当中的类, 即使比另外一个目录当中的索引更旧, 也不会被该索引所覆盖
+        val indexed = createClassPathRoot("Indexed", classTimestamp = NOW - 10_000, indexTimestamp = NOW)
+        val unindexed = createClassPathRoot("Unindexed", classTimestamp = NOW - 20_000, indexTimestamp = null)
+        val index = loadIndex(indexed, unindexed)
+        check(!index.isUpToDate(BASE_PACKAGE))
+        check(!index.getCandidateTypes(BASE_PACKAGE, "Component").contains("$BASE_PACKAGE.Unindexed"))
+    }
+
+    fun testIndexTimestampPerDirectory() {
+        // 第二个目录当中的类比它自己的索引更新, 即使比第一个目录当中的索引更旧, 也应该视为过期
+        val fresh = createClassPathRoot("Fresh", classTimestamp = NOW - 10_000, indexTimestamp = NOW)
+        val stale = createClassPathRoot("Stale", classTimestamp = NOW - 20_000, indexTimestamp = NOW - 30_000)
+        check(!loadIndex(fresh, stale).isUpToDate(BASE_PACKAGE))
+
+        File(stale, CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION).setLastModified(NOW - 15_000)
+        check(loadIndex(fresh, stale).isUpToDate(BASE_PACKAGE))
+    }
+
+    fun testGeneratedIndexRoots() {
+        // 索引被生成到单独的目录当中, 通过"spring.components.roots"去覆盖classes目录
+        val classes = createClassPathRoot("Generated", classTimestamp = NOW - 10_000, indexTimestamp = null)
+        val generated = Files.createTempDirectory("index-test").toFile()
+        directories += generated
+        val indexFile = File(generated, CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION)
+        indexFile.parentFile.mkdirs()
+        indexFile.writeText("$BASE_PACKAGE.Generated=Component\n")
+        indexFile.setLastModified(NOW)
+        check(!loadIndex(classes, generated).isUpToDate(BASE_PACKAGE))
+
+        CandidateComponentsIndexer().writeRoots(listOf(classes), generated)
+        check(loadIndex(classes, generated).isUpToDate(BASE_PACKAGE))
+
+        // classes目录当中的类比覆盖它的索引更新, 索引过期
+        File(classes, classFilePath("Generated")).setLastModified(NOW + 10_000)
+        check(!loadIndex(classes, generated).isUpToDate(BASE_PACKAGE))
+    }
+
+    fun testNestedJar() {
+        // FatJar当中的"BOOT-INF/classes"以及"BOOT-INF/lib"下的每个Jar包, 都需要使用它自己的索引
+        val fatJar = "jar:file:/app.jar!/BOOT-INF"
+        val indexResources = listOf(
+            URL("$fatJar/classes!/${CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION}"),
+            URL("$fatJar/lib/indexed.jar!/${CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION}")
+        )
+        val indexes = listOf(Properties(), Properties())
+        val packagePath = BASE_PACKAGE.replace('.', '/') + "/"
+        val indexedRoots = listOf(URL("$fatJar/classes!/$packagePath"), URL("$fatJar/lib/indexed.jar!/$packagePath"))
+        check(CandidateComponentsIndex(PackageRootsClassLoader(indexedRoots), indexResources, indexes).isUpToDate(BASE_PACKAGE))
+
+        // 没有索引的Jar包和存在有索引的Jar包位于同一个FatJar当中, 也不能被视为存在有索引
+        val roots = indexedRoots + URL("$fatJar/lib/unindexed.jar!/$packagePath")
+        check(!CandidateComponentsIndex(PackageRootsClassLoader(roots), indexResources, indexes).isUpToDate(BASE_PACKAGE))
+    }
+
+    fun cleanup() {
+        directories.forEach { it.deleteRecursively() }
+    }
+
+    /**
+     * 使用给定的类路径目录去创建ClassLoader, 并加载索引
+     *
+     * @param roots 类路径目录
+     * @return 加载得到的索引
+     */
+    private fun loadIndex(vararg roots: File): CandidateComponentsIndex {
+        val classLoader = URLClassLoader(roots.map { it.toURI().toURL() }.toTypedArray(), null)
+        return CandidateComponentsIndexLoader.loadIndex(classLoader)!!
+    }
+
+    /**
+     * 创建一个类路径目录, 在[BASE_PACKAGE]下存放一个Class文件, 并按需生成索引文件
+     *
+     * @param simpleName 类名
+     * @param classTimestamp Class文件的最后修改时间
+     * @param indexTimestamp 索引文件的最后修改时间, 为null时不生成索引文件
+     * @return 类路径目录
+     */
+    private fun createClassPathRoot(simpleName: String, classTimestamp: Long, indexTimestamp: Long?): File {
+        val root = Files.createTempDirectory("index-test").toFile()
+        directories += root
+        val classFile = File(root, classFilePath(simpleName))
+        classFile.parentFile.mkdirs()
+        classFile.writeBytes(ByteArray(0))
+        classFile.setLastModified(classTimestamp)
+        if (indexTimestamp != null) {
+            val indexFile = File(root, CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION)
+            indexFile.parentFile.mkdirs()
+            indexFile.writeText("$BASE_PACKAGE.$simpleName=Component\n")
+            indexFile.setLastModified(indexTimestamp)
+        }
+        return root
+    }
+
+    private fun classFilePath(simpleName: String) = BASE_PACKAGE.replace('.', '/') + "/$simpleName.class"
+
+    /**
+     * 对于任意的资源, 都返回给定的包的类路径的ClassLoader, 用于模拟FatJar当中的嵌套的Jar包
+     *
+     * @param packageRoots 包所在的类路径的URL
+     */
+    private class PackageRootsClassLoader(private val packageRoots: List<URL>) : ClassLoader(null) {
+        override fun getResources(name: String): Enumeration<URL> = Collections.enumeration(packageRoots)
+    }
+}
+
+fun main() {
+    val test = CandidateComponentsIndexTest()
+    try {
+        test.testIndexedDirectory()
+        test.testIndexedAndUnindexedDirectory()
+        test.testIndexTimestampPerDirectory()
+        test.testGeneratedIndexRoots()
+        test.testNestedJar()
+    } finally {
+        test.cleanup()
+    }
+}
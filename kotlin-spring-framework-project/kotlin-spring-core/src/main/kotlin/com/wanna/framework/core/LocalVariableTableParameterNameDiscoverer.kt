@@ -2,6 +2,7 @@ package com.wanna.framework.core
 
 import com.wanna.framework.asm.*
 import com.wanna.framework.util.ClassUtils
+import com.wanna.framework.util.ConcurrentReferenceHashMap
 import java.io.IOException
 import java.lang.reflect.Constructor
 import java.lang.reflect.Executable
@@ -28,9 +29,9 @@ open class LocalVariableTableParameterNameDiscoverer : ParameterNameDiscoverer {
     }
 
     /**
-     * 参数名列表的缓存, K-Class, HK-方法/构造器, KV-方法/构造器的参数名列表, 必须保证线程安全, 因此采用ConcurrentHashMap
+     * 参数名列表的缓存, K-Class, HK-方法/构造器, KV-方法/构造器的参数名列表, 必须保证线程安全, 并且不能持有ClassLoader, 因此采用ConcurrentReferenceHashMap
      */
-    private val parameterNamesCache = ConcurrentHashMap<Class<*>, Map<Executable, Array<String>>>()
+    private val parameterNamesCache = ConcurrentReferenceHashMap<Class<*>, Map<Executable, Array<String>>>()
 
     override fun getParameterNames(constructor: Constructor<*>) = doGetParameter(constructor)
     override fun getParameterNames(method: Method) = doGetParameter(method)
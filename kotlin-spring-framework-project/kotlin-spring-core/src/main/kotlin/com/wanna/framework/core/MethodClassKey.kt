@@ -0,0 +1,43 @@
+package com.wanna.framework.core
+
+import com.wanna.framework.lang.Nullable
+import java.lang.reflect.Method
+
+/**
+ * 方法和目标类的组合Key, 适用于需要基于(method, targetClass)去进行缓存的情况(例如事务属性/缓存属性的解析结果的缓存)
+ *
+ * @param method 方法
+ * @param targetClass 目标类(可以为null)
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/6
+ */
+class MethodClassKey(private val method: Method, @Nullable private val targetClass: Class<*>?) :
+    Comparable<MethodClassKey> {
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) {
+            return true
+        }
+        if (other !is MethodClassKey) {
+            return false
+        }
+        return this.method == other.method && this.targetClass == other.targetClass
+    }
+
+    override fun hashCode(): Int = method.hashCode() + (targetClass?.hashCode() ?: 0) * 29
+
+    override fun toString(): String = method.toString() + (if (targetClass != null) " on $targetClass" else "")
+
+    override fun compareTo(other: MethodClassKey): Int {
+        var result = this.method.name.compareTo(other.method.name)
+        if (result == 0) {
+            result = this.method.toString().compareTo(other.method.toString())
+            if (result == 0 && this.targetClass != null && other.targetClass != null) {
+                result = this.targetClass.name.compareTo(other.targetClass.name)
+            }
+        }
+        return result
+    }
+}
@@ -1,5 +1,6 @@
 package com.wanna.framework.core
 
+import com.wanna.framework.util.ConcurrentReferenceHashMap
 import java.io.Serializable
 import java.lang.reflect.*
 
@@ -456,14 +457,42 @@ open class ResolvableType {
         @JvmField
         val EMPTY_TYPES_ARRAY = emptyArray<ResolvableType>()
 
+        /**
+         * ResolvableType的缓存, 缓存根据Class/Field/方法参数去构建出来的ResolvableType,
+         * 避免在配置类解析、依赖注入以及请求处理的过程当中, 重复地去构建ResolvableType并重复解析泛型;
+         * 采用软引用的方式去进行缓存, 读写都不需要去加全局锁, 内存紧张时缓存会被GC自动回收
+         *
+         * Key可以是Class、Field以及[MethodParameterCacheKey]
+         */
+        @JvmStatic
+        private val cache = ConcurrentReferenceHashMap<Any, ResolvableType>(256)
+
+        /**
+         * 从缓存当中去获取ResolvableType, 如果缓存当中不存在的话, 那么使用给定的factory去进行构建并放入缓存当中
+         *
+         * @param key cacheKey
+         * @param factory 缓存当中不存在时, 去构建ResolvableType的工厂方法
+         * @return ResolvableType
+         */
+        private inline fun getOrCreate(key: Any, factory: () -> ResolvableType): ResolvableType {
+            val cached = cache[key]
+            if (cached != null) {
+                return cached
+            }
+            // 就算并发情况下重复构建了, 结果也是等价的
+            val resolvableType = factory.invoke()
+            return cache.putIfAbsent(key, resolvableType) ?: resolvableType
+        }
+
         @JvmStatic
         fun forClass(clazz: Class<*>?): ResolvableType {
-            return ResolvableType(clazz)
+            clazz ?: return ResolvableType(null)
+            return getOrCreate(clazz) { ResolvableType(clazz) }
         }
 
         @JvmStatic
         fun forField(field: Field): ResolvableType {
-            return forType(null, FieldTypeProvider(field), null)
+            return getOrCreate(field) { forType(null, FieldTypeProvider(field), null) }
         }
 
         @JvmStatic
@@ -514,7 +543,9 @@ open class ResolvableType {
          */
         @JvmStatic
         fun forMethodParameter(method: Method, index: Int): ResolvableType {
-            return forMethodParameter(MethodParameter(method, index))
+            return getOrCreate(MethodParameterCacheKey(method, index)) {
+                forMethodParameter(MethodParameter(method, index))
+            }
         }
 
         /**
@@ -525,7 +556,7 @@ open class ResolvableType {
          */
         @JvmStatic
         fun forMethodReturnType(method: Method): ResolvableType {
-            return forMethodParameter(MethodParameter(method, -1))
+            return forMethodParameter(method, -1)
         }
 
         /**
@@ -550,7 +581,8 @@ open class ResolvableType {
          */
         @JvmStatic
         fun forClassWithGenerics(clazz: Class<*>, vararg generics: Class<*>): ResolvableType {
-            return forClassWithGenerics(forClass(clazz), *generics.map { forClass(it) }.toTypedArray())
+            // Note: 这里需要去修改ResolvableType的泛型, 因此不能使用缓存当中的ResolvableType, 需要去创建一个新的
+            return forClassWithGenerics(ResolvableType(clazz), *generics.map { forClass(it) }.toTypedArray())
         }
 
         /**
@@ -571,12 +603,23 @@ open class ResolvableType {
             return resolvableType
         }
 
+        /**
+         * 清除ResolvableType的缓存
+         */
         @JvmStatic
         fun clearCache() {
-
+            cache.clear()
         }
     }
 
+    /**
+     * 方法参数的缓存Key
+     *
+     * @param method 方法
+     * @param index 参数index(-1代表方法返回值)
+     */
+    private data class MethodParameterCacheKey(val method: Method, val index: Int)
+
     /**
      * TypeProvider
      */
@@ -104,7 +104,7 @@ object AnnotatedElementUtils {
     fun getMergedAnnotationAttributes(
         element: AnnotatedElement, annotationType: Class<out Annotation>
     ): AnnotationAttributes? {
-        val mergedAnnotation = getAnnotations(annotationType).get(
+        val mergedAnnotation = getAnnotations(element).get(
             annotationType, null, MergedAnnotationSelectors.firstDirectlyDeclared()
         )
         return getAnnotationAttributes(mergedAnnotation, false, true)
@@ -1,6 +1,7 @@
 package com.wanna.framework.core.annotation
 
 import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.ConcurrentReferenceHashMap
 import java.util.*
 import kotlin.collections.ArrayList
 
@@ -148,6 +149,22 @@ class AnnotationTypeMappings(
 
     companion object {
 
+        /**
+         * 使用标准的重复注解Container时, 每个AnnotationFilter对应的AnnotationTypeMappings缓存,
+         * 采用软引用去进行缓存, 避免缓存去持有ClassLoader导致无法被回收
+         */
+        @JvmStatic
+        private val standardRepeatablesCache =
+            ConcurrentReferenceHashMap<AnnotationFilter, MappingsCache>()
+
+        /**
+         * 不使用重复注解Container时, 每个AnnotationFilter对应的AnnotationTypeMappings缓存,
+         * 采用软引用去进行缓存, 避免缓存去持有ClassLoader导致无法被回收
+         */
+        @JvmStatic
+        private val noRepeatablesCache =
+            ConcurrentReferenceHashMap<AnnotationFilter, MappingsCache>()
+
         /**
          * 根据一个注解类型, 去建立起来该注解对应的映射信息
          *
@@ -188,12 +205,55 @@ class AnnotationTypeMappings(
             annotationFilter: AnnotationFilter,
             repeatableContainers: RepeatableContainers
         ): AnnotationTypeMappings {
-            return AnnotationTypeMappings(repeatableContainers, annotationType, annotationFilter)
+            // 对于标准的RepeatableContainers和NoRepeatableContainers, 使用缓存去进行获取;
+            // 对于自定义的RepeatableContainers, 无法保证它的equals语义, 因此每次都去进行重新构建
+            return when {
+                repeatableContainers === RepeatableContainers.standardRepeatables() -> standardRepeatablesCache
+                    .computeIfAbsent(annotationFilter) { MappingsCache(repeatableContainers, it) }.get(annotationType)
+
+                repeatableContainers === RepeatableContainers.none() -> noRepeatablesCache
+                    .computeIfAbsent(annotationFilter) { MappingsCache(repeatableContainers, it) }.get(annotationType)
+
+                else -> AnnotationTypeMappings(repeatableContainers, annotationType, annotationFilter)
+            }
         }
 
+        /**
+         * 清除AnnotationTypeMappings的缓存
+         */
         @JvmStatic
         fun clearCache() {
+            standardRepeatablesCache.clear()
+            noRepeatablesCache.clear()
+        }
+    }
+
+    /**
+     * 对于某个(RepeatableContainers, AnnotationFilter)组合下的AnnotationTypeMappings的缓存
+     *
+     * @param repeatableContainers 重复注解的Container
+     * @param annotationFilter 要去过滤注解的Filter
+     */
+    private class MappingsCache(
+        private val repeatableContainers: RepeatableContainers,
+        private val annotationFilter: AnnotationFilter
+    ) {
+
+        /**
+         * AnnotationTypeMappings缓存, Key-注解类型, Value-该注解类型对应的AnnotationTypeMappings
+         */
+        private val mappings = ConcurrentReferenceHashMap<Class<out Annotation>, AnnotationTypeMappings>()
 
+        /**
+         * 获取(或者构建)给定的注解类型对应的AnnotationTypeMappings
+         *
+         * @param annotationType 注解类型
+         * @return AnnotationTypeMappings
+         */
+        fun get(annotationType: Class<out Annotation>): AnnotationTypeMappings {
+            return mappings.computeIfAbsent(annotationType) {
+                AnnotationTypeMappings(repeatableContainers, it, annotationFilter)
+            }
         }
     }
 }
\ No newline at end of file
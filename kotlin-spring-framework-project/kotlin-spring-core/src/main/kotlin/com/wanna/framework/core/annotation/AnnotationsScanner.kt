@@ -4,6 +4,7 @@ import com.wanna.framework.core.Ordered
 import com.wanna.framework.core.annotation.MergedAnnotations.SearchStrategy
 import com.wanna.framework.core.annotation.MergedAnnotations.SearchStrategy.*
 import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.ConcurrentReferenceHashMap
 import com.wanna.framework.util.ReflectionUtils
 import java.lang.annotation.Inherited
 import java.lang.reflect.AnnotatedElement
@@ -11,7 +12,6 @@ import java.lang.reflect.Member
 import java.lang.reflect.Method
 import java.lang.reflect.Modifier
 import java.util.*
-import java.util.concurrent.ConcurrentHashMap
 
 /**
  * 注解扫描的Scanner工具类, 用于提供[AnnotatedElement]的继承关系的相关扫描功能
@@ -38,13 +38,13 @@ object AnnotationsScanner {
      * 目标元素上的注解列表的缓存
      */
     @JvmStatic
-    private val declaredAnnotationCache = ConcurrentHashMap<AnnotatedElement, Array<Annotation>>()
+    private val declaredAnnotationCache = ConcurrentReferenceHashMap<AnnotatedElement, Array<Annotation>>(256)
 
     /**
      * BaseType的Methods缓存, Key-Class, Value-该类上的所有的有标注注解的方法(没有注解的不考虑, 该位置的元素将会设置为null)
      */
     @JvmStatic
-    private val baseTypeMethodsCache = ConcurrentHashMap<Class<*>, Array<Method?>>()
+    private val baseTypeMethodsCache = ConcurrentReferenceHashMap<Class<*>, Array<Method?>>(256)
 
     /**
      * 从给定的[AnnotatedElement]上, 利用给定的[AnnotationsProcessor]去进行注解的搜索和处理
@@ -2,9 +2,9 @@ package com.wanna.framework.core.annotation
 
 import com.wanna.framework.constants.CLASS_ARRAY_TYPE
 import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.ConcurrentReferenceHashMap
 import com.wanna.framework.util.ReflectionUtils
 import java.lang.reflect.Method
-import java.util.concurrent.ConcurrentHashMap
 
 /**
  * 提供了基于顺序(index)的一种快速访问注解的属性方法的方式(quick way),
@@ -223,7 +223,7 @@ class AttributeMethods(
          * AnnotationType-->AttributesMethod缓存
          */
         @JvmStatic
-        private val cache = ConcurrentHashMap<Class<out Annotation>, AttributeMethods>()
+        private val cache = ConcurrentReferenceHashMap<Class<out Annotation>, AttributeMethods>()
 
         /**
          * 对目标属性方法去进行描述
@@ -26,6 +26,12 @@ open class GenericConversionService : ConfigurableConversionService {
      */
     private val converters = Converters()
 
+    /**
+     * 已经完成解析的Converter的缓存, Key-(sourceType->targetType)的映射对, Value-解析得到的Converter;
+     * 对于找不到Converter的情况, 也会使用[NO_MATCH]去进行缓存, 在添加/移除Converter时, 需要清空该缓存
+     */
+    private val converterCache = ConcurrentHashMap<ConvertiblePair, GenericConverter>(64)
+
     companion object {
 
         /**
@@ -33,6 +39,12 @@ open class GenericConversionService : ConfigurableConversionService {
          */
         @JvmStatic
         private val NO_OP_CONVERTER = NoOpConverter("NO_OP")
+
+        /**
+         * 在缓存当中用来标识没有找到合适的Converter的Converter
+         */
+        @JvmStatic
+        private val NO_MATCH = NoOpConverter("NO_MATCH")
     }
 
     /**
@@ -42,8 +54,7 @@ open class GenericConversionService : ConfigurableConversionService {
      * @param targetType targetType
      * @return 是否能支持从sourceType->targetType?
      */
-    override fun canConvert(sourceType: Class<*>, targetType: Class<*>) =
-        converters.getConverter(sourceType, targetType).hasConverter()
+    override fun canConvert(sourceType: Class<*>, targetType: Class<*>) = getConverter(sourceType, targetType) != null
 
     /**
      * 判断Converter注册中心当中, 是否存在有这样的Converter, 能去完成从sourceType->targetType的类型转换?
@@ -75,9 +86,51 @@ open class GenericConversionService : ConfigurableConversionService {
      */
     override fun convert(source: Any?, targetType: TypeDescriptor): Any? {
         source ?: return null  // if null, return null
-        // 获取到支持将sourceType-->targetType的转换器列表
-        val converter = converters.getConverter(source::class.java, targetType.type)
-        return if (converter.hasConverter()) converter.convert(source, targetType) else null
+        // 获取到支持将sourceType-->targetType的转换器
+        val converter = getConverter(source::class.java, targetType.type) ?: return null
+        return converter.convert(source, TypeDescriptor.forClass(source::class.java), targetType)
+    }
+
+    /**
+     * 获取到能去完成从sourceType->targetType的类型转换的Converter, 优先从缓存当中去进行获取
+     *
+     * @param sourceType sourceType
+     * @param targetType targetType
+     * @return 寻找到的Converter(如果找不到的话, return null)
+     */
+    @Nullable
+    protected open fun getConverter(sourceType: Class<*>, targetType: Class<*>): GenericConverter? {
+        val cacheKey = ConvertiblePair(sourceType, targetType)
+        val cached = this.converterCache[cacheKey]
+        if (cached != null) {
+            return if (cached === NO_MATCH) null else cached
+        }
+
+        // 根据sourceType和targetType的继承关系去进行寻找, 如果还找不到的话, 那么尝试一下使用默认的Converter(啥都不做的Converter)
+        val converter = this.converters.find(sourceType, targetType) ?: getDefaultConverter(sourceType, targetType)
+        this.converterCache[cacheKey] = converter ?: NO_MATCH
+        return converter
+    }
+
+    /**
+     * 获取默认的Converter
+     *
+     * @param sourceType sourceType
+     * @param targetType targetType
+     * @return 默认的Converter(如果获取不到的话, return null)
+     */
+    @Nullable
+    protected open fun getDefaultConverter(sourceType: Class<*>, targetType: Class<*>): GenericConverter? {
+        // 如果sourceType->targetType可以转换成功的话, 那么return NO_OP_CONVERTER
+        // 比如sourceType=String, targetType=Object, 这种很明显是可以去进行转换的...
+        return if (ClassUtils.isAssignFrom(targetType, sourceType)) NO_OP_CONVERTER else null
+    }
+
+    /**
+     * 清空已经解析完成的Converter的缓存
+     */
+    private fun invalidateCache() {
+        this.converterCache.clear()
     }
 
     /**
@@ -119,6 +172,7 @@ open class GenericConversionService : ConfigurableConversionService {
      */
     override fun addConverter(converter: GenericConverter) {
         converters.addConverter(converter)
+        invalidateCache()
     }
 
     /**
@@ -129,16 +183,13 @@ open class GenericConversionService : ConfigurableConversionService {
      */
     override fun removeConvertible(sourceType: Class<*>, targetType: Class<*>) {
         this.converters.removeConverter(sourceType, targetType)
+        invalidateCache()
     }
 
     /**
      * Converter的注册中心
      */
     private class Converters {
-        companion object {
-            // 空的Converters列表
-            private val EMPTY_CONVERTERS = ConvertersForPair()
-        }
 
         // 全局的Converter列表
         val globalConverters = CopyOnWriteArraySet<GenericConverter>()
@@ -149,79 +200,97 @@ open class GenericConversionService : ConfigurableConversionService {
         val converters = ConcurrentHashMap<ConvertiblePair, ConvertersForPair>()
 
         /**
-         * 注册Converter, key是ConvertibleType, value是GenericConverter; 
-         * 将GenericConverter可以转换的类型拿出来作为Key, 去完成Mapping->Converters的映射关系注册
+         * 注册Converter, key是ConvertibleType, value是GenericConverter;
+         * 将GenericConverter可以转换的类型拿出来作为Key, 去完成Mapping->Converters的映射关系注册,
+         * 后添加的Converter将会被放在最前面, 优先被使用
          *
          * @param converter GenericConverter
          */
         fun addConverter(converter: GenericConverter) {
-            converter.getConvertibleTypes()?.forEach { converters[it] = ConvertersForPair().addConverter(converter) }
-        }
-
-        /**
-         * 根据ConvertiblePair(sourceType和targetType)去获取ConvertersForPair
-         *
-         * @param sourceType sourceType
-         * @param targetType targetType
-         * @return 支持处理该映射关系的Converter列表
-         */
-        fun getConverter(sourceType: Class<*>, targetType: Class<*>): ConvertersForPair {
-            return getConverter(ConvertiblePair(sourceType, targetType))
+            converter.getConvertibleTypes()?.forEach {
+                converters.computeIfAbsent(it) { ConvertersForPair() }.addConverter(converter)
+            }
         }
 
         /**
-         * 获取默认的Converter
+         * 根据sourceType和targetType的继承关系去寻找合适的Converter, 会按照sourceType的继承关系从子类到父类的顺序,
+         * 依次尝试去匹配targetType的继承关系当中的每个类型, 因此寻找的结果是确定的
          *
          * @param sourceType sourceType
          * @param targetType targetType
-         * @return 默认的Converter(如果获取不到的话, return null)
+         * @return 寻找到的Converter(如果没有找到return null)
          */
         @Nullable
-        fun getDefaultConverter(sourceType: Class<*>, targetType: Class<*>): GenericConverter? {
-            // 如果sourceType->targetType可以转换成功的话, 那么return NO_OP_CONVERTER
-            // 比如sourceType=String, targetType=Object, 这种很明显是可以去进行转换的...
-            return if (ClassUtils.isAssignFrom(targetType, sourceType)) NO_OP_CONVERTER else null
+        fun find(sourceType: Class<*>, targetType: Class<*>): GenericConverter? {
+            // 优先使用精确匹配的Converter(例如明确注册了基础数据类型的Converter)
+            val exactConverter = this.converters[ConvertiblePair(sourceType, targetType)]?.getConverter()
+            if (exactConverter != null) {
+                return exactConverter
+            }
+            val sourceCandidates = getClassHierarchy(sourceType)
+            val targetCandidates = getClassHierarchy(targetType)
+            for (sourceCandidate in sourceCandidates) {
+                for (targetCandidate in targetCandidates) {
+                    val converter = this.converters[ConvertiblePair(sourceCandidate, targetCandidate)]?.getConverter()
+                    if (converter != null) {
+                        return converter
+                    }
+                }
+            }
+            return null
         }
 
         /**
-         * 根据(sourceType->targetType)的Pair, 去获取到支持处理该种映射方式的Converter; 
-         * 如果此时注册中心当中还没有这种类型的映射, 那么需要新创建一个
+         * 获取到给定的类型的继承关系(包含它自身), 顺序为: 自身->父类(广度优先, 包含接口)->Enum->Object;
+         * 对于基础数据类型, 会先转换为包装类型; 对于数组类型, 会按照元素类型的继承关系去生成对应的数组类型
          *
-         * @return ConvertersForPair, 也就是支持处理(sourceType->targetType)这种映射关系的Converter列表
+         * @param type type
+         * @return 该类型的继承关系列表
          */
-        fun getConverter(type: ConvertiblePair): ConvertersForPair {
-            var convertersForPair = this.converters[type]
-            if (convertersForPair != null) {
-                return convertersForPair
+        private fun getClassHierarchy(type: Class<*>): List<Class<*>> {
+            val hierarchy = ArrayList<Class<*>>(20)
+            val visited = HashSet<Class<*>>(20)
+            addToClassHierarchy(0, ClassUtils.resolvePrimitiveIfNecessary(type), false, hierarchy, visited)
+            val array = type.isArray
+
+            var i = 0
+            while (i < hierarchy.size) {
+                var candidate = hierarchy[i]
+                candidate = if (array) candidate.componentType else ClassUtils.resolvePrimitiveIfNecessary(candidate)
+                val superclass = candidate.superclass
+                if (superclass != null && superclass != Any::class.java && superclass != Enum::class.java) {
+                    addToClassHierarchy(i + 1, superclass, array, hierarchy, visited)
+                }
+                addInterfacesToClassHierarchy(candidate, array, hierarchy, visited)
+                i++
+            }
+
+            if (Enum::class.java.isAssignableFrom(type)) {
+                addToClassHierarchy(hierarchy.size, Enum::class.java, array, hierarchy, visited)
+                addToClassHierarchy(hierarchy.size, Enum::class.java, false, hierarchy, visited)
+                addInterfacesToClassHierarchy(Enum::class.java, array, hierarchy, visited)
             }
-            // 遍历所有的Converter, 根据继承关系去进行寻找...
-            convertersForPair = find(type)
 
-            // 如果还找不到的话, 那么尝试一下使用默认的Converter(啥都不做的Converter)
-            val defaultConverter = getDefaultConverter(type.sourceType, type.targetType)
-            if (convertersForPair == null && defaultConverter != null) {
-                convertersForPair = ConvertersForPair().addConverter(defaultConverter)
+            addToClassHierarchy(hierarchy.size, Any::class.java, array, hierarchy, visited)
+            addToClassHierarchy(hierarchy.size, Any::class.java, false, hierarchy, visited)
+            return hierarchy
+        }
+
+        private fun addInterfacesToClassHierarchy(
+            type: Class<*>, asArray: Boolean, hierarchy: MutableList<Class<*>>, visited: MutableSet<Class<*>>
+        ) {
+            for (implementedInterface in type.interfaces) {
+                addToClassHierarchy(hierarchy.size, implementedInterface, asArray, hierarchy, visited)
             }
-            return convertersForPair ?: EMPTY_CONVERTERS
         }
 
-        /**
-         * 遍历所有的Converter去进行继承关系的匹配, 因为有可能给出的是它的子类...
-         * 我们需要检查类型是否匹配, 从而去进行找到合适的Converter
-         *
-         * @param type 要去进行匹配的sourceType和targetType
-         * @return 寻找到的Converters(如果没有找到return null)
-         */
-        @Nullable
-        fun find(type: ConvertiblePair): ConvertersForPair? {
-            this.converters.forEach { (k, v) ->
-                val sourceTypeMatch = ClassUtils.isAssignFrom(k.sourceType, type.sourceType)
-                val targetTypeMatch = ClassUtils.isAssignFrom(k.targetType, type.targetType)
-                if (sourceTypeMatch && targetTypeMatch) {
-                    return v
-                }
+        private fun addToClassHierarchy(
+            index: Int, type: Class<*>, asArray: Boolean, hierarchy: MutableList<Class<*>>, visited: MutableSet<Class<*>>
+        ) {
+            val typeToUse = if (asArray) java.lang.reflect.Array.newInstance(type, 0)::class.java else type
+            if (visited.add(typeToUse)) {
+                hierarchy.add(index, typeToUse)
             }
-            return null
         }
 
         /**
@@ -254,10 +323,18 @@ open class GenericConversionService : ConfigurableConversionService {
          * @param converter 需要添加的Converter
          */
         fun addConverter(converter: GenericConverter): ConvertersForPair {
-            converters += converter
+            converters.addFirst(converter)
             return this
         }
 
+        /**
+         * 获取到要去进行使用的Converter(最后添加的Converter)
+         *
+         * @return Converter(如果不存在的话, return null)
+         */
+        @Nullable
+        fun getConverter(): GenericConverter? = converters.peekFirst()
+
         /**
          * 是否存在有Converter?
          *
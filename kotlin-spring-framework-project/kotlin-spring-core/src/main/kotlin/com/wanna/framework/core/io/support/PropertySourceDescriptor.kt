@@ -0,0 +1,24 @@
+package com.wanna.framework.core.io.support
+
+import com.wanna.framework.lang.Nullable
+
+/**
+ * 描述一个要去添加到Environment当中的PropertySource的信息(例如从@PropertySource注解当中解析得到的信息)
+ *
+ * @param locations 资源的位置(已经完成了占位符的解析)
+ * @param ignoreResourceNotFound 资源不存在时是否需要忽略?
+ * @param name PropertySource的name(为null时由PropertySourceFactory去决定)
+ * @param propertySourceFactory 要使用的PropertySourceFactory的类(为null时使用默认的[DefaultPropertySourceFactory])
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ *
+ * @see PropertySourceProcessor
+ */
+data class PropertySourceDescriptor(
+    val locations: List<String>,
+    val ignoreResourceNotFound: Boolean = false,
+    @Nullable val name: String? = null,
+    @Nullable val propertySourceFactory: Class<out PropertySourceFactory>? = null
+)
@@ -0,0 +1,108 @@
+package com.wanna.framework.core.io.support
+
+import com.wanna.common.logging.LoggerFactory
+import com.wanna.framework.core.environment.CompositePropertySource
+import com.wanna.framework.core.environment.ConfigurableEnvironment
+import com.wanna.framework.core.environment.PropertySource
+import com.wanna.framework.core.io.ResourceLoader
+import com.wanna.framework.util.ReflectionUtils
+import java.io.FileNotFoundException
+import java.net.SocketException
+import java.net.UnknownHostException
+
+/**
+ * 负责根据[PropertySourceDescriptor]去加载资源, 并将得到的PropertySource添加到[ConfigurableEnvironment]当中;
+ * 同名的PropertySource将会被组合成为一个[CompositePropertySource]
+ *
+ * @param environment 要去添加PropertySource的Environment
+ * @param resourceLoader 用于去加载资源的ResourceLoader
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ *
+ * @see PropertySourceDescriptor
+ */
+open class PropertySourceProcessor(
+    private val environment: ConfigurableEnvironment,
+    private val resourceLoader: ResourceLoader
+) {
+    companion object {
+
+        /**
+         * Logger
+         */
+        @JvmStatic
+        private val logger = LoggerFactory.getLogger(PropertySourceProcessor::class.java)
+
+        /**
+         * 默认情况下的[PropertySourceFactory]
+         */
+        @JvmStatic
+        private val DEFAULT_PROPERTY_SOURCE_FACTORY = DefaultPropertySourceFactory()
+    }
+
+    /**
+     * 加载给定的[PropertySourceDescriptor]当中的所有资源, 并添加到Environment当中
+     *
+     * @param descriptor PropertySourceDescriptor
+     */
+    open fun processPropertySource(descriptor: PropertySourceDescriptor) {
+        val factoryClass = descriptor.propertySourceFactory
+        val propertySourceFactory =
+            if (factoryClass == null || factoryClass == PropertySourceFactory::class.java) DEFAULT_PROPERTY_SOURCE_FACTORY
+            else ReflectionUtils.accessibleConstructor(factoryClass).newInstance() as PropertySourceFactory
+
+        for (location in descriptor.locations) {
+            try {
+                val resource = resourceLoader.getResource(location)
+                addPropertySource(propertySourceFactory.createPropertySource(descriptor.name, resource))
+            } catch (ex: Exception) {
+                if (descriptor.ignoreResourceNotFound && isResourceNotFound(ex)) {
+                    logger.info("给定的资源路径[$location]未找到, 将会被忽略掉...")
+                    continue
+                }
+                throw ex
+            }
+        }
+    }
+
+    /**
+     * 判断给定的异常是否是因为资源不存在而导致的
+     *
+     * @param ex 加载资源时的异常
+     * @return 如果是资源不存在的异常, return true; 否则return false
+     */
+    protected open fun isResourceNotFound(ex: Exception): Boolean =
+        ex is IllegalArgumentException || ex is SocketException || ex is FileNotFoundException || ex is UnknownHostException
+
+    /**
+     * 添加一个PropertySource到Spring Environment当中
+     *
+     * @param propertySource 要去进行添加的PropertySource
+     */
+    private fun addPropertySource(propertySource: PropertySource<*>) {
+        val name = propertySource.name
+        val propertySources = this.environment.getPropertySources()
+
+        if (propertySources.contains(name)) {
+            val oldPropertySource = propertySources.get(name)!!
+
+            // 如果之前就是CompositePropertySource, 那么直接添加到之前的后面就行
+            if (oldPropertySource is CompositePropertySource) {
+                oldPropertySource.addPropertySource(propertySource)
+
+                // 如果之前还不是组合的PropertySource, 那么需要组合旧的和新的
+            } else {
+                val composite = CompositePropertySource(name)
+                composite.addPropertySource(oldPropertySource)
+                composite.addPropertySource(propertySource)
+                propertySources.replace(name, composite)  // replace
+            }
+
+            // 如果之前都还没存在过该name的PropertySource, 直接addLast到Environment当中
+        } else {
+            propertySources.addLast(propertySource)
+        }
+    }
+}
@@ -13,4 +13,11 @@ open class AnnotationTypeFilter(private val annotationType: Class<out Annotation
     override fun matches(metadataReader: MetadataReader, metadataReaderFactory: MetadataReaderFactory): Boolean {
         return metadataReader.annotationMetadata.isAnnotated(annotationType.name)
     }
+
+    /**
+     * 获取要去进行匹配的注解类型
+     *
+     * @return annotationType
+     */
+    open fun getAnnotationType(): Class<out Annotation> = this.annotationType
 }
\ No newline at end of file
@@ -18,4 +18,11 @@ open class AssignableTypeFilter(private val targetType: Class<*>) : AbstractType
     override fun matchInterface(interfaceName: String): Boolean? {
         return interfaceName == targetType.name
     }
+
+    /**
+     * 获取要去进行匹配的父类型
+     *
+     * @return targetType
+     */
+    open fun getTargetType(): Class<*> = this.targetType
 }
\ No newline at end of file
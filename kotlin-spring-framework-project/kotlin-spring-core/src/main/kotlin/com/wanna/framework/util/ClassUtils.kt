@@ -6,7 +6,9 @@ import com.wanna.framework.constants.CLASS_ARRAY_TYPE
 import com.wanna.framework.constants.NUMBER_ARRAY_TYPE
 import com.wanna.framework.constants.STRING_ARRAY_TYPE
 import com.wanna.framework.lang.Nullable
+import java.io.File
 import java.lang.reflect.Method
+import java.lang.reflect.Modifier
 import java.util.*
 
 /**
@@ -541,6 +543,63 @@ object ClassUtils {
         return classLoader!!
     }
 
+    /**
+     * 检查给定的类在给定的ClassLoader的上下文当中是否是缓存安全的?
+     * 也就是说, 该类是由给定的ClassLoader(或者是它的parent ClassLoader)所加载的,
+     * 对它去进行缓存不会导致别的ClassLoader无法被GC回收
+     *
+     * @param clazz 要去进行检查的类
+     * @param classLoader 需要去缓存该类的ClassLoader(为null时, 只有被BootstrapClassLoader加载的类才会被认为是安全的)
+     * @return 如果对该类去进行缓存是安全的, return true; 否则return false
+     */
+    @JvmStatic
+    fun isCacheSafe(clazz: Class<*>, @Nullable classLoader: ClassLoader?): Boolean {
+        try {
+            var target = clazz.classLoader
+            // 被BootstrapClassLoader加载的类, 一定是缓存安全的
+            if (target == null || target == classLoader) {
+                return true
+            }
+            if (classLoader == null) {
+                return false
+            }
+            // 检查clazz的ClassLoader是否是给定的ClassLoader的祖先?
+            var current: ClassLoader? = classLoader
+            while (current != null) {
+                current = current.parent
+                if (current == target) {
+                    return true
+                }
+            }
+            // 检查给定的ClassLoader是否是clazz的ClassLoader的祖先?
+            while (target != null) {
+                target = target.parent
+                if (target == classLoader) {
+                    return false
+                }
+            }
+        } catch (ex: SecurityException) {
+            // ignore, fall through to reachability check
+        }
+        // 如果两个ClassLoader之间并没有父子关系, 那么尝试使用classLoader去加载该类, 检查是否是同一个类
+        return classLoader != null && isLoadable(clazz, classLoader)
+    }
+
+    /**
+     * 检查给定的类能否被给定的ClassLoader所加载到(并且加载到的类和给定的类是同一个类)
+     *
+     * @param clazz 要去进行检查的类
+     * @param classLoader ClassLoader
+     * @return 如果能加载到同一个类, return true; 否则return false
+     */
+    private fun isLoadable(clazz: Class<*>, classLoader: ClassLoader): Boolean {
+        return try {
+            clazz == classLoader.loadClass(clazz.name)
+        } catch (ex: ClassNotFoundException) {
+            false
+        }
+    }
+
     /**
      * 获取一个方法的全限定名, 格式为"类名.方法名"
      *
@@ -565,6 +624,28 @@ object ClassUtils {
         return clazz.name.substring(lastIndexOfDot + 1) + CLASS_FILE_SUFFIX
     }
 
+    /**
+     * 递归检查给定的目录下, 是否存在有最后修改时间比给定的时间戳更新的".class"文件
+     *
+     * @param directory 要去进行检查的目录(不存在/不是目录时, 视为不存在有更新的Class文件)
+     * @param timestamp 时间戳
+     * @return 如果存在有更新的Class文件, return true; 否则return false
+     */
+    @JvmStatic
+    fun hasClassFileModifiedAfter(directory: File, timestamp: Long): Boolean {
+        val files = directory.listFiles() ?: return false
+        for (file in files) {
+            if (file.isDirectory) {
+                if (hasClassFileModifiedAfter(file, timestamp)) {
+                    return true
+                }
+            } else if (file.name.endsWith(CLASS_FILE_SUFFIX) && file.lastModified() > timestamp) {
+                return true
+            }
+        }
+        return false
+    }
+
     /**
      * 获取指定的类的包名
      *
@@ -666,6 +747,33 @@ object ClassUtils {
     @JvmStatic
     fun convertClassNameToResourcePath(className: String): String = className.replace(PACKAGE_SEPARATOR, PATH_SEPARATOR)
 
+    /**
+     * 给定一个方法(可能是接口上的方法), 找到它在目标类当中的最具体的实现方法; 如果目标类当中找不到, 那么返回原始的方法
+     *
+     * @param method 原始方法
+     * @param targetClass 目标类(为null时直接返回原始的方法)
+     * @return 目标类当中的最具体的方法
+     */
+    @JvmStatic
+    fun getMostSpecificMethod(method: Method, @Nullable targetClass: Class<*>?): Method {
+        if (targetClass != null && targetClass != method.declaringClass && !Modifier.isPrivate(method.modifiers)) {
+            try {
+                return targetClass.getMethod(method.name, *method.parameterTypes)
+            } catch (ex: NoSuchMethodException) {
+                // public方法当中找不到的话, 那么沿着继承关系去找declaredMethod
+                var clazz: Class<*>? = targetClass
+                while (clazz != null && clazz != Any::class.java) {
+                    try {
+                        return clazz.getDeclaredMethod(method.name, *method.parameterTypes)
+                    } catch (ignored: NoSuchMethodException) {
+                        clazz = clazz.superclass
+                    }
+                }
+            }
+        }
+        return method
+    }
+
     /**
      * 获取目标对象的用户定义的类型, 因为有些对象是被CGLIB生成的, 因此我们有可能需要获取没有被CGLIB代理之前它的原始的类
      *
@@ -0,0 +1,735 @@
+package com.wanna.framework.util
+
+import com.wanna.framework.lang.Nullable
+import java.lang.ref.ReferenceQueue
+import java.lang.ref.SoftReference
+import java.lang.ref.WeakReference
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.locks.ReentrantLock
+
+/**
+ * 基于软引用/弱引用的支持并发访问的HashMap, Key和Value都会被包装到一个[Entry]当中, 而[Entry]则是被软引用/弱引用所持有,
+ * 当GC回收掉某个Entry之后, 该Entry对应的引用将会被放入到[ReferenceQueue]当中, 在后续对于Map的写操作时, 将会去清理这些已经被回收掉的引用.
+ *
+ * 和[java.util.concurrent.ConcurrentHashMap]类似, 内部采用分段锁的方式去实现并发控制, 读操作无需加锁, 写操作只需要对单个Segment去进行加锁.
+ *
+ * 主要用于作为以Class/Method/Field等作为Key的缓存, 这类缓存如果使用强引用的话, 在存在多个ClassLoader的情况下(例如devtools的重启),
+ * 将会导致旧的ClassLoader一直无法被回收, 从而导致Metaspace的持续增长.
+ *
+ * Note: 因为Entry可能会在任意时刻被GC回收掉, 因此[size]等方法只是一个近似值
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/2
+ *
+ * @param initialCapacity 初始容量
+ * @param loadFactor 负载因子, 当Segment当中的元素数量超过容量*负载因子时, 需要去进行扩容
+ * @param concurrencyLevel 并发级别(期望的并发写的线程数量), 决定了Segment的数量
+ * @param referenceType 对于Entry要使用的引用类型
+ *
+ * @param K Key类型
+ * @param V Value类型
+ */
+open class ConcurrentReferenceHashMap<K, V>(
+    initialCapacity: Int,
+    private val loadFactor: Float,
+    concurrencyLevel: Int,
+    private val referenceType: ReferenceType
+) : java.util.AbstractMap<K, V>(), ConcurrentMap<K, V> {
+
+    constructor() : this(DEFAULT_INITIAL_CAPACITY)
+
+    constructor(initialCapacity: Int) : this(initialCapacity, DEFAULT_REFERENCE_TYPE)
+
+    constructor(initialCapacity: Int, referenceType: ReferenceType) : this(
+        initialCapacity, DEFAULT_LOAD_FACTOR, DEFAULT_CONCURRENCY_LEVEL, referenceType
+    )
+
+    constructor(initialCapacity: Int, loadFactor: Float, concurrencyLevel: Int) : this(
+        initialCapacity, loadFactor, concurrencyLevel, DEFAULT_REFERENCE_TYPE
+    )
+
+    /**
+     * 计算Segment的index时, 需要对hash去进行右移的位数(32-shift)
+     */
+    private val shift: Int
+
+    /**
+     * Segments, 每个Segment都是一个单独的小型的HashMap, 并且每个Segment都有它自己的锁
+     */
+    private val segments: Array<Segment>
+
+    /**
+     * EntrySet
+     */
+    @Volatile
+    private var entrySet: MutableSet<MutableMap.MutableEntry<K, V>>? = null
+
+    init {
+        if (initialCapacity < 0) {
+            throw IllegalArgumentException("Initial capacity must not be negative")
+        }
+        if (loadFactor <= 0f) {
+            throw IllegalArgumentException("Load factor must be positive")
+        }
+        if (concurrencyLevel <= 0) {
+            throw IllegalArgumentException("Concurrency level must be positive")
+        }
+        this.shift = calculateShift(concurrencyLevel, MAXIMUM_CONCURRENCY_LEVEL)
+        val size = 1 shl this.shift
+        val roundedUpSegmentCapacity = ((initialCapacity + size - 1L) / size).toInt()
+        val initialSize = 1 shl calculateShift(roundedUpSegmentCapacity, MAXIMUM_SEGMENT_SIZE)
+        val initialResizeThreshold = (initialSize * loadFactor).toInt()
+        this.segments = Array(size) { Segment(initialSize, initialResizeThreshold) }
+    }
+
+    /**
+     * 创建[ReferenceManager], 每个Segment都会有一个自己的[ReferenceManager], 子类可以去进行自定义
+     *
+     * @return ReferenceManager
+     */
+    protected open fun createReferenceManager(): ReferenceManager = ReferenceManager()
+
+    /**
+     * 计算给定的对象的hash值, 对于hashCode去进行再一次的散列, 让hash值更加均匀
+     *
+     * @param obj obj
+     * @return hash
+     */
+    protected open fun getHash(@Nullable obj: Any?): Int {
+        var hash = obj?.hashCode() ?: 0
+        hash += (hash shl 15) xor -0x3283
+        hash = hash xor (hash ushr 10)
+        hash += (hash shl 3)
+        hash = hash xor (hash ushr 6)
+        hash += (hash shl 2) + (hash shl 14)
+        hash = hash xor (hash ushr 16)
+        return hash
+    }
+
+    override fun get(key: K): V? = getReference(key, Restructure.WHEN_NECESSARY)?.get()?.value
+
+    override fun getOrDefault(key: K, defaultValue: V): V {
+        val entry = getReference(key, Restructure.WHEN_NECESSARY)?.get() ?: return defaultValue
+        return entry.value
+    }
+
+    override fun containsKey(key: K): Boolean {
+        val entry = getReference(key, Restructure.WHEN_NECESSARY)?.get()
+        return entry != null && ObjectUtils.nullSafeEquals(entry.key, key)
+    }
+
+    /**
+     * 根据Key去获取到对应的Reference
+     *
+     * @param key key
+     * @param restructure 是否需要去进行重组(清理掉已经被GC回收掉的Entry)
+     * @return 获取到的Reference, 如果不存在的话, return null
+     */
+    @Nullable
+    protected fun getReference(@Nullable key: Any?, restructure: Restructure): Reference<K, V>? {
+        val hash = getHash(key)
+        return getSegmentForHash(hash).getReference(key, hash, restructure)
+    }
+
+    override fun put(key: K, value: V): V? = put(key, value, true)
+
+    override fun putIfAbsent(key: K, value: V): V? = put(key, value, false)
+
+    private fun put(key: K, value: V, overwriteExisting: Boolean): V? {
+        val hash = getHash(key)
+        return getSegmentForHash(hash).put(key, hash, value, overwriteExisting)
+    }
+
+    override fun remove(key: K): V? {
+        val hash = getHash(key)
+        return getSegmentForHash(hash).remove(key, hash, false, null)?.value
+    }
+
+    override fun remove(key: K, value: V): Boolean {
+        val hash = getHash(key)
+        return getSegmentForHash(hash).remove(key, hash, true, value) != null
+    }
+
+    override fun replace(key: K, oldValue: V, newValue: V): Boolean {
+        val hash = getHash(key)
+        return getSegmentForHash(hash).replace(key, hash, true, oldValue, newValue) != null
+    }
+
+    override fun replace(key: K, value: V): V? {
+        val hash = getHash(key)
+        return getSegmentForHash(hash).replace(key, hash, false, null, value)?.value
+    }
+
+    override fun clear() {
+        for (segment in this.segments) {
+            segment.clear()
+        }
+    }
+
+    /**
+     * 立即清理掉所有的已经被GC回收掉的Entry, 一般情况下, 已经被回收掉的Entry会在写操作时被自动清理掉,
+     * 如果Map长时间只读不写的话, 可以通过这个方法去进行手动的清理
+     */
+    open fun purgeUnreferencedEntries() {
+        for (segment in this.segments) {
+            segment.restructureIfNecessary(false)
+        }
+    }
+
+    override val size: Int
+        get() {
+            var size = 0
+            for (segment in this.segments) {
+                size += segment.getCount()
+            }
+            return size
+        }
+
+    override fun isEmpty(): Boolean {
+        for (segment in this.segments) {
+            if (segment.getCount() > 0) {
+                return false
+            }
+        }
+        return true
+    }
+
+    override val entries: MutableSet<MutableMap.MutableEntry<K, V>>
+        get() {
+            var entrySet = this.entrySet
+            if (entrySet == null) {
+                entrySet = EntrySet()
+                this.entrySet = entrySet
+            }
+            return entrySet
+        }
+
+    /**
+     * 根据hash值去获取到对应的Segment, 使用hash的高位去决定Segment, 使用hash的低位去决定Segment内部的index
+     *
+     * @param hash hash
+     * @return Segment
+     */
+    private fun getSegmentForHash(hash: Int): Segment {
+        return this.segments[(hash ushr (32 - this.shift)) and (this.segments.size - 1)]
+    }
+
+    /**
+     * 引用类型的枚举
+     */
+    enum class ReferenceType {
+        /**
+         * 软引用, 在内存不足时才会被GC回收掉
+         */
+        SOFT,
+
+        /**
+         * 弱引用, 在下次GC时就会被回收掉
+         */
+        WEAK
+    }
+
+    /**
+     * 重组的方式
+     */
+    protected enum class Restructure {
+        /**
+         * 在必要时(存在有已经被GC回收掉的Entry)去进行重组
+         */
+        WHEN_NECESSARY,
+
+        /**
+         * 不进行重组
+         */
+        NEVER
+    }
+
+    /**
+     * 一个被引用的Entry, 被[ReferenceManager]所创建出来, 同一个链表上的Reference通过next去进行连接
+     */
+    protected interface Reference<K, V> {
+
+        /**
+         * 获取到被引用的Entry, 如果Entry已经被GC回收掉了, 那么return null
+         *
+         * @return Entry
+         */
+        @Nullable
+        fun get(): Entry<K, V>?
+
+        /**
+         * 获取到Entry的Key的hash值
+         *
+         * @return hash
+         */
+        fun getHash(): Int
+
+        /**
+         * 获取到链表当中的下一个Reference
+         *
+         * @return next Reference
+         */
+        @Nullable
+        fun getNext(): Reference<K, V>?
+
+        /**
+         * 释放当前的引用, 并将它放入到ReferenceQueue当中, 方便后续去进行清理
+         */
+        fun release()
+    }
+
+    /**
+     * 存放Key-Value的Entry
+     *
+     * @param key key
+     * @param value value
+     */
+    protected class Entry<K, V>(override val key: K, @Volatile override var value: V) : MutableMap.MutableEntry<K, V> {
+
+        override fun setValue(newValue: V): V {
+            val previous = this.value
+            this.value = newValue
+            return previous
+        }
+
+        override fun equals(other: Any?): Boolean {
+            if (this === other) {
+                return true
+            }
+            if (other !is Map.Entry<*, *>) {
+                return false
+            }
+            return ObjectUtils.nullSafeEquals(key, other.key) && ObjectUtils.nullSafeEquals(value, other.value)
+        }
+
+        override fun hashCode(): Int = (key?.hashCode() ?: 0) xor (value?.hashCode() ?: 0)
+
+        override fun toString(): String = "$key=$value"
+    }
+
+    /**
+     * Reference的管理器, 负责去创建Reference, 以及维护已经被GC回收掉的Reference的ReferenceQueue
+     */
+    protected open inner class ReferenceManager {
+
+        /**
+         * ReferenceQueue, 已经被GC回收掉的Entry的Reference将会被放入到这里
+         */
+        private val queue = ReferenceQueue<Entry<K, V>>()
+
+        /**
+         * 为给定的Entry去创建Reference
+         *
+         * @param entry Entry
+         * @param hash hash
+         * @param next 链表当中的下一个Reference
+         * @return 创建得到的Reference
+         */
+        open fun createReference(entry: Entry<K, V>, hash: Int, @Nullable next: Reference<K, V>?): Reference<K, V> {
+            if (referenceType == ReferenceType.WEAK) {
+                return WeakEntryReference(entry, hash, next, queue)
+            }
+            return SoftEntryReference(entry, hash, next, queue)
+        }
+
+        /**
+         * 从ReferenceQueue当中去获取一个需要去进行清理的Reference
+         *
+         * @return 需要去进行清理的Reference, 如果不存在的话, return null
+         */
+        @Nullable
+        @Suppress("UNCHECKED_CAST")
+        open fun pollForPurge(): Reference<K, V>? = queue.poll() as Reference<K, V>?
+    }
+
+    /**
+     * 基于软引用的Reference实现
+     */
+    private class SoftEntryReference<K, V>(
+        entry: Entry<K, V>,
+        private val hash: Int,
+        @Nullable private val nextReference: Reference<K, V>?,
+        queue: ReferenceQueue<in Entry<K, V>>
+    ) : SoftReference<Entry<K, V>>(entry, queue), Reference<K, V> {
+        override fun getHash() = this.hash
+        override fun getNext() = this.nextReference
+        override fun release() {
+            enqueue()
+            clear()
+        }
+    }
+
+    /**
+     * 基于弱引用的Reference实现
+     */
+    private class WeakEntryReference<K, V>(
+        entry: Entry<K, V>,
+        private val hash: Int,
+        @Nullable private val nextReference: Reference<K, V>?,
+        queue: ReferenceQueue<in Entry<K, V>>
+    ) : WeakReference<Entry<K, V>>(entry, queue), Reference<K, V> {
+        override fun getHash() = this.hash
+        override fun getNext() = this.nextReference
+        override fun release() {
+            enqueue()
+            clear()
+        }
+    }
+
+    /**
+     * 一个Segment, 就是一个带锁的小型的HashMap, 读操作不加锁, 写操作需要加锁
+     *
+     * @param initialSize 初始的数组大小
+     * @param resizeThreshold 扩容的阈值
+     */
+    protected inner class Segment(private val initialSize: Int, private var resizeThreshold: Int) : ReentrantLock() {
+
+        /**
+         * 当前Segment的ReferenceManager
+         */
+        private val referenceManager = createReferenceManager()
+
+        /**
+         * Reference数组, 每个位置都是一个Reference链表
+         */
+        @Volatile
+        private var references: Array<Reference<K, V>?> = createReferenceArray(initialSize)
+
+        /**
+         * 当前Segment当中的元素数量(包含已经被GC回收但还没清理掉的Entry)
+         */
+        private val count = AtomicInteger()
+
+        fun getCount(): Int = this.count.get()
+
+        @Nullable
+        fun getReference(@Nullable key: Any?, hash: Int, restructure: Restructure): Reference<K, V>? {
+            if (restructure == Restructure.WHEN_NECESSARY) {
+                restructureIfNecessary(false)
+            }
+            if (this.count.get() == 0) {
+                return null
+            }
+            // 使用局部变量去保存references, 避免读取的过程当中references被扩容替换掉
+            val references = this.references
+            val head = references[getIndex(hash, references)]
+            return findInChain(head, key, hash)
+        }
+
+        @Nullable
+        fun put(key: K, hash: Int, value: V, overwriteExisting: Boolean): V? {
+            lock()
+            try {
+                restructureIfNecessary(true)
+                val references = this.references
+                val index = getIndex(hash, references)
+                val head = references[index]
+                val entry = findInChain(head, key, hash)?.get()
+                if (entry != null) {
+                    val oldValue = entry.value
+                    if (overwriteExisting) {
+                        entry.value = value
+                    }
+                    return oldValue
+                }
+                references[index] = this.referenceManager.createReference(Entry(key, value), hash, head)
+                this.count.incrementAndGet()
+                return null
+            } finally {
+                unlock()
+            }
+        }
+
+        @Nullable
+        fun remove(@Nullable key: Any?, hash: Int, matchValue: Boolean, @Nullable expectedValue: Any?): Entry<K, V>? {
+            lock()
+            try {
+                val reference = getReference(key, hash, Restructure.NEVER) ?: return null
+                val entry = reference.get() ?: return null
+                if (matchValue && !ObjectUtils.nullSafeEquals(entry.value, expectedValue)) {
+                    return null
+                }
+                // 释放掉该引用, 它将会在重组时从链表当中被移除掉
+                reference.release()
+                restructureIfNecessary(false)
+                return entry
+            } finally {
+                unlock()
+            }
+        }
+
+        @Nullable
+        fun replace(
+            @Nullable key: Any?, hash: Int, matchValue: Boolean, @Nullable expectedValue: Any?, newValue: V
+        ): Entry<K, V>? {
+            lock()
+            try {
+                val entry = getReference(key, hash, Restructure.WHEN_NECESSARY)?.get() ?: return null
+                if (matchValue && !ObjectUtils.nullSafeEquals(entry.value, expectedValue)) {
+                    return null
+                }
+                // 返回一个旧的Entry的快照, 方便调用方去获取到旧的值
+                val previous = Entry(entry.key, entry.value)
+                entry.value = newValue
+                return previous
+            } finally {
+                unlock()
+            }
+        }
+
+        fun clear() {
+            if (this.count.get() == 0) {
+                return
+            }
+            lock()
+            try {
+                this.references = createReferenceArray(this.initialSize)
+                this.resizeThreshold = (this.references.size * loadFactor).toInt()
+                this.count.set(0)
+            } finally {
+                unlock()
+            }
+        }
+
+        /**
+         * 如果存在有已经被GC回收掉的Entry, 或者是需要去进行扩容的话, 那么对当前Segment去进行重组
+         *
+         * @param allowResize 是否允许扩容?
+         */
+        fun restructureIfNecessary(allowResize: Boolean) {
+            val currCount = this.count.get()
+            val needsResize = allowResize && currCount > 0 && currCount >= this.resizeThreshold
+            val reference = this.referenceManager.pollForPurge()
+            if (reference != null || needsResize) {
+                restructure(allowResize, reference)
+            }
+        }
+
+        private fun restructure(allowResize: Boolean, @Nullable firstReference: Reference<K, V>?) {
+            lock()
+            try {
+                var countAfterRestructure = this.count.get()
+
+                // 收集所有需要去进行清理的Reference
+                var toPurge = emptySet<Reference<K, V>>()
+                if (firstReference != null) {
+                    toPurge = HashSet()
+                    var reference = firstReference
+                    while (reference != null) {
+                        toPurge.add(reference)
+                        reference = this.referenceManager.pollForPurge()
+                    }
+                }
+                countAfterRestructure -= toPurge.size
+
+                // 检查是否需要去进行扩容
+                val references = this.references
+                var restructureSize = references.size
+                val needsResize = countAfterRestructure > 0 && countAfterRestructure >= this.resizeThreshold
+                if (allowResize && needsResize && restructureSize < MAXIMUM_SEGMENT_SIZE) {
+                    restructureSize = restructureSize shl 1
+                }
+                val resizing = restructureSize != references.size
+                val restructured = if (resizing) createReferenceArray(restructureSize) else references
+
+                // 重新构建所有的链表, 跳过需要清理的Reference以及已经被GC回收掉的Entry
+                for (i in references.indices) {
+                    var reference = references[i]
+                    if (!resizing) {
+                        restructured[i] = null
+                    }
+                    while (reference != null) {
+                        if (!toPurge.contains(reference)) {
+                            val entry = reference.get()
+                            if (entry != null) {
+                                val index = getIndex(reference.getHash(), restructured)
+                                restructured[index] =
+                                    this.referenceManager.createReference(entry, reference.getHash(), restructured[index])
+                            }
+                        }
+                        reference = reference.getNext()
+                    }
+                }
+
+                if (resizing) {
+                    this.references = restructured
+                    this.resizeThreshold = (restructured.size * loadFactor).toInt()
+                }
+                this.count.set(maxOf(countAfterRestructure, 0))
+            } finally {
+                unlock()
+            }
+        }
+
+        @Nullable
+        private fun findInChain(@Nullable head: Reference<K, V>?, @Nullable key: Any?, hash: Int): Reference<K, V>? {
+            var reference = head
+            while (reference != null) {
+                if (reference.getHash() == hash) {
+                    val entry = reference.get()
+                    if (entry != null) {
+                        val entryKey = entry.key
+                        if (entryKey === key || ObjectUtils.nullSafeEquals(entryKey, key)) {
+                            return reference
+                        }
+                    }
+                }
+                reference = reference.getNext()
+            }
+            return null
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        private fun createReferenceArray(size: Int): Array<Reference<K, V>?> =
+            arrayOfNulls<Reference<*, *>>(size) as Array<Reference<K, V>?>
+
+        private fun getIndex(hash: Int, references: Array<Reference<K, V>?>): Int = hash and (references.size - 1)
+
+        /**
+         * 获取到当前Segment的Reference数组的大小, 用于迭代当前Segment
+         */
+        internal fun getReferences(): Array<Reference<K, V>?> = this.references
+    }
+
+    /**
+     * EntrySet
+     */
+    private inner class EntrySet : java.util.AbstractSet<MutableMap.MutableEntry<K, V>>() {
+        override fun iterator(): MutableIterator<MutableMap.MutableEntry<K, V>> = EntryIterator()
+
+        override fun contains(element: MutableMap.MutableEntry<K, V>): Boolean {
+            val entry = getReference(element.key, Restructure.NEVER)?.get() ?: return false
+            return ObjectUtils.nullSafeEquals(entry.value, element.value)
+        }
+
+        override fun remove(element: MutableMap.MutableEntry<K, V>): Boolean =
+            this@ConcurrentReferenceHashMap.remove(element.key, element.value)
+
+        override val size: Int
+            get() = this@ConcurrentReferenceHashMap.size
+
+        override fun clear() = this@ConcurrentReferenceHashMap.clear()
+    }
+
+    /**
+     * Entry的迭代器, 按照Segment->Reference数组->Reference链表的顺序去进行迭代, 跳过已经被GC回收掉的Entry
+     */
+    private inner class EntryIterator : MutableIterator<MutableMap.MutableEntry<K, V>> {
+        private var segmentIndex = 0
+        private var referenceIndex = 0
+        private var references: Array<Reference<K, V>?>? = null
+        private var reference: Reference<K, V>? = null
+        private var next: Entry<K, V>? = null
+        private var last: Entry<K, V>? = null
+
+        init {
+            moveToNextSegment()
+        }
+
+        override fun hasNext(): Boolean {
+            getNextIfNecessary()
+            return this.next != null
+        }
+
+        override fun next(): MutableMap.MutableEntry<K, V> {
+            getNextIfNecessary()
+            val next = this.next ?: throw NoSuchElementException()
+            this.last = next
+            this.next = null
+            return next
+        }
+
+        private fun getNextIfNecessary() {
+            while (this.next == null) {
+                moveToNextReference()
+                if (this.reference == null) {
+                    return
+                }
+                this.next = this.reference!!.get()
+            }
+        }
+
+        private fun moveToNextReference() {
+            if (this.reference != null) {
+                this.reference = this.reference!!.getNext()
+            }
+            while (this.reference == null && this.references != null) {
+                if (this.referenceIndex >= this.references!!.size) {
+                    moveToNextSegment()
+                    this.referenceIndex = 0
+                } else {
+                    this.reference = this.references!![this.referenceIndex]
+                    this.referenceIndex++
+                }
+            }
+        }
+
+        private fun moveToNextSegment() {
+            this.reference = null
+            this.references = null
+            if (this.segmentIndex < segments.size) {
+                this.references = segments[this.segmentIndex].getReferences()
+                this.segmentIndex++
+            }
+        }
+
+        override fun remove() {
+            val last = this.last ?: throw IllegalStateException("No element to remove")
+            this@ConcurrentReferenceHashMap.remove(last.key)
+            this.last = null
+        }
+    }
+
+    companion object {
+        /**
+         * 默认的初始容量
+         */
+        private const val DEFAULT_INITIAL_CAPACITY = 16
+
+        /**
+         * 默认的负载因子
+         */
+        private const val DEFAULT_LOAD_FACTOR = 0.75f
+
+        /**
+         * 默认的并发级别
+         */
+        private const val DEFAULT_CONCURRENCY_LEVEL = 16
+
+        /**
+         * 默认的引用类型(软引用)
+         */
+        @JvmStatic
+        private val DEFAULT_REFERENCE_TYPE = ReferenceType.SOFT
+
+        /**
+         * 最大的并发级别
+         */
+        private const val MAXIMUM_CONCURRENCY_LEVEL = 1 shl 16
+
+        /**
+         * 单个Segment的最大数组大小
+         */
+        private const val MAXIMUM_SEGMENT_SIZE = 1 shl 30
+
+        /**
+         * 计算一个2的幂次的位移量, 使得(1 shl shift)>=minimumValue并且(1 shl shift)<=maximumValue
+         *
+         * @param minimumValue 最小值
+         * @param maximumValue 最大值
+         * @return shift
+         */
+        @JvmStatic
+        private fun calculateShift(minimumValue: Int, maximumValue: Int): Int {
+            var shift = 0
+            var value = 1
+            while (value < minimumValue && value < maximumValue) {
+                value = value shl 1
+                shift++
+            }
+            return shift
+        }
+    }
+}
@@ -4,7 +4,6 @@ import com.wanna.framework.lang.Nullable
 import com.wanna.framework.util.ReflectionUtils.FieldMatcher
 import com.wanna.framework.util.ReflectionUtils.MethodMatcher
 import java.lang.reflect.*
-import java.util.concurrent.ConcurrentHashMap
 
 /**
  * Java的反射工具类
@@ -47,16 +46,16 @@ object ReflectionUtils {
     private val EMPTY_FIELD_ARRAY = emptyArray<Field>()
 
     /**
-     * 某个类对应的方法缓存(ConcurrentMap), Key为要获取的类, Value为该类所定义的方法列表
+     * 某个类对应的方法缓存(ConcurrentReferenceHashMap, 避免缓存去持有ClassLoader导致无法被回收), Key为要获取的类, Value为该类所定义的方法列表
      */
     @JvmStatic
-    private val declaredMethodsCache = ConcurrentHashMap<Class<*>, Array<Method>>()
+    private val declaredMethodsCache = ConcurrentReferenceHashMap<Class<*>, Array<Method>>(256)
 
     /**
-     * 某个类对应的字段缓存(ConcurrentMap), Key为要去进行获取的类, Value为该类定义的字段列表
+     * 某个类对应的字段缓存(ConcurrentReferenceHashMap, 避免缓存去持有ClassLoader导致无法被回收), Key为要去进行获取的类, Value为该类定义的字段列表
      */
     @JvmStatic
-    private val declaredFieldsCache = ConcurrentHashMap<Class<*>, Array<Field>>()
+    private val declaredFieldsCache = ConcurrentReferenceHashMap<Class<*>, Array<Field>>(256)
 
     /**
      * 让一个字段变得可以访问
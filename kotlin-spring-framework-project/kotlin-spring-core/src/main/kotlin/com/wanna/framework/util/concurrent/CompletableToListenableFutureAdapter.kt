@@ -0,0 +1,47 @@
+package com.wanna.framework.util.concurrent
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.TimeUnit
+
+/**
+ * 将[CompletableFuture]去适配成为[ListenableFuture]的适配器, 添加的Callback将会在[CompletableFuture]完成时被回调,
+ * 如果在添加Callback时[CompletableFuture]已经完成了, 那么Callback将会立刻被回调
+ *
+ * @param completableFuture 要去进行适配的CompletableFuture
+ * @see ListenableFuture
+ * @see CompletableFuture
+ */
+open class CompletableToListenableFutureAdapter<T>(private val completableFuture: CompletableFuture<T>) :
+    ListenableFuture<T> {
+
+    override fun addCallback(successCallback: SuccessCallback<T>, failureCallback: FailureCallback) {
+        completableFuture.whenComplete { result, ex ->
+            if (ex != null) {
+                // 对于thenApply等方式得到的CompletableFuture, 异常会被包装一层CompletionException
+                failureCallback.onError(if (ex is CompletionException && ex.cause != null) ex.cause!! else ex)
+            } else {
+                successCallback.onSuccess(result)
+            }
+        }
+    }
+
+    override fun addCallback(callback: ListenableFutureCallback<T>) = addCallback(callback, callback)
+
+    /**
+     * 获取到被适配的[CompletableFuture]
+     *
+     * @return CompletableFuture
+     */
+    override fun completable(): CompletableFuture<T> = this.completableFuture
+
+    override fun cancel(mayInterruptIfRunning: Boolean) = completableFuture.cancel(mayInterruptIfRunning)
+
+    override fun isCancelled() = completableFuture.isCancelled
+
+    override fun isDone() = completableFuture.isDone
+
+    override fun get(): T = completableFuture.get()
+
+    override fun get(timeout: Long, unit: TimeUnit): T = completableFuture.get(timeout, unit)
+}
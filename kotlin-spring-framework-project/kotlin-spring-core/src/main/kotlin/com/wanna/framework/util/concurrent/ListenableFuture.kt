@@ -1,5 +1,6 @@
 package com.wanna.framework.util.concurrent
 
+import java.util.concurrent.CompletableFuture
 import java.util.concurrent.Future
 
 /**
@@ -11,4 +12,24 @@ import java.util.concurrent.Future
 interface ListenableFuture<T> : Future<T> {
     fun addCallback(successCallback: SuccessCallback<T>, failureCallback: FailureCallback)
     fun addCallback(callback: ListenableFutureCallback<T>)
+
+    /**
+     * 将当前的[ListenableFuture]去转换成为[CompletableFuture]
+     *
+     * @return 在当前Future完成时, 也会随之完成的CompletableFuture
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun completable(): CompletableFuture<T> {
+        val completable = CompletableFuture<T>()
+        addCallback(object : ListenableFutureCallback<T> {
+            override fun onSuccess(result: T?) {
+                completable.complete(result as T)
+            }
+
+            override fun onError(ex: Throwable) {
+                completable.completeExceptionally(ex)
+            }
+        })
+        return completable
+    }
 }
\ No newline at end of file
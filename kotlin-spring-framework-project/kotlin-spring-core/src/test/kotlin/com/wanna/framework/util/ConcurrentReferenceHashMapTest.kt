@@ -0,0 +1,159 @@
+package com.wanna.framework.util
+
+import com.wanna.framework.core.LocalVariableTableParameterNameDiscoverer
+import com.wanna.framework.core.annotation.MergedAnnotations
+import java.io.File
+import java.lang.management.ManagementFactory
+import java.lang.ref.ReferenceQueue
+import java.lang.ref.WeakReference
+
+/**
+ * [ConcurrentReferenceHashMap]的测试, 包括基本的Map操作, 以及模拟多次重启之后, 反射/注解相关的缓存不会持有旧的ClassLoader
+ *
+ * Note: 缓存当中默认使用的是SoftReference, 只有在添加了JVM参数"-XX:SoftRefLRUPolicyMSPerMB=0"的情况下, 才会在System.gc()时被回收,
+ * 因此如果当前JVM没有添加该参数, 模拟重启的测试将会在一个添加了该参数的子进程当中去进行
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/2
+ */
+class ConcurrentReferenceHashMapTest {
+
+    companion object {
+        /**
+         * 只去执行模拟重启的测试的启动参数
+         */
+        const val RESTARTS_ONLY_ARG = "--restarts-only"
+
+        /**
+         * 让SoftReference在每次GC时都会被回收的JVM参数
+         */
+        private const val SOFT_REF_POLICY_ARG = "-XX:SoftRefLRUPolicyMSPerMB=0"
+
+        /**
+         * 等待GC回收的最大轮数
+         */
+        private const val MAX_GC_ROUNDS = 20
+
+        /**
+         * 每轮等待哨兵对象被回收的超时时间(ms)
+         */
+        private const val GC_ROUND_TIMEOUT = 100L
+    }
+
+    fun testMapOperations() {
+        val map = ConcurrentReferenceHashMap<String, Int>()
+        (0 until 1000).forEach { map["key$it"] = it }
+        check(map.size == 1000)
+        check(map["key500"] == 500)
+        check(map.putIfAbsent("key500", -1) == 500)
+        check(map.replace("key500", 500, 5000))
+        check(map.remove("key500") == 5000)
+        check(!map.containsKey("key500"))
+        check(map.entries.count() == 999)
+        check(map.computeIfAbsent("key500") { 1 } == 1)
+        map.clear()
+        check(map.isEmpty())
+    }
+
+    fun testWeakEntriesPurged() {
+        val map = ConcurrentReferenceHashMap<Any, Any>(16, ConcurrentReferenceHashMap.ReferenceType.WEAK)
+        (0 until 1000).forEach { map[Any()] = Any() }
+        awaitGc { map.purgeUnreferencedEntries(); map.size < 1000 }
+        check(map.size < 1000) { "weak entries are not purged after gc: ${map.size}" }
+    }
+
+    /**
+     * 在添加了[SOFT_REF_POLICY_ARG]的JVM当中去执行模拟重启的测试, 如果当前JVM没有添加, 那么启动一个子进程去执行
+     */
+    fun testHeapFootprintAcrossRestarts() {
+        val jvmArgs = ManagementFactory.getRuntimeMXBean().inputArguments
+        if (jvmArgs.contains(SOFT_REF_POLICY_ARG)) {
+            testRestarts()
+            return
+        }
+        val java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java"
+        val process = ProcessBuilder(
+            java, SOFT_REF_POLICY_ARG, "-cp", System.getProperty("java.class.path"),
+            ConcurrentReferenceHashMapTest::class.java.name + "Kt", RESTARTS_ONLY_ARG
+        ).inheritIO().start()
+        check(process.waitFor() == 0) { "restart test failed in the forked JVM" }
+    }
+
+    fun testRestarts() {
+        val restarts = 20
+        val classLoaderRefs = ArrayList<WeakReference<ClassLoader>>()
+        val parameterNameDiscoverer = LocalVariableTableParameterNameDiscoverer()
+
+        repeat(restarts) {
+            val classLoader = RestartClassLoader(RestartBean::class.java.classLoader)
+            val beanClass = classLoader.loadClass(RestartBean::class.java.name)
+            check(beanClass != RestartBean::class.java)
+
+            // 让各种反射/注解相关的缓存当中都持有该Class
+            ReflectionUtils.getDeclaredMethods(beanClass)
+            ReflectionUtils.getDeclaredFields(beanClass)
+            MergedAnnotations.from(beanClass).isPresent(Deprecated::class.java)
+            parameterNameDiscoverer.getParameterNames(beanClass.getDeclaredMethod("sayHello", String::class.java))
+            classLoaderRefs += WeakReference(classLoader)
+        }
+
+        awaitGc { classLoaderRefs.all { it.get() == null } }
+        val alive = classLoaderRefs.count { it.get() != null }
+        check(alive == 0) { "$alive classloaders are still pinned by caches" }
+    }
+
+    /**
+     * 不断去触发GC, 直到给定的条件满足, 或者是达到了最大的轮数; 每轮都会等待一个弱引用的哨兵对象被回收, 以确认GC确实已经执行过了
+     *
+     * @param condition 要等待的条件
+     */
+    private fun awaitGc(condition: () -> Boolean) {
+        val queue = ReferenceQueue<Any>()
+        repeat(MAX_GC_ROUNDS) {
+            val sentinel = WeakReference(Any(), queue)
+            System.gc()
+            queue.remove(GC_ROUND_TIMEOUT)
+            if (sentinel.get() == null && condition.invoke()) {
+                return
+            }
+        }
+    }
+
+    /**
+     * 被模拟重启的Bean
+     */
+    private class RestartBean(private val name: String) {
+        fun sayHello(greeting: String): String = "$greeting, $name"
+    }
+
+    /**
+     * 模拟devtools的RestartClassLoader, 每次都会重新去定义一份[RestartBean]
+     */
+    private class RestartClassLoader(parent: ClassLoader) : ClassLoader(parent) {
+        override fun loadClass(name: String, resolve: Boolean): Class<*> {
+            if (name != RestartBean::class.java.name) {
+                return super.loadClass(name, resolve)
+            }
+            synchronized(getClassLoadingLock(name)) {
+                val loaded = findLoadedClass(name)
+                if (loaded != null) {
+                    return loaded
+                }
+                val bytes = parent.getResourceAsStream(name.replace('.', '/') + ".class")!!.use { it.readBytes() }
+                return defineClass(name, bytes, 0, bytes.size)
+            }
+        }
+    }
+}
+
+fun main(args: Array<String>) {
+    val test = ConcurrentReferenceHashMapTest()
+    if (args.contains(ConcurrentReferenceHashMapTest.RESTARTS_ONLY_ARG)) {
+        test.testRestarts()
+        return
+    }
+    test.testMapOperations()
+    test.testWeakEntriesPurged()
+    test.testHeapFootprintAcrossRestarts()
+}
@@ -1,12 +1,16 @@
 package com.wanna.framework.test.context
 
 import com.wanna.framework.context.ApplicationContextInitializer
+import com.wanna.framework.lang.Nullable
 import java.io.Serializable
 
 /**
  * 经过Merge之后的TestContext的配置信息, 由[ContextConfigurationAttributes]所Merge而来;
  * 并添加了更多相关的配置信息, 去进行合并
  *
+ * Note: [MergedContextConfiguration]会被作为ApplicationContext的缓存的Key, 因此需要基于配置信息去实现equals&hashCode;
+ * testClass以及CacheAwareContextLoaderDelegate并不会影响加载得到的ApplicationContext, 因此不参与比较
+ *
  * @author jianchao.jia
  * @version v1.0
  * @date 2022/11/5
@@ -53,4 +57,40 @@ open class MergedContextConfiguration(
     open fun getLocations(): Array<String> = this.locations
 
     open fun getClasses(): Array<Class<*>> = this.classes
-}
\ No newline at end of file
+
+    /**
+     * 基于ApplicationContext的配置信息去进行比较(不包括testClass以及CacheAwareContextLoaderDelegate),
+     * 相同的配置信息可以共享同一个缓存的ApplicationContext
+     *
+     * @param other other
+     * @return 如果配置信息完全相同, return true; 否则return false
+     */
+    override fun equals(@Nullable other: Any?): Boolean {
+        if (this === other) return true
+        if (other == null || javaClass != other.javaClass) return false
+        other as MergedContextConfiguration
+        return contextLoader.javaClass == other.contextLoader.javaClass
+                && locations.contentEquals(other.locations)
+                && classes.contentEquals(other.classes)
+                && initializers.contentEquals(other.initializers)
+                && propertySourceLocations.contentEquals(other.propertySourceLocations)
+                && propertySourceProperties.contentEquals(other.propertySourceProperties)
+                && activeProfiles.contentEquals(other.activeProfiles)
+    }
+
+    override fun hashCode(): Int {
+        var result = contextLoader.javaClass.hashCode()
+        result = 31 * result + locations.contentHashCode()
+        result = 31 * result + classes.contentHashCode()
+        result = 31 * result + initializers.contentHashCode()
+        result = 31 * result + propertySourceLocations.contentHashCode()
+        result = 31 * result + propertySourceProperties.contentHashCode()
+        result = 31 * result + activeProfiles.contentHashCode()
+        return result
+    }
+
+    override fun toString(): String =
+        "${javaClass.simpleName}(testClass=${testClass.name}, locations=${locations.contentToString()}, " +
+                "classes=${classes.contentToString()}, activeProfiles=${activeProfiles.contentToString()}, " +
+                "contextLoader=${contextLoader.javaClass.name})"
+}
@@ -0,0 +1,104 @@
+package com.wanna.framework.test.context.cache
+
+import com.wanna.framework.context.ApplicationContext
+import com.wanna.framework.test.context.MergedContextConfiguration
+import java.util.function.Function
+
+/**
+ * 测试当中使用的[ApplicationContext]的缓存, 配置信息相同([MergedContextConfiguration]相同)的测试类,
+ * 可以共享同一个[ApplicationContext], 避免每个测试类都需要去重新启动一个[ApplicationContext]
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ *
+ * @see DefaultContextCache
+ */
+interface ContextCache {
+
+    companion object {
+
+        /**
+         * 配置缓存的最大的[ApplicationContext]的数量的属性名(可以通过SystemProperty或者是"spring.properties"去进行配置)
+         */
+        const val MAX_CONTEXT_CACHE_SIZE_PROPERTY_NAME = "spring.test.context.cache.maxSize"
+
+        /**
+         * 默认的最大的缓存的[ApplicationContext]的数量
+         */
+        const val DEFAULT_MAX_CONTEXT_CACHE_SIZE = 32
+    }
+
+    /**
+     * 从缓存当中去获取给定的配置信息对应的[ApplicationContext], 如果缓存当中不存在的话, 那么使用loader去进行加载并放入到缓存当中;
+     * 对于同一个配置信息, 只会被加载一次, 不同的配置信息之间, 可以并发地去进行加载
+     *
+     * @param key 配置信息
+     * @param loader 缓存当中不存在时, 用于去加载[ApplicationContext]的loader
+     * @return 缓存的(或者是新加载得到的)ApplicationContext
+     */
+    fun get(
+        key: MergedContextConfiguration,
+        loader: Function<MergedContextConfiguration, ApplicationContext>
+    ): ApplicationContext
+
+    /**
+     * 检查缓存当中是否存在有给定的配置信息对应的[ApplicationContext]
+     *
+     * @param key 配置信息
+     * @return 如果存在return true; 否则return false
+     */
+    fun contains(key: MergedContextConfiguration): Boolean
+
+    /**
+     * 从缓存当中移除给定的配置信息对应的[ApplicationContext], 并关闭该[ApplicationContext]
+     *
+     * @param key 配置信息
+     */
+    fun remove(key: MergedContextConfiguration)
+
+    /**
+     * 获取当前缓存的[ApplicationContext]的数量
+     *
+     * @return size
+     */
+    fun size(): Int
+
+    /**
+     * 获取最大的缓存的[ApplicationContext]的数量, 超过该数量时, 将会按照LRU的方式去关闭并移除最久没有使用的[ApplicationContext]
+     *
+     * @return maxSize
+     */
+    fun getMaxSize(): Int
+
+    /**
+     * 获取缓存的命中次数
+     *
+     * @return hitCount
+     */
+    fun getHitCount(): Long
+
+    /**
+     * 获取缓存的未命中次数(也就是加载[ApplicationContext]的次数)
+     *
+     * @return missCount
+     */
+    fun getMissCount(): Long
+
+    /**
+     * 获取因为超过最大缓存数量而被移除的[ApplicationContext]的数量
+     *
+     * @return evictionCount
+     */
+    fun getEvictionCount(): Long
+
+    /**
+     * 关闭并移除缓存当中的全部的[ApplicationContext], 并重置统计信息
+     */
+    fun reset()
+
+    /**
+     * 输出缓存的统计信息
+     */
+    fun logStatistics()
+}
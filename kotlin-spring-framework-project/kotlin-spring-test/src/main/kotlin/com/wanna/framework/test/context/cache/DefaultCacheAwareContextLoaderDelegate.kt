@@ -5,18 +5,39 @@ import com.wanna.framework.test.context.CacheAwareContextLoaderDelegate
 import com.wanna.framework.test.context.ContextLoader
 import com.wanna.framework.test.context.MergedContextConfiguration
 import com.wanna.framework.test.context.SmartContextLoader
-import java.util.concurrent.ConcurrentHashMap
+import java.util.function.Function
 
 /**
- * 对于[CacheAwareContextLoaderDelegate]的默认实现
+ * 对于[CacheAwareContextLoaderDelegate]的默认实现, 加载得到的[ApplicationContext]会被缓存到[ContextCache]当中,
+ * 默认情况下, 全部的[DefaultCacheAwareContextLoaderDelegate]都共享同一个[DefaultContextCache],
+ * 在JVM退出时(也就是测试套件执行完成时)会输出该缓存的命中/未命中/淘汰的统计信息
+ *
+ * @param contextCache 缓存ApplicationContext的ContextCache
  *
  * @author jianchao.jia
  * @version v1.0
  * @date 2022/11/5
  */
-open class DefaultCacheAwareContextLoaderDelegate : CacheAwareContextLoaderDelegate {
+open class DefaultCacheAwareContextLoaderDelegate(private val contextCache: ContextCache) :
+    CacheAwareContextLoaderDelegate {
+
+    companion object {
+
+        /**
+         * 全部的测试类所共享的默认的[ContextCache], 在JVM退出时输出缓存的统计信息
+         */
+        @JvmStatic
+        val defaultContextCache: ContextCache by lazy {
+            val contextCache = DefaultContextCache()
+            Runtime.getRuntime().addShutdownHook(Thread(contextCache::logStatistics, "ContextCacheStatistics"))
+            contextCache
+        }
+    }
 
-    private var contextCache = ConcurrentHashMap<MergedContextConfiguration, ApplicationContext>()
+    /**
+     * 使用共享的默认的[ContextCache]去创建[DefaultCacheAwareContextLoaderDelegate]
+     */
+    constructor() : this(defaultContextCache)
 
     /**
      * 利用[MergedContextConfiguration]当中的[ContextLoader]进行真正的[ApplicationContext]的加载
@@ -49,26 +70,16 @@ open class DefaultCacheAwareContextLoaderDelegate : CacheAwareContextLoaderDeleg
      * @return 根据[ContextLoader]去进行加载得到的[ApplicationContext]
      */
     override fun loadApplicationContext(mergedContextConfiguration: MergedContextConfiguration): ApplicationContext {
-        synchronized(contextCache) {
-            var context = contextCache.get(mergedContextConfiguration)
-            if (context == null) {
-
-                // 如果缓存当中没有的话, 那么需要去进行真正的ApplicationContext的加载
-                context = loadContextInternal(mergedContextConfiguration)
-                contextCache.put(mergedContextConfiguration, context)
-            }
-            return context
-        }
+        // 如果缓存当中没有的话, 那么需要去进行真正的ApplicationContext的加载(只会对当前的配置信息去进行加锁)
+        return contextCache.get(mergedContextConfiguration, Function(this::loadContextInternal))
     }
 
     /**
-     * 关闭Context, 从缓存当中移除对应的[ApplicationContext]
+     * 关闭Context, 从缓存当中移除并关闭对应的[ApplicationContext]
      *
      * @param mergedContextConfiguration Merged ContextConfiguration
      */
     override fun closeContext(mergedContextConfiguration: MergedContextConfiguration) {
-        synchronized(this.contextCache) {
-            this.contextCache.remove(mergedContextConfiguration)
-        }
+        this.contextCache.remove(mergedContextConfiguration)
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,262 @@
+package com.wanna.framework.test.context.cache
+
+import com.wanna.common.logging.LoggerFactory
+import com.wanna.framework.context.ApplicationContext
+import com.wanna.framework.context.ConfigurableApplicationContext
+import com.wanna.framework.core.SpringProperties
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.test.context.MergedContextConfiguration
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import java.util.function.Function
+
+/**
+ * [ContextCache]的默认实现, 它是一个有界的LRU缓存:
+ *
+ * * 1.当缓存的[ApplicationContext]的数量超过maxSize时, 将会关闭并移除掉最久没有被使用的[ApplicationContext];
+ * * 2.加载[ApplicationContext]时只会对该配置信息对应的缓存条目去进行加锁, 因此不同的配置信息可以并发地去进行加载,
+ * 而相同的配置信息只会被加载一次;
+ * * 3.维护命中/未命中/淘汰次数的统计信息, 可以通过[logStatistics]去进行输出
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ *
+ * @param maxSize 最大的缓存的[ApplicationContext]的数量
+ */
+open class DefaultContextCache(private val maxSize: Int) : ContextCache {
+
+    companion object {
+
+        /**
+         * Logger
+         */
+        @JvmStatic
+        private val logger = LoggerFactory.getLogger(DefaultContextCache::class.java)
+
+        /**
+         * 从SpringProperties当中去获取到配置的最大的缓存数量, 如果没有配置(或者配置的不合法)的话, 使用默认值
+         *
+         * @return maxSize
+         */
+        @JvmStatic
+        fun retrieveMaxCacheSize(): Int {
+            val maxSize = SpringProperties.getProperty(ContextCache.MAX_CONTEXT_CACHE_SIZE_PROPERTY_NAME)?.trim()
+            if (!maxSize.isNullOrEmpty()) {
+                val size = maxSize.toIntOrNull()
+                if (size != null && size > 0) {
+                    return size
+                }
+                logger.warn("'${ContextCache.MAX_CONTEXT_CACHE_SIZE_PROPERTY_NAME}'的值[$maxSize]不合法, 将会使用默认值[${ContextCache.DEFAULT_MAX_CONTEXT_CACHE_SIZE}]")
+            }
+            return ContextCache.DEFAULT_MAX_CONTEXT_CACHE_SIZE
+        }
+    }
+
+    init {
+        require(maxSize > 0) { "maxSize必须大于0" }
+    }
+
+    /**
+     * 使用从SpringProperties当中获取到的最大缓存数量去创建[DefaultContextCache]
+     */
+    constructor() : this(retrieveMaxCacheSize())
+
+    /**
+     * 缓存条目, Key-配置信息, Value-该配置信息对应的缓存条目(其中的ApplicationContext可能还在加载当中)
+     */
+    private val entries = ConcurrentHashMap<MergedContextConfiguration, Entry>()
+
+    /**
+     * 已经完成加载的缓存条目, 按照访问顺序去进行排列(最久没有使用的在最前面), 用于实现LRU淘汰, 访问时需要对它去进行加锁
+     */
+    private val lru = LinkedHashMap<MergedContextConfiguration, Entry>(16, 0.75f, true)
+
+    /**
+     * 命中次数
+     */
+    private val hitCount = AtomicLong()
+
+    /**
+     * 未命中次数
+     */
+    private val missCount = AtomicLong()
+
+    /**
+     * 淘汰次数
+     */
+    private val evictionCount = AtomicLong()
+
+    override fun get(
+        key: MergedContextConfiguration,
+        loader: Function<MergedContextConfiguration, ApplicationContext>
+    ): ApplicationContext {
+        // fast path, 已经完成加载的话, 直接返回
+        val existing = entries[key]?.context
+        if (existing != null) {
+            hitCount.incrementAndGet()
+            touch(key)
+            return existing
+        }
+
+        while (true) {
+            val entry = entries.computeIfAbsent(key) { Entry() }
+            var loaded = false
+            val context: ApplicationContext
+
+            // 只对当前配置信息对应的缓存条目去进行加锁, 不同的配置信息可以并发地去进行加载
+            synchronized(entry) {
+                val cached = entry.context
+                if (cached != null) {
+                    hitCount.incrementAndGet()
+                    context = cached
+                } else {
+                    missCount.incrementAndGet()
+                    try {
+                        context = loader.apply(key)
+                    } catch (ex: Throwable) {
+                        entries.remove(key, entry)
+                        throw ex
+                    }
+                    entry.context = context
+                    loaded = true
+                }
+            }
+
+            if (loaded) {
+                // 在加载的过程当中, 该缓存条目已经被remove/reset移除掉了, 加载得到的ApplicationContext不会再被缓存管理,
+                // 需要将它关闭掉(remove可能已经关闭过了), 并重新去进行获取, 避免返回一个已经被关闭/不受管理的ApplicationContext
+                if (!evictIfNecessary(key, entry)) {
+                    close(entry)
+                    continue
+                }
+                if (logger.isDebugEnabled) {
+                    logger.debug("完成ApplicationContext的加载, 当前的缓存统计信息为${statistics()}, key=[$key]")
+                }
+            } else {
+                touch(key)
+            }
+            return context
+        }
+    }
+
+    override fun contains(key: MergedContextConfiguration): Boolean = entries[key]?.context != null
+
+    override fun remove(key: MergedContextConfiguration) {
+        val entry = entries.remove(key) ?: return
+        synchronized(lru) {
+            lru.remove(key)
+        }
+        close(entry)
+    }
+
+    override fun size(): Int = synchronized(lru) { lru.size }
+
+    override fun getMaxSize(): Int = this.maxSize
+
+    override fun getHitCount(): Long = hitCount.get()
+
+    override fun getMissCount(): Long = missCount.get()
+
+    override fun getEvictionCount(): Long = evictionCount.get()
+
+    override fun reset() {
+        val removed: List<Entry>
+
+        // 在LRU的锁内去清空entries, 保证正在加载的缓存条目在完成加载之后, 可以感知到自己已经被移除掉了
+        synchronized(lru) {
+            removed = ArrayList(lru.values)
+            lru.clear()
+            entries.clear()
+        }
+        removed.forEach(this::close)
+        hitCount.set(0)
+        missCount.set(0)
+        evictionCount.set(0)
+    }
+
+    override fun logStatistics() {
+        if (logger.isInfoEnabled) {
+            logger.info("Spring测试的ApplicationContext缓存统计信息: ${statistics()}")
+        }
+    }
+
+    /**
+     * 记录一次对已经加载完成的缓存条目的访问, 更新它在LRU当中的位置
+     *
+     * @param key key
+     */
+    private fun touch(key: MergedContextConfiguration) {
+        synchronized(lru) {
+            lru[key]
+        }
+    }
+
+    /**
+     * 将新加载完成的缓存条目添加到LRU当中, 如果超过了最大缓存数量的话, 关闭并移除掉最久没有被使用的[ApplicationContext]
+     *
+     * @param key 新加载完成的配置信息
+     * @param entry 新加载完成的缓存条目
+     * @return 如果该缓存条目被成功添加到LRU当中return true; 如果它在加载的过程当中已经被移除掉了, 那么return false
+     */
+    private fun evictIfNecessary(key: MergedContextConfiguration, entry: Entry): Boolean {
+        var evicted: MutableList<Entry>? = null
+        synchronized(lru) {
+            // 在加载的过程当中已经被移除掉了的话, 那么不需要再加入到LRU当中
+            if (entries[key] !== entry) {
+                return false
+            }
+            lru[key] = entry
+            val iterator = lru.entries.iterator()
+            while (lru.size > maxSize && iterator.hasNext()) {
+                val eldest = iterator.next()
+                iterator.remove()
+                entries.remove(eldest.key, eldest.value)
+                if (evicted == null) {
+                    evicted = ArrayList(1)
+                }
+                evicted!!.add(eldest.value)
+            }
+        }
+        // 在锁外去关闭被淘汰的ApplicationContext, 避免阻塞别的线程对缓存的访问
+        evicted?.forEach {
+            evictionCount.incrementAndGet()
+            close(it)
+        }
+        return true
+    }
+
+    /**
+     * 关闭缓存条目当中的[ApplicationContext]
+     *
+     * @param entry 缓存条目
+     */
+    private fun close(entry: Entry) {
+        val context = synchronized(entry) { entry.context.also { entry.context = null } }
+        if (context is ConfigurableApplicationContext) {
+            try {
+                context.close()
+            } catch (ex: Exception) {
+                logger.warn("关闭ApplicationContext[$context]失败", ex)
+            }
+        }
+    }
+
+    private fun statistics(): String =
+        "[size=${size()}, maxSize=$maxSize, hitCount=${getHitCount()}, missCount=${getMissCount()}, evictionCount=${getEvictionCount()}]"
+
+    override fun toString(): String = "DefaultContextCache${statistics()}"
+
+    /**
+     * 缓存条目, 加载[ApplicationContext]时将会对它去进行加锁
+     */
+    private class Entry {
+
+        /**
+         * 已经完成加载的ApplicationContext(还没完成加载/已经被关闭时为null)
+         */
+        @Nullable
+        @Volatile
+        var context: ApplicationContext? = null
+    }
+}
@@ -0,0 +1,196 @@
+package com.wanna.framework.test.context.cache
+
+import com.wanna.framework.context.ApplicationContext
+import com.wanna.framework.context.ConfigurableApplicationContext
+import com.wanna.framework.context.support.GenericApplicationContext
+import com.wanna.framework.test.context.MergedContextConfiguration
+import com.wanna.framework.test.context.support.AnnotationConfigContextLoader
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Function
+
+/**
+ * [DefaultContextCache]的LRU淘汰以及并发加载的测试
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ */
+class DefaultContextCacheTest {
+
+    class ConfigA
+
+    class ConfigB
+
+    class ConfigC
+
+    private val loader = Function<MergedContextConfiguration, ApplicationContext> {
+        GenericApplicationContext().apply { refresh() }
+    }
+
+    @Test
+    fun testSameConfigurationIsCached() {
+        val cache = DefaultContextCache(2)
+        val context = cache.get(config(ConfigA::class.java), loader)
+        assertSame(context, cache.get(config(ConfigA::class.java), loader))
+        assertEquals(1, cache.getMissCount())
+        assertEquals(1, cache.getHitCount())
+        assertEquals(1, cache.size())
+    }
+
+    @Test
+    fun testLeastRecentlyUsedContextIsEvictedAndClosed() {
+        val cache = DefaultContextCache(2)
+        val a = cache.get(config(ConfigA::class.java), loader) as ConfigurableApplicationContext
+        val b = cache.get(config(ConfigB::class.java), loader) as ConfigurableApplicationContext
+
+        // 访问A之后, B成为最久没有被使用的ApplicationContext
+        cache.get(config(ConfigA::class.java), loader)
+        val c = cache.get(config(ConfigC::class.java), loader) as ConfigurableApplicationContext
+
+        assertEquals(2, cache.size())
+        assertEquals(1, cache.getEvictionCount())
+        assertTrue(cache.contains(config(ConfigA::class.java)))
+        assertFalse(cache.contains(config(ConfigB::class.java)))
+        assertTrue(a.isActive())
+        assertFalse(b.isActive())
+        assertTrue(c.isActive())
+
+        cache.remove(config(ConfigA::class.java))
+        assertFalse(a.isActive())
+        assertEquals(1, cache.size())
+
+        cache.reset()
+        assertFalse(c.isActive())
+        assertEquals(0, cache.size())
+        assertEquals(0, cache.getMissCount())
+    }
+
+    @Test
+    fun testDifferentConfigurationsLoadConcurrently() {
+        val cache = DefaultContextCache(4)
+        val bothLoading = CountDownLatch(2)
+
+        // 两个配置信息的加载都需要等待对方开始加载, 如果加载是串行的, 那么将会超时失败
+        val blockingLoader = Function<MergedContextConfiguration, ApplicationContext> {
+            bothLoading.countDown()
+            check(bothLoading.await(10, TimeUnit.SECONDS)) { "不同的配置信息没有被并发地去进行加载" }
+            GenericApplicationContext().apply { refresh() }
+        }
+        val executor = Executors.newFixedThreadPool(2)
+        try {
+            val a = executor.submit<ApplicationContext> { cache.get(config(ConfigA::class.java), blockingLoader) }
+            val b = executor.submit<ApplicationContext> { cache.get(config(ConfigB::class.java), blockingLoader) }
+            assertNotSame(a.get(20, TimeUnit.SECONDS), b.get(20, TimeUnit.SECONDS))
+            assertEquals(2, cache.getMissCount())
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    fun testSameConfigurationIsLoadedOnce() {
+        val cache = DefaultContextCache(4)
+        val loads = AtomicInteger()
+        val start = CountDownLatch(1)
+        val countingLoader = Function<MergedContextConfiguration, ApplicationContext> {
+            loads.incrementAndGet()
+            Thread.sleep(50)
+            GenericApplicationContext().apply { refresh() }
+        }
+        val executor = Executors.newFixedThreadPool(8)
+        try {
+            val futures = (0 until 8).map {
+                executor.submit<ApplicationContext> {
+                    start.await()
+                    cache.get(config(ConfigA::class.java), countingLoader)
+                }
+            }
+            start.countDown()
+            val contexts = futures.map { it.get(20, TimeUnit.SECONDS) }.toSet()
+            assertEquals(1, contexts.size)
+            assertEquals(1, loads.get())
+            assertEquals(1, cache.getMissCount())
+            assertEquals(7, cache.getHitCount())
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    fun testContextResetWhileLoadingIsClosedAndReloaded() {
+        testContextRemovedWhileLoading { cache, _ -> cache.reset() }
+    }
+
+    @Test
+    fun testContextRemovedWhileLoadingIsClosedAndReloaded() {
+        // remove需要等待正在进行的加载完成之后, 才能去关闭该缓存条目, 因此需要在别的线程当中去执行,
+        // 等到该线程阻塞在缓存条目的锁上时, 说明它已经将缓存条目从缓存当中移除掉了
+        testContextRemovedWhileLoading { cache, key ->
+            val remover = Thread { cache.remove(key) }
+            remover.start()
+            val deadline = System.currentTimeMillis() + 10_000L
+            while (remover.state != Thread.State.BLOCKED && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1)
+            }
+            assertEquals(Thread.State.BLOCKED, remover.state)
+        }
+    }
+
+    /**
+     * 在第一次加载的过程当中将缓存条目移除掉, 第一次加载得到的ApplicationContext需要被关闭,
+     * 并且get需要重新去进行加载, 最终返回一个被缓存所管理的ApplicationContext
+     *
+     * @param removal 移除缓存条目的操作
+     */
+    private fun testContextRemovedWhileLoading(removal: (DefaultContextCache, MergedContextConfiguration) -> Unit) {
+        val cache = DefaultContextCache(4)
+        val key = config(ConfigA::class.java)
+        val loading = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        val loaded = ArrayList<ConfigurableApplicationContext>()
+        val blockingLoader = Function<MergedContextConfiguration, ApplicationContext> {
+            if (loaded.isEmpty()) {
+                loading.countDown()
+                check(release.await(10, TimeUnit.SECONDS))
+            }
+            GenericApplicationContext().apply { refresh() }.also { loaded += it }
+        }
+        val executor = Executors.newSingleThreadExecutor()
+        try {
+            val future = executor.submit<ApplicationContext> { cache.get(key, blockingLoader) }
+            assertTrue(loading.await(10, TimeUnit.SECONDS))
+            removal.invoke(cache, key)
+            release.countDown()
+            val context = future.get(20, TimeUnit.SECONDS)
+
+            assertEquals(2, loaded.size)
+            assertFalse(loaded[0].isActive())
+            assertSame(loaded[1], context)
+            assertTrue(loaded[1].isActive())
+            assertTrue(cache.contains(key))
+            assertSame(context, cache.get(key, blockingLoader))
+            assertEquals(1, cache.size())
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    private fun config(configClass: Class<*>): MergedContextConfiguration {
+        return MergedContextConfiguration(
+            DefaultContextCacheTest::class.java,
+            AnnotationConfigContextLoader(),
+            emptyArray(),
+            arrayOf(configClass),
+            emptyArray(),
+            emptyArray(),
+            emptyArray(),
+            emptyArray(),
+            DefaultCacheAwareContextLoaderDelegate(DefaultContextCache(1))
+        )
+    }
+}
@@ -1,3 +1,7 @@
+plugins {
+    id("me.champeau.jmh") version (jmhPluginVersion)
+}
+
 dependencies {
     implementation(project(":kotlin-spring-framework-project:kotlin-spring-core"))
     implementation(project(":kotlin-spring-framework-project:kotlin-spring-beans"))
@@ -7,6 +11,7 @@ dependencies {
 
     // compileOnly
     compileOnly("org.apache.httpcomponents:httpclient:$apacheHttpClientVersion")  // apache httpcomponents
+    compileOnly("io.netty:netty-codec-http:$nettyVersion")  // netty
     compileOnly("com.fasterxml.jackson.core:jackson-databind:$jacksonDatabindVersion")  // jackson
     compileOnly("com.google.code.gson:gson:$gsonVersion")  // gson
     compileOnly("javax.servlet:javax.servlet-api:$servletApiVersion") // servlet-api
@@ -14,4 +19,14 @@ dependencies {
 
     // for test
     testImplementation("com.fasterxml.jackson.core:jackson-databind:$jacksonDatabindVersion")
+    testImplementation("org.apache.httpcomponents:httpclient:$apacheHttpClientVersion")
+    testImplementation("io.netty:netty-codec-http:$nettyVersion")
+
+    // for jmh benchmark
+    jmh("com.fasterxml.jackson.core:jackson-databind:$jacksonDatabindVersion")
+}
+
+// jmh benchmark, 使用"gradle jmh"去运行"src/jmh"下的Benchmark
+jmh {
+    jmhVersion.set(jmhCoreVersion)
 }
\ No newline at end of file
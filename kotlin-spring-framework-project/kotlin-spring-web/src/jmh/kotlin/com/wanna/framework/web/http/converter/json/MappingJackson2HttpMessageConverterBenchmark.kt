@@ -0,0 +1,103 @@
+package com.wanna.framework.web.http.converter.json
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.wanna.framework.web.http.HttpHeaders
+import com.wanna.framework.web.http.HttpInputMessage
+import com.wanna.framework.web.http.HttpOutputMessage
+import com.wanna.framework.web.http.MediaType
+import org.openjdk.jmh.annotations.*
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.InputStream
+import java.io.OutputStream
+import java.lang.reflect.Type
+import java.util.concurrent.TimeUnit
+
+/**
+ * [MappingJackson2HttpMessageConverter]的读写的Benchmark, 对比使用缓存的ObjectReader/ObjectWriter直接基于流去进行读写,
+ * 以及直接使用ObjectMapper(每次读写都需要重新去构建ObjectReader/ObjectWriter, 并且写出时先序列化到中间的缓冲区)的情况下的吞吐量
+ *
+ * 使用"gradle :kotlin-spring-framework-project:kotlin-spring-web:jmh"去运行, 对于内存分配情况,
+ * 可以在jmh的配置当中添加"profilers = listOf("gc")"(也就是"-prof gc"), 从而查看每次操作的内存分配量(gc.alloc.rate.norm)
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/4
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class MappingJackson2HttpMessageConverterBenchmark {
+
+    /**
+     * RequestBody/ResponseBody当中的Order的数量
+     */
+    @Param("1", "100", "1000")
+    @JvmField
+    var orderCount = 0
+
+    private val converter = MappingJackson2HttpMessageConverter()
+
+    private val objectMapper = ObjectMapper()
+
+    private val orderListType: Type = OrderController::class.java.getMethod("getOrders").genericReturnType
+
+    private lateinit var orders: List<Order>
+
+    private lateinit var requestBody: ByteArray
+
+    @Setup
+    fun setup() {
+        this.orders = (0 until orderCount).map { Order(it.toLong(), "order-$it", it * 1.5) }
+        this.requestBody = objectMapper.writeValueAsBytes(orders)
+    }
+
+    @Benchmark
+    fun readWithConverter(): Any = converter.read(orderListType, OrderController::class.java, BenchmarkInputMessage(requestBody))
+
+    @Benchmark
+    fun readWithObjectMapper(): Any =
+        objectMapper.readValue(BenchmarkInputMessage(requestBody).getBody(), objectMapper.typeFactory.constructType(orderListType))
+
+    @Benchmark
+    fun writeWithConverter(): Int {
+        val outputMessage = BenchmarkOutputMessage()
+        converter.write(orders, orderListType, MediaType.APPLICATION_JSON, outputMessage)
+        return outputMessage.body.size()
+    }
+
+    @Benchmark
+    fun writeWithObjectMapper(): Int {
+        val outputMessage = BenchmarkOutputMessage()
+        outputMessage.getBody().write(objectMapper.writeValueAsBytes(orders))
+        return outputMessage.body.size()
+    }
+
+    /**
+     * 基于字节数组的request Message
+     */
+    class BenchmarkInputMessage(private val content: ByteArray) : HttpInputMessage {
+        private val headers = HttpHeaders().apply { setContentType(MediaType.APPLICATION_JSON) }
+        override fun getBody(): InputStream = ByteArrayInputStream(content)
+        override fun getHeaders() = headers
+    }
+
+    /**
+     * 基于ByteArrayOutputStream的response Message
+     */
+    class BenchmarkOutputMessage : HttpOutputMessage {
+        val body = ByteArrayOutputStream(1024)
+        private val headers = HttpHeaders()
+        override fun getBody(): OutputStream = body
+        override fun getHeaders() = headers
+    }
+
+    class Order(var id: Long = 0, var name: String = "", var price: Double = 0.0)
+
+    class OrderController {
+        fun getOrders(): List<Order> = emptyList()
+    }
+}
@@ -0,0 +1,95 @@
+package com.wanna.framework.web.method.annotation
+
+import com.wanna.framework.core.MethodParameter
+import com.wanna.framework.web.accept.ContentNegotiationManager
+import com.wanna.framework.web.context.request.ServerWebRequest
+import com.wanna.framework.web.http.HttpHeaders
+import com.wanna.framework.web.http.converter.ByteArrayHttpMessageConverter
+import com.wanna.framework.web.http.converter.HttpMessageConverter
+import com.wanna.framework.web.http.converter.ResourceHttpMessageConverter
+import com.wanna.framework.web.http.converter.StringHttpMessageConverter
+import com.wanna.framework.web.http.converter.json.MappingJackson2HttpMessageConverter
+import com.wanna.framework.web.http.server.ServerHttpRequest
+import com.wanna.framework.web.http.server.ServerHttpResponse
+import com.wanna.framework.web.server.HttpServerRequestImpl
+import com.wanna.framework.web.server.HttpServerResponseImpl
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * 对于@ResponseBody的返回值的内容协商的Benchmark, 对比使用内容协商结果的缓存(negotiationCacheLimit=256)
+ * 以及不使用缓存(negotiationCacheLimit=0, 也就是每次请求都重新进行内容协商)的情况下的吞吐量
+ *
+ * 使用"gradle :kotlin-spring-framework-project:kotlin-spring-web:jmh"去运行
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class ContentNegotiationBenchmark {
+
+    /**
+     * 内容协商结果的缓存的最大数量限制, 0代表不使用缓存
+     */
+    @Param("0", "256")
+    @JvmField
+    var negotiationCacheLimit = 0
+
+    /**
+     * 客户端的Accept请求头
+     */
+    @Param("application/json", "application/json, text/plain, */*", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")
+    @JvmField
+    var accept = ""
+
+    private lateinit var processor: BenchmarkMethodProcessor
+
+    private lateinit var returnType: MethodParameter
+
+    private val value = User("wanna", 18)
+
+    @Setup
+    fun setup() {
+        val messageConverters = listOf(
+            ByteArrayHttpMessageConverter(),
+            StringHttpMessageConverter(),
+            ResourceHttpMessageConverter(),
+            MappingJackson2HttpMessageConverter()
+        )
+        this.processor = BenchmarkMethodProcessor(messageConverters, ContentNegotiationManager())
+        this.processor.setNegotiationCacheLimit(negotiationCacheLimit)
+        this.returnType = MethodParameter(UserController::class.java.getMethod("getUser"), -1)
+    }
+
+    @Benchmark
+    fun writeWithMessageConverters(): Int {
+        val request = HttpServerRequestImpl()
+        request.setHeader(HttpHeaders.ACCEPT, accept)
+        val response = HttpServerResponseImpl()
+        val webRequest = ServerWebRequest(request, response)
+        processor.write(value, returnType, ServerHttpRequest(webRequest), ServerHttpResponse(webRequest))
+        return response.getStatusCode()
+    }
+
+    /**
+     * 暴露出来writeWithMessageConverters方法的MethodProcessor
+     */
+    class BenchmarkMethodProcessor(
+        messageConverters: List<HttpMessageConverter<*>>, contentNegotiationManager: ContentNegotiationManager
+    ) : RequestResponseBodyMethodProcessor(messageConverters, contentNegotiationManager) {
+        fun write(value: Any, returnType: MethodParameter, request: ServerHttpRequest, response: ServerHttpResponse) =
+            writeWithMessageConverters(value, returnType, request, response)
+    }
+
+    class User(val name: String, val age: Int)
+
+    class UserController {
+        fun getUser(): User = User("wanna", 18)
+    }
+}
@@ -0,0 +1,187 @@
+package com.wanna.framework.web.client
+
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.concurrent.CompletableToListenableFutureAdapter
+import com.wanna.framework.util.concurrent.ListenableFuture
+import com.wanna.framework.web.bind.annotation.RequestMethod
+import com.wanna.framework.web.http.HttpEntity
+import com.wanna.framework.web.http.ResponseEntity
+import com.wanna.framework.web.http.client.AsyncClientHttpRequest
+import com.wanna.framework.web.http.client.AsyncClientHttpRequestFactory
+import com.wanna.framework.web.http.client.ClientHttpRequest
+import com.wanna.framework.web.http.client.ClientHttpResponse
+import com.wanna.framework.web.http.client.Netty4ClientHttpRequestFactory
+import java.io.IOException
+import java.net.URI
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executor
+import java.util.concurrent.ForkJoinPool
+
+/**
+ * 异步的RestTemplate, 基于[AsyncClientHttpRequestFactory](例如[Netty4ClientHttpRequestFactory])去发送HTTP请求,
+ * 所有的请求方法都会立刻返回一个[ListenableFuture], 不会阻塞调用方的线程(可以通过[ListenableFuture.completable]转换为CompletableFuture).
+ *
+ * 对于RequestBody的写出以及ResponseBody的读取, 都是直接复用同步的[RestTemplate]当中的[com.wanna.framework.web.http.converter.HttpMessageConverter]
+ *
+ * Note: ResponseBody的提取(例如JSON的反序列化), 将会在[responseExecutor]当中去进行执行, 而不是在完成请求的线程(对于Netty来说, 也就是EventLoop线程)当中,
+ * 避免耗时的反序列化阻塞住EventLoop上的其他连接的读写, 默认使用的是[ForkJoinPool.commonPool]
+ *
+ * @param asyncRequestFactory 异步的RequestFactory
+ * @param syncTemplate 同步的RestTemplate, 提供URI模板的处理以及HttpMessageConverter
+ *
+ * @see RestTemplate
+ * @see AsyncClientHttpRequestFactory
+ */
+open class AsyncRestTemplate(
+    private val asyncRequestFactory: AsyncClientHttpRequestFactory,
+    private val syncTemplate: RestTemplate
+) {
+
+    /**
+     * 使用给定的[AsyncClientHttpRequestFactory], 以及一个默认的[RestTemplate]去创建[AsyncRestTemplate]
+     *
+     * @param asyncRequestFactory 异步的RequestFactory
+     */
+    constructor(asyncRequestFactory: AsyncClientHttpRequestFactory) : this(asyncRequestFactory, RestTemplate())
+
+    /**
+     * 去执行ResponseBody的提取的Executor
+     */
+    private var responseExecutor: Executor = ForkJoinPool.commonPool()
+
+    /**
+     * 设置去执行ResponseBody的提取的Executor
+     *
+     * @param responseExecutor Executor
+     */
+    open fun setResponseExecutor(responseExecutor: Executor) {
+        this.responseExecutor = responseExecutor
+    }
+
+    /**
+     * 获取去执行ResponseBody的提取的Executor
+     *
+     * @return Executor
+     */
+    open fun getResponseExecutor(): Executor = this.responseExecutor
+
+    /**
+     * 获取异步的RequestFactory
+     *
+     * @return AsyncClientHttpRequestFactory
+     */
+    open fun getAsyncRequestFactory(): AsyncClientHttpRequestFactory = this.asyncRequestFactory
+
+    /**
+     * 获取同步的RestTemplate
+     *
+     * @return RestTemplate
+     */
+    open fun getRestOperations(): RestTemplate = this.syncTemplate
+
+    open fun <T : Any> getForEntity(
+        url: String, responseType: Class<T>, uriVariables: Map<String, String>
+    ): ListenableFuture<ResponseEntity<T>?> {
+        val requestCallback = syncTemplate.acceptHeaderRequestCallback(responseType)
+        val responseExtractor = syncTemplate.responseEntityExtractor(responseType)
+        return execute(url, RequestMethod.GET, requestCallback, responseExtractor, uriVariables)
+    }
+
+    open fun <T : Any> postForEntity(
+        url: String, @Nullable requestBody: Any?, responseType: Class<T>, uriVariables: Map<String, String>
+    ): ListenableFuture<ResponseEntity<T>?> {
+        val requestCallback = syncTemplate.httpEntityRequestCallback(requestBody)
+        val responseExtractor = syncTemplate.responseEntityExtractor(responseType)
+        return execute(url, RequestMethod.POST, requestCallback, responseExtractor, uriVariables)
+    }
+
+    open fun <T : Any> exchange(
+        url: String,
+        method: RequestMethod,
+        @Nullable requestEntity: HttpEntity<*>?,
+        responseType: Class<T>,
+        uriVariables: Map<String, String>
+    ): ListenableFuture<ResponseEntity<T>?> {
+        val requestCallback = syncTemplate.httpEntityRequestCallback(requestEntity)
+        val responseExtractor = syncTemplate.responseEntityExtractor(responseType)
+        return execute(url, method, requestCallback, responseExtractor, uriVariables)
+    }
+
+    /**
+     * 使用URI模板和URI变量去构建出来URI, 并异步地去执行请求
+     *
+     * @param url URL模板
+     * @param method 请求方式
+     * @param requestCallback 对请求去进行干预的回调
+     * @param responseExtractor 对响应去进行提取的提取器
+     * @param uriVariables URI变量
+     * @return 执行请求的结果的Future
+     */
+    open fun <T : Any> execute(
+        url: String,
+        method: RequestMethod,
+        @Nullable requestCallback: RequestCallback?,
+        @Nullable responseExtractor: ResponseExtractor<T>?,
+        uriVariables: Map<String, String>
+    ): ListenableFuture<T?> {
+        val uri = syncTemplate.uriTemplateHandler.expand(url, uriVariables)
+        return execute(uri, method, requestCallback, responseExtractor)
+    }
+
+    /**
+     * 异步地去执行请求
+     *
+     * @param uri URI
+     * @param method 请求方式
+     * @param requestCallback 对请求去进行干预的回调
+     * @param responseExtractor 对响应去进行提取的提取器
+     * @return 执行请求的结果的Future
+     */
+    open fun <T : Any> execute(
+        uri: URI,
+        method: RequestMethod,
+        @Nullable requestCallback: RequestCallback?,
+        @Nullable responseExtractor: ResponseExtractor<T>?
+    ): ListenableFuture<T?> {
+        val request = asyncRequestFactory.createAsyncRequest(uri, method)
+
+        // 如果必要的话, 使用给定的RequestCallback对请求去进行处理(例如写出RequestBody)
+        requestCallback?.doWithRequest(adaptRequest(request))
+
+        // 在获取到Response之后, 切换到responseExecutor当中去使用ResponseExtractor去进行提取, 并关闭Response
+        val responseFuture = request.executeAsync().completable().thenApplyAsync({ response: ClientHttpResponse ->
+            response.use { responseExtractor?.extractData(it) }
+        }, responseExecutor)
+        return CompletableToListenableFutureAdapter(responseFuture)
+    }
+
+    /**
+     * 将[AsyncClientHttpRequest]适配成为[ClientHttpRequest], 从而可以直接复用同步的[RequestCallback];
+     * 如果RequestCallback当中去执行了请求, 那么将会阻塞等待异步请求的完成
+     *
+     * @param request AsyncClientHttpRequest
+     * @return ClientHttpRequest
+     */
+    private fun adaptRequest(request: AsyncClientHttpRequest): ClientHttpRequest {
+        if (request is ClientHttpRequest) {
+            return request
+        }
+        return object : ClientHttpRequest {
+            override fun execute(): ClientHttpResponse {
+                try {
+                    return request.executeAsync().get()
+                } catch (ex: ExecutionException) {
+                    val cause = ex.cause
+                    throw cause as? IOException ?: IOException("Failed to execute request [${request.getURI()}]", cause)
+                } catch (ex: InterruptedException) {
+                    Thread.currentThread().interrupt()
+                    throw IOException("Interrupted while executing request [${request.getURI()}]", ex)
+                }
+            }
+            override fun getBody() = request.getBody()
+            override fun getHeaders() = request.getHeaders()
+            override fun getMethod() = request.getMethod()
+            override fun getURI() = request.getURI()
+        }
+    }
+}
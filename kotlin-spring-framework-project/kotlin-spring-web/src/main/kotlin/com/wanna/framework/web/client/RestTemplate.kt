@@ -166,10 +166,11 @@ open class RestTemplate : RestOperations, InterceptingHttpAccessor() {
         requestCallback?.doWithRequest(clientRequest)
 
         // 交给ClientHttpRequest去执行目标请求, 从而得到ClientHttpResponse
-        val clientResponse = clientRequest.execute()
-
-        // 如果必要的话使用ResponseExtractor, 去将ResponseBody当中的数据去进行提取出来转成T类型
-        return responseExtractor?.extractData(clientResponse)
+        // 在处理完成之后, 需要关闭ClientHttpResponse, 对于基于连接池的HttpClient来说, 才能将连接归还给连接池
+        clientRequest.execute().use {
+            // 如果必要的话使用ResponseExtractor, 去将ResponseBody当中的数据去进行提取出来转成T类型
+            return responseExtractor?.extractData(it)
+        }
     }
 
     open fun <T> acceptHeaderRequestCallback(responseType: Class<T>): RequestCallback {
@@ -182,10 +183,20 @@ open class RestTemplate : RestOperations, InterceptingHttpAccessor() {
      * @param requestBody RequestBody(可以是[HttpEntity])
      * @return 执行HttpEntity作为RequestBody的写出的[RequestCallback]
      */
-    private fun httpEntityRequestCallback(@Nullable requestBody: Any?): RequestCallback {
+    open fun httpEntityRequestCallback(@Nullable requestBody: Any?): RequestCallback {
         return HttpEntityRequestCallback(requestBody)
     }
 
+    /**
+     * 获取到将Response去转换成为[ResponseEntity]的[ResponseExtractor]
+     *
+     * @param responseType ResponseBody类型
+     * @return 将Response去转换成为ResponseEntity的ResponseExtractor
+     */
+    open fun <T : Any> responseEntityExtractor(responseType: Class<T>): ResponseExtractor<ResponseEntity<T>> {
+        return ResponseEntityResponseExtractor(responseType)
+    }
+
     /**
      * 将响应转换为Entity的Response提取器
      *
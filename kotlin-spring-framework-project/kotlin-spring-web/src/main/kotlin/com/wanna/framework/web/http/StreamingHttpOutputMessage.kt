@@ -0,0 +1,34 @@
+package com.wanna.framework.web.http
+
+import java.io.IOException
+import java.io.OutputStream
+
+/**
+ * 支持以流的方式去进行写出的[HttpOutputMessage], 对于这样的[HttpOutputMessage], 不应该去使用[getBody]去获取输出流,
+ * 而是应该通过[setBody]去设置一个[Body]回调, 在真正地去发送HTTP消息时, 才会回调[Body]将数据直接写入到底层的输出流当中
+ *
+ * @see HttpOutputMessage
+ */
+interface StreamingHttpOutputMessage : HttpOutputMessage {
+
+    /**
+     * 设置用于去写出消息体的[Body]回调
+     *
+     * @param body Body
+     */
+    fun setBody(body: Body)
+
+    /**
+     * 消息体的写出的回调
+     */
+    fun interface Body {
+
+        /**
+         * 将消息体直接写入到给定的输出流当中
+         *
+         * @param outputStream 底层的输出流
+         */
+        @Throws(IOException::class)
+        fun writeTo(outputStream: OutputStream)
+    }
+}
@@ -0,0 +1,22 @@
+package com.wanna.framework.web.http.client
+
+import com.wanna.framework.util.concurrent.ListenableFuture
+import com.wanna.framework.web.http.HttpOutputMessage
+import com.wanna.framework.web.http.HttpRequest
+
+/**
+ * 对一个异步的客户端Http请求的描述, 它可以获取去获取要进行发送的RequestBody(OutputStream),
+ * 和[ClientHttpRequest]不同的是, 执行请求时并不会阻塞当前线程, 而是返回一个[ListenableFuture]
+ *
+ * @see ClientHttpRequest
+ * @see AsyncClientHttpRequestFactory
+ */
+interface AsyncClientHttpRequest : HttpOutputMessage, HttpRequest {
+
+    /**
+     * 异步地去执行目标HTTP请求
+     *
+     * @return 在获取到ClientHttpResponse时完成的ListenableFuture
+     */
+    fun executeAsync(): ListenableFuture<ClientHttpResponse>
+}
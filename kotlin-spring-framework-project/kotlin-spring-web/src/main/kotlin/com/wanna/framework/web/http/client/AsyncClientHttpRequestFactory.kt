@@ -0,0 +1,24 @@
+package com.wanna.framework.web.http.client
+
+import com.wanna.framework.web.bind.annotation.RequestMethod
+import java.io.IOException
+import java.net.URI
+
+/**
+ * [AsyncClientHttpRequest]的工厂, 负责通过[createAsyncRequest]工厂方法方法去完成[AsyncClientHttpRequest]的创建
+ *
+ * @see AsyncClientHttpRequest
+ * @see ClientHttpRequestFactory
+ */
+fun interface AsyncClientHttpRequestFactory {
+
+    /**
+     * 根据给定的[URI]和[RequestMethod], 去创建一个新的[AsyncClientHttpRequest]实例对象
+     *
+     * @param uri uri
+     * @param method HTTP请求方法
+     * @return 创建出来的新的AsyncClientHttpRequest对象
+     */
+    @Throws(IOException::class)
+    fun createAsyncRequest(uri: URI, method: RequestMethod): AsyncClientHttpRequest
+}
@@ -25,9 +25,7 @@ internal class HttpComponentsClientHttpRequest(
     override fun executeInternal(headers: HttpHeaders, bufferedOutput: ByteArray): ClientHttpResponse {
         val httpRequest = this.httpRequest
         // 添加header到ApacheHttpClient的HttpRequest当中
-        headers.keys.forEach { httpRequest.addHeader(it, headers[it]?.joinToString("; ")) }
-        // 添加愿意接收的响应类型为"*/*"
-        httpRequest.addHeader(HttpHeaders.ACCEPT, "*/*")
+        addHeaders(httpRequest, headers)
 
         // 如果必要的话添加HttpEntity(RequestBody)
         if (httpRequest is HttpEntityEnclosingRequest) {
@@ -38,4 +36,37 @@ internal class HttpComponentsClientHttpRequest(
         // 构建ClientHttpResponse
         return HttpComponentsClientHttpResponse(response)
     }
-}
\ No newline at end of file
+
+    companion object {
+
+        /**
+         * 将[HttpHeaders]当中的请求头添加到Apache的HttpRequest当中
+         *
+         * Note: "Content-Length"和"Transfer-Encoding"由HttpClient根据HttpEntity去自动生成, 不能手动去进行添加,
+         * 否则HttpClient将会因为Header已经存在而拒绝发送请求
+         *
+         * @param httpRequest Apache的HttpRequest
+         * @param headers HttpHeaders
+         */
+        @JvmStatic
+        fun addHeaders(httpRequest: HttpUriRequest, headers: HttpHeaders) {
+            for ((headerName, headerValues) in headers) {
+                if (HttpHeaders.CONTENT_LENGTH.equals(headerName, true)
+                    || HttpHeaders.TRANSFER_ENCODING.equals(headerName, true)
+                ) {
+                    continue
+                }
+                // Cookie需要合并到一个Header当中
+                if (HttpHeaders.COOKIE.equals(headerName, true)) {
+                    httpRequest.addHeader(headerName, headerValues.joinToString("; "))
+                } else {
+                    headerValues.forEach { httpRequest.addHeader(headerName, it) }
+                }
+            }
+            // 如果没有指定愿意接收的响应类型, 那么添加愿意接收的响应类型为"*/*"
+            if (!httpRequest.containsHeader(HttpHeaders.ACCEPT)) {
+                httpRequest.addHeader(HttpHeaders.ACCEPT, "*/*")
+            }
+        }
+    }
+}
@@ -1,45 +1,176 @@
 package com.wanna.framework.web.http.client
 
+import com.wanna.framework.beans.factory.support.DisposableBean
 import com.wanna.framework.lang.Nullable
 import com.wanna.framework.web.bind.annotation.RequestMethod
+import org.apache.http.HttpHost
 import org.apache.http.client.HttpClient
-import org.apache.http.client.methods.HttpDelete
+import org.apache.http.client.config.RequestConfig
+import org.apache.http.client.methods.Configurable
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase
 import org.apache.http.client.methods.HttpGet
 import org.apache.http.client.methods.HttpHead
+import org.apache.http.client.methods.HttpOptions
+import org.apache.http.client.methods.HttpPatch
 import org.apache.http.client.methods.HttpPost
-import org.apache.http.impl.client.HttpClients
+import org.apache.http.client.methods.HttpPut
+import org.apache.http.client.methods.HttpRequestBase
+import org.apache.http.client.methods.HttpTrace
+import org.apache.http.client.methods.HttpUriRequest
+import org.apache.http.conn.routing.HttpRoute
+import org.apache.http.impl.client.HttpClientBuilder
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager
+import org.apache.http.pool.PoolStats
+import java.io.Closeable
 import java.net.URI
+import java.util.concurrent.TimeUnit
 
 /**
  * 基于Apache/HttpComponent去作为HttpClient, 从而实现[ClientHttpRequestFactory]
  *
+ * 如果没有手动给定[HttpClient]的话, 将会在第一次使用时, 基于当前的配置信息去创建一个基于连接池([PoolingHttpClientConnectionManager])的HttpClient:
+ * * 1.支持去配置连接池的最大连接数([maxConnTotal]), 每个路由的最大连接数([maxConnPerRoute]/[setMaxConnPerRoute]);
+ * * 2.支持去配置连接的最大空闲时间([maxIdleTime])以及连接的存活时间([connectionTimeToLive]), 后台线程会自动去驱逐空闲/过期的连接;
+ * * 3.支持去配置连接超时时间([connectTimeout]), 读超时时间([readTimeout])以及从连接池当中去获取连接的超时时间([connectionRequestTimeout]);
+ * * 4.可以通过[getPoolStats]去获取到连接池的统计信息(已租借/等待中/可用的连接数量).
+ *
+ * Note: 连接池相关的配置, 需要在创建第一个请求之前就完成配置, 超时时间相关的配置则可以随时去进行修改
+ *
  * @see ClientHttpRequestFactory
  * @see HttpComponentsClientHttpRequest
+ * @see HttpComponentsStreamingClientHttpRequest
  *
- * @param httpClient Apache HttpClient
+ * @param httpClient Apache HttpClient(为null时, 将会使用当前的配置信息去进行创建)
  */
-open class HttpComponentsClientHttpRequestFactory(@Nullable httpClient: HttpClient? = null) : ClientHttpRequestFactory {
+open class HttpComponentsClientHttpRequestFactory(@Nullable httpClient: HttpClient? = null) : ClientHttpRequestFactory,
+    DisposableBean {
+
+    companion object {
+
+        /**
+         * 默认的连接池的最大连接数量
+         */
+        const val DEFAULT_MAX_CONN_TOTAL = 200
+
+        /**
+         * 默认的每个路由(目标主机)的最大连接数量
+         */
+        const val DEFAULT_MAX_CONN_PER_ROUTE = 50
+
+        /**
+         * 默认的连接的最大空闲时间(ms), 空闲超过该时间的连接将会被驱逐
+         */
+        const val DEFAULT_MAX_IDLE_TIME = 60_000L
+    }
 
     /**
-     * 连接超时时间
+     * 连接超时时间(ms)
      */
     var connectTimeout = -1
 
     /**
-     * 是否需要将RequestBody去进行缓存下来?
+     * 读超时时间(ms), 也就是SocketTimeout
+     */
+    var readTimeout = -1
+
+    /**
+     * 从连接池当中去获取连接的超时时间(ms)
+     */
+    var connectionRequestTimeout = -1
+
+    /**
+     * 是否需要将RequestBody去进行缓存下来? 如果为false的话, 将会以流的方式直接将RequestBody写入到连接当中
      */
     var bufferRequestBody = true
 
+    /**
+     * 连接池的最大连接数量
+     */
+    var maxConnTotal = DEFAULT_MAX_CONN_TOTAL
+
+    /**
+     * 每个路由(目标主机)的默认的最大连接数量
+     */
+    var maxConnPerRoute = DEFAULT_MAX_CONN_PER_ROUTE
+
+    /**
+     * 连接的最大空闲时间(ms), 空闲超过该时间的连接将会被后台线程所驱逐, 小于等于0代表不驱逐空闲连接
+     */
+    var maxIdleTime = DEFAULT_MAX_IDLE_TIME
+
+    /**
+     * 连接的存活时间(ms), 超过该时间的连接将不会再被复用, 小于等于0代表不限制
+     */
+    var connectionTimeToLive = -1L
+
+    /**
+     * 针对于某些路由(目标主机)单独去进行配置的最大连接数量
+     */
+    private val maxConnPerRoutes = LinkedHashMap<HttpRoute, Int>()
+
     /**
      * Apache HttpClient
      */
-    val httpClient: HttpClient = httpClient ?: HttpClients.createDefault()
+    @Volatile
+    @Nullable
+    private var client: HttpClient? = httpClient
+
+    /**
+     * 由当前的RequestFactory所创建的HttpClient使用的连接池(如果HttpClient是外部给定的, 那么为null)
+     */
+    @Volatile
+    @Nullable
+    private var connectionManager: PoolingHttpClientConnectionManager? = null
+
+    /**
+     * Apache HttpClient, 如果没有手动给定的话, 将会在第一次访问时去进行创建
+     */
+    val httpClient: HttpClient
+        get() {
+            var client = this.client
+            if (client == null) {
+                synchronized(this) {
+                    client = this.client
+                    if (client == null) {
+                        client = createHttpClient()
+                        this.client = client
+                    }
+                }
+            }
+            return client!!
+        }
 
     /**
      * 提供一个无参数构造器
      */
     constructor() : this(null)
 
+    /**
+     * 为某个目标主机去单独设置最大连接数量, 需要在创建第一个请求之前去进行设置
+     *
+     * @param uri 目标主机的URI(只使用scheme/host/port)
+     * @param maxConnections 该目标主机的最大连接数量
+     */
+    open fun setMaxConnPerRoute(uri: URI, maxConnections: Int) {
+        this.maxConnPerRoutes[createRoute(uri)] = maxConnections
+    }
+
+    /**
+     * 获取连接池的整体的统计信息(已租借/等待中/可用的连接数量)
+     *
+     * @return 连接池统计信息(如果HttpClient是外部给定的, 或者是还未创建, return null)
+     */
+    @Nullable
+    open fun getPoolStats(): PoolStats? = this.connectionManager?.totalStats
+
+    /**
+     * 获取某个目标主机的连接池的统计信息
+     *
+     * @param uri 目标主机的URI(只使用scheme/host/port)
+     * @return 该目标主机的连接池统计信息(如果HttpClient是外部给定的, 或者是还未创建, return null)
+     */
+    @Nullable
+    open fun getPoolStats(uri: URI): PoolStats? = this.connectionManager?.getStats(createRoute(uri))
 
     /**
      * 为给定的URI和请求方式, 去创建出来一个[ClientHttpRequest]
@@ -49,13 +180,129 @@ open class HttpComponentsClientHttpRequestFactory(@Nullable httpClient: HttpClie
      * @return ClientHttpRequest
      */
     override fun createRequest(uri: URI, method: RequestMethod): ClientHttpRequest {
-        val httpRequest = when (method) {
+        val httpClient = this.httpClient
+        val httpRequest = createHttpUriRequest(method, uri)
+
+        // 如果必要的话, 为本次请求去设置超时时间相关的配置
+        if (httpRequest is HttpRequestBase) {
+            val requestConfig = createRequestConfig(httpClient)
+            if (requestConfig != null) {
+                httpRequest.config = requestConfig
+            }
+        }
+        return if (bufferRequestBody) HttpComponentsClientHttpRequest(httpClient, httpRequest, method)
+        else HttpComponentsStreamingClientHttpRequest(httpClient, httpRequest, method)
+    }
+
+    /**
+     * 根据请求方式, 去创建Apache的HttpRequest
+     *
+     * @param method 请求方式
+     * @param uri URI
+     * @return Apache HttpRequest
+     */
+    protected open fun createHttpUriRequest(method: RequestMethod, uri: URI): HttpUriRequest {
+        return when (method) {
             RequestMethod.GET -> HttpGet(uri)
+            RequestMethod.HEAD -> HttpHead(uri)
             RequestMethod.POST -> HttpPost(uri)
+            RequestMethod.PUT -> HttpPut(uri)
+            RequestMethod.PATCH -> HttpPatch(uri)
             RequestMethod.DELETE -> HttpDelete(uri)
-            RequestMethod.HEAD -> HttpHead(uri)
-            else -> throw IllegalStateException("不支持这种请求方式!!!")
+            RequestMethod.OPTIONS -> HttpOptions(uri)
+            RequestMethod.TRACE -> HttpTrace(uri)
+        }
+    }
+
+    /**
+     * 创建本次请求需要使用的[RequestConfig], 将当前RequestFactory当中的超时时间配置, 合并到HttpClient的默认配置当中
+     *
+     * @param httpClient HttpClient
+     * @return RequestConfig(如果没有配置任何的超时时间, return null, 直接沿用HttpClient的默认配置)
+     */
+    @Nullable
+    protected open fun createRequestConfig(httpClient: HttpClient): RequestConfig? {
+        if (connectTimeout < 0 && readTimeout < 0 && connectionRequestTimeout < 0) {
+            return null
+        }
+        val defaultConfig = (httpClient as? Configurable)?.config ?: RequestConfig.DEFAULT
+        val builder = RequestConfig.copy(defaultConfig)
+        if (connectTimeout >= 0) {
+            builder.setConnectTimeout(connectTimeout)
+        }
+        if (readTimeout >= 0) {
+            builder.setSocketTimeout(readTimeout)
+        }
+        if (connectionRequestTimeout >= 0) {
+            builder.setConnectionRequestTimeout(connectionRequestTimeout)
+        }
+        return builder.build()
+    }
+
+    /**
+     * 基于当前的配置信息, 去创建一个基于连接池的Apache HttpClient
+     *
+     * @return HttpClient
+     */
+    protected open fun createHttpClient(): HttpClient {
+        val connectionManager = createConnectionManager()
+        this.connectionManager = connectionManager
+
+        val builder = HttpClientBuilder.create().setConnectionManager(connectionManager)
+
+        // 开启后台线程去驱逐掉过期以及空闲时间过长的连接
+        builder.evictExpiredConnections()
+        if (maxIdleTime > 0) {
+            builder.evictIdleConnections(maxIdleTime, TimeUnit.MILLISECONDS)
         }
-        return HttpComponentsClientHttpRequest(httpClient, httpRequest, method)
+        return builder.build()
+    }
+
+    /**
+     * 基于当前的配置信息, 去创建连接池
+     *
+     * @return PoolingHttpClientConnectionManager
+     */
+    protected open fun createConnectionManager(): PoolingHttpClientConnectionManager {
+        val connectionManager = PoolingHttpClientConnectionManager(connectionTimeToLive, TimeUnit.MILLISECONDS)
+        connectionManager.maxTotal = maxConnTotal
+        connectionManager.defaultMaxPerRoute = maxConnPerRoute
+        maxConnPerRoutes.forEach(connectionManager::setMaxPerRoute)
+        return connectionManager
+    }
+
+    /**
+     * 为给定的URI去创建连接池当中使用的路由, 需要和HttpClient的DefaultRoutePlanner所计算出来的路由保持一致
+     *
+     * @param uri URI
+     * @return HttpRoute
+     */
+    private fun createRoute(uri: URI): HttpRoute {
+        val secure = "https".equals(uri.scheme, true)
+        val port = if (uri.port > 0) uri.port else if (secure) 443 else 80
+        return HttpRoute(HttpHost(uri.host, port, uri.scheme), null, secure)
+    }
+
+    /**
+     * 关闭HttpClient, 释放掉连接池当中的全部连接, 并停止驱逐空闲连接的后台线程
+     */
+    override fun destroy() {
+        val client = this.client
+        if (client is Closeable) {
+            client.close()
+        }
+    }
+
+    /**
+     * 支持去携带RequestBody的DELETE请求, Apache自带的HttpDelete不是[org.apache.http.HttpEntityEnclosingRequest], 会丢掉RequestBody
+     *
+     * @param uri URI
+     */
+    private class HttpDelete(uri: URI) : HttpEntityEnclosingRequestBase() {
+        init {
+            this.uri = uri
+        }
+
+        override fun getMethod(): String = "DELETE"
     }
-}
\ No newline at end of file
+}
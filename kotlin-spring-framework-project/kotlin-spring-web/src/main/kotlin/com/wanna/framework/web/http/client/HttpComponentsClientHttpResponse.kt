@@ -2,6 +2,10 @@ package com.wanna.framework.web.http.client
 
 import com.wanna.framework.web.http.HttpHeaders
 import org.apache.http.HttpResponse
+import org.apache.http.util.EntityUtils
+import java.io.ByteArrayInputStream
+import java.io.Closeable
+import java.io.IOException
 import java.io.InputStream
 
 /**
@@ -12,7 +16,10 @@ import java.io.InputStream
  */
 internal class HttpComponentsClientHttpResponse(private val response: HttpResponse) : ClientHttpResponse {
 
-    override fun getBody(): InputStream = response.entity.content
+    /**
+     * 获取ResponseBody, 对于HEAD请求/204这类没有ResponseBody的响应, 返回一个空的输入流
+     */
+    override fun getBody(): InputStream = response.entity?.content ?: ByteArrayInputStream(ByteArray(0))
 
     override fun getStatusCode() = response.statusLine.statusCode
 
@@ -24,7 +31,18 @@ internal class HttpComponentsClientHttpResponse(private val response: HttpRespon
         return httpHeaders
     }
 
+    /**
+     * 关闭Response, 需要将ResponseBody当中剩余的内容消费完, 这样底层的连接才能被归还给连接池去进行复用
+     */
     override fun close() {
-
+        try {
+            try {
+                EntityUtils.consume(response.entity)
+            } finally {
+                (response as? Closeable)?.close()
+            }
+        } catch (ex: IOException) {
+            // ignore
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.wanna.framework.web.http.client
+
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.web.bind.annotation.RequestMethod
+import com.wanna.framework.web.http.HttpHeaders
+import com.wanna.framework.web.http.StreamingHttpOutputMessage
+import org.apache.http.HttpEntityEnclosingRequest
+import org.apache.http.client.HttpClient
+import org.apache.http.client.methods.HttpUriRequest
+import org.apache.http.entity.AbstractHttpEntity
+import java.io.InputStream
+import java.io.OutputStream
+import java.net.URI
+
+/**
+ * 基于Apache的HttpComponents/HttpClient实现的, 以流的方式去写出RequestBody的客户端Request,
+ * RequestBody将会在HttpClient真正发送请求时, 直接写入到连接的输出流当中, 而不必先缓存到内存当中
+ *
+ * @param httpClient Apache的HttpClient
+ * @param httpRequest Apache的HttpRequest
+ * @param method 请求方式
+ *
+ * @see StreamingHttpOutputMessage
+ * @see HttpComponentsClientHttpRequest
+ */
+internal class HttpComponentsStreamingClientHttpRequest(
+    private val httpClient: HttpClient,
+    private val httpRequest: HttpUriRequest,
+    private val method: RequestMethod
+) : AbstractClientHttpRequest(), StreamingHttpOutputMessage {
+
+    /**
+     * 写出RequestBody的回调
+     */
+    @Nullable
+    private var body: StreamingHttpOutputMessage.Body? = null
+
+    override fun getMethod() = method
+
+    override fun getURI(): URI = this.httpRequest.uri
+
+    override fun setBody(body: StreamingHttpOutputMessage.Body) {
+        this.body = body
+    }
+
+    /**
+     * 以流的方式去写出时, 不支持直接获取RequestBody的输出流, 应该使用[setBody]去设置回调
+     */
+    override fun getBodyInternal(headers: HttpHeaders): OutputStream =
+        throw UnsupportedOperationException("getBody not supported, use setBody instead")
+
+    override fun executeInternal(headers: HttpHeaders): ClientHttpResponse {
+        val httpRequest = this.httpRequest
+        HttpComponentsClientHttpRequest.addHeaders(httpRequest, headers)
+
+        val body = this.body
+        if (httpRequest is HttpEntityEnclosingRequest && body != null) {
+            httpRequest.entity = StreamingHttpEntity(headers, body)
+        }
+        return HttpComponentsClientHttpResponse(httpClient.execute(httpRequest))
+    }
+
+    /**
+     * 在HttpClient去写出HttpEntity时, 回调[StreamingHttpOutputMessage.Body]去直接写入到连接当中的HttpEntity
+     *
+     * @param headers HttpHeaders
+     * @param body Body
+     */
+    private class StreamingHttpEntity(headers: HttpHeaders, private val body: StreamingHttpOutputMessage.Body) :
+        AbstractHttpEntity() {
+
+        private val contentLength = headers.getContentLength()
+
+        init {
+            val contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE)
+            if (contentType != null) {
+                setContentType(contentType)
+            }
+            // 不知道长度的情况下, 使用分块传输
+            setChunked(contentLength < 0)
+        }
+
+        override fun isRepeatable() = false
+
+        override fun getContentLength() = contentLength
+
+        override fun getContent(): InputStream = throw IllegalStateException("No content available")
+
+        override fun writeTo(outStream: OutputStream) = body.writeTo(outStream)
+
+        override fun isStreaming() = true
+    }
+}
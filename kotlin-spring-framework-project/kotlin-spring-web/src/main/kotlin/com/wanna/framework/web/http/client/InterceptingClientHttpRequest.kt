@@ -3,6 +3,7 @@ package com.wanna.framework.web.http.client
 import com.wanna.framework.util.StreamUtils
 import com.wanna.framework.web.bind.annotation.RequestMethod
 import com.wanna.framework.web.http.HttpHeaders
+import com.wanna.framework.web.http.StreamingHttpOutputMessage
 import java.net.URI
 
 
@@ -75,7 +76,11 @@ class InterceptingClientHttpRequest(
 
                 // copy RequestBody to delegate
                 if (body.isNotEmpty()) {
-                    StreamUtils.copy(body, delegate.getBody())
+                    if (delegate is StreamingHttpOutputMessage) {
+                        delegate.setBody { it.write(body) }
+                    } else {
+                        StreamUtils.copy(body, delegate.getBody())
+                    }
                 }
 
                 // execute and return Response
@@ -0,0 +1,96 @@
+package com.wanna.framework.web.http.client
+
+import com.wanna.framework.util.concurrent.CompletableToListenableFutureAdapter
+import com.wanna.framework.util.concurrent.ListenableFuture
+import com.wanna.framework.web.bind.annotation.RequestMethod
+import com.wanna.framework.web.http.HttpHeaders
+import io.netty.buffer.ByteBufOutputStream
+import io.netty.buffer.Unpooled
+import io.netty.handler.codec.http.DefaultFullHttpRequest
+import io.netty.handler.codec.http.FullHttpRequest
+import io.netty.handler.codec.http.HttpHeaderNames
+import io.netty.handler.codec.http.HttpHeaderValues
+import io.netty.handler.codec.http.HttpMethod
+import io.netty.handler.codec.http.HttpVersion
+import java.io.IOException
+import java.io.OutputStream
+import java.net.URI
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+
+/**
+ * 基于Netty实现的客户端Request, 同时支持同步([execute])和异步([executeAsync])的方式去执行请求,
+ * 请求会使用[Netty4ClientHttpRequestFactory]当中对于目标主机的连接池当中的连接去进行发送
+ *
+ * @param requestFactory 创建当前请求的RequestFactory, 提供连接池的访问
+ * @param uri URI
+ * @param method 请求方式
+ *
+ * @see Netty4ClientHttpRequestFactory
+ * @see Netty4ClientHttpResponse
+ */
+internal class Netty4ClientHttpRequest(
+    private val requestFactory: Netty4ClientHttpRequestFactory,
+    private val uri: URI,
+    private val method: RequestMethod
+) : AbstractClientHttpRequest(), AsyncClientHttpRequest {
+
+    /**
+     * RequestBody的输出流
+     */
+    private val body = ByteBufOutputStream(Unpooled.buffer(1024))
+
+    override fun getMethod() = method
+
+    override fun getURI() = uri
+
+    override fun getBodyInternal(headers: HttpHeaders): OutputStream = this.body
+
+    /**
+     * 同步地去执行请求, 阻塞等待异步请求的完成
+     *
+     * @param headers headers
+     * @return ClientHttpResponse
+     */
+    override fun executeInternal(headers: HttpHeaders): ClientHttpResponse {
+        try {
+            return executeAsync().get()
+        } catch (ex: InterruptedException) {
+            Thread.currentThread().interrupt()
+            throw IOException("Interrupted during request execution", ex)
+        } catch (ex: ExecutionException) {
+            val cause = ex.cause
+            throw if (cause is IOException) cause else IOException(cause?.message, cause)
+        }
+    }
+
+    override fun executeAsync(): ListenableFuture<ClientHttpResponse> {
+        val responseFuture = CompletableFuture<ClientHttpResponse>()
+        requestFactory.execute(uri, createFullHttpRequest(getHeaders()), responseFuture)
+        return CompletableToListenableFutureAdapter(responseFuture)
+    }
+
+    /**
+     * 根据当前请求的信息, 去构建Netty的[FullHttpRequest]
+     *
+     * @param headers HttpHeaders
+     * @return FullHttpRequest
+     */
+    private fun createFullHttpRequest(headers: HttpHeaders): FullHttpRequest {
+        val path = if (uri.rawPath.isNullOrEmpty()) "/" else uri.rawPath
+        val pathAndQuery = if (uri.rawQuery != null) path + "?" + uri.rawQuery else path
+        val nettyRequest = DefaultFullHttpRequest(
+            HttpVersion.HTTP_1_1, HttpMethod.valueOf(method.name), pathAndQuery, body.buffer()
+        )
+        val nettyHeaders = nettyRequest.headers()
+        nettyHeaders.set(HttpHeaderNames.HOST, if (uri.port > 0) uri.host + ":" + uri.port else uri.host)
+        nettyHeaders.set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE)
+        nettyHeaders.set(HttpHeaderNames.ACCEPT, "*/*")
+        headers.forEach { (name, values) -> nettyHeaders.set(name, values) }
+
+        // Content-Length以实际的RequestBody的长度为准
+        nettyHeaders.remove(HttpHeaderNames.TRANSFER_ENCODING)
+        nettyHeaders.set(HttpHeaderNames.CONTENT_LENGTH, body.buffer().readableBytes())
+        return nettyRequest
+    }
+}
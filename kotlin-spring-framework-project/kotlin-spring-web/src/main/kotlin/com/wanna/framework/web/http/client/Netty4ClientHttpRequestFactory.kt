@@ -0,0 +1,341 @@
+package com.wanna.framework.web.http.client
+
+import com.wanna.framework.beans.factory.support.DisposableBean
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.web.bind.annotation.RequestMethod
+import io.netty.bootstrap.Bootstrap
+import io.netty.channel.Channel
+import io.netty.channel.ChannelHandlerContext
+import io.netty.channel.ChannelOption
+import io.netty.channel.EventLoopGroup
+import io.netty.channel.SimpleChannelInboundHandler
+import io.netty.channel.nio.NioEventLoopGroup
+import io.netty.channel.pool.AbstractChannelPoolHandler
+import io.netty.channel.pool.AbstractChannelPoolMap
+import io.netty.channel.pool.ChannelPool
+import io.netty.channel.pool.FixedChannelPool
+import io.netty.channel.socket.nio.NioSocketChannel
+import io.netty.handler.codec.http.FullHttpRequest
+import io.netty.handler.codec.http.FullHttpResponse
+import io.netty.handler.codec.http.HttpClientCodec
+import io.netty.handler.codec.http.HttpObjectAggregator
+import io.netty.handler.codec.http.HttpUtil
+import io.netty.handler.ssl.SslContext
+import io.netty.handler.ssl.SslContextBuilder
+import io.netty.handler.timeout.ReadTimeoutException
+import io.netty.util.concurrent.ScheduledFuture
+import java.io.IOException
+import java.net.InetSocketAddress
+import java.net.URI
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+/**
+ * 基于Netty去实现的[ClientHttpRequestFactory]和[AsyncClientHttpRequestFactory], 所有的请求都运行在Netty的EventLoop之上,
+ * 发送请求以及等待响应的过程当中都不会占用调用方的线程, 因此只需要少量的IO线程, 就可以同时向大量的下游服务去发起请求.
+ *
+ * * 1.对于每个目标主机(scheme/host/port), 都会去维护一个固定大小的连接池([FixedChannelPool]), 连接在请求完成之后会被归还到连接池当中去进行复用;
+ * * 2.响应会被[HttpObjectAggregator]聚合成为一个完整的响应之后, 再交给调用方, 响应的最大大小由[maxResponseSize]去进行控制;
+ * * 3.对于https的请求, 将会使用[sslContext]去创建SslHandler.
+ *
+ * Note: 异步请求的结果的回调, 会在Netty的EventLoop线程当中去执行, 因此不应该在回调当中去执行阻塞的操作
+ *
+ * @param eventLoopGroup 要使用的EventLoopGroup(为null时, 将会自行去创建一个, 并在[destroy]时关闭)
+ *
+ * @see Netty4ClientHttpRequest
+ * @see Netty4ClientHttpResponse
+ */
+open class Netty4ClientHttpRequestFactory(@Nullable eventLoopGroup: EventLoopGroup? = null) :
+    ClientHttpRequestFactory, AsyncClientHttpRequestFactory, DisposableBean {
+
+    companion object {
+
+        /**
+         * 默认的最大响应大小(10MB)
+         */
+        const val DEFAULT_MAX_RESPONSE_SIZE = 1024 * 1024 * 10
+
+        /**
+         * 默认的每个目标主机的最大连接数量
+         */
+        const val DEFAULT_MAX_CONNECTIONS_PER_HOST = 64
+
+        /**
+         * 默认的每个目标主机的最大的等待获取连接的请求数量
+         */
+        const val DEFAULT_MAX_PENDING_ACQUIRES = 1024
+
+        /**
+         * 在Pipeline当中, 处理单次请求的响应的Handler的名字
+         */
+        private const val RESPONSE_HANDLER_NAME = "responseHandler"
+    }
+
+    /**
+     * 是否是自己创建的EventLoopGroup? 如果是的话, 在destroy时需要去进行关闭
+     */
+    private val defaultEventLoopGroup = eventLoopGroup == null
+
+    /**
+     * EventLoopGroup
+     */
+    private val eventLoopGroup: EventLoopGroup = eventLoopGroup ?: NioEventLoopGroup()
+
+    /**
+     * 最大的响应大小(byte)
+     */
+    var maxResponseSize = DEFAULT_MAX_RESPONSE_SIZE
+
+    /**
+     * 连接超时时间(ms)
+     */
+    var connectTimeout = -1
+
+    /**
+     * 读超时时间(ms), 也就是从发送请求到接收到完整响应的最大时间
+     */
+    var readTimeout = -1
+
+    /**
+     * 每个目标主机的最大连接数量, 需要在创建第一个请求之前去进行设置
+     */
+    var maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST
+
+    /**
+     * 每个目标主机的最大的等待获取连接的请求数量, 需要在创建第一个请求之前去进行设置
+     */
+    var maxPendingAcquires = DEFAULT_MAX_PENDING_ACQUIRES
+
+    /**
+     * 对于https请求使用的SslContext(为null时, 将会在第一次使用时去创建一个默认的SslContext)
+     */
+    @Volatile
+    @Nullable
+    var sslContext: SslContext? = null
+
+    /**
+     * 对于每个目标主机的连接池
+     */
+    @Volatile
+    @Nullable
+    private var channelPools: ChannelPools? = null
+
+    /**
+     * 提供一个无参数构造器
+     */
+    constructor() : this(null)
+
+    override fun createRequest(uri: URI, method: RequestMethod): ClientHttpRequest = createRequestInternal(uri, method)
+
+    override fun createAsyncRequest(uri: URI, method: RequestMethod): AsyncClientHttpRequest =
+        createRequestInternal(uri, method)
+
+    private fun createRequestInternal(uri: URI, method: RequestMethod): Netty4ClientHttpRequest {
+        if (uri.host == null) {
+            throw IllegalArgumentException("URI [$uri] does not contain a host")
+        }
+        return Netty4ClientHttpRequest(this, uri, method)
+    }
+
+    /**
+     * 从目标主机的连接池当中去获取连接, 并使用该连接去发送请求, 在获取到响应时去完成[responseFuture]
+     *
+     * @param uri 请求的URI
+     * @param nettyRequest 要去进行发送的Netty的请求
+     * @param responseFuture 接收响应结果的Future
+     */
+    internal fun execute(uri: URI, nettyRequest: FullHttpRequest, responseFuture: CompletableFuture<ClientHttpResponse>) {
+        val channelPool = getChannelPools().get(PoolKey.from(uri))
+        channelPool.acquire().addListener { acquireFuture ->
+            if (!acquireFuture.isSuccess) {
+                nettyRequest.release()
+                responseFuture.completeExceptionally(acquireFuture.cause())
+                return@addListener
+            }
+            val channel = acquireFuture.now as Channel
+            channel.pipeline().addLast(RESPONSE_HANDLER_NAME, ResponseHandler(channelPool, responseFuture, readTimeout))
+            channel.writeAndFlush(nettyRequest).addListener { writeFuture ->
+                if (!writeFuture.isSuccess) {
+                    channel.pipeline().fireExceptionCaught(writeFuture.cause())
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取到连接池, 如果还没有创建的话, 那么基于当前的配置信息去进行创建
+     *
+     * @return ChannelPools
+     */
+    private fun getChannelPools(): ChannelPools {
+        var channelPools = this.channelPools
+        if (channelPools == null) {
+            synchronized(this) {
+                channelPools = this.channelPools
+                if (channelPools == null) {
+                    channelPools = ChannelPools(createBootstrap())
+                    this.channelPools = channelPools
+                }
+            }
+        }
+        return channelPools!!
+    }
+
+    /**
+     * 创建用于去建立连接的[Bootstrap]
+     *
+     * @return Bootstrap
+     */
+    protected open fun createBootstrap(): Bootstrap {
+        val bootstrap = Bootstrap().group(eventLoopGroup).channel(NioSocketChannel::class.java)
+        if (connectTimeout > 0) {
+            bootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+        }
+        return bootstrap
+    }
+
+    /**
+     * 获取https请求需要使用的SslContext, 如果没有手动去进行设置的话, 那么去创建一个默认的SslContext
+     *
+     * @return SslContext
+     */
+    private fun obtainSslContext(): SslContext {
+        var sslContext = this.sslContext
+        if (sslContext == null) {
+            sslContext = createSslContext()
+            this.sslContext = sslContext
+        }
+        return sslContext
+    }
+
+    /**
+     * 创建默认的SslContext
+     *
+     * @return SslContext
+     */
+    protected open fun createSslContext(): SslContext = SslContextBuilder.forClient().build()
+
+    /**
+     * 关闭所有的连接池, 如果EventLoopGroup是自己创建的, 那么也需要将它关闭
+     */
+    override fun destroy() {
+        this.channelPools?.close()
+        if (defaultEventLoopGroup) {
+            eventLoopGroup.shutdownGracefully().syncUninterruptibly()
+        }
+    }
+
+    /**
+     * 连接池的Key
+     *
+     * @param host host
+     * @param port port
+     * @param secure 是否是https?
+     */
+    private data class PoolKey(val host: String, val port: Int, val secure: Boolean) {
+        companion object {
+            @JvmStatic
+            fun from(uri: URI): PoolKey {
+                val secure = "https".equals(uri.scheme, true)
+                val port = if (uri.port > 0) uri.port else if (secure) 443 else 80
+                return PoolKey(uri.host, port, secure)
+            }
+        }
+    }
+
+    /**
+     * 对于每个目标主机的连接池的Map, 当连接被创建时, 去为它的Pipeline当中添加HTTP编解码相关的Handler
+     *
+     * @param bootstrap 用于去建立连接的Bootstrap
+     */
+    private inner class ChannelPools(private val bootstrap: Bootstrap) : AbstractChannelPoolMap<PoolKey, FixedChannelPool>() {
+        override fun newPool(key: PoolKey): FixedChannelPool {
+            val poolBootstrap = bootstrap.clone().remoteAddress(InetSocketAddress.createUnresolved(key.host, key.port))
+            val handler = object : AbstractChannelPoolHandler() {
+                override fun channelCreated(ch: Channel) {
+                    val pipeline = ch.pipeline()
+                    if (key.secure) {
+                        pipeline.addLast(obtainSslContext().newHandler(ch.alloc(), key.host, key.port))
+                    }
+                    pipeline.addLast(HttpClientCodec())
+                    pipeline.addLast(HttpObjectAggregator(maxResponseSize))
+                }
+            }
+            return FixedChannelPool(poolBootstrap, handler, maxConnectionsPerHost, maxPendingAcquires)
+        }
+    }
+
+    /**
+     * 处理单次请求的响应的Handler, 在接收到完整的响应(或者是发生异常)时, 完成[responseFuture],
+     * 并将自身从Pipeline当中移除掉, 将连接归还给连接池
+     *
+     * @param channelPool 连接所属的连接池
+     * @param responseFuture 接收响应结果的Future
+     * @param readTimeout 读超时时间(ms)
+     */
+    private class ResponseHandler(
+        private val channelPool: ChannelPool,
+        private val responseFuture: CompletableFuture<ClientHttpResponse>,
+        private val readTimeout: Int
+    ) : SimpleChannelInboundHandler<FullHttpResponse>() {
+
+        /**
+         * 读超时的定时任务
+         */
+        @Nullable
+        private var timeoutFuture: ScheduledFuture<*>? = null
+
+        override fun handlerAdded(ctx: ChannelHandlerContext) {
+            if (readTimeout > 0) {
+                timeoutFuture = ctx.executor().schedule({
+                    exceptionCaught(ctx, ReadTimeoutException.INSTANCE)
+                }, readTimeout.toLong(), TimeUnit.MILLISECONDS)
+            }
+        }
+
+        override fun channelRead0(ctx: ChannelHandlerContext, msg: FullHttpResponse) {
+            // 如果服务端不支持keep-alive, 那么在归还连接之前先关闭连接, 连接池会将它丢弃掉
+            if (!HttpUtil.isKeepAlive(msg)) {
+                ctx.channel().close()
+            }
+            release(ctx)
+
+            // SimpleChannelInboundHandler会在channelRead0之后去释放msg, 因此这里需要retain
+            responseFuture.complete(Netty4ClientHttpResponse(msg.retain()))
+        }
+
+        override fun exceptionCaught(ctx: ChannelHandlerContext, cause: Throwable) {
+            if (responseFuture.isDone) {
+                ctx.fireExceptionCaught(cause)
+                return
+            }
+            ctx.channel().close()
+            release(ctx)
+            responseFuture.completeExceptionally(cause)
+        }
+
+        override fun channelInactive(ctx: ChannelHandlerContext) {
+            if (!responseFuture.isDone) {
+                release(ctx)
+                responseFuture.completeExceptionally(IOException("Connection closed prematurely"))
+            }
+        }
+
+        /**
+         * 将当前Handler从Pipeline当中移除掉, 并将连接归还给连接池
+         *
+         * @param ctx ChannelHandlerContext
+         */
+        private fun release(ctx: ChannelHandlerContext) {
+            if (responseFuture.isDone) {
+                return
+            }
+            timeoutFuture?.cancel(false)
+            val channel = ctx.channel()
+            if (channel.pipeline().get(RESPONSE_HANDLER_NAME) === this) {
+                channel.pipeline().remove(this)
+            }
+            channelPool.release(channel)
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.wanna.framework.web.http.client
+
+import com.wanna.framework.web.http.HttpHeaders
+import io.netty.buffer.ByteBufInputStream
+import io.netty.handler.codec.http.FullHttpResponse
+import java.io.InputStream
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * 基于Netty实现的[ClientHttpResponse], 持有一个已经聚合完成的[FullHttpResponse], 在[close]时需要去释放掉它的ByteBuf
+ *
+ * @param nettyResponse Netty的FullHttpResponse
+ * @see Netty4ClientHttpRequest
+ */
+internal class Netty4ClientHttpResponse(private val nettyResponse: FullHttpResponse) : ClientHttpResponse {
+
+    /**
+     * ResponseBody的输入流
+     */
+    private val body = ByteBufInputStream(nettyResponse.content())
+
+    /**
+     * 响应的HttpHeaders
+     */
+    private val headers = HttpHeaders().apply {
+        nettyResponse.headers().forEach { add(it.key, it.value) }
+    }
+
+    /**
+     * 是否已经关闭了?
+     */
+    private val closed = AtomicBoolean()
+
+    override fun getStatusCode() = nettyResponse.status().code()
+
+    override fun getHeaders() = this.headers
+
+    override fun getBody(): InputStream = this.body
+
+    /**
+     * 关闭Response, 释放掉ResponseBody的ByteBuf
+     */
+    override fun close() {
+        if (closed.compareAndSet(false, true)) {
+            nettyResponse.release()
+        }
+    }
+}
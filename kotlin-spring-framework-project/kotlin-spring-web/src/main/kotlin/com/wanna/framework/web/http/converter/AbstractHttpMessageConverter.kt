@@ -7,6 +7,8 @@ import com.wanna.framework.web.http.HttpHeaders
 import com.wanna.framework.web.http.HttpInputMessage
 import com.wanna.framework.web.http.HttpOutputMessage
 import com.wanna.framework.web.http.MediaType
+import com.wanna.framework.web.http.StreamingHttpOutputMessage
+import java.io.OutputStream
 import java.nio.charset.Charset
 
 /**
@@ -130,10 +132,30 @@ abstract class AbstractHttpMessageConverter<T> : HttpMessageConverter<T> {
         // 添加一些默认的Header到Response当中
         addDefaultHeaders(outputMessage.getHeaders(), t, mediaType)
 
+        // 如果是以流的方式去进行写出的话, 那么在真正地去发送消息时, 才去执行writeInternal
+        if (outputMessage is StreamingHttpOutputMessage) {
+            outputMessage.setBody { writeInternal(t, mediaType, StreamingOutputMessage(outputMessage, it)) }
+            return
+        }
+
         // writeInternal
         return writeInternal(t, mediaType, outputMessage)
     }
 
+    /**
+     * 对于[StreamingHttpOutputMessage]的包装, 将Body回调当中给定的底层输出流去作为消息体的输出流
+     *
+     * @param outputMessage 原始的StreamingHttpOutputMessage
+     * @param outputStream Body回调当中给定的底层输出流
+     */
+    protected class StreamingOutputMessage(
+        private val outputMessage: StreamingHttpOutputMessage,
+        private val outputStream: OutputStream
+    ) : HttpOutputMessage {
+        override fun getHeaders() = outputMessage.getHeaders()
+        override fun getBody() = outputStream
+    }
+
     /**
      * 是否去处理支持[clazz]这样的Java对象类型数据?
      *
@@ -0,0 +1,57 @@
+package com.wanna.framework.web.http.converter
+
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.web.http.HttpInputMessage
+import com.wanna.framework.web.http.HttpOutputMessage
+import com.wanna.framework.web.http.MediaType
+import java.lang.reflect.Type
+
+/**
+ * 支持泛型的[HttpMessageConverter], 在[HttpMessageConverter]的基础上, 新增支持使用泛型类型([Type])去作为读取/写出的目标类型,
+ * 从而像`List<Order>`这样的泛型类型, 在进行RequestBody的读取时, 也不会丢失掉元素类型
+ *
+ * @param T 要进行转换的类型
+ * @see HttpMessageConverter
+ */
+interface GenericHttpMessageConverter<T> : HttpMessageConverter<T> {
+
+    /**
+     * 是否支持将给定的MediaType的RequestBody去读取成为给定的泛型类型?
+     *
+     * @param type 要去读取成为的泛型类型
+     * @param contextClass 用于去解析type当中的泛型变量的上下文类(例如方法参数所在的类), 可以为null
+     * @param mediaType 媒体类型, 可以为null
+     * @return 如果支持去进行读取, return true; 否则return false
+     */
+    fun canRead(type: Type, @Nullable contextClass: Class<*>?, @Nullable mediaType: MediaType?): Boolean
+
+    /**
+     * 将RequestBody从HTTP的输入流读取成为给定的泛型类型的JavaBean
+     *
+     * @param type 要去读取成为的泛型类型
+     * @param contextClass 用于去解析type当中的泛型变量的上下文类, 可以为null
+     * @param inputMessage 输入流
+     * @return 读取得到的JavaBean
+     */
+    fun read(type: Type, @Nullable contextClass: Class<*>?, inputMessage: HttpInputMessage): T
+
+    /**
+     * 是否支持将给定的泛型类型的JavaBean去写出成为给定的MediaType?
+     *
+     * @param type 要去进行写出的泛型类型(例如方法的返回值的泛型类型), 可以为null
+     * @param clazz 要去进行写出的JavaBean的类型
+     * @param mediaType 媒体类型, 可以为null
+     * @return 如果支持去进行写出, return true; 否则return false
+     */
+    fun canWrite(@Nullable type: Type?, clazz: Class<*>, @Nullable mediaType: MediaType?): Boolean
+
+    /**
+     * 将JavaBean转换为MediaType, 通过输出流的方式写出给HTTP响应体
+     *
+     * @param t JavaBean
+     * @param type 要去进行写出的泛型类型(例如方法的返回值的泛型类型), 可以为null
+     * @param mediaType 媒体类型
+     * @param outputMessage 输出流
+     */
+    fun write(t: T, @Nullable type: Type?, @Nullable mediaType: MediaType?, outputMessage: HttpOutputMessage)
+}
@@ -1,33 +1,71 @@
 package com.wanna.framework.web.http.converter.json
 
+import com.fasterxml.jackson.core.JsonEncoding
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.databind.JavaType
 import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.ObjectReader
+import com.fasterxml.jackson.databind.ObjectWriter
+import com.wanna.framework.core.ResolvableType
+import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.ConcurrentReferenceHashMap
 import com.wanna.framework.web.http.HttpInputMessage
 import com.wanna.framework.web.http.HttpOutputMessage
 import com.wanna.framework.web.http.MediaType
+import com.wanna.framework.web.http.StreamingHttpOutputMessage
 import com.wanna.framework.web.http.converter.AbstractHttpMessageConverter
-import com.wanna.framework.web.http.converter.HttpMessageConverter
+import com.wanna.framework.web.http.converter.GenericHttpMessageConverter
+import java.io.InputStreamReader
+import java.lang.reflect.Type
+import java.lang.reflect.TypeVariable
 import java.nio.charset.Charset
 import java.nio.charset.StandardCharsets
 
 /**
  * 这是一个利用Jackson2的ObjectMapper去进行HTTP消息的转换的MessageConverter
  *
+ * * 1.支持使用泛型类型([Type])去作为读取的目标类型, 像`List<Order>`这样的RequestBody在读取时不会丢失掉元素类型;
+ * * 2.对于每个类型(以及序列化视图), 都会缓存一个预先解析好的[ObjectReader]/[ObjectWriter], 避免每次读写时都需要重新去进行构建;
+ * * 3.直接基于request/response的流去进行读写, 不会产生中间的缓冲区, Jackson内部使用的缓冲区则由Jackson的BufferRecycler去进行复用
+ *
+ * Note: 因为[ObjectReader]/[ObjectWriter]会在首次使用时就被缓存下来, 因此对于[ObjectMapper]的配置, 需要在开始读写之前就完成
+ *
+ * @param objectMapper 用于去进行序列化/反序列化的ObjectMapper
  * @see ObjectMapper
+ * @see MappingJacksonValue
  */
-open class MappingJackson2HttpMessageConverter : AbstractHttpMessageConverter<Any>() {
+open class MappingJackson2HttpMessageConverter(private val objectMapper: ObjectMapper) :
+    AbstractHttpMessageConverter<Any>(), GenericHttpMessageConverter<Any> {
     companion object {
         // 默认的字符集为UTF-8
         @JvmStatic
         val DEFAULT_CHARSET: Charset = StandardCharsets.UTF_8
     }
 
-    private val objectMapper: ObjectMapper = ObjectMapper()
+    /**
+     * ObjectReader的缓存, Key是要去读取成为的类型
+     */
+    private val objectReaderCache = ConcurrentReferenceHashMap<JavaType, ObjectReader>()
+
+    /**
+     * ObjectWriter的缓存, Key是要去写出的类型和序列化视图
+     */
+    private val objectWriterCache = ConcurrentReferenceHashMap<ObjectWriterKey, ObjectWriter>()
+
+    constructor() : this(ObjectMapper())
 
     init {
         setSupportedMediaTypes(MediaType.APPLICATION_JSON)
         setDefaultCharset(DEFAULT_CHARSET)
     }
 
+    /**
+     * 获取当前的MessageConverter所使用的ObjectMapper
+     *
+     * @return ObjectMapper
+     */
+    open fun getObjectMapper(): ObjectMapper = this.objectMapper
+
     /**
      * 不管是什么类型的数据, 我都支持去进行处理, 因为我是Json的序列化方式
      *
@@ -35,24 +73,144 @@ open class MappingJackson2HttpMessageConverter : AbstractHttpMessageConverter<An
      */
     override fun supports(clazz: Class<*>) = true
 
+    override fun canRead(type: Type, @Nullable contextClass: Class<*>?, @Nullable mediaType: MediaType?) =
+        canRead(mediaType)
+
+    override fun canWrite(@Nullable type: Type?, clazz: Class<*>, @Nullable mediaType: MediaType?) =
+        canWrite(clazz, mediaType)
+
+    override fun read(type: Type, @Nullable contextClass: Class<*>?, inputMessage: HttpInputMessage): Any =
+        readJavaType(getJavaType(type, contextClass), inputMessage)
+
     /**
-     * readInternal, 直接利用ObjectMapper去进行读取即可
+     * readInternal, 直接利用该类型对应的ObjectReader去进行读取即可
      *
      * @param clazz 目标数据类型
      * @param inputMessage request Message
      */
     override fun readInternal(clazz: Class<*>, inputMessage: HttpInputMessage): Any =
-        objectMapper.readValue(inputMessage.getBody(), clazz)
+        readJavaType(getJavaType(clazz, null), inputMessage)
+
+    /**
+     * 使用给定的JavaType对应的ObjectReader, 直接从request的输入流当中去读取出来JavaBean
+     *
+     * @param javaType 要去读取成为的JavaType
+     * @param inputMessage request Message
+     * @return 读取得到的JavaBean
+     */
+    private fun readJavaType(javaType: JavaType, inputMessage: HttpInputMessage): Any {
+        val objectReader = objectReaderCache.computeIfAbsent(javaType) { objectMapper.readerFor(it) }!!
+        val charset = inputMessage.getHeaders().getContentType()?.charset
+
+        // Jackson本身可以自动探测UTF-8/UTF-16/UTF-32的编码, 对于其他的字符集, 需要先包装成为Reader
+        if (charset != null && !isJsonEncodingCharset(charset)) {
+            return objectReader.readValue(InputStreamReader(inputMessage.getBody(), charset))
+        }
+        return objectReader.readValue(inputMessage.getBody())
+    }
+
+    override fun write(t: Any, @Nullable type: Type?, @Nullable mediaType: MediaType?, outputMessage: HttpOutputMessage) {
+        addDefaultHeaders(outputMessage.getHeaders(), t, mediaType)
+        if (outputMessage is StreamingHttpOutputMessage) {
+            outputMessage.setBody { writeInternal(t, type, mediaType, StreamingOutputMessage(outputMessage, it)) }
+            return
+        }
+        writeInternal(t, type, mediaType, outputMessage)
+    }
 
     /**
-     * writeInternal, 直接利用ObjectMapper去进行write即可
+     * writeInternal, 直接利用ObjectWriter去进行write即可
      *
      * @param t 要去进行写入的目标类型
      * @param mediaType MediaType
      * @param outputMessage response Message
      */
-    override fun writeInternal(t: Any, mediaType: MediaType?, outputMessage: HttpOutputMessage) {
-        objectMapper.writeValue(outputMessage.getBody(), t)
-        outputMessage.getBody().flush()  // flush
+    override fun writeInternal(t: Any, mediaType: MediaType?, outputMessage: HttpOutputMessage) =
+        writeInternal(t, null, mediaType, outputMessage)
+
+    /**
+     * 使用缓存的ObjectWriter, 直接将JavaBean序列化到response的输出流当中
+     *
+     * @param t 要去进行写入的目标对象(如果是[MappingJacksonValue], 需要使用它的序列化视图)
+     * @param type 要去进行写出的泛型类型, 可以为null
+     * @param mediaType MediaType
+     * @param outputMessage response Message
+     */
+    protected open fun writeInternal(
+        t: Any, @Nullable type: Type?, @Nullable mediaType: MediaType?, outputMessage: HttpOutputMessage
+    ) {
+        var value = t
+        var serializationView: Class<*>? = null
+        if (t is MappingJacksonValue) {
+            value = t.getValue()
+            serializationView = t.getSerializationView()
+        }
+
+        // 只有对于集合/Map这样的容器类型, 才需要去使用声明的泛型类型, 其余情况下使用运行时类型去进行序列化
+        var javaType: JavaType? = null
+        if (type != null && type !is Class<*>) {
+            javaType = getJavaType(type, null)
+            if (!javaType.isContainerType || !javaType.rawClass.isInstance(value)) {
+                javaType = null
+            }
+        }
+        val objectWriter = objectWriterCache.computeIfAbsent(ObjectWriterKey(javaType, serializationView)) {
+            var writer = if (serializationView != null) objectMapper.writerWithView(serializationView) else objectMapper.writer()
+            if (javaType != null) {
+                writer = writer.forType(javaType)
+            }
+            writer
+        }!!
+
+        // 直接基于response的输出流去创建JsonGenerator, 流的flush/close统一由当前方法去进行控制
+        val outputStream = outputMessage.getBody()
+        val generator = objectMapper.factory.createGenerator(outputStream, getJsonEncoding(mediaType))
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+        generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)
+        try {
+            objectWriter.writeValue(generator, value)
+        } finally {
+            // close时会将JsonGenerator的缓冲区归还给BufferRecycler
+            generator.close()
+        }
+        outputStream.flush()  // flush
+    }
+
+    /**
+     * 将给定的类型去解析成为Jackson的JavaType, 对于泛型变量, 将会尝试使用contextClass去进行解析
+     *
+     * @param type 类型
+     * @param contextClass 用于去解析泛型变量的上下文类
+     * @return JavaType
+     */
+    protected open fun getJavaType(type: Type, @Nullable contextClass: Class<*>?): JavaType {
+        if (type is TypeVariable<*> && contextClass != null) {
+            val resolved = ResolvableType.forType(type, ResolvableType.forClass(contextClass)).resolve()
+            if (resolved != null) {
+                return objectMapper.typeFactory.constructType(resolved)
+            }
+        }
+        return objectMapper.typeFactory.constructType(type)
+    }
+
+    /**
+     * 根据MediaType当中的字符集, 去获取到对应的JsonEncoding
+     *
+     * @param mediaType MediaType
+     * @return JsonEncoding(如果不支持的话, 使用UTF-8)
+     */
+    protected open fun getJsonEncoding(@Nullable mediaType: MediaType?): JsonEncoding {
+        val charset = mediaType?.charset ?: return JsonEncoding.UTF8
+        return JsonEncoding.values().firstOrNull { it.javaName == charset.name() } ?: JsonEncoding.UTF8
     }
-}
\ No newline at end of file
+
+    private fun isJsonEncodingCharset(charset: Charset) = JsonEncoding.values().any { it.javaName == charset.name() }
+
+    /**
+     * ObjectWriter的缓存的Key
+     *
+     * @param javaType 要去写出的容器类型(非容器类型, 使用运行时类型去进行序列化, 为null)
+     * @param serializationView 序列化视图
+     */
+    private data class ObjectWriterKey(@Nullable val javaType: JavaType?, @Nullable val serializationView: Class<*>?)
+}
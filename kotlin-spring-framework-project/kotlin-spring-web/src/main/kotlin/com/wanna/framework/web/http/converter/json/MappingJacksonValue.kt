@@ -0,0 +1,51 @@
+package com.wanna.framework.web.http.converter.json
+
+import com.wanna.framework.lang.Nullable
+
+/**
+ * 对于要使用Jackson去进行序列化的值的包装, 支持去为本次序列化去指定Jackson的序列化视图(`@JsonView`)
+ *
+ * @param value 要去进行序列化的值
+ * @see MappingJackson2HttpMessageConverter
+ */
+open class MappingJacksonValue(private var value: Any) {
+
+    /**
+     * 序列化时需要使用的Jackson的视图(`@JsonView`)
+     */
+    @Nullable
+    private var serializationView: Class<*>? = null
+
+    /**
+     * 获取要去进行序列化的值
+     *
+     * @return value
+     */
+    open fun getValue(): Any = this.value
+
+    /**
+     * 设置要去进行序列化的值
+     *
+     * @param value value
+     */
+    open fun setValue(value: Any) {
+        this.value = value
+    }
+
+    /**
+     * 获取序列化时需要使用的Jackson的视图
+     *
+     * @return serialization view(没有的话, return null)
+     */
+    @Nullable
+    open fun getSerializationView(): Class<*>? = this.serializationView
+
+    /**
+     * 设置序列化时需要使用的Jackson的视图
+     *
+     * @param serializationView serialization view
+     */
+    open fun setSerializationView(@Nullable serializationView: Class<*>?) {
+        this.serializationView = serializationView
+    }
+}
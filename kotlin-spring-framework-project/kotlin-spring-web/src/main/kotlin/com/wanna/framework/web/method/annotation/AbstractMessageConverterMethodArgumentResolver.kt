@@ -13,6 +13,7 @@ import com.wanna.framework.web.context.request.NativeWebRequest
 import com.wanna.framework.web.http.HttpHeaders
 import com.wanna.framework.web.http.HttpInputMessage
 import com.wanna.framework.web.http.MediaType
+import com.wanna.framework.web.http.converter.GenericHttpMessageConverter
 import com.wanna.framework.web.http.converter.HttpMessageConverter
 import com.wanna.framework.web.http.converter.HttpMessageNotReadableException
 import com.wanna.framework.web.http.server.ServerHttpRequest
@@ -112,6 +113,8 @@ abstract class AbstractMessageConverterMethodArgumentResolver : HandlerMethodArg
         if (targetClass == null) {
             targetClass = parameter.getParameterType() as Class<T>
         }
+        // 方法参数所在的类, 用于去解析泛型参数当中的泛型变量
+        val contextClass = parameter.getContainingClass()
         var body: Any? = null
 
         // 构建一个用来去支持进行RequestBody是否为空的检测的HttpInputMessage
@@ -120,7 +123,13 @@ abstract class AbstractMessageConverterMethodArgumentResolver : HandlerMethodArg
             message = EmptyBodyCheckingHttpInputMessage(inputMessage)
             for (messageConverter in this.messageConverters) {
                 if (message.hasBody()) {
-                    if (messageConverter.canRead(targetClass, mediaType)) {
+                    // 对于支持泛型的MessageConverter, 使用泛型类型去进行读取, 避免丢失掉泛型信息(例如List<Order>当中的Order)
+                    if (messageConverter is GenericHttpMessageConverter<*>) {
+                        if (messageConverter.canRead(type, contextClass, mediaType)) {
+                            body = messageConverter.read(type, contextClass, message)
+                            break  // break!!!
+                        }
+                    } else if (messageConverter.canRead(targetClass, mediaType)) {
                         body = (messageConverter as HttpMessageConverter<T>).read(targetClass, message)
                         break  // break!!!
                     }
@@ -2,12 +2,14 @@ package com.wanna.framework.web.method.annotation
 
 import com.wanna.framework.core.MethodParameter
 import com.wanna.framework.lang.Nullable
+import com.wanna.framework.util.ConcurrentLruCache
 import com.wanna.framework.web.HandlerMapping.Companion.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE
 import com.wanna.framework.web.accept.ContentNegotiationManager
 import com.wanna.framework.web.context.request.NativeWebRequest
 import com.wanna.framework.web.context.request.ServerWebRequest
 import com.wanna.framework.web.http.HttpOutputMessage
 import com.wanna.framework.web.http.MediaType
+import com.wanna.framework.web.http.converter.GenericHttpMessageConverter
 import com.wanna.framework.web.http.converter.HttpMediaTypeNotAcceptableException
 import com.wanna.framework.web.http.converter.HttpMessageConverter
 import com.wanna.framework.web.http.converter.HttpMessageNotWritableException
@@ -29,11 +31,31 @@ import com.wanna.framework.web.server.HttpServerRequest
 abstract class AbstractMessageConverterMethodProcessor : AbstractMessageConverterMethodArgumentResolver(),
     HandlerMethodReturnValueHandler {
 
+    companion object {
+
+        /**
+         * 默认的内容协商结果的缓存的最大数量限制
+         */
+        private const val DEFAULT_NEGOTIATION_CACHE_LIMIT = 256
+    }
+
     /**
      * 内容协商管理器, 负责从HTTP Header/Http Param当中去获取客户端想要去进行接收的媒体类型(MediaType)
      */
     private var contentNegotiationManager = ContentNegotiationManager()
 
+    /**
+     * 内容协商结果的缓存的最大数量限制, 为0时代表不使用缓存
+     */
+    private var negotiationCacheLimit = DEFAULT_NEGOTIATION_CACHE_LIMIT
+
+    /**
+     * 内容协商结果的缓存, 在MessageConverter列表发生变化时, 将会被重新创建
+     */
+    @Volatile
+    @Nullable
+    private var negotiationCache: NegotiationCache? = null
+
     /**
      * 使用MessageConverter去进行写出, 将方法的返回值去以合适的方式去进行序列化, 并将序列化的结果写入到HTTP响应报文的ResponseBody当中
      *
@@ -54,6 +76,9 @@ abstract class AbstractMessageConverterMethodProcessor : AbstractMessageConverte
      * 使用MessageConverter去进行写出, 将方法的返回值去以合适的方式去进行序列化, 并将序列化的结果写入到HTTP响应报文的ResponseBody当中
      * 存在着多种类型的转换(比如转json/xml)的MessageConverter, 需要遍历所有的HttpMessageConverter, 去找到一个合适的处理本次请求的写出的MessageConverter
      *
+     * Note: 对于同样的(客户端可以接收的MediaType, @RequestMapping的produces, 返回值类型)来说, 内容协商的结果总是相同的,
+     * 因此内容协商的结果(最终选择的MediaType以及MessageConverter)将会被缓存起来, 避免每次请求都去重新进行内容协商
+     *
      * @param value 要进行写出的值?
      * @param returnType 返回值类型封装的MethodParameter
      * @param inputMessage 输入流
@@ -74,66 +99,46 @@ abstract class AbstractMessageConverterMethodProcessor : AbstractMessageConverte
         val request = inputMessage.getRequest()
         // 使用内容协商管理器, 去获取客户端想要(愿意)接收的所有的MediaType
         val acceptableMediaTypes = getAcceptableMediaTypes(request)
-        // 获取服务端所能产出的所有的MediaType
-        val producibleMediaTypes = getProducibleMediaTypes(request, parameterType)
+        // 通过@RequestMapping的produces属性去配置的服务端要去进行产出的MediaType
+        val producesCondition = request.getAttribute(PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE) as Collection<MediaType>?
 
-        var selectedMediaType: MediaType? = null
+        val selectedMediaType: MediaType?
+        val messageConverter: HttpMessageConverter<*>?
 
         // 如果用户有自定义的ContentType了, 那么直接沿用用户自己给定的ContentType, 不必再去进行推断
         if (contentType != null) {
-            selectedMediaType = contentType
+            // remove quality value, such as "application/json;q=0.8"
+            selectedMediaType = contentType.removeQualityValue()
+            messageConverter = findMessageConverter(this.messageConverters, parameterType, selectedMediaType)
 
-            // 如果用户没有自定义的ContentType, 那么需要根据可以接收的和可以产出的类型去进行匹配...
+            // 如果用户没有自定义的ContentType, 那么需要根据可以接收的和可以产出的类型去进行内容协商(优先从缓存当中去获取内容协商的结果)
         } else {
-            // 遍历客户端可以接收的所有类型的MediaType, 去判断我服务端当前能否产出?
-            val mediaTypesToUse = ArrayList<MediaType>()
-            for (requestType in acceptableMediaTypes) {
-                for (producibleMediaType in producibleMediaTypes) {
-
-                    // 检查客户端想要的MediaType(Accept), 和服务端可以产生的MediaType(Content-Type)之间, 它们是否兼容?
-                    // 例如"application/*"和"application/json"兼容, 和"application/xml"也兼容...
-                    if (requestType.isCompatibleWith(producibleMediaType)) {
-                        mediaTypesToUse += getMostSpecificMediaType(requestType, producibleMediaType)
-                    }
-                }
-            }
-
-            // 根据MediaType的具体程度以及权重去进行MediaType的排序
-            MediaType.sortBySpecificityAndQuality(mediaTypesToUse)
-
-
-            // 选取一个优先级最高的, 并且是具体的(不含"*"通配符)MediaType作为最终要去进行使用的MediaType
-            for (mediaType in mediaTypesToUse) {
-                if (mediaType.isConcrete) {
-                    selectedMediaType = mediaType
-                    break
-                }
-            }
+            val key = NegotiationKey(
+                acceptableMediaTypes, if (producesCondition.isNullOrEmpty()) null else ArrayList(producesCondition), parameterType
+            )
+            val decision = getNegotiationCache().get(key)
+            selectedMediaType = decision.selectedMediaType
+            messageConverter = decision.messageConverter
         }
 
-
-        // 遍历所有的MessageConverter, 挨个去判断它能否完成将当前的返回值类型写出成为指定的MediaType
-        // 如果它支持去进行写出的话, 那么就使用该HttpMessageConverter去完成消息的写出
-        if (selectedMediaType != null) {
-            // remove quality value, such as "application/json;q=0.8"
-            selectedMediaType = selectedMediaType.removeQualityValue()
-            this.messageConverters.forEach {
-                if (it.canWrite(parameterType, selectedMediaType)) {
-                    if (value != null) {
-                        (it as HttpMessageConverter<T>).write(value, selectedMediaType, outputMessage)
-                        return  // return all, no need to continue
-                    }
-                }
+        // 如果找到了支持将当前的返回值类型写出成为指定的MediaType的MessageConverter, 那么就使用该HttpMessageConverter去完成消息的写出
+        if (value != null && selectedMediaType != null && messageConverter != null) {
+            // 对于支持泛型的MessageConverter, 需要把返回值的泛型类型也一起交给它, 从而支持按照声明的泛型类型去进行写出
+            if (messageConverter is GenericHttpMessageConverter<*>) {
+                (messageConverter as GenericHttpMessageConverter<T>)
+                    .write(value, returnType.getGenericParameterType(), selectedMediaType, outputMessage)
+            } else {
+                (messageConverter as HttpMessageConverter<T>).write(value, selectedMediaType, outputMessage)
             }
+            return
         }
 
         // handle write failed
         if (value != null) {
-            val producibleTypes =
-                inputMessage.getRequest().getAttribute(PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE) as Collection<MediaType>?
-            if (contentType != null && !producibleTypes.isNullOrEmpty()) {
+            if (contentType != null && !producesCondition.isNullOrEmpty()) {
                 throw HttpMessageNotWritableException("找不到合适的MessageConverter去进行将$parameterType 去转换为ContentType=$contentType")
             }
+            val producibleMediaTypes = getProducibleMediaTypes(request, parameterType)
             throw HttpMediaTypeNotAcceptableException(
                 "服务端无法产出让客户端可以接受的MediaType, " +
                         "producibleMediaTypes=$producibleMediaTypes, acceptableMediaTypes=$acceptableMediaTypes"
@@ -141,6 +146,83 @@ abstract class AbstractMessageConverterMethodProcessor : AbstractMessageConverte
         }
     }
 
+    /**
+     * 根据客户端可以接收的MediaType以及服务端可以产出的MediaType, 去进行内容协商, 选出最终要去进行使用的MediaType以及MessageConverter
+     *
+     * @param key 内容协商的Key
+     * @param messageConverters 要去进行使用的MessageConverter列表
+     * @return 内容协商的结果
+     */
+    private fun negotiate(key: NegotiationKey, messageConverters: List<HttpMessageConverter<*>>): NegotiationDecision {
+        // 获取服务端所能产出的所有的MediaType
+        val producibleMediaTypes = key.producesCondition ?: getProducibleMediaTypes(messageConverters, key.valueType)
+
+        // 遍历客户端可以接收的所有类型的MediaType, 去判断我服务端当前能否产出?
+        val mediaTypesToUse = ArrayList<MediaType>()
+        for (requestType in key.acceptableMediaTypes) {
+            for (producibleMediaType in producibleMediaTypes) {
+
+                // 检查客户端想要的MediaType(Accept), 和服务端可以产生的MediaType(Content-Type)之间, 它们是否兼容?
+                // 例如"application/*"和"application/json"兼容, 和"application/xml"也兼容...
+                if (requestType.isCompatibleWith(producibleMediaType)) {
+                    mediaTypesToUse += getMostSpecificMediaType(requestType, producibleMediaType)
+                }
+            }
+        }
+
+        // 根据MediaType的具体程度以及权重去进行MediaType的排序
+        MediaType.sortBySpecificityAndQuality(mediaTypesToUse)
+
+        // 选取一个优先级最高的, 并且是具体的(不含"*"通配符)MediaType作为最终要去进行使用的MediaType
+        var selectedMediaType = mediaTypesToUse.firstOrNull { it.isConcrete } ?: return NegotiationDecision(null, null)
+
+        // remove quality value, such as "application/json;q=0.8"
+        selectedMediaType = selectedMediaType.removeQualityValue()
+        return NegotiationDecision(
+            selectedMediaType, findMessageConverter(messageConverters, key.valueType, selectedMediaType)
+        )
+    }
+
+    /**
+     * 遍历所有的MessageConverter, 挨个去判断它能否完成将当前的返回值类型写出成为指定的MediaType
+     *
+     * @param messageConverters MessageConverter列表
+     * @param valueType 返回值类型
+     * @param mediaType 要去进行写出的MediaType
+     * @return 第一个支持去进行写出的MessageConverter(如果不存在的话, return null)
+     */
+    @Nullable
+    private fun findMessageConverter(
+        messageConverters: List<HttpMessageConverter<*>>, valueType: Class<*>, mediaType: MediaType
+    ): HttpMessageConverter<*>? = messageConverters.firstOrNull { it.canWrite(valueType, mediaType) }
+
+    /**
+     * 获取内容协商结果的缓存, 如果MessageConverter列表已经发生了变化, 那么需要重新去创建缓存
+     *
+     * @return 内容协商结果的缓存
+     */
+    private fun getNegotiationCache(): ConcurrentLruCache<NegotiationKey, NegotiationDecision> {
+        var negotiationCache = this.negotiationCache
+        if (negotiationCache == null || !negotiationCache.isValidFor(this.messageConverters)) {
+            negotiationCache = NegotiationCache(ArrayList(this.messageConverters), this.negotiationCacheLimit)
+            this.negotiationCache = negotiationCache
+        }
+        return negotiationCache.decisions
+    }
+
+    /**
+     * 设置内容协商结果的缓存的最大数量限制, 默认为256, 设置为0时代表不使用缓存
+     *
+     * @param negotiationCacheLimit 缓存的最大数量限制
+     */
+    open fun setNegotiationCacheLimit(negotiationCacheLimit: Int) {
+        if (negotiationCacheLimit < 0) {
+            throw IllegalArgumentException("negotiationCacheLimit must not be negative")
+        }
+        this.negotiationCacheLimit = negotiationCacheLimit
+        this.negotiationCache = null
+    }
+
     /**
      * 创建[HttpOutputMessage]输出流, 处理请求时, 可以将要响应给客户端的数据写入到输出流当中, 后续请求当中, 自动完成写出
      *
@@ -180,10 +262,22 @@ abstract class AbstractMessageConverterMethodProcessor : AbstractMessageConverte
             return ArrayList(mediaTypes)
         }
 
-        // 2.如果在request当中没有找到预期要去进行产出的MediaType, 那么我们可以尝试去通过MessageConverter去进行腿短
-        // 遍历所有的MessageConverter去进行搜索它们所支持的MediaType, 完成最终可以产出的MediaType的统计工作
+        // 2.如果在request当中没有找到预期要去进行产出的MediaType, 那么我们可以尝试去通过MessageConverter去进行推断
+        return getProducibleMediaTypes(this.messageConverters, valueType)
+    }
+
+    /**
+     * 遍历所有的MessageConverter去进行搜索它们所支持的MediaType, 完成最终可以产出的MediaType的统计工作
+     *
+     * @param messageConverters MessageConverter列表
+     * @param valueType JavaBean类型, 交给MessageConverter去进行匹配(如果都不支持处理这样的JavaBean, 那么不需要被统计出来)
+     * @return 服务端能够产生的全部MediaType列表
+     */
+    private fun getProducibleMediaTypes(
+        messageConverters: List<HttpMessageConverter<*>>, valueType: Class<*>
+    ): List<MediaType> {
         val produceTypes = ArrayList<MediaType>()
-        this.messageConverters.forEach {
+        messageConverters.forEach {
             if (it.canWrite(valueType, null)) {
                 produceTypes += it.getSupportedMediaTypes(valueType)
             }
@@ -213,4 +307,64 @@ abstract class AbstractMessageConverterMethodProcessor : AbstractMessageConverte
     open fun setContentNegotiationManager(contentNegotiationManager: ContentNegotiationManager) {
         this.contentNegotiationManager = contentNegotiationManager
     }
-}
\ No newline at end of file
+
+    /**
+     * 内容协商的缓存Key
+     *
+     * @param acceptableMediaTypes 客户端可以接收的MediaType列表
+     * @param producesCondition 通过@RequestMapping的produces属性去配置的MediaType列表(没有配置的话为null)
+     * @param valueType 返回值类型
+     */
+    private data class NegotiationKey(
+        val acceptableMediaTypes: List<MediaType>,
+        @Nullable val producesCondition: List<MediaType>?,
+        val valueType: Class<*>
+    )
+
+    /**
+     * 内容协商的结果
+     *
+     * @param selectedMediaType 最终选择的MediaType(如果没有合适的, 为null)
+     * @param messageConverter 最终选择的MessageConverter(如果没有合适的, 为null)
+     */
+    private class NegotiationDecision(
+        @Nullable val selectedMediaType: MediaType?,
+        @Nullable val messageConverter: HttpMessageConverter<*>?
+    )
+
+    /**
+     * 内容协商结果的缓存, 和创建它时的MessageConverter列表绑定, 当MessageConverter列表发生变化时, 需要重新创建
+     *
+     * @param messageConverters 创建缓存时的MessageConverter列表的快照
+     * @param cacheLimit 缓存的最大数量限制
+     */
+    private inner class NegotiationCache(
+        private val messageConverters: List<HttpMessageConverter<*>>, cacheLimit: Int
+    ) {
+
+        /**
+         * 内容协商结果的缓存, 缓存不存在时, 使用快照当中的MessageConverter列表去进行内容协商
+         */
+        val decisions = ConcurrentLruCache<NegotiationKey, NegotiationDecision>(cacheLimit) {
+            negotiate(it, this.messageConverters)
+        }
+
+        /**
+         * 检查当前缓存对于给定的MessageConverter列表来说是否仍然有效?
+         *
+         * @param messageConverters 当前的MessageConverter列表
+         * @return 如果MessageConverter列表没有发生变化, return true; 否则return false
+         */
+        fun isValidFor(messageConverters: List<HttpMessageConverter<*>>): Boolean {
+            if (messageConverters.size != this.messageConverters.size) {
+                return false
+            }
+            for (index in messageConverters.indices) {
+                if (messageConverters[index] !== this.messageConverters[index]) {
+                    return false
+                }
+            }
+            return true
+        }
+    }
+}
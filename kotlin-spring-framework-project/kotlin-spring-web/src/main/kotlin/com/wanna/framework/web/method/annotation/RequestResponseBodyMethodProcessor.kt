@@ -85,7 +85,7 @@ open class RequestResponseBodyMethodProcessor(
     ): Any? {
 
         // 1.使用MessageConverter去对HTTP的请求体数据去进行读取, 并转换成为JavaBean
-        val arg = readWithMessageConverters<Any>(webRequest, parameter, parameter.getParameterType())
+        val arg = readWithMessageConverters<Any>(webRequest, parameter, parameter.getGenericParameterType())
         val name = parameter.getParameterName() ?: throw IllegalStateException("无法获取该方法参数上的参数名")
         if (binderFactory != null) {
             // 创建一个WebDataBinder
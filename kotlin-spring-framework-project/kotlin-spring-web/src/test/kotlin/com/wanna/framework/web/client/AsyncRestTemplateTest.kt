@@ -0,0 +1,147 @@
+package com.wanna.framework.web.client
+
+import com.sun.net.httpserver.HttpServer
+import com.wanna.framework.web.bind.annotation.RequestMethod
+import com.wanna.framework.web.http.client.AsyncClientHttpRequest
+import com.wanna.framework.web.http.client.AsyncClientHttpRequestFactory
+import com.wanna.framework.web.http.client.Netty4ClientHttpRequestFactory
+import com.wanna.framework.web.http.converter.json.MappingJackson2HttpMessageConverter
+import java.net.InetSocketAddress
+import java.net.URI
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * [AsyncRestTemplate]的测试, 基于JDK内置的HttpServer去启动一个本地的服务端, 使用[Netty4ClientHttpRequestFactory]去发送请求,
+ * 测试ResponseBody的提取会在responseExecutor当中去进行, 以及非[com.wanna.framework.web.http.client.ClientHttpRequest]的异步请求的适配
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ */
+class AsyncRestTemplateTest(private val baseUri: URI) {
+
+    companion object {
+
+        /**
+         * 去执行ResponseBody的提取的线程名
+         */
+        const val RESPONSE_THREAD_NAME = "async-rest-template-response"
+
+        /**
+         * 等待请求完成的超时时间(s)
+         */
+        private const val TIMEOUT = 10L
+    }
+
+    class User {
+        var name: String? = null
+        var age: Int = 0
+    }
+
+    /**
+     * 启动本地服务端, "/user"返回一个JSON, 其余的路径则将"请求方式+RequestBody"作为ResponseBody去进行返回
+     *
+     * @return HttpServer
+     */
+    fun startServer(): HttpServer {
+        val server = HttpServer.create(InetSocketAddress(baseUri.host, baseUri.port), 0)
+        server.executor = Executors.newCachedThreadPool()
+        server.createContext("/") { exchange ->
+            val requestBody = exchange.requestBody.use { String(it.readBytes()) }
+            val responseBody = if (exchange.requestURI.path == "/user") {
+                """{"name":"wanna","age":18}""".toByteArray()
+            } else {
+                "${exchange.requestMethod} $requestBody".trim().toByteArray()
+            }
+            exchange.sendResponseHeaders(200, responseBody.size.toLong())
+            exchange.responseBody.use { it.write(responseBody) }
+            exchange.close()
+        }
+        server.start()
+        return server
+    }
+
+    fun testExtractOnResponseExecutor(requestFactory: Netty4ClientHttpRequestFactory) {
+        val responseExecutor = Executors.newSingleThreadExecutor { Thread(it, RESPONSE_THREAD_NAME) }
+        try {
+            val asyncRestTemplate = AsyncRestTemplate(requestFactory)
+            asyncRestTemplate.setResponseExecutor(responseExecutor)
+
+            // JSON的反序列化在responseExecutor当中去进行, 而不是在Netty的EventLoop线程当中
+            var extractThread: String? = null
+            val converter = MappingJackson2HttpMessageConverter()
+            val future = asyncRestTemplate.execute(baseUri.resolve("/user"), RequestMethod.GET, null) {
+                extractThread = Thread.currentThread().name
+                converter.read(User::class.java, null, it) as User
+            }
+            val user = future.get(TIMEOUT, TimeUnit.SECONDS)!!
+            check(user.name == "wanna" && user.age == 18)
+            check(extractThread == RESPONSE_THREAD_NAME) { extractThread.toString() }
+
+            // 提取失败时, 异常会通过Future去进行传递
+            val failed = asyncRestTemplate.execute<Any>(baseUri.resolve("/user"), RequestMethod.GET, null) {
+                throw IllegalStateException("extract failed")
+            }
+            try {
+                failed.get(TIMEOUT, TimeUnit.SECONDS)
+                throw IllegalStateException("expected ExecutionException")
+            } catch (ex: ExecutionException) {
+                check(ex.cause?.message == "extract failed")
+            }
+        } finally {
+            responseExecutor.shutdownNow()
+        }
+    }
+
+    fun testAdaptedRequest(requestFactory: Netty4ClientHttpRequestFactory) {
+        // 只实现了AsyncClientHttpRequest的请求, 需要被适配成为ClientHttpRequest之后, 才能交给RequestCallback;
+        // Netty的请求只能被执行一次, 因此对于第二次执行, 需要重新去创建一个请求
+        val asyncRequestFactory = AsyncClientHttpRequestFactory { uri, method ->
+            val delegate = requestFactory.createAsyncRequest(uri, method)
+            val executions = AtomicInteger()
+            object : AsyncClientHttpRequest {
+                override fun executeAsync() = if (executions.getAndIncrement() == 0) delegate.executeAsync()
+                else requestFactory.createAsyncRequest(uri, method).executeAsync()
+
+                override fun getBody() = delegate.getBody()
+                override fun getHeaders() = delegate.getHeaders()
+                override fun getMethod() = delegate.getMethod()
+                override fun getURI() = delegate.getURI()
+            }
+        }
+        val asyncRestTemplate = AsyncRestTemplate(asyncRequestFactory)
+        val extractor = ResponseExtractor { String(it.getBody().readBytes()) }
+
+        // 通过适配之后的请求去写出RequestBody
+        val future = asyncRestTemplate.execute(baseUri.resolve("/echo"), RequestMethod.POST, {
+            it.getBody().write("hello".toByteArray())
+        }, extractor)
+        check(future.get(TIMEOUT, TimeUnit.SECONDS) == "POST hello")
+
+        // 在RequestCallback当中直接执行请求, 将会阻塞等待异步请求的完成
+        var executed: String? = null
+        val result = asyncRestTemplate.execute(baseUri.resolve("/echo"), RequestMethod.GET, {
+            executed = it.execute().use { response -> extractor.extractData(response) }
+        }, extractor)
+        check(executed == "GET")
+        check(result.get(TIMEOUT, TimeUnit.SECONDS) == "GET")
+    }
+}
+
+fun main() {
+    val test = AsyncRestTemplateTest(URI("http://127.0.0.1:18734"))
+    val server = test.startServer()
+    val requestFactory = Netty4ClientHttpRequestFactory()
+    try {
+        test.testExtractOnResponseExecutor(requestFactory)
+        test.testAdaptedRequest(requestFactory)
+    } finally {
+        requestFactory.destroy()
+        server.stop(0)
+        (server.executor as ExecutorService).shutdownNow()
+    }
+}
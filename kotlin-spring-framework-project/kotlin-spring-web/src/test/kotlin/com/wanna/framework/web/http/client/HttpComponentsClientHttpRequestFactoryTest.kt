@@ -0,0 +1,170 @@
+package com.wanna.framework.web.http.client
+
+import com.sun.net.httpserver.HttpServer
+import com.wanna.framework.web.bind.annotation.RequestMethod
+import com.wanna.framework.web.http.StreamingHttpOutputMessage
+import org.apache.http.conn.ConnectionPoolTimeoutException
+import java.net.InetSocketAddress
+import java.net.SocketTimeoutException
+import java.net.URI
+import java.util.*
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * [HttpComponentsClientHttpRequestFactory]的测试, 基于JDK内置的HttpServer去启动一个本地的服务端,
+ * 测试连接池的连接复用、单个路由的最大连接数量、读超时, 以及各种请求方式(包括以流的方式去写出RequestBody)
+ *
+ * @author jianchao.jia
+ * @version v1.0
+ * @date 2023/9/10
+ */
+class HttpComponentsClientHttpRequestFactoryTest(private val baseUri: URI) {
+
+    companion object {
+
+        /**
+         * 服务端处理慢请求时的耗时(ms)
+         */
+        const val SLOW_RESPONSE_TIME = 2000L
+    }
+
+    /**
+     * 服务端收到的请求的客户端端口, 用于判断连接是否被复用
+     */
+    private val clientPorts: MutableSet<Int> = Collections.synchronizedSet(HashSet())
+
+    /**
+     * 启动本地服务端, "/slow"会在[SLOW_RESPONSE_TIME]之后才返回, 其余的路径则将"请求方式+RequestBody"作为ResponseBody去进行返回
+     *
+     * @return HttpServer
+     */
+    fun startServer(): HttpServer {
+        val server = HttpServer.create(InetSocketAddress(baseUri.host, baseUri.port), 0)
+        server.executor = Executors.newCachedThreadPool()
+        server.createContext("/") { exchange ->
+            clientPorts += exchange.remoteAddress.port
+            if (exchange.requestURI.path == "/slow") {
+                Thread.sleep(SLOW_RESPONSE_TIME)
+            }
+            val requestBody = exchange.requestBody.use { String(it.readBytes()) }
+            val responseBody = "${exchange.requestMethod} $requestBody".trim().toByteArray()
+            if (exchange.requestMethod == "HEAD") {
+                exchange.sendResponseHeaders(200, -1)
+            } else {
+                exchange.sendResponseHeaders(200, responseBody.size.toLong())
+                exchange.responseBody.use { it.write(responseBody) }
+            }
+            exchange.close()
+        }
+        server.start()
+        return server
+    }
+
+    fun testConnectionReuse() {
+        val factory = HttpComponentsClientHttpRequestFactory()
+        try {
+            clientPorts.clear()
+            repeat(3) {
+                factory.createRequest(baseUri.resolve("/echo"), RequestMethod.GET).execute().use { response ->
+                    check(response.getStatusCode() == 200)
+                    check(String(response.getBody().readBytes()) == "GET")
+                }
+                val stats = factory.getPoolStats()!!
+                check(stats.leased == 0 && stats.available == 1) { stats }
+            }
+            check(clientPorts.size == 1) { "connection is not reused: $clientPorts" }
+            check(factory.getPoolStats(baseUri)!!.available == 1)
+        } finally {
+            factory.destroy()
+        }
+    }
+
+    fun testMaxConnPerRoute() {
+        val factory = HttpComponentsClientHttpRequestFactory()
+        factory.setMaxConnPerRoute(baseUri, 1)
+        factory.connectionRequestTimeout = 200
+        try {
+            // 第一个请求的Response还没有关闭, 连接没有被归还, 第二个请求获取不到连接
+            val response = factory.createRequest(baseUri.resolve("/echo"), RequestMethod.GET).execute()
+            check(factory.getPoolStats(baseUri)!!.leased == 1)
+            try {
+                factory.createRequest(baseUri.resolve("/echo"), RequestMethod.GET).execute()
+                throw IllegalStateException("expected ConnectionPoolTimeoutException")
+            } catch (ex: ConnectionPoolTimeoutException) {
+                // expected
+            }
+
+            // 关闭Response之后, 连接被归还, 就可以被第二个请求所使用了
+            response.close()
+            factory.createRequest(baseUri.resolve("/echo"), RequestMethod.GET).execute().use {
+                check(it.getStatusCode() == 200)
+            }
+        } finally {
+            factory.destroy()
+        }
+    }
+
+    fun testReadTimeout() {
+        val factory = HttpComponentsClientHttpRequestFactory()
+        factory.readTimeout = 200
+        try {
+            val start = System.currentTimeMillis()
+            try {
+                factory.createRequest(baseUri.resolve("/slow"), RequestMethod.GET).execute()
+                throw IllegalStateException("expected SocketTimeoutException")
+            } catch (ex: SocketTimeoutException) {
+                check(System.currentTimeMillis() - start < SLOW_RESPONSE_TIME)
+            }
+        } finally {
+            factory.destroy()
+        }
+    }
+
+    fun testRequestMethods(bufferRequestBody: Boolean) {
+        val factory = HttpComponentsClientHttpRequestFactory()
+        factory.bufferRequestBody = bufferRequestBody
+        try {
+            for (method in RequestMethod.values()) {
+                val request = factory.createRequest(baseUri.resolve("/echo"), method)
+                check(request.getMethod() == method)
+                val hasBody = method == RequestMethod.POST || method == RequestMethod.PUT
+                        || method == RequestMethod.PATCH || method == RequestMethod.DELETE
+                if (hasBody) {
+                    if (bufferRequestBody) {
+                        request.getBody().write("body".toByteArray())
+                    } else {
+                        (request as StreamingHttpOutputMessage).setBody { it.write("body".toByteArray()) }
+                    }
+                }
+                request.execute().use { response ->
+                    check(response.getStatusCode() == 200)
+                    val expected = when {
+                        method == RequestMethod.HEAD -> ""
+                        hasBody -> "${method.name} body"
+                        else -> method.name
+                    }
+                    val actual = String(response.getBody().readBytes())
+                    check(actual == expected) { "$method: expected [$expected], but was [$actual]" }
+                }
+            }
+        } finally {
+            factory.destroy()
+        }
+    }
+}
+
+fun main() {
+    val test = HttpComponentsClientHttpRequestFactoryTest(URI("http://127.0.0.1:18733"))
+    val server = test.startServer()
+    try {
+        test.testConnectionReuse()
+        test.testMaxConnPerRoute()
+        test.testReadTimeout()
+        test.testRequestMethods(true)
+        test.testRequestMethods(false)
+    } finally {
+        server.stop(0)
+        (server.executor as ExecutorService).shutdownNow()
+    }
+}